@@ -0,0 +1,111 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.concurrent.BraveCompletionStage;
+import com.twitter.zipkin.gen.Endpoint;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import zipkin.reporter.Reporter;
+
+/**
+ * Runs a chain of async {@link CompletableFuture} stages, each reading the current span. This compares wrapping every
+ * stage's task with {@link BraveExecutorService} to capturing the spans once with {@link BraveCompletionStage}.
+ *
+ * <p>Tasks run on the calling thread, so that the numbers show tracing overhead rather than thread hand-off.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 10, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class CompletionStageBenchmarks {
+  static final int STAGES = 10;
+  static final Endpoint ENDPOINT = Endpoint.create("app", 172 << 24 | 17 << 16 | 3, 8080);
+
+  final ExecutorService directExecutor = new DirectExecutorService();
+  final Brave brave = new Brave.Builder(new ThreadContextServerClientAndLocalSpanState(ENDPOINT))
+      .reporter(Reporter.NOOP).build();
+  final ExecutorService braveExecutor = BraveExecutorService.wrap(directExecutor, brave);
+
+  @Setup public void startSpan() {
+    brave.serverTracer().setStateCurrentTrace(1L, 2L, null, "get");
+    brave.localTracer().startNewSpan("component", "operation");
+  }
+
+  @Benchmark public Object untraced() {
+    return chain(CompletableFuture.completedFuture(0), directExecutor);
+  }
+
+  @Benchmark public Object braveExecutorService() {
+    return chain(CompletableFuture.completedFuture(0), braveExecutor);
+  }
+
+  @Benchmark public Object braveCompletionStage() {
+    return chain(BraveCompletionStage.wrap(CompletableFuture.completedFuture(0), brave),
+        directExecutor);
+  }
+
+  Object chain(CompletionStage<Integer> stage, ExecutorService executor) {
+    for (int i = 0; i < STAGES; i++) {
+      stage = stage.thenApplyAsync(this::next, executor);
+    }
+    return stage.toCompletableFuture().join();
+  }
+
+  Integer next(Integer i) {
+    return brave.localSpanThreadBinder().getCurrentLocalSpan() != null ? i + 1 : i;
+  }
+
+  static final class DirectExecutorService extends AbstractExecutorService {
+    @Override public void execute(Runnable command) {
+      command.run();
+    }
+
+    @Override public void shutdown() {
+    }
+
+    @Override public List<Runnable> shutdownNow() {
+      return Collections.emptyList();
+    }
+
+    @Override public boolean isShutdown() {
+      return false;
+    }
+
+    @Override public boolean isTerminated() {
+      return false;
+    }
+
+    @Override public boolean awaitTermination(long timeout, TimeUnit unit) {
+      return false;
+    }
+  }
+
+  // Convenience main entry-point
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(".*" + CompletionStageBenchmarks.class.getSimpleName() + ".*")
+        .build();
+
+    new Runner(opt).run();
+  }
+}
@@ -14,17 +14,24 @@ import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
 import org.openjdk.jmh.runner.options.Options;
 import org.openjdk.jmh.runner.options.OptionsBuilder;
 
 import com.github.kristofa.brave.http.BraveHttpHeaders;
+import com.github.kristofa.brave.http.DefaultSpanNameProvider;
 import com.github.kristofa.brave.http.HttpRequest;
 import com.github.kristofa.brave.http.HttpServerRequest;
 import com.github.kristofa.brave.http.HttpServerRequestAdapter;
 import com.github.kristofa.brave.http.SpanNameProvider;
 
+/**
+ * Run with {@code -prof gc} to see allocation per request. Parsing itself doesn't allocate, so
+ * {@link #notSampled} should report zero bytes/op, and {@link #sampledWithIds} only the
+ * {@link SpanId} and {@link TraceData} it returns.
+ */
 @Measurement(iterations = 5, time = 1)
 @Warmup(iterations = 5, time = 1)
 @Fork(3)
@@ -81,15 +88,65 @@ public class HttpServerRequestAdapterBenchmark {
         final HttpServerRequestAdapter adapter = new HttpServerRequestAdapter(request, nameProvider);
     }
 
+    @State(Scope.Benchmark)
+    public static class FixedHeaders {
+        final HttpServerRequestAdapter sampledWithIds = new HttpServerRequestAdapter(
+            new FixedHeadersRequest("1", "48485a3953bb6124", "8000000000000000", "bf38b90488a1e481"),
+            new DefaultSpanNameProvider());
+        final HttpServerRequestAdapter notSampled = new HttpServerRequestAdapter(
+            new FixedHeadersRequest("0", null, null, null), new DefaultSpanNameProvider());
+    }
+
     @Benchmark
     public TraceData httpServerRequestAdapter(Data data) {
         return data.adapter.getTraceData();
     }
 
+    @Benchmark
+    public TraceData sampledWithIds(FixedHeaders headers) {
+        return headers.sampledWithIds.getTraceData();
+    }
+
+    @Benchmark
+    public TraceData notSampled(FixedHeaders headers) {
+        return headers.notSampled.getTraceData();
+    }
+
+    static final class FixedHeadersRequest implements HttpServerRequest {
+        final String sampled, traceId, parentSpanId, spanId;
+
+        FixedHeadersRequest(String sampled, String traceId, String parentSpanId, String spanId) {
+            this.sampled = sampled;
+            this.traceId = traceId;
+            this.parentSpanId = parentSpanId;
+            this.spanId = spanId;
+        }
+
+        @Override
+        public String getHttpHeaderValue(String headerName) {
+            if (BraveHttpHeaders.Sampled.getName().equals(headerName)) return sampled;
+            if (BraveHttpHeaders.TraceId.getName().equals(headerName)) return traceId;
+            if (BraveHttpHeaders.ParentSpanId.getName().equals(headerName)) return parentSpanId;
+            if (BraveHttpHeaders.SpanId.getName().equals(headerName)) return spanId;
+            return null;
+        }
+
+        @Override
+        public URI getUri() {
+            return URI.create("http://localhost");
+        }
+
+        @Override
+        public String getHttpMethod() {
+            return "GET";
+        }
+    }
+
     // Convenience main entry-point
     public static void main(String[] args) throws RunnerException {
         Options opt = new OptionsBuilder()
                 .include(".*" + HttpServerRequestAdapterBenchmark.class.getSimpleName() + ".*")
+                .addProfiler(GCProfiler.class)
                 .build();
 
         new Runner(opt).run();
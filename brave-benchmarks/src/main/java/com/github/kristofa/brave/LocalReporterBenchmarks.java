@@ -0,0 +1,99 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.internal.InternalSpan;
+import com.github.kristofa.brave.local.LocalReporter;
+import com.github.kristofa.brave.local.LocalSpanCollector;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import zipkin.Annotation;
+import zipkin.BinaryAnnotation;
+import zipkin.Constants;
+import zipkin.Endpoint;
+import zipkin.Span;
+import zipkin.storage.InMemoryStorage;
+
+/**
+ * Reports a batch of spans recorded by Brave, then flushes them into in-memory storage. This
+ * compares {@link LocalSpanCollector}, which Brave reaches through a {@link
+ * SpanCollectorReporterAdapter}, to {@link LocalReporter}, which stores the spans as-is.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 10, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class LocalReporterBenchmarks {
+  static {
+    InternalSpan.initializeInstanceForTests();
+  }
+
+  static final int BATCH_SIZE = 100;
+  static final Endpoint LOCAL_ENDPOINT = Endpoint.create("app", 172 << 24 | 17 << 16 | 3, 8080);
+  static final Span SPAN = Span.builder()
+      .traceId(1L).id(2L).parentId(1L).name("get")
+      .timestamp(1472470996199000L).duration(207000L)
+      .addAnnotation(Annotation.create(1472470996199000L, Constants.SERVER_RECV, LOCAL_ENDPOINT))
+      .addAnnotation(Annotation.create(1472470996406000L, Constants.SERVER_SEND, LOCAL_ENDPOINT))
+      .addBinaryAnnotation(BinaryAnnotation.create("http.path", "/api", LOCAL_ENDPOINT))
+      .build();
+
+  final InMemoryStorage storage = new InMemoryStorage();
+  final LocalSpanCollector collector = LocalSpanCollector.create(storage,
+      LocalSpanCollector.Config.builder().flushInterval(0).build(),
+      new EmptySpanCollectorMetricsHandler());
+  final SpanCollectorReporterAdapter adapter = new SpanCollectorReporterAdapter(collector);
+  final LocalReporter reporter = LocalReporter.create(storage,
+      LocalReporter.Config.builder().flushInterval(0).build(),
+      new EmptySpanCollectorMetricsHandler());
+
+  @TearDown public void close() {
+    collector.close();
+    reporter.close();
+  }
+
+  @Benchmark public int localSpanCollector() {
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      adapter.report(SPAN);
+    }
+    collector.flush();
+    return clear();
+  }
+
+  @Benchmark public int localReporter() {
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      reporter.report(SPAN);
+    }
+    reporter.flush();
+    return clear();
+  }
+
+  /** Keeps storage from growing across invocations */
+  int clear() {
+    int result = storage.acceptedSpanCount();
+    storage.clear();
+    return result;
+  }
+
+  // Convenience main entry-point
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(".*" + LocalReporterBenchmarks.class.getSimpleName() + ".*")
+        .build();
+
+    new Runner(opt).run();
+  }
+}
@@ -0,0 +1,135 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Span;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the pending queues of {@link FlushingSpanCollector} when 1, 8 or 32 request threads
+ * collect spans while a single thread flushes them. The "collect" score of each group is the
+ * throughput seen by request threads, which is what an application pays for tracing.
+ *
+ * <p>Spans are reported to nowhere, so this measures only the hand-off between threads. When the
+ * flushing thread falls behind, spans are dropped, which is also counted as a collect operation.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 10, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PendingQueueBenchmarks {
+  static final Span SPAN = Brave.toSpan(SpanId.builder().traceId(1L).spanId(1L).build());
+
+  static final class NoopCollector extends FlushingSpanCollector {
+    NoopCollector(PendingQueue pendingQueue) {
+      super(new EmptySpanCollectorMetricsHandler(), 0, pendingQueue);
+    }
+
+    @Override protected void reportSpans(List<Span> drained) {
+    }
+  }
+
+  @State(Scope.Group)
+  public static class Linked {
+    final FlushingSpanCollector collector = new NoopCollector(FlushingSpanCollector.PendingQueue.LINKED);
+
+    @TearDown public void close() {
+      collector.close();
+    }
+  }
+
+  @State(Scope.Group)
+  public static class RingBuffer {
+    final FlushingSpanCollector collector =
+        new NoopCollector(FlushingSpanCollector.PendingQueue.RING_BUFFER);
+
+    @TearDown public void close() {
+      collector.close();
+    }
+  }
+
+  @Benchmark @Group("linked_1") @GroupThreads(1)
+  public void linked_1_collect(Linked state) {
+    state.collector.collect(SPAN);
+  }
+
+  @Benchmark @Group("linked_1") @GroupThreads(1)
+  public void linked_1_flush(Linked state) {
+    state.collector.flush();
+  }
+
+  @Benchmark @Group("linked_8") @GroupThreads(8)
+  public void linked_8_collect(Linked state) {
+    state.collector.collect(SPAN);
+  }
+
+  @Benchmark @Group("linked_8") @GroupThreads(1)
+  public void linked_8_flush(Linked state) {
+    state.collector.flush();
+  }
+
+  @Benchmark @Group("linked_32") @GroupThreads(32)
+  public void linked_32_collect(Linked state) {
+    state.collector.collect(SPAN);
+  }
+
+  @Benchmark @Group("linked_32") @GroupThreads(1)
+  public void linked_32_flush(Linked state) {
+    state.collector.flush();
+  }
+
+  @Benchmark @Group("ringBuffer_1") @GroupThreads(1)
+  public void ringBuffer_1_collect(RingBuffer state) {
+    state.collector.collect(SPAN);
+  }
+
+  @Benchmark @Group("ringBuffer_1") @GroupThreads(1)
+  public void ringBuffer_1_flush(RingBuffer state) {
+    state.collector.flush();
+  }
+
+  @Benchmark @Group("ringBuffer_8") @GroupThreads(8)
+  public void ringBuffer_8_collect(RingBuffer state) {
+    state.collector.collect(SPAN);
+  }
+
+  @Benchmark @Group("ringBuffer_8") @GroupThreads(1)
+  public void ringBuffer_8_flush(RingBuffer state) {
+    state.collector.flush();
+  }
+
+  @Benchmark @Group("ringBuffer_32") @GroupThreads(32)
+  public void ringBuffer_32_collect(RingBuffer state) {
+    state.collector.collect(SPAN);
+  }
+
+  @Benchmark @Group("ringBuffer_32") @GroupThreads(1)
+  public void ringBuffer_32_flush(RingBuffer state) {
+    state.collector.flush();
+  }
+
+  // Convenience main entry-point
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(".*" + PendingQueueBenchmarks.class.getSimpleName() + ".*")
+        .build();
+
+    new Runner(opt).run();
+  }
+}
@@ -0,0 +1,101 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import zipkin.reporter.Reporter;
+
+/**
+ * Compares the default recorder, which synchronizes on each span, with the lock-free one, with
+ * and without recycling span records. Run with {@code -prof gc} to see allocation per span.
+ *
+ * <p>The "lifecycle" benchmarks record a typical server span on a single thread, which is the
+ * common case. The "shared" benchmarks have several threads write to the same span, as happens when
+ * async handlers annotate a request. These only overwrite fields, so the span doesn't grow for the
+ * duration of the benchmark.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 10, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class RecorderBenchmarks {
+  static final Endpoint ENDPOINT = Endpoint.create("service", 127 << 24 | 1);
+  static final AnnotationSubmitter.Clock CLOCK = new AnnotationSubmitter.DefaultClock();
+  static final SpanId CONTEXT = SpanId.builder().traceId(1L).spanId(1L).sampled(true).build();
+
+  static final Recorder DEFAULT = new AutoValue_Recorder_Default(
+      ENDPOINT, CLOCK, Reporter.NOOP, SpanLimits.UNLIMITED);
+  static final Recorder LOCK_FREE =
+      new AutoValue_Recorder_LockFree(ENDPOINT, CLOCK, Reporter.NOOP, SpanLimits.UNLIMITED, null);
+  static final Recorder POOLED =
+      new AutoValue_Recorder_LockFree(
+          ENDPOINT, CLOCK, Reporter.NOOP, SpanLimits.UNLIMITED, new SpanRecordPool(false));
+
+  @State(Scope.Benchmark)
+  public static class SharedSpan {
+    final Span span = Brave.toSpan(CONTEXT);
+  }
+
+  @Benchmark @Threads(1)
+  public Span lifecycle_default() {
+    return lifecycle(DEFAULT);
+  }
+
+  @Benchmark @Threads(1)
+  public Span lifecycle_lockFree() {
+    return lifecycle(LOCK_FREE);
+  }
+
+  @Benchmark @Threads(1)
+  public Span lifecycle_pooled() {
+    return lifecycle(POOLED);
+  }
+
+  @Benchmark @Threads(4)
+  public void shared_default(SharedSpan shared) {
+    DEFAULT.name(shared.span, "get");
+    DEFAULT.start(shared.span, 1L);
+  }
+
+  @Benchmark @Threads(4)
+  public void shared_lockFree(SharedSpan shared) {
+    LOCK_FREE.name(shared.span, "get");
+    LOCK_FREE.start(shared.span, 1L);
+  }
+
+  static Span lifecycle(Recorder recorder) {
+    Span span = Brave.toSpan(CONTEXT);
+    recorder.name(span, "get");
+    recorder.start(span, Recorder.SpanKind.SERVER);
+    recorder.tag(span, "http.path", "/api");
+    recorder.annotate(span, "wire.recv");
+    recorder.tag(span, "http.status_code", "200");
+    recorder.finish(span, Recorder.SpanKind.SERVER);
+    return span;
+  }
+
+  // Convenience main entry-point
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(".*" + RecorderBenchmarks.class.getSimpleName() + ".*")
+        .build();
+
+    new Runner(opt).run();
+  }
+}
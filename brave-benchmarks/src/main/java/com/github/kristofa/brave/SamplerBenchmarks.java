@@ -1,5 +1,6 @@
 package com.github.kristofa.brave;
 
+import java.util.BitSet;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
 import org.openjdk.jmh.annotations.Benchmark;
@@ -87,6 +88,62 @@ public class SamplerBenchmarks {
 
   static final Sampler TRACE_ID_SAMPLER_COUNTING = CountingSampler.create(SAMPLE_RATE);
 
+  /**
+   * Shows how the counting sampler scales when all cores make sampling decisions at the same time,
+   * such as an edge server starting traces on each request thread.
+   */
+  @Benchmark @Threads(4)
+  public boolean sampler_counting_4Threads(Args args) {
+    return TRACE_ID_SAMPLER_COUNTING.isSampled(args.traceId);
+  }
+
+  @Benchmark @Threads(16)
+  public boolean sampler_counting_16Threads(Args args) {
+    return TRACE_ID_SAMPLER_COUNTING.isSampled(args.traceId);
+  }
+
+  /**
+   * The counting sampler used to guard its counter with a monitor. This is here to compare
+   * contention against the atomic counter.
+   */
+  @Benchmark @Threads(4)
+  public boolean compare_synchronizedCounting_4Threads(Args args) {
+    return SYNCHRONIZED_COUNTING.isSampled(args.traceId);
+  }
+
+  @Benchmark @Threads(16)
+  public boolean compare_synchronizedCounting_16Threads(Args args) {
+    return SYNCHRONIZED_COUNTING.isSampled(args.traceId);
+  }
+
+  static final Sampler SYNCHRONIZED_COUNTING = new Sampler() {
+    final BitSet sampleDecisions =
+        CountingSampler.randomBitSet(100, (int) (SAMPLE_RATE * 100), new Random());
+    int i; // guarded by this
+
+    @Override public synchronized boolean isSampled(long traceIdIgnored) {
+      boolean result = sampleDecisions.get(i++);
+      if (i == 100) i = 0;
+      return result;
+    }
+  };
+
+  /**
+   * This measures the rate limiting sampler provided with brave-core. The rate is high enough
+   * that the benchmark measures admitted traces, not the rejection path.
+   */
+  @Benchmark
+  public boolean sampler_rateLimiting(Args args) {
+    return TRACE_ID_SAMPLER_RATE_LIMITING.isSampled(args.traceId);
+  }
+
+  @Benchmark @Threads(4)
+  public boolean sampler_rateLimiting_4Threads(Args args) {
+    return TRACE_ID_SAMPLER_RATE_LIMITING.isSampled(args.traceId);
+  }
+
+  static final Sampler TRACE_ID_SAMPLER_RATE_LIMITING = RateLimitingSampler.create(1000000000);
+
   /**
    * Finagle's scala sampler samples using modulo 10000 arithmetic, which allows a minimum sample
    * rate of 0.01%.
@@ -0,0 +1,80 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.internal.DefaultSpanCodec;
+import com.github.kristofa.brave.internal.DirectSpanCodec;
+import com.twitter.zipkin.gen.Annotation;
+import com.twitter.zipkin.gen.BinaryAnnotation;
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import zipkin.Constants;
+
+/**
+ * Compares encoding via a {@link zipkin.Span} copy with writing {@link Span} directly. Run with
+ * {@code -prof gc} to see the difference in allocation.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 10, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Threads(1)
+public class SpanCodecBenchmarks {
+  static final Endpoint WEB = Endpoint.builder()
+      .serviceName("web").ipv4(124 << 24 | 13 << 16 | 90 << 8 | 3).port(80).build();
+  static final Endpoint BROWSER = Endpoint.create("browser-client", 1 << 24 | 2 << 16 | 3);
+
+  static final Span SERVER_SPAN = Brave.toSpan(SpanId.builder().traceId(1L).spanId(2L).build())
+      .setName("get")
+      .setTimestamp(1444438900939000L)
+      .setDuration(376000L)
+      .addToAnnotations(Annotation.create(1444438900939000L, Constants.SERVER_RECV, WEB))
+      .addToAnnotations(Annotation.create(1444438901315000L, Constants.SERVER_SEND, WEB))
+      .addToBinary_annotations(BinaryAnnotation.address(Constants.CLIENT_ADDR, BROWSER))
+      .addToBinary_annotations(BinaryAnnotation.create("http.path", "/api/v1/users", WEB));
+
+  @Benchmark
+  public byte[] writeSpan_json_default() {
+    return DefaultSpanCodec.JSON.writeSpan(SERVER_SPAN);
+  }
+
+  @Benchmark
+  public byte[] writeSpan_json_direct() {
+    return DirectSpanCodec.JSON.writeSpan(SERVER_SPAN);
+  }
+
+  @Benchmark
+  public byte[] writeSpan_thrift_default() {
+    return DefaultSpanCodec.THRIFT.writeSpan(SERVER_SPAN);
+  }
+
+  @Benchmark
+  public byte[] writeSpan_thrift_direct() {
+    return DirectSpanCodec.THRIFT.writeSpan(SERVER_SPAN);
+  }
+
+  // Convenience main entry-point
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(".*" + SpanCodecBenchmarks.class.getSimpleName() + ".*")
+        .addProfiler("gc")
+        .build();
+
+    new Runner(opt).run();
+  }
+}
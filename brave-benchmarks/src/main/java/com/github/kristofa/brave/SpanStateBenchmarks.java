@@ -0,0 +1,83 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.ThreadContextServerClientAndLocalSpanState.Snapshot;
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import zipkin.reporter.Reporter;
+
+/**
+ * Compares the cost of moving spans across threads with {@link ThreadLocalServerClientAndLocalSpanState}, which keeps a
+ * ThreadLocal per span, to {@link ThreadContextServerClientAndLocalSpanState}, which keeps one per thread.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 10, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class SpanStateBenchmarks {
+  static final Endpoint ENDPOINT = Endpoint.create("app", 172 << 24 | 17 << 16 | 3, 8080);
+  static final Runnable NOOP = () -> {
+  };
+
+  final Brave threadLocalBrave =
+      new Brave.Builder(new ThreadLocalServerClientAndLocalSpanState(ENDPOINT))
+          .reporter(Reporter.NOOP).build();
+  final ThreadContextServerClientAndLocalSpanState contextState =
+      new ThreadContextServerClientAndLocalSpanState(ENDPOINT);
+  final Brave threadContextBrave =
+      new Brave.Builder(contextState).reporter(Reporter.NOOP).build();
+
+  @Setup public void startSpans() {
+    for (Brave brave : new Brave[] {threadLocalBrave, threadContextBrave}) {
+      brave.serverTracer().setStateCurrentTrace(1L, 2L, null, "get");
+      brave.localTracer().startNewSpan("component", "operation");
+    }
+  }
+
+  /** What {@link BraveRunnable} did before: a lookup to get, then set, each span. */
+  @Benchmark public void saveRestore_threadLocal() {
+    ServerSpanThreadBinder serverBinder = threadLocalBrave.serverSpanThreadBinder();
+    LocalSpanThreadBinder localBinder = threadLocalBrave.localSpanThreadBinder();
+    ServerSpan serverSpan = serverBinder.getCurrentServerSpan();
+    Span localSpan = localBinder.getCurrentLocalSpan();
+    serverBinder.setCurrentSpan(serverSpan);
+    localBinder.setCurrentSpan(localSpan);
+  }
+
+  @Benchmark public Snapshot saveRestore_threadContext() {
+    return contextState.restore(contextState.snapshot());
+  }
+
+  @Benchmark public void wrapAndRun_threadLocal() {
+    BraveRunnable.wrap(NOOP, threadLocalBrave).run();
+  }
+
+  @Benchmark public void wrapAndRun_threadContext() {
+    BraveRunnable.wrap(NOOP, threadContextBrave).run();
+  }
+
+  // Convenience main entry-point
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(".*" + SpanStateBenchmarks.class.getSimpleName() + ".*")
+        .build();
+
+    new Runner(opt).run();
+  }
+}
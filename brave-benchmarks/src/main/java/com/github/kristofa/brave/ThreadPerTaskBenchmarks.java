@@ -0,0 +1,90 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Endpoint;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import zipkin.reporter.Reporter;
+
+/**
+ * Starts a batch of short-lived threads, each reading the span of the thread that started it, while that thread is
+ * inside nested local spans. This compares the span states which pass spans to new threads. Run with {@code -prof gc}
+ * to compare memory allocated per batch.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 10, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class ThreadPerTaskBenchmarks {
+  static final int THREADS = 100;
+  static final Endpoint ENDPOINT = Endpoint.create("app", 172 << 24 | 17 << 16 | 3, 8080);
+
+  final InheritableServerClientAndLocalSpanState inheritableState =
+      new InheritableServerClientAndLocalSpanState(ENDPOINT);
+  final ScopedServerClientAndLocalSpanState scopedState =
+      new ScopedServerClientAndLocalSpanState(ENDPOINT);
+  final Brave inheritableBrave = new Brave.Builder(inheritableState).reporter(Reporter.NOOP).build();
+  final Brave scopedBrave = new Brave.Builder(scopedState).reporter(Reporter.NOOP).build();
+  final Brave threadContextBrave =
+      new Brave.Builder(new ThreadContextServerClientAndLocalSpanState(ENDPOINT))
+          .reporter(Reporter.NOOP).build();
+
+  @Setup public void startSpans() {
+    for (Brave brave : new Brave[] {inheritableBrave, scopedBrave, threadContextBrave}) {
+      brave.serverTracer().setStateCurrentTrace(1L, 2L, null, "get");
+      for (int i = 0; i < 3; i++) {
+        brave.localTracer().startNewSpan("component", "operation" + i);
+      }
+    }
+  }
+
+  @Benchmark public void inheritableState() throws InterruptedException {
+    runInNewThreads(() -> inheritableState.getCurrentLocalSpan(), false, inheritableBrave);
+  }
+
+  @Benchmark public void scopedState() throws InterruptedException {
+    runInNewThreads(() -> scopedState.getCurrentLocalSpan(), false, scopedBrave);
+  }
+
+  /** The state isn't inherited, so each task is wrapped to carry it */
+  @Benchmark public void threadContextState_wrapped() throws InterruptedException {
+    runInNewThreads(() -> threadContextBrave.localSpanThreadBinder().getCurrentLocalSpan(), true,
+        threadContextBrave);
+  }
+
+  static void runInNewThreads(Runnable task, boolean wrap, Brave brave)
+      throws InterruptedException {
+    Thread[] threads = new Thread[THREADS];
+    for (int i = 0; i < THREADS; i++) {
+      threads[i] = new Thread(wrap ? BraveRunnable.wrap(task, brave) : task);
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+  }
+
+  // Convenience main entry-point
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(".*" + ThreadPerTaskBenchmarks.class.getSimpleName() + ".*")
+        .addProfiler("gc")
+        .build();
+
+    new Runner(opt).run();
+  }
+}
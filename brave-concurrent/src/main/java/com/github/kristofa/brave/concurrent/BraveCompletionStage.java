@@ -0,0 +1,300 @@
+package com.github.kristofa.brave.concurrent;
+
+import com.github.kristofa.brave.Brave;
+import com.github.kristofa.brave.CapturedSpans;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+
+/**
+ * {@link CompletionStage} which runs every dependent action with the spans that were current when the pipeline was
+ * {@link #wrap(CompletionStage, Brave) wrapped}, regardless of the thread that completes the stage.
+ *
+ * <p>The spans are captured once per pipeline: stages derived from this one share them. Each action swaps them in and
+ * back out again, which is a single lookup when Brave is built with {@link
+ * com.github.kristofa.brave.ThreadContextServerClientAndLocalSpanState}.
+ *
+ * <pre>{@code
+ * BraveCompletionStage.wrap(client.sendAsync(request), brave)
+ *     .thenApplyAsync(this::parse, executor)
+ *     .thenAccept(this::store); // both actions see the span current at wrap time
+ * }</pre>
+ *
+ * <p>{@link #toCompletableFuture()} returns the underlying future, so stages derived from it aren't traced.
+ *
+ * @since 3.18
+ */
+public final class BraveCompletionStage<T> implements CompletionStage<T> {
+
+  /** Captures the current spans, so that actions of this stage and those derived from it use them. */
+  public static <T> BraveCompletionStage<T> wrap(CompletionStage<T> delegate, Brave brave) {
+    return wrap(delegate, CapturedSpans.capture(brave));
+  }
+
+  /** Like {@link #wrap(CompletionStage, Brave)}, except with spans already captured. */
+  public static <T> BraveCompletionStage<T> wrap(CompletionStage<T> delegate, CapturedSpans spans) {
+    if (delegate instanceof BraveCompletionStage
+        && ((BraveCompletionStage<T>) delegate).spans == spans) {
+      return (BraveCompletionStage<T>) delegate;
+    }
+    return new BraveCompletionStage<>(checkNotNull(delegate, "delegate"), checkNotNull(spans, "spans"));
+  }
+
+  final CompletionStage<T> delegate;
+  final CapturedSpans spans;
+
+  BraveCompletionStage(CompletionStage<T> delegate, CapturedSpans spans) {
+    this.delegate = delegate;
+    this.spans = spans;
+  }
+
+  <U> BraveCompletionStage<U> next(CompletionStage<U> stage) {
+    return new BraveCompletionStage<>(stage, spans);
+  }
+
+  @Override public <U> BraveCompletionStage<U> thenApply(Function<? super T, ? extends U> fn) {
+    return next(delegate.thenApply(wrap(fn)));
+  }
+
+  @Override public <U> BraveCompletionStage<U> thenApplyAsync(Function<? super T, ? extends U> fn) {
+    return next(delegate.thenApplyAsync(wrap(fn)));
+  }
+
+  @Override public <U> BraveCompletionStage<U> thenApplyAsync(Function<? super T, ? extends U> fn,
+      Executor executor) {
+    return next(delegate.thenApplyAsync(wrap(fn), executor));
+  }
+
+  @Override public BraveCompletionStage<Void> thenAccept(Consumer<? super T> action) {
+    return next(delegate.thenAccept(wrap(action)));
+  }
+
+  @Override public BraveCompletionStage<Void> thenAcceptAsync(Consumer<? super T> action) {
+    return next(delegate.thenAcceptAsync(wrap(action)));
+  }
+
+  @Override public BraveCompletionStage<Void> thenAcceptAsync(Consumer<? super T> action,
+      Executor executor) {
+    return next(delegate.thenAcceptAsync(wrap(action), executor));
+  }
+
+  @Override public BraveCompletionStage<Void> thenRun(Runnable action) {
+    return next(delegate.thenRun(wrap(action)));
+  }
+
+  @Override public BraveCompletionStage<Void> thenRunAsync(Runnable action) {
+    return next(delegate.thenRunAsync(wrap(action)));
+  }
+
+  @Override public BraveCompletionStage<Void> thenRunAsync(Runnable action, Executor executor) {
+    return next(delegate.thenRunAsync(wrap(action), executor));
+  }
+
+  @Override public <U, V> BraveCompletionStage<V> thenCombine(CompletionStage<? extends U> other,
+      BiFunction<? super T, ? super U, ? extends V> fn) {
+    return next(delegate.thenCombine(other, wrap(fn)));
+  }
+
+  @Override public <U, V> BraveCompletionStage<V> thenCombineAsync(
+      CompletionStage<? extends U> other, BiFunction<? super T, ? super U, ? extends V> fn) {
+    return next(delegate.thenCombineAsync(other, wrap(fn)));
+  }
+
+  @Override public <U, V> BraveCompletionStage<V> thenCombineAsync(
+      CompletionStage<? extends U> other, BiFunction<? super T, ? super U, ? extends V> fn,
+      Executor executor) {
+    return next(delegate.thenCombineAsync(other, wrap(fn), executor));
+  }
+
+  @Override public <U> BraveCompletionStage<Void> thenAcceptBoth(CompletionStage<? extends U> other,
+      BiConsumer<? super T, ? super U> action) {
+    return next(delegate.thenAcceptBoth(other, wrap(action)));
+  }
+
+  @Override public <U> BraveCompletionStage<Void> thenAcceptBothAsync(
+      CompletionStage<? extends U> other, BiConsumer<? super T, ? super U> action) {
+    return next(delegate.thenAcceptBothAsync(other, wrap(action)));
+  }
+
+  @Override public <U> BraveCompletionStage<Void> thenAcceptBothAsync(
+      CompletionStage<? extends U> other, BiConsumer<? super T, ? super U> action,
+      Executor executor) {
+    return next(delegate.thenAcceptBothAsync(other, wrap(action), executor));
+  }
+
+  @Override public BraveCompletionStage<Void> runAfterBoth(CompletionStage<?> other,
+      Runnable action) {
+    return next(delegate.runAfterBoth(other, wrap(action)));
+  }
+
+  @Override public BraveCompletionStage<Void> runAfterBothAsync(CompletionStage<?> other,
+      Runnable action) {
+    return next(delegate.runAfterBothAsync(other, wrap(action)));
+  }
+
+  @Override public BraveCompletionStage<Void> runAfterBothAsync(CompletionStage<?> other,
+      Runnable action, Executor executor) {
+    return next(delegate.runAfterBothAsync(other, wrap(action), executor));
+  }
+
+  @Override public <U> BraveCompletionStage<U> applyToEither(CompletionStage<? extends T> other,
+      Function<? super T, U> fn) {
+    return next(delegate.applyToEither(other, wrap(fn)));
+  }
+
+  @Override public <U> BraveCompletionStage<U> applyToEitherAsync(
+      CompletionStage<? extends T> other, Function<? super T, U> fn) {
+    return next(delegate.applyToEitherAsync(other, wrap(fn)));
+  }
+
+  @Override public <U> BraveCompletionStage<U> applyToEitherAsync(
+      CompletionStage<? extends T> other, Function<? super T, U> fn, Executor executor) {
+    return next(delegate.applyToEitherAsync(other, wrap(fn), executor));
+  }
+
+  @Override public BraveCompletionStage<Void> acceptEither(CompletionStage<? extends T> other,
+      Consumer<? super T> action) {
+    return next(delegate.acceptEither(other, wrap(action)));
+  }
+
+  @Override public BraveCompletionStage<Void> acceptEitherAsync(
+      CompletionStage<? extends T> other, Consumer<? super T> action) {
+    return next(delegate.acceptEitherAsync(other, wrap(action)));
+  }
+
+  @Override public BraveCompletionStage<Void> acceptEitherAsync(
+      CompletionStage<? extends T> other, Consumer<? super T> action, Executor executor) {
+    return next(delegate.acceptEitherAsync(other, wrap(action), executor));
+  }
+
+  @Override public BraveCompletionStage<Void> runAfterEither(CompletionStage<?> other,
+      Runnable action) {
+    return next(delegate.runAfterEither(other, wrap(action)));
+  }
+
+  @Override public BraveCompletionStage<Void> runAfterEitherAsync(CompletionStage<?> other,
+      Runnable action) {
+    return next(delegate.runAfterEitherAsync(other, wrap(action)));
+  }
+
+  @Override public BraveCompletionStage<Void> runAfterEitherAsync(CompletionStage<?> other,
+      Runnable action, Executor executor) {
+    return next(delegate.runAfterEitherAsync(other, wrap(action), executor));
+  }
+
+  @Override public <U> BraveCompletionStage<U> thenCompose(
+      Function<? super T, ? extends CompletionStage<U>> fn) {
+    return next(delegate.thenCompose(wrap(fn)));
+  }
+
+  @Override public <U> BraveCompletionStage<U> thenComposeAsync(
+      Function<? super T, ? extends CompletionStage<U>> fn) {
+    return next(delegate.thenComposeAsync(wrap(fn)));
+  }
+
+  @Override public <U> BraveCompletionStage<U> thenComposeAsync(
+      Function<? super T, ? extends CompletionStage<U>> fn, Executor executor) {
+    return next(delegate.thenComposeAsync(wrap(fn), executor));
+  }
+
+  @Override public BraveCompletionStage<T> exceptionally(Function<Throwable, ? extends T> fn) {
+    return next(delegate.exceptionally(wrap(fn)));
+  }
+
+  @Override public BraveCompletionStage<T> whenComplete(
+      BiConsumer<? super T, ? super Throwable> action) {
+    return next(delegate.whenComplete(wrap(action)));
+  }
+
+  @Override public BraveCompletionStage<T> whenCompleteAsync(
+      BiConsumer<? super T, ? super Throwable> action) {
+    return next(delegate.whenCompleteAsync(wrap(action)));
+  }
+
+  @Override public BraveCompletionStage<T> whenCompleteAsync(
+      BiConsumer<? super T, ? super Throwable> action, Executor executor) {
+    return next(delegate.whenCompleteAsync(wrap(action), executor));
+  }
+
+  @Override public <U> BraveCompletionStage<U> handle(
+      BiFunction<? super T, Throwable, ? extends U> fn) {
+    return next(delegate.handle(wrap(fn)));
+  }
+
+  @Override public <U> BraveCompletionStage<U> handleAsync(
+      BiFunction<? super T, Throwable, ? extends U> fn) {
+    return next(delegate.handleAsync(wrap(fn)));
+  }
+
+  @Override public <U> BraveCompletionStage<U> handleAsync(
+      BiFunction<? super T, Throwable, ? extends U> fn, Executor executor) {
+    return next(delegate.handleAsync(wrap(fn), executor));
+  }
+
+  /** Returns the underlying future. Actions added to it don't see the captured spans. */
+  @Override public CompletableFuture<T> toCompletableFuture() {
+    return delegate.toCompletableFuture();
+  }
+
+  @Override public String toString() {
+    return "BraveCompletionStage{delegate=" + delegate + ", spans=" + spans + "}";
+  }
+
+  <A, R> Function<A, R> wrap(Function<A, R> fn) {
+    checkNotNull(fn, "fn");
+    return a -> {
+      CapturedSpans previous = spans.swap();
+      try {
+        return fn.apply(a);
+      } finally {
+        previous.restore();
+      }
+    };
+  }
+
+  <A, B, R> BiFunction<A, B, R> wrap(BiFunction<A, B, R> fn) {
+    checkNotNull(fn, "fn");
+    return (a, b) -> {
+      CapturedSpans previous = spans.swap();
+      try {
+        return fn.apply(a, b);
+      } finally {
+        previous.restore();
+      }
+    };
+  }
+
+  <A> Consumer<A> wrap(Consumer<A> action) {
+    checkNotNull(action, "action");
+    return a -> {
+      CapturedSpans previous = spans.swap();
+      try {
+        action.accept(a);
+      } finally {
+        previous.restore();
+      }
+    };
+  }
+
+  <A, B> BiConsumer<A, B> wrap(BiConsumer<A, B> action) {
+    checkNotNull(action, "action");
+    return (a, b) -> {
+      CapturedSpans previous = spans.swap();
+      try {
+        action.accept(a, b);
+      } finally {
+        previous.restore();
+      }
+    };
+  }
+
+  Runnable wrap(Runnable action) {
+    return CapturedSpansExecutor.wrap(action, spans);
+  }
+}
@@ -0,0 +1,149 @@
+package com.github.kristofa.brave.concurrent;
+
+import com.github.kristofa.brave.Brave;
+import com.github.kristofa.brave.CapturedSpans;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+
+/**
+ * {@link ForkJoinPool} which runs tasks with the spans of the thread that submitted them.
+ *
+ * <p>Runnables, callables and fork/join tasks passed to this pool capture the current spans when submitted. Tasks they
+ * fork don't, unless they are {@link BraveRecursiveTask Brave tasks}, which carry the spans of the task that created them
+ * to whichever worker computes them.
+ *
+ * <p>Limitation: parallel streams don't keep their spans. A stream run inside a submitted callable forks its own tasks,
+ * and {@link ForkJoinPool} has no hook to bind spans before a worker runs a stolen task. Only elements processed by the
+ * worker running the callable are guaranteed to see the spans.
+ *
+ * <p>Workers only swap spans in when a task carries different spans than the ones already bound, so subtasks computed on
+ * the worker that forked them cost nothing extra.
+ *
+ * @since 3.18
+ */
+public class BraveForkJoinPool extends ForkJoinPool {
+
+  /** Creates a pool with parallelism equal to the number of available processors. */
+  public static BraveForkJoinPool create(Brave brave) {
+    return create(brave, Runtime.getRuntime().availableProcessors());
+  }
+
+  public static BraveForkJoinPool create(Brave brave, int parallelism) {
+    return new BraveForkJoinPool(checkNotNull(brave, "brave"), parallelism);
+  }
+
+  final Brave brave;
+
+  BraveForkJoinPool(Brave brave, int parallelism) {
+    super(parallelism, WorkerThread::new, null, false);
+    this.brave = brave;
+  }
+
+  @Override public <T> T invoke(ForkJoinTask<T> task) {
+    return super.invoke(wrap(task));
+  }
+
+  @Override public void execute(ForkJoinTask<?> task) {
+    super.execute(wrap(task));
+  }
+
+  @Override public void execute(Runnable task) {
+    super.execute(wrap(ForkJoinTask.adapt(checkNotNull(task, "task"))));
+  }
+
+  @Override public <T> ForkJoinTask<T> submit(ForkJoinTask<T> task) {
+    return super.submit(wrap(task));
+  }
+
+  @Override public <T> ForkJoinTask<T> submit(Callable<T> task) {
+    return super.submit(wrap(ForkJoinTask.adapt(checkNotNull(task, "task"))));
+  }
+
+  @Override public <T> ForkJoinTask<T> submit(Runnable task, T result) {
+    return super.submit(wrap(ForkJoinTask.adapt(checkNotNull(task, "task"), result)));
+  }
+
+  @Override public ForkJoinTask<?> submit(Runnable task) {
+    return super.submit(wrap(ForkJoinTask.adapt(checkNotNull(task, "task"))));
+  }
+
+  @Override public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) {
+    CapturedSpans spans = CapturedSpans.capture(brave);
+    List<Callable<T>> wrapped = new ArrayList<>(tasks.size());
+    for (Callable<T> task : tasks) {
+      ForkJoinTask<T> restoring = new SpanRestoringTask<>(ForkJoinTask.adapt(task), spans);
+      wrapped.add(restoring::invoke);
+    }
+    return super.invokeAll(wrapped);
+  }
+
+  /** Brave tasks captured their spans when created, so only other tasks need wrapping. */
+  <T> ForkJoinTask<T> wrap(ForkJoinTask<T> task) {
+    checkNotNull(task, "task");
+    if (task instanceof BraveRecursiveTask) return task;
+    return new SpanRestoringTask<>(task, CapturedSpans.capture(brave));
+  }
+
+  @Override public String toString() {
+    return "Brave" + super.toString();
+  }
+
+  /** Tracks the spans bound by the task running on this worker, to avoid swapping them again. */
+  static final class WorkerThread extends ForkJoinWorkerThread {
+    CapturedSpans bound;
+
+    WorkerThread(ForkJoinPool pool) {
+      super(pool);
+    }
+  }
+
+  /** Runs a task with spans captured when it was submitted. */
+  static final class SpanRestoringTask<T> extends ForkJoinTask<T> {
+    final ForkJoinTask<T> delegate;
+    final CapturedSpans spans;
+    T result;
+
+    SpanRestoringTask(ForkJoinTask<T> delegate, CapturedSpans spans) {
+      this.delegate = delegate;
+      this.spans = spans;
+    }
+
+    @Override public T getRawResult() {
+      return result;
+    }
+
+    @Override protected void setRawResult(T value) {
+      result = value;
+    }
+
+    @Override protected boolean exec() {
+      Thread thread = Thread.currentThread();
+      WorkerThread worker = thread instanceof WorkerThread ? (WorkerThread) thread : null;
+      if (worker != null && worker.bound == spans) {
+        result = delegate.invoke();
+        return true;
+      }
+      CapturedSpans previous = spans.swap();
+      CapturedSpans outer = null;
+      if (worker != null) {
+        outer = worker.bound;
+        worker.bound = spans;
+      }
+      try {
+        result = delegate.invoke();
+        return true;
+      } finally {
+        if (worker != null) worker.bound = outer;
+        previous.restore();
+      }
+    }
+  }
+}
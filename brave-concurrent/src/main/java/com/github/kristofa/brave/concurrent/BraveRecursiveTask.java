@@ -0,0 +1,110 @@
+package com.github.kristofa.brave.concurrent;
+
+import com.github.kristofa.brave.Brave;
+import com.github.kristofa.brave.CapturedSpans;
+import com.github.kristofa.brave.LocalTracer;
+import com.github.kristofa.brave.concurrent.BraveForkJoinPool.WorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+
+/**
+ * {@link RecursiveTask} which computes with the spans that were current when its root task was created, on whichever
+ * worker runs it. Implement {@link #doCompute()} instead of {@link #compute()}, and create subtasks with the {@link
+ * #BraveRecursiveTask(BraveRecursiveTask) subtask constructor}, so they share the spans instead of capturing them again.
+ *
+ * <p>Use {@code Void} as the result type for tasks which compute no result, in place of a {@code RecursiveAction}.
+ *
+ * <p>To time a parallel section, create the root task with a component and operation. It records one local span for the
+ * whole computation, tagged with the number of tasks computed as {@link #TASKS_TAG}, instead of a span per leaf task.
+ *
+ * @since 3.18
+ */
+public abstract class BraveRecursiveTask<V> extends RecursiveTask<V> {
+  /** Count of tasks computed in the local span of a root task, including the root. */
+  public static final String TASKS_TAG = "forkjoin.tasks";
+
+  final Brave brave;
+  final boolean root;
+  final LocalSpan localSpan; // nullable
+  CapturedSpans spans; // only reassigned by the root task, before its subtasks exist
+
+  /** Creates a root task, which computes with the spans current on the calling thread. */
+  protected BraveRecursiveTask(Brave brave) {
+    this.brave = checkNotNull(brave, "brave");
+    this.spans = CapturedSpans.capture(brave);
+    this.root = true;
+    this.localSpan = null;
+  }
+
+  /**
+   * Creates a root task, which computes with the spans current on the calling thread, within one local span covering
+   * this task and its subtasks.
+   */
+  protected BraveRecursiveTask(Brave brave, String component, String operation) {
+    this.brave = checkNotNull(brave, "brave");
+    this.spans = CapturedSpans.capture(brave);
+    this.root = true;
+    this.localSpan = new LocalSpan(checkNotNull(component, "component"),
+        checkNotNull(operation, "operation"));
+  }
+
+  /** Creates a subtask, which computes with the same spans as its parent. */
+  protected BraveRecursiveTask(BraveRecursiveTask<?> parent) {
+    checkNotNull(parent, "parent");
+    this.brave = parent.brave;
+    this.spans = parent.spans;
+    this.root = false;
+    this.localSpan = parent.localSpan;
+  }
+
+  /** The computation performed by this task, with its spans bound to the current thread. */
+  protected abstract V doCompute();
+
+  @Override protected final V compute() {
+    if (localSpan != null) localSpan.tasks.increment();
+    Thread thread = Thread.currentThread();
+    WorkerThread worker = thread instanceof WorkerThread ? (WorkerThread) thread : null;
+    // skip the swap when a subtask runs where its spans are already bound, such as on join
+    if (!root && worker != null && worker.bound == spans) return doCompute();
+
+    CapturedSpans previous = spans.swap();
+    CapturedSpans outer = worker != null ? worker.bound : null;
+    try {
+      if (localSpan != null && root) return computeRoot(worker);
+      if (worker != null) worker.bound = spans;
+      return doCompute();
+    } finally {
+      if (worker != null) worker.bound = outer;
+      previous.restore();
+    }
+  }
+
+  V computeRoot(WorkerThread worker) {
+    LocalTracer localTracer = brave.localTracer();
+    localTracer.startNewSpan(localSpan.component, localSpan.operation);
+    // capture again, so that subtasks see the new local span as their parent
+    spans = CapturedSpans.capture(brave);
+    if (worker != null) worker.bound = spans;
+    try {
+      return doCompute();
+    } finally {
+      long tasks = localSpan.tasks.sum();
+      localTracer.submitBinaryAnnotation(TASKS_TAG, (int) Math.min(tasks, Integer.MAX_VALUE));
+      localTracer.finishSpan();
+    }
+  }
+
+  /** Shared by a root task and its subtasks */
+  static final class LocalSpan {
+    final String component;
+    final String operation;
+    final LongAdder tasks = new LongAdder();
+
+    LocalSpan(String component, String operation) {
+      this.component = component;
+      this.operation = operation;
+    }
+  }
+}
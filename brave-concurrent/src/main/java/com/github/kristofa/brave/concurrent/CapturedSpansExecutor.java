@@ -0,0 +1,58 @@
+package com.github.kristofa.brave.concurrent;
+
+import com.github.kristofa.brave.Brave;
+import com.github.kristofa.brave.CapturedSpans;
+import java.util.concurrent.Executor;
+
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+
+/**
+ * {@link Executor} which runs every task with the spans that were current when it was {@link #wrap(Executor, Brave)
+ * wrapped}.
+ *
+ * <p>Unlike {@link com.github.kristofa.brave.BraveExecutorService}, which captures the current spans each time a task is
+ * submitted, this captures them once. Use it for the tasks of one pipeline, such as the async stages of a {@link
+ * java.util.concurrent.CompletableFuture} which was started in a traced request.
+ *
+ * @since 3.18
+ */
+public final class CapturedSpansExecutor implements Executor {
+
+  /** Captures the current spans, so that tasks run with them. */
+  public static CapturedSpansExecutor wrap(Executor delegate, Brave brave) {
+    return wrap(delegate, CapturedSpans.capture(brave));
+  }
+
+  /** Like {@link #wrap(Executor, Brave)}, except with spans already captured. */
+  public static CapturedSpansExecutor wrap(Executor delegate, CapturedSpans spans) {
+    return new CapturedSpansExecutor(checkNotNull(delegate, "delegate"), checkNotNull(spans, "spans"));
+  }
+
+  final Executor delegate;
+  final CapturedSpans spans;
+
+  CapturedSpansExecutor(Executor delegate, CapturedSpans spans) {
+    this.delegate = delegate;
+    this.spans = spans;
+  }
+
+  @Override public void execute(Runnable task) {
+    delegate.execute(wrap(task, spans));
+  }
+
+  @Override public String toString() {
+    return "CapturedSpansExecutor{delegate=" + delegate + ", spans=" + spans + "}";
+  }
+
+  static Runnable wrap(Runnable task, CapturedSpans spans) {
+    checkNotNull(task, "task");
+    return () -> {
+      CapturedSpans previous = spans.swap();
+      try {
+        task.run();
+      } finally {
+        previous.restore();
+      }
+    };
+  }
+}
@@ -0,0 +1,117 @@
+package com.github.kristofa.brave.concurrent;
+
+import com.github.kristofa.brave.Brave;
+import com.github.kristofa.brave.InheritableServerClientAndLocalSpanState;
+import com.github.kristofa.brave.ThreadContextServerClientAndLocalSpanState;
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import zipkin.reporter.Reporter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BraveCompletionStageTest {
+
+  Brave brave = new Brave.Builder(
+      new ThreadContextServerClientAndLocalSpanState(Endpoint.create("service", 127 << 24 | 1)))
+      .reporter(Reporter.NOOP).build();
+  ExecutorService executor = Executors.newSingleThreadExecutor();
+  List<Span> seen = new CopyOnWriteArrayList<>();
+  Span span;
+
+  @Before public void startSpan() {
+    brave.localTracer().startNewSpan("component", "operation");
+    span = currentSpan();
+  }
+
+  @After public void close() {
+    executor.shutdown();
+    ThreadContextServerClientAndLocalSpanState.clear();
+  }
+
+  @Test public void asyncStages_seeCapturedSpan() throws Exception {
+    CompletableFuture<String> future = new CompletableFuture<>();
+
+    CompletableFuture<Void> result = BraveCompletionStage.wrap(future, brave)
+        .thenApplyAsync(s -> record(s + "b"), executor)
+        .thenApply(s -> record(s + "c"))
+        .thenCombineAsync(CompletableFuture.completedFuture("d"), (s, d) -> record(s + d))
+        .thenAccept(s -> record(s))
+        .toCompletableFuture();
+
+    future.complete("a");
+    result.get();
+
+    assertThat(seen).hasSize(4).containsOnly(span);
+    // the executor's thread doesn't keep the span
+    assertThat(executor.submit(this::currentSpan).get()).isNull();
+  }
+
+  @Test public void stageCompletedOnAnotherThread_seesCapturedSpan() throws Exception {
+    CompletableFuture<String> future = new CompletableFuture<>();
+    CompletableFuture<String> result =
+        BraveCompletionStage.wrap(future, brave).thenApply(this::record).toCompletableFuture();
+
+    brave.localTracer().finishSpan(); // the trace moves on before the future completes
+    executor.submit(() -> future.complete("a")).get();
+    result.get();
+
+    assertThat(seen).containsExactly(span);
+  }
+
+  @Test public void exceptionalStages_seeCapturedSpan() throws Exception {
+    CompletableFuture<String> future = new CompletableFuture<>();
+    CompletableFuture<String> result = BraveCompletionStage.wrap(future, brave)
+        .whenCompleteAsync((s, t) -> record(s), executor)
+        .exceptionally(t -> record("recovered"))
+        .toCompletableFuture();
+
+    executor.submit(() -> future.completeExceptionally(new IllegalStateException())).get();
+
+    assertThat(result.get()).isEqualTo("recovered");
+    assertThat(seen).hasSize(2).containsOnly(span);
+  }
+
+  @Test public void derivedStages_shareCapturedSpans() {
+    BraveCompletionStage<String> stage =
+        BraveCompletionStage.wrap(CompletableFuture.completedFuture("a"), brave);
+
+    assertThat(stage.thenApply(s -> s).spans).isSameAs(stage.spans);
+    assertThat(BraveCompletionStage.wrap(stage, stage.spans)).isSameAs(stage);
+  }
+
+  /** Inline stages swap spans in on the capturing thread, which must not grow its stack of local spans. */
+  @Test public void inheritableState_inlineStagesRestoreLocalSpans() throws Exception {
+    Brave brave = new Brave.Builder(new InheritableServerClientAndLocalSpanState(
+        Endpoint.create("service", 127 << 24 | 1))).reporter(Reporter.NOOP).build();
+    brave.localTracer().startNewSpan("component", "outer");
+    Span outer = brave.localSpanThreadBinder().getCurrentLocalSpan();
+
+    CompletableFuture<Span> result =
+        BraveCompletionStage.wrap(CompletableFuture.completedFuture(1), brave)
+            .thenApply(i -> i + 1)
+            .thenApply(i -> brave.localSpanThreadBinder().getCurrentLocalSpan())
+            .toCompletableFuture();
+
+    assertThat(result.get()).isSameAs(outer);
+    assertThat(brave.localSpanThreadBinder().getCurrentLocalSpan()).isSameAs(outer);
+    brave.localTracer().finishSpan();
+    assertThat(brave.localSpanThreadBinder().getCurrentLocalSpan()).isNull();
+  }
+
+  <T> T record(T value) {
+    seen.add(currentSpan());
+    return value;
+  }
+
+  Span currentSpan() {
+    return brave.localSpanThreadBinder().getCurrentLocalSpan();
+  }
+}
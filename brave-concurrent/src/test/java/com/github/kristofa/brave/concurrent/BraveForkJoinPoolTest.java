@@ -0,0 +1,164 @@
+package com.github.kristofa.brave.concurrent;
+
+import com.github.kristofa.brave.Brave;
+import com.github.kristofa.brave.ThreadContextServerClientAndLocalSpanState;
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BraveForkJoinPoolTest {
+  static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  List<zipkin.Span> spans = new CopyOnWriteArrayList<>();
+  Brave brave = new Brave.Builder(
+      new ThreadContextServerClientAndLocalSpanState(Endpoint.create("service", 127 << 24 | 1)))
+      .reporter(spans::add).build();
+  BraveForkJoinPool pool = BraveForkJoinPool.create(brave, 4);
+  Set<Span> seen = ConcurrentHashMap.newKeySet();
+  Span span;
+
+  @Before public void startSpan() {
+    brave.localTracer().startNewSpan("component", "operation");
+    span = currentSpan();
+  }
+
+  @After public void close() {
+    pool.shutdown();
+    ThreadContextServerClientAndLocalSpanState.clear();
+  }
+
+  @Test public void submittedCallable_seesSubmittingSpan() throws Exception {
+    assertThat(pool.submit(this::currentSpan).get()).isSameAs(span);
+  }
+
+  @Test public void executedRunnable_seesSubmittingSpan() throws Exception {
+    pool.execute(() -> seen.add(currentSpan()));
+    pool.awaitQuiescence(10, TimeUnit.SECONDS);
+
+    assertThat(seen).containsExactly(span);
+  }
+
+  @Test public void invokeAll_seesSubmittingSpan() throws Exception {
+    List<Future<Span>> futures = pool.invokeAll(Arrays.asList(this::currentSpan, this::currentSpan));
+
+    for (Future<Span> future : futures) {
+      assertThat(future.get()).isSameAs(span);
+    }
+  }
+
+  /**
+   * Known limitation: a parallel stream in a submitted callable forks plain tasks, which don't carry spans. Elements
+   * stolen by other workers might not see the submitting span, so this only checks the worker running the callable.
+   */
+  @Test public void parallelStream_submittingWorkerSeesSpan() throws Exception {
+    Map<Thread, Set<Boolean>> seesSpanByThread = new ConcurrentHashMap<>();
+
+    Thread submittingWorker = pool.submit(() -> {
+      IntStream.range(0, 10000).parallel().forEach(i -> seesSpanByThread
+          .computeIfAbsent(Thread.currentThread(), t -> ConcurrentHashMap.newKeySet())
+          .add(currentSpan() == span));
+      return Thread.currentThread();
+    }).get();
+
+    assertThat(seesSpanByThread.get(submittingWorker)).containsExactly(true);
+  }
+
+  @Test public void parallelStream_singleWorker_allElementsSeeSpan() throws Exception {
+    pool.shutdown();
+    pool = BraveForkJoinPool.create(brave, 1);
+
+    pool.submit(() -> IntStream.range(0, 10000).parallel().forEach(i -> seen.add(currentSpan())))
+        .get();
+
+    assertThat(seen).containsExactly(span);
+  }
+
+  @Test public void subtasks_seeSubmittingSpan_onAnyWorker() {
+    int sum = pool.invoke(new Sum(brave, seen, 0, 1000));
+
+    assertThat(sum).isEqualTo(499500);
+    assertThat(seen).containsExactly(span);
+  }
+
+  @Test public void rootWithLocalSpan_reportsOneSpanForAllTasks() {
+    // this span state doesn't nest local spans, so the local span's parent is the server span
+    brave.localTracer().finishSpan();
+    spans.clear();
+    brave.serverTracer().setStateCurrentTrace(1L, 2L, null, "get");
+
+    int sum = pool.invoke(new Sum(brave, "component", "sum", seen, 0, 1000));
+
+    assertThat(sum).isEqualTo(499500);
+    assertThat(spans).hasSize(1);
+    zipkin.Span sumSpan = spans.get(0);
+    assertThat(sumSpan.name).isEqualTo("sum");
+    assertThat(sumSpan.parentId).isEqualTo(2L);
+    assertThat(sumSpan.binaryAnnotations)
+        .filteredOn(b -> b.key.equals(BraveRecursiveTask.TASKS_TAG))
+        .extracting(b -> new String(b.value, UTF_8))
+        .containsExactly("255"); // the root, plus each split down to leaves of up to 10 numbers
+    // leaves run in the local span of the root task
+    assertThat(seen).extracting(Span::getId).containsExactly(sumSpan.id);
+  }
+
+  Span currentSpan() {
+    return currentSpanOf(brave);
+  }
+
+  static Span currentSpanOf(Brave brave) {
+    return brave.localSpanThreadBinder().getCurrentLocalSpan();
+  }
+
+  static final class Sum extends BraveRecursiveTask<Integer> {
+    final Set<Span> seen;
+    final int from, to;
+
+    Sum(Brave brave, Set<Span> seen, int from, int to) {
+      super(brave);
+      this.seen = seen;
+      this.from = from;
+      this.to = to;
+    }
+
+    Sum(Brave brave, String component, String operation, Set<Span> seen, int from, int to) {
+      super(brave, component, operation);
+      this.seen = seen;
+      this.from = from;
+      this.to = to;
+    }
+
+    Sum(Sum parent, int from, int to) {
+      super(parent);
+      this.seen = parent.seen;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override protected Integer doCompute() {
+      if (to - from <= 10) {
+        seen.add(currentSpanOf(brave));
+        int sum = 0;
+        for (int i = from; i < to; i++) sum += i;
+        return sum;
+      }
+      int mid = (from + to) >>> 1;
+      Sum left = new Sum(this, from, mid);
+      left.fork();
+      return new Sum(this, mid, to).compute() + left.join();
+    }
+  }
+}
@@ -0,0 +1,42 @@
+package com.github.kristofa.brave.concurrent;
+
+import com.github.kristofa.brave.Brave;
+import com.github.kristofa.brave.ThreadLocalServerClientAndLocalSpanState;
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Test;
+import zipkin.reporter.Reporter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CapturedSpansExecutorTest {
+
+  Brave brave = new Brave.Builder(
+      new ThreadLocalServerClientAndLocalSpanState(Endpoint.create("service", 127 << 24 | 1)))
+      .reporter(Reporter.NOOP).build();
+  ExecutorService delegate = Executors.newSingleThreadExecutor();
+
+  @After public void close() {
+    delegate.shutdown();
+    ThreadLocalServerClientAndLocalSpanState.clear();
+  }
+
+  @Test public void runsTasksWithSpansCurrentAtWrap() throws Exception {
+    brave.localTracer().startNewSpan("component", "operation");
+    Span span = brave.localSpanThreadBinder().getCurrentLocalSpan();
+    CapturedSpansExecutor executor = CapturedSpansExecutor.wrap(delegate, brave);
+    brave.localTracer().finishSpan();
+
+    assertThat(CompletableFuture.supplyAsync(this::currentSpan, executor).get()).isSameAs(span);
+    // the delegate's thread doesn't keep the span
+    assertThat(delegate.submit(this::currentSpan).get()).isNull();
+  }
+
+  Span currentSpan() {
+    return brave.localSpanThreadBinder().getCurrentLocalSpan();
+  }
+}
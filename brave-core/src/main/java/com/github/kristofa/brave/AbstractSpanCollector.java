@@ -1,7 +1,9 @@
 package com.github.kristofa.brave;
 
+import com.github.kristofa.brave.internal.Nullable;
 import com.twitter.zipkin.gen.Span;
 import com.twitter.zipkin.gen.SpanCodec;
+import java.io.File;
 import java.io.IOException;
 import java.util.List;
 
@@ -20,7 +22,43 @@ public abstract class AbstractSpanCollector extends FlushingSpanCollector {
    */
   public AbstractSpanCollector(SpanCodec codec, SpanCollectorMetricsHandler metrics,
       int flushInterval) {
-    super(metrics, flushInterval);
+    this(codec, metrics, flushInterval, PendingQueue.LINKED);
+  }
+
+  /**
+   * @param flushInterval in seconds. 0 implies spans are {@link #flush() flushed externally.
+   * @param pendingQueue how spans are held until they are flushed
+   */
+  public AbstractSpanCollector(SpanCodec codec, SpanCollectorMetricsHandler metrics,
+      int flushInterval, PendingQueue pendingQueue) {
+    this(codec, metrics, flushInterval, pendingQueue, DEFAULT_QUEUED_MAX_BYTES);
+  }
+
+  /**
+   * @param flushInterval in seconds. 0 implies spans are {@link #flush() flushed externally.
+   * @param pendingQueue how spans are held until they are flushed
+   * @param queuedMaxBytes maximum estimated bytes of pending spans, when the queue is {@link
+   * PendingQueue#BYTE_BOUNDED}
+   */
+  public AbstractSpanCollector(SpanCodec codec, SpanCollectorMetricsHandler metrics,
+      int flushInterval, PendingQueue pendingQueue, int queuedMaxBytes) {
+    this(codec, metrics, flushInterval, pendingQueue, queuedMaxBytes, null,
+        DEFAULT_SPILL_MAX_BYTES);
+  }
+
+  /**
+   * @param flushInterval in seconds. 0 implies spans are {@link #flush() flushed externally.
+   * @param pendingQueue how spans are held until they are flushed
+   * @param queuedMaxBytes maximum estimated bytes of pending spans, when the queue is {@link
+   * PendingQueue#BYTE_BOUNDED}
+   * @param spillDirectory where to spill spans that couldn't be sent, or null to drop them
+   * @param spillMaxBytes upper bound of disk used in the spill directory
+   * @since 3.18
+   */
+  public AbstractSpanCollector(SpanCodec codec, SpanCollectorMetricsHandler metrics,
+      int flushInterval, PendingQueue pendingQueue, int queuedMaxBytes,
+      @Nullable File spillDirectory, int spillMaxBytes) {
+    super(metrics, flushInterval, pendingQueue, queuedMaxBytes, spillDirectory, spillMaxBytes);
     this.codec = codec;
   }
 
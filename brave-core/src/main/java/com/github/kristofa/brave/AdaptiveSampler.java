@@ -0,0 +1,158 @@
+package com.github.kristofa.brave;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import zipkin.reporter.ReporterMetrics;
+
+import static zipkin.internal.Util.checkArgument;
+import static zipkin.internal.Util.checkNotNull;
+
+/**
+ * This sampler lowers its sample rate when spans are dropped on the way to Zipkin, and recovers
+ * once they stop being dropped. This avoids the cost of recording spans that would be thrown away
+ * because the reporter's queue is full or the transport is failing.
+ *
+ * <p>The sampler learns about drops through the metrics of the component reporting spans. Wrap
+ * the metrics you'd otherwise pass to that component:
+ * <pre>{@code
+ * sampler = AdaptiveSampler.create(1.0f);
+ * collector = HttpSpanCollector.create(url, config, sampler.metricsHandler(metrics));
+ * // or for an AsyncReporter
+ * reporter = AsyncReporter.builder(sender).metrics(sampler.reporterMetrics(metrics)).build();
+ *
+ * brave = new Brave.Builder().traceSampler(sampler)...
+ * }</pre>
+ *
+ * <h3>Implementation</h3>
+ *
+ * <p>Once per second, the counts of accepted and dropped spans are swapped out for zero. If any
+ * were dropped, the rate is cut in proportion to the share dropped, and at least halved. Otherwise,
+ * it grows by a tenth of the configured rate, until it reaches it. Adjustment is done by whichever
+ * caller of {@link #isSampled(long)} first notices the second elapsed, so there's no background
+ * thread.
+ *
+ * <p>Like {@link BoundarySampler}, decisions use modulo 10000 arithmetic on a salted trace ID, so
+ * the minimum rate is 0.01% of traces.
+ */
+public final class AdaptiveSampler extends Sampler {
+  static final long ADJUST_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+  static final int MIN_BOUNDARY = 1; // 0.01%
+
+  /**
+   * @param rate the rate to sample at when no spans are dropped. Minimum is 0.0001, or 0.01% of
+   * traces.
+   */
+  public static AdaptiveSampler create(float rate) {
+    checkArgument(rate >= 0.0001f && rate <= 1, "rate should be between 0.0001 and 1: was %s",
+        rate);
+    return new AdaptiveSampler((int) (rate * 10000), System.nanoTime());
+  }
+
+  private final int maxBoundary;
+  private final int increment;
+  private volatile int boundary; // out of 10000
+  private final AtomicInteger accepted = new AtomicInteger();
+  private final AtomicInteger dropped = new AtomicInteger();
+  private final AtomicLong nextAdjustment;
+
+  AdaptiveSampler(int maxBoundary, long nowNanos) {
+    this.maxBoundary = maxBoundary;
+    this.increment = Math.max(1, maxBoundary / 10);
+    this.boundary = maxBoundary;
+    this.nextAdjustment = new AtomicLong(nowNanos + ADJUST_INTERVAL_NANOS);
+  }
+
+  /** Returns the current sample rate, which is at most the rate this was created with. */
+  public float currentRate() {
+    return boundary / 10000f;
+  }
+
+  @Override
+  public boolean isSampled(long traceId) {
+    return isSampledAt(traceId, System.nanoTime());
+  }
+
+  boolean isSampledAt(long traceId, long nowNanos) {
+    long next = nextAdjustment.get();
+    if (nowNanos - next >= 0
+        && nextAdjustment.compareAndSet(next, nowNanos + ADJUST_INTERVAL_NANOS)) {
+      adjust(accepted.getAndSet(0), dropped.getAndSet(0));
+    }
+    long t = Math.abs(traceId ^ BoundarySampler.SALT);
+    return t % 10000 < boundary;
+  }
+
+  void adjust(int acceptedCount, int droppedCount) {
+    int current = boundary;
+    if (droppedCount > 0) {
+      float keptRatio = acceptedCount > droppedCount
+          ? (acceptedCount - droppedCount) / (float) acceptedCount
+          : 0;
+      boundary = Math.max(MIN_BOUNDARY, (int) (current * Math.min(0.5f, keptRatio)));
+    } else if (current < maxBoundary) {
+      boundary = Math.min(maxBoundary, current + increment);
+    }
+  }
+
+  /** Returns a metrics handler that informs this sampler, then forwards to the delegate. */
+  public SpanCollectorMetricsHandler metricsHandler(final SpanCollectorMetricsHandler delegate) {
+    checkNotNull(delegate, "delegate");
+    return new SpanCollectorMetricsHandler() {
+      @Override public void incrementAcceptedSpans(int quantity) {
+        accepted.addAndGet(quantity);
+        delegate.incrementAcceptedSpans(quantity);
+      }
+
+      @Override public void incrementDroppedSpans(int quantity) {
+        dropped.addAndGet(quantity);
+        delegate.incrementDroppedSpans(quantity);
+      }
+    };
+  }
+
+  /** Returns reporter metrics that inform this sampler, then forward to the delegate. */
+  public ReporterMetrics reporterMetrics(final ReporterMetrics delegate) {
+    checkNotNull(delegate, "delegate");
+    return new ReporterMetrics() {
+      @Override public void incrementMessages() {
+        delegate.incrementMessages();
+      }
+
+      @Override public void incrementMessagesDropped(Throwable cause) {
+        delegate.incrementMessagesDropped(cause);
+      }
+
+      @Override public void incrementSpans(int quantity) {
+        accepted.addAndGet(quantity);
+        delegate.incrementSpans(quantity);
+      }
+
+      @Override public void incrementSpanBytes(int quantity) {
+        delegate.incrementSpanBytes(quantity);
+      }
+
+      @Override public void incrementMessageBytes(int quantity) {
+        delegate.incrementMessageBytes(quantity);
+      }
+
+      @Override public void incrementSpansDropped(int quantity) {
+        dropped.addAndGet(quantity);
+        delegate.incrementSpansDropped(quantity);
+      }
+
+      @Override public void updateQueuedSpans(int update) {
+        delegate.updateQueuedSpans(update);
+      }
+
+      @Override public void updateQueuedBytes(int update) {
+        delegate.updateQueuedBytes(update);
+      }
+    };
+  }
+
+  @Override
+  public String toString() {
+    return "AdaptiveSampler(" + boundary + "/" + maxBoundary + ")";
+  }
+}
@@ -143,7 +143,8 @@ public abstract class AnnotationSubmitter {
             }
         };
         Endpoint localEndpoint = spanAndEndpoint.endpoint();
-        Recorder recorder = new AutoValue_Recorder_Default(localEndpoint, clock, Reporter.NOOP);
+        Recorder recorder = new AutoValue_Recorder_Default(
+            localEndpoint, clock, Reporter.NOOP, SpanLimits.UNLIMITED);
         return create(currentSpan, recorder);
     }
 
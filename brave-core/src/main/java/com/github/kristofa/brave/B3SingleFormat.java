@@ -0,0 +1,153 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.internal.Nullable;
+
+import static com.github.kristofa.brave.SpanId.FLAG_DEBUG;
+import static com.github.kristofa.brave.SpanId.FLAG_IS_ROOT;
+import static com.github.kristofa.brave.SpanId.FLAG_SAMPLED;
+import static com.github.kristofa.brave.SpanId.FLAG_SAMPLING_SET;
+import static com.github.kristofa.brave.SpanId.writeHexLong;
+
+/**
+ * Encodes trace identifiers into a single "b3" header, as opposed to the four "X-B3-" headers.
+ * This roughly halves the bytes sent per hop, and helps proxies that charge per header.
+ *
+ * <p>The format is {@code {traceId}-{spanId}-{sampled}-{parentId}}, where the trace ID is 16 or 32
+ * lower-hex characters, span and parent IDs are 16, and the sampled field is "1", "0" or "d" for
+ * debug. The parent is absent on a root span. A request that isn't sampled is written as just "0".
+ *
+ * <p>See https://github.com/openzipkin/b3-propagation for details
+ *
+ * @since 3.18
+ */
+public final class B3SingleFormat {
+  static final String NOT_SAMPLED = "0";
+
+  /**
+   * Writes the "b3" header value for the span ID, or {@link #NOT_SAMPLED} if null. All characters
+   * are written into a single array sized up-front.
+   *
+   * <p>Span IDs are only propagated when the trace is sampled, so the sampled field is "1" unless
+   * the span ID says debug or explicitly not sampled.
+   */
+  public static String writeB3SingleFormat(@Nullable SpanId spanId) {
+    if (spanId == null) return NOT_SAMPLED;
+    boolean traceHi = spanId.traceIdHigh != 0;
+    boolean hasParent = spanId.nullableParentId() != null;
+    int length = (traceHi ? 32 : 16) + 1 + 16 + 2 + (hasParent ? 17 : 0);
+    char[] result = new char[length];
+    int pos = 0;
+    if (traceHi) {
+      writeHexLong(result, pos, spanId.traceIdHigh);
+      pos += 16;
+    }
+    writeHexLong(result, pos, spanId.traceId);
+    pos += 16;
+    result[pos++] = '-';
+    writeHexLong(result, pos, spanId.spanId);
+    pos += 16;
+    result[pos++] = '-';
+    if (spanId.debug()) {
+      result[pos++] = 'd';
+    } else if (Boolean.FALSE.equals(spanId.sampled())) {
+      result[pos++] = '0';
+    } else {
+      result[pos++] = '1';
+    }
+    if (hasParent) {
+      result[pos++] = '-';
+      writeHexLong(result, pos, spanId.parentId);
+    }
+    return new String(result);
+  }
+
+  /**
+   * Parses a "b3" header value, or returns null if it is malformed. A value holding only a sampling
+   * decision returns {@link TraceData#NOT_SAMPLED} for "0", and {@link TraceData#EMPTY} otherwise,
+   * as there are no IDs to join.
+   */
+  @Nullable
+  public static TraceData parseB3SingleFormat(CharSequence b3) {
+    int length = b3.length();
+    if (length == 1) { // sampling decision only
+      char c = b3.charAt(0);
+      if (c == '0') return TraceData.NOT_SAMPLED;
+      if (c == '1' || c == 'd') return TraceData.EMPTY;
+      return null;
+    }
+
+    int traceIdEnd = indexOfDash(b3, 0);
+    int traceIdLength = traceIdEnd;
+    if (traceIdLength < 1 || traceIdLength > 32) return null;
+
+    int spanIdEnd = indexOfDash(b3, traceIdEnd + 1);
+    if (spanIdEnd == -1) spanIdEnd = length;
+    if (spanIdEnd - traceIdEnd - 1 < 1 || spanIdEnd - traceIdEnd - 1 > 16) return null;
+
+    long flags = 0;
+    long parentId = 0;
+    int pos = spanIdEnd + 1;
+    if (pos < length && (pos + 1 == length || b3.charAt(pos + 1) == '-')) {
+      char c = b3.charAt(pos);
+      if (c == '1') {
+        flags = FLAG_SAMPLING_SET | FLAG_SAMPLED;
+      } else if (c == '0') {
+        flags = FLAG_SAMPLING_SET;
+      } else if (c == 'd') {
+        flags = FLAG_DEBUG;
+      } else {
+        return null;
+      }
+      pos += 2;
+    }
+    if (pos < length) {
+      if (length - pos > 16) return null;
+      try {
+        parentId = parseHex(b3, pos, length);
+      } catch (NumberFormatException e) {
+        return null;
+      }
+    } else {
+      flags |= FLAG_IS_ROOT;
+    }
+
+    try {
+      return TraceData.create(SpanId.create(
+          traceIdLength > 16 ? parseHex(b3, 0, traceIdEnd - 16) : 0L,
+          parseHex(b3, Math.max(0, traceIdEnd - 16), traceIdEnd),
+          parentId,
+          parseHex(b3, traceIdEnd + 1, spanIdEnd),
+          flags
+      ));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  static int indexOfDash(CharSequence input, int fromIndex) {
+    for (int i = fromIndex, length = input.length(); i < length; i++) {
+      if (input.charAt(i) == '-') return i;
+    }
+    return -1;
+  }
+
+  /** Parses up to 16 lower-hex characters without allocating a substring. */
+  static long parseHex(CharSequence lowerHex, int beginIndex, int endIndex) {
+    long result = 0;
+    for (int i = beginIndex; i < endIndex; i++) {
+      char c = lowerHex.charAt(i);
+      result <<= 4;
+      if (c >= '0' && c <= '9') {
+        result |= c - '0';
+      } else if (c >= 'a' && c <= 'f') {
+        result |= c - 'a' + 10;
+      } else {
+        throw new NumberFormatException();
+      }
+    }
+    return result;
+  }
+
+  private B3SingleFormat() {
+  }
+}
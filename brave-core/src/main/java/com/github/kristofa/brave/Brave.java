@@ -46,10 +46,13 @@ public class Brave {
         private final ServerClientAndLocalSpanState state;
         private final Endpoint localEndpoint;
         private boolean allowNestedLocalSpans = false;
+        private boolean lockFreeRecorder = false;
+        private boolean pooledRecorder = false;
         private Clock clock;
         private Recorder recorder;
         private SpanFactory spanFactory;
         private Reporter<zipkin.Span> reporter;
+        private SpanLimits spanLimits = SpanLimits.UNLIMITED;
 
         /**
          * Builder which initializes with serviceName = "unknown".
@@ -110,7 +113,7 @@ public class Brave {
 
             // the legacy span state doesn't support nested spans per (#166). Only permit nesting on the span
             // state that has instructions on how to use it properly
-            this.allowNestedLocalSpans = state instanceof InheritableServerClientAndLocalSpanState;
+            this.allowNestedLocalSpans = nestsLocalSpans(state);
         }
 
         /**
@@ -162,6 +165,48 @@ public class Brave {
             return this;
         }
 
+        /**
+         * When true, spans are recorded without synchronizing on them. This helps when several
+         * threads annotate the same span, such as async handlers. Defaults to false.
+         *
+         * <p>Data recorded this way is visible to the {@link #reporter(Reporter) reporter}, but not
+         * via getters on {@link Span}.
+         */
+        public Builder lockFreeRecorder(boolean lockFreeRecorder) {
+            this.lockFreeRecorder = lockFreeRecorder;
+            return this;
+        }
+
+        /**
+         * When true, implies {@link #lockFreeRecorder(boolean) lock-free recording}, and recycles
+         * the data recorded for a span once it is finished and reported. Defaults to false.
+         *
+         * <p>Only enable this when nothing records into a span after it finished, for example late
+         * annotations from another thread. Enable FINE logging for the category
+         * "com.github.kristofa.brave.SpanRecordPool" to log spans that were never finished.
+         */
+        public Builder pooledRecorder(boolean pooledRecorder) {
+            this.pooledRecorder = pooledRecorder;
+            return this;
+        }
+
+        /**
+         * Bounds the annotations and tags recorded into each span, truncating large tag values.
+         * Defaults to {@link SpanLimits#UNLIMITED}.
+         *
+         * <p>For example, to keep SQL statements from bloating spans:
+         *
+         * <pre>{@code
+         * braveBuilder.spanLimits(SpanLimits.builder().maxTagValueBytes(1024).build());
+         * }</pre>
+         *
+         * @since 3.18
+         */
+        public Builder spanLimits(SpanLimits spanLimits) {
+            this.spanLimits = checkNotNull(spanLimits, "spanLimits");
+            return this;
+        }
+
         /** When true, new root spans will have 128-bit trace IDs. Defaults to false (64-bit) */
         public Builder traceId128Bit(boolean traceId128Bit) {
             this.spanFactoryBuilder.traceId128Bit(traceId128Bit);
@@ -177,11 +222,19 @@ public class Brave {
                 clock = new DefaultClock();
             }
 
-            if (reporter != null) {
-                recorder = new AutoValue_Recorder_Default(localEndpoint, clock, reporter);
-            } else if (recorder == null) {
-                recorder =
-                    new AutoValue_Recorder_Default(localEndpoint, clock, new LoggingReporter());
+            if (reporter != null || recorder == null) {
+                Reporter<zipkin.Span> reporter =
+                    this.reporter != null ? this.reporter : new LoggingReporter();
+                if (pooledRecorder) {
+                    recorder = new AutoValue_Recorder_LockFree(localEndpoint, clock, reporter,
+                        spanLimits, new SpanRecordPool());
+                } else if (lockFreeRecorder) {
+                    recorder = new AutoValue_Recorder_LockFree(localEndpoint, clock, reporter,
+                        spanLimits, null);
+                } else {
+                    recorder = new AutoValue_Recorder_Default(localEndpoint, clock, reporter,
+                        spanLimits);
+                }
             }
             return new Brave(this);
         }
@@ -325,6 +378,11 @@ public class Brave {
         new Span(); // ensure InternalSpan.instance points to a reference
     }
 
+    /** True when setting a local span pushes it onto a stack of nested spans, and setting null pops. */
+    static boolean nestsLocalSpans(Object state) {
+        return state instanceof NestedLocalSpanState;
+    }
+
     /** Internal hook to create a new Span */
     static Span toSpan(SpanId context) {
         return InternalSpan.instance.toSpan(context);
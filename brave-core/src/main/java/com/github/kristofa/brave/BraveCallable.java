@@ -3,6 +3,7 @@ package com.github.kristofa.brave;
 import com.twitter.zipkin.gen.Span;
 import java.util.concurrent.Callable;
 
+import com.github.kristofa.brave.ThreadContextServerClientAndLocalSpanState.Snapshot;
 import com.github.kristofa.brave.internal.Nullable;
 import com.google.auto.value.AutoValue;
 
@@ -26,13 +27,7 @@ public abstract class BraveCallable<T> implements Callable<T> {
      */
     public static <T> BraveCallable<T> wrap(Callable<T> callable, Brave brave) {
         checkNotNull(brave, "brave"); // auto-value will check the others.
-        return new AutoValue_BraveCallable(
-            callable,
-            brave.localSpanThreadBinder(),
-            brave.localSpanThreadBinder().getCurrentLocalSpan(),
-            brave.serverSpanThreadBinder(),
-            brave.serverSpanThreadBinder().getCurrentServerSpan()
-        );
+        return wrap(callable, brave.localSpanThreadBinder(), brave.serverSpanThreadBinder());
     }
 
     static <T> BraveCallable<T> wrap( // hidden for package-scoped use
@@ -40,12 +35,29 @@ public abstract class BraveCallable<T> implements Callable<T> {
         LocalSpanThreadBinder localSpanThreadBinder,
         ServerSpanThreadBinder serverSpanThreadBinder
     ) {
+        ServerSpanState state = serverSpanThreadBinder.state();
+        if (state instanceof ThreadContextServerClientAndLocalSpanState) {
+            ThreadContextServerClientAndLocalSpanState contextState =
+                (ThreadContextServerClientAndLocalSpanState) state;
+            Snapshot snapshot = contextState.snapshot(); // one lookup instead of one per span
+            return new AutoValue_BraveCallable(
+                callable,
+                localSpanThreadBinder,
+                null, // the snapshot holds the spans
+                serverSpanThreadBinder,
+                null,
+                contextState,
+                snapshot
+            );
+        }
         return new AutoValue_BraveCallable(
             callable,
             localSpanThreadBinder,
             localSpanThreadBinder.getCurrentLocalSpan(),
             serverSpanThreadBinder,
-            serverSpanThreadBinder.getCurrentServerSpan()
+            serverSpanThreadBinder.getCurrentServerSpan(),
+            null,
+            null
         );
     }
 
@@ -61,18 +73,24 @@ public abstract class BraveCallable<T> implements Callable<T> {
             null,
             null,
             serverSpanThreadBinder,
-            serverSpanThreadBinder.getCurrentServerSpan()
+            serverSpanThreadBinder.getCurrentServerSpan(),
+            null,
+            null
         );
     }
 
     abstract Callable<T> wrappedCallable();
     @Nullable // while deprecated constructor is in use
     abstract LocalSpanThreadBinder localSpanThreadBinder();
-    @Nullable
+    @Nullable // also when the snapshot holds the spans
     abstract Span currentLocalSpan();
     abstract ServerSpanThreadBinder serverSpanThreadBinder();
-    @Nullable
+    @Nullable // also when the snapshot holds the spans
     abstract ServerSpan currentServerSpan();
+    @Nullable // unless the state supports snapshots
+    abstract ThreadContextServerClientAndLocalSpanState contextState();
+    @Nullable
+    abstract Snapshot snapshot();
 
     /**
      * {@inheritDoc}
@@ -83,6 +101,14 @@ public abstract class BraveCallable<T> implements Callable<T> {
             serverSpanThreadBinder().setCurrentSpan(currentServerSpan());
             return wrappedCallable().call();
         }
+        if (contextState() != null) { // swaps all spans with one lookup
+            Snapshot previous = contextState().restore(snapshot());
+            try {
+                return wrappedCallable().call();
+            } finally {
+                contextState().restore(previous);
+            }
+        }
         ServerSpan previousServerSpan = serverSpanThreadBinder().getCurrentServerSpan();
         Span previousLocalSpan = localSpanThreadBinder().getCurrentLocalSpan();
         try {
@@ -1,5 +1,6 @@
 package com.github.kristofa.brave;
 
+import com.github.kristofa.brave.ThreadContextServerClientAndLocalSpanState.Snapshot;
 import com.github.kristofa.brave.internal.Nullable;
 import com.google.auto.value.AutoValue;
 import com.twitter.zipkin.gen.Span;
@@ -23,13 +24,7 @@ public abstract class BraveRunnable implements Runnable {
      */
     public static BraveRunnable wrap(Runnable runnable, Brave brave) {
         checkNotNull(brave, "brave"); // auto-value will check the others.
-        return new AutoValue_BraveRunnable(
-            runnable,
-            brave.localSpanThreadBinder(),
-            brave.localSpanThreadBinder().getCurrentLocalSpan(),
-            brave.serverSpanThreadBinder(),
-            brave.serverSpanThreadBinder().getCurrentServerSpan()
-        );
+        return wrap(runnable, brave.localSpanThreadBinder(), brave.serverSpanThreadBinder());
     }
 
     static BraveRunnable wrap( // hidden for package-scoped use
@@ -37,12 +32,29 @@ public abstract class BraveRunnable implements Runnable {
         LocalSpanThreadBinder localSpanThreadBinder,
         ServerSpanThreadBinder serverSpanThreadBinder
     ) {
+        ServerSpanState state = serverSpanThreadBinder.state();
+        if (state instanceof ThreadContextServerClientAndLocalSpanState) {
+            ThreadContextServerClientAndLocalSpanState contextState =
+                (ThreadContextServerClientAndLocalSpanState) state;
+            Snapshot snapshot = contextState.snapshot(); // one lookup instead of one per span
+            return new AutoValue_BraveRunnable(
+                runnable,
+                localSpanThreadBinder,
+                null, // the snapshot holds the spans
+                serverSpanThreadBinder,
+                null,
+                contextState,
+                snapshot
+            );
+        }
         return new AutoValue_BraveRunnable(
             runnable,
             localSpanThreadBinder,
             localSpanThreadBinder.getCurrentLocalSpan(),
             serverSpanThreadBinder,
-            serverSpanThreadBinder.getCurrentServerSpan()
+            serverSpanThreadBinder.getCurrentServerSpan(),
+            null,
+            null
         );
     }
 
@@ -58,18 +70,24 @@ public abstract class BraveRunnable implements Runnable {
             null,
             null,
             serverSpanThreadBinder,
-            serverSpanThreadBinder.getCurrentServerSpan()
+            serverSpanThreadBinder.getCurrentServerSpan(),
+            null,
+            null
         );
     }
 
     abstract Runnable wrappedRunnable();
     @Nullable // while deprecated constructor is in use
     abstract LocalSpanThreadBinder localSpanThreadBinder();
-    @Nullable
+    @Nullable // also when the snapshot holds the spans
     abstract Span currentLocalSpan();
     abstract ServerSpanThreadBinder serverSpanThreadBinder();
-    @Nullable
+    @Nullable // also when the snapshot holds the spans
     abstract ServerSpan currentServerSpan();
+    @Nullable // unless the state supports snapshots
+    abstract ThreadContextServerClientAndLocalSpanState contextState();
+    @Nullable
+    abstract Snapshot snapshot();
 
     /**
      * {@inheritDoc}
@@ -82,6 +100,16 @@ public abstract class BraveRunnable implements Runnable {
         return;
       }
 
+      if (contextState() != null) { // swaps all spans with one lookup
+        Snapshot previous = contextState().restore(snapshot());
+        try {
+          wrappedRunnable().run();
+        } finally {
+          contextState().restore(previous);
+        }
+        return;
+      }
+
       ServerSpan previousServerSpan = serverSpanThreadBinder().getCurrentServerSpan();
       Span previousLocalSpan = localSpanThreadBinder().getCurrentLocalSpan();
       try {
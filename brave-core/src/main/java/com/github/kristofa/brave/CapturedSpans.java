@@ -0,0 +1,104 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Span;
+
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+
+/**
+ * The spans bound to a thread at the time they were captured, which can be bound to other threads to continue the trace,
+ * for example in callbacks. Capture once, then {@link #swap() swap} the spans in before each callback and {@link
+ * #restore() restore} the result after it:
+ *
+ * <pre>{@code
+ * CapturedSpans spans = CapturedSpans.capture(brave);
+ * ...
+ * CapturedSpans previous = spans.swap();
+ * try {
+ *   callback.run();
+ * } finally {
+ *   previous.restore();
+ * }
+ * }</pre>
+ *
+ * <p>When Brave is built with {@link ThreadContextServerClientAndLocalSpanState}, this is a {@link
+ * ThreadContextServerClientAndLocalSpanState.Snapshot snapshot}, and capturing or swapping costs one lookup. Otherwise,
+ * the server and local spans are read and written individually.
+ *
+ * @since 3.18
+ */
+public abstract class CapturedSpans {
+
+  /** Captures the spans bound to the current thread. */
+  public static CapturedSpans capture(Brave brave) {
+    checkNotNull(brave, "brave");
+    ServerSpanThreadBinder serverSpanThreadBinder = brave.serverSpanThreadBinder();
+    if (serverSpanThreadBinder.state() instanceof ThreadContextServerClientAndLocalSpanState) {
+      return ThreadContextServerClientAndLocalSpanState.currentSnapshot();
+    }
+    LocalSpanThreadBinder localSpanThreadBinder = brave.localSpanThreadBinder();
+    return new BinderSpans(localSpanThreadBinder, localSpanThreadBinder.getCurrentLocalSpan(),
+        serverSpanThreadBinder, serverSpanThreadBinder.getCurrentServerSpan(),
+        Brave.nestsLocalSpans(localSpanThreadBinder.state()), false);
+  }
+
+  /** Binds these spans to the current thread, returning the spans that were bound before. */
+  public abstract CapturedSpans swap();
+
+  /** Binds these spans to the current thread, such as to put back the result of {@link #swap()}. */
+  public abstract void restore();
+
+  CapturedSpans() {
+  }
+
+  /**
+   * Sets spans with the thread binders. On states which nest local spans, setting a local span pushes it and setting null
+   * pops, so {@link #swap()} returns spans which undo what it did, instead of setting the previous local span again.
+   */
+  static final class BinderSpans extends CapturedSpans {
+    final LocalSpanThreadBinder localSpanThreadBinder;
+    final Span localSpan;
+    final ServerSpanThreadBinder serverSpanThreadBinder;
+    final ServerSpan serverSpan;
+    final boolean nested;
+    final boolean popLocalSpan; // when swap() pushed a local span, which restore() must pop
+
+    BinderSpans(LocalSpanThreadBinder localSpanThreadBinder, Span localSpan,
+        ServerSpanThreadBinder serverSpanThreadBinder, ServerSpan serverSpan, boolean nested,
+        boolean popLocalSpan) {
+      this.localSpanThreadBinder = localSpanThreadBinder;
+      this.localSpan = localSpan;
+      this.serverSpanThreadBinder = serverSpanThreadBinder;
+      this.serverSpan = serverSpan;
+      this.nested = nested;
+      this.popLocalSpan = popLocalSpan;
+    }
+
+    @Override public CapturedSpans swap() {
+      Span previousLocalSpan = localSpanThreadBinder.getCurrentLocalSpan();
+      ServerSpan previousServerSpan = serverSpanThreadBinder.getCurrentServerSpan();
+      serverSpanThreadBinder.setCurrentSpan(serverSpan);
+      boolean pushed = false;
+      if (!nested || localSpan != null) {
+        localSpanThreadBinder.setCurrentSpan(localSpan);
+        pushed = nested;
+      } else if (previousLocalSpan != null) {
+        localSpanThreadBinder.setCurrentSpan(null); // pops, so restore() pushes it back
+      }
+      return new BinderSpans(localSpanThreadBinder, previousLocalSpan, serverSpanThreadBinder,
+          previousServerSpan, nested, pushed);
+    }
+
+    @Override public void restore() {
+      serverSpanThreadBinder.setCurrentSpan(serverSpan);
+      if (popLocalSpan) {
+        localSpanThreadBinder.setCurrentSpan(null);
+      } else if (!nested || localSpan != null) {
+        localSpanThreadBinder.setCurrentSpan(localSpan);
+      }
+    }
+
+    @Override public String toString() {
+      return "CapturedSpans{serverSpan=" + serverSpan + ", localSpan=" + localSpan + "}";
+    }
+  }
+}
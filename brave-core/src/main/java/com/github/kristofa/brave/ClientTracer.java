@@ -84,7 +84,8 @@ public abstract class ClientTracer extends AnnotationSubmitter {
 
         public final ClientTracer build() {
             return new AutoValue_ClientTracer(
-                new AutoValue_Recorder_Default(localEndpoint, clock, reporter),
+                new AutoValue_Recorder_Default(
+                    localEndpoint, clock, reporter, SpanLimits.UNLIMITED),
                 currentLocalSpan,
                 currentServerSpan,
                 currentSpan,
@@ -2,6 +2,7 @@ package com.github.kristofa.brave;
 
 import java.util.BitSet;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static zipkin.internal.Util.checkArgument;
 
@@ -15,6 +16,11 @@ import static zipkin.internal.Util.checkArgument;
  * <p>This initializes a random bitset of size 100 (corresponding to 1% granularity). This means
  * that it is accurate in units of 100 traces. At runtime, this loops through the bitset, returning
  * the value according to a counter.
+ *
+ * <p>The counter is advanced with an atomic increment, so concurrent callers never block each other
+ * and each claims a distinct position in the bitset. Consecutive decisions, across all threads,
+ * walk the bitset in order, so any 100 of them retain the configured rate. The exception is once
+ * every 2^32 decisions, when the counter overflows and skips a few positions (see {@link #mod}).
  */
 public final class CountingSampler extends Sampler {
 
@@ -29,7 +35,7 @@ public final class CountingSampler extends Sampler {
     return new CountingSampler(rate);
   }
 
-  private int i; // guarded by this
+  final AtomicInteger counter = new AtomicInteger(); // visible for testing
   private final BitSet sampleDecisions;
 
   /** Fills a bitset with decisions according to the supplied rate. */
@@ -40,10 +46,18 @@ public final class CountingSampler extends Sampler {
 
   /** loops over the pre-canned decisions, resetting to zero when it gets to the end. */
   @Override
-  public synchronized boolean isSampled(long traceIdIgnored) {
-    boolean result = sampleDecisions.get(i++);
-    if (i == 100) i = 0;
-    return result;
+  public boolean isSampled(long traceIdIgnored) {
+    return sampleDecisions.get(mod(counter.getAndIncrement(), 100));
+  }
+
+  /**
+   * Returns a non-negative index, even after the counter overflows. As 2^32 isn't a multiple of
+   * 100, the overflow jumps from position 47 to 52, so the 100 decisions around it can be off the
+   * configured rate by up to 4. This happens once every 2^32 decisions.
+   */
+  static int mod(int dividend, int divisor) {
+    int result = dividend % divisor;
+    return result >= 0 ? result : divisor + result;
   }
 
   @Override
@@ -3,14 +3,12 @@ package com.github.kristofa.brave;
 import com.github.kristofa.brave.internal.Nullable;
 import com.twitter.zipkin.gen.Span;
 import java.io.Closeable;
+import java.io.File;
 import java.io.Flushable;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 
@@ -25,8 +23,40 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 @Deprecated
 public abstract class FlushingSpanCollector implements SpanCollector, Flushable, Closeable {
 
+  /**
+   * How spans are held between {@link #collect(Span)} and {@link #flush()}. Spans that don't fit
+   * are dropped, and reported to {@link SpanCollectorMetricsHandler#incrementDroppedSpans(int)}.
+   */
+  public enum PendingQueue {
+    /**
+     * A {@link java.util.concurrent.LinkedBlockingQueue} of up to 1000 spans, which locks and
+     * allocates per span.
+     */
+    LINKED,
+    /**
+     * An array-backed ring buffer of up to 1000 spans, where request threads never block or
+     * allocate to hand off a span. Prefer this when many threads collect spans concurrently.
+     */
+    RING_BUFFER,
+    /**
+     * A queue bounded by the estimated encoded size of spans, as opposed to their count. Prefer this
+     * when span size varies a lot, such as when SQL statements are tagged, and heap is limited.
+     *
+     * @see #DEFAULT_QUEUED_MAX_BYTES
+     */
+    BYTE_BOUNDED
+  }
+
+  /** The default byte budget of {@link PendingQueue#BYTE_BOUNDED}, which is 1% of the max heap. */
+  public static final int DEFAULT_QUEUED_MAX_BYTES = PendingSpans.onePercentOfMemory();
+
+  /** The default upper bound of disk used to spill spans, which is 16 MiB. */
+  public static final int DEFAULT_SPILL_MAX_BYTES = 16 * 1024 * 1024;
+
   private final SpanCollectorMetricsHandler metrics;
-  private final BlockingQueue<Span> pending = new LinkedBlockingQueue<Span>(1000);
+  private final PendingSpans pending;
+  @Nullable // when spilling is disabled
+  private final SpanSpill spill;
   @Nullable // for testing
   private final Flusher flusher;
 
@@ -34,19 +64,68 @@ public abstract class FlushingSpanCollector implements SpanCollector, Flushable,
    * @param flushInterval in seconds. 0 implies spans are {@link #flush() flushed externally.
    */
   protected FlushingSpanCollector(SpanCollectorMetricsHandler metrics, int flushInterval) {
+    this(metrics, flushInterval, PendingQueue.LINKED);
+  }
+
+  /**
+   * @param flushInterval in seconds. 0 implies spans are {@link #flush() flushed externally.
+   * @param pendingQueue how spans are held until they are flushed
+   */
+  protected FlushingSpanCollector(SpanCollectorMetricsHandler metrics, int flushInterval,
+      PendingQueue pendingQueue) {
+    this(metrics, flushInterval, pendingQueue, DEFAULT_QUEUED_MAX_BYTES);
+  }
+
+  /**
+   * @param flushInterval in seconds. 0 implies spans are {@link #flush() flushed externally.
+   * @param pendingQueue how spans are held until they are flushed
+   * @param queuedMaxBytes maximum estimated bytes of pending spans, when the queue is {@link
+   * PendingQueue#BYTE_BOUNDED}
+   */
+  protected FlushingSpanCollector(SpanCollectorMetricsHandler metrics, int flushInterval,
+      PendingQueue pendingQueue, int queuedMaxBytes) {
+    this(metrics, flushInterval, pendingQueue, queuedMaxBytes, null, DEFAULT_SPILL_MAX_BYTES);
+  }
+
+  /**
+   * When a spill directory is set, spans that can't be reported, or don't fit in the pending queue,
+   * are appended to memory-mapped files there instead of being dropped. Each flush replays a batch
+   * of spilled spans, once pending spans were reported without error. Spans still pending on close
+   * are spilled, and replayed by the next instance using the same directory.
+   *
+   * @param flushInterval in seconds. 0 implies spans are {@link #flush() flushed externally.
+   * @param pendingQueue how spans are held until they are flushed
+   * @param queuedMaxBytes maximum estimated bytes of pending spans, when the queue is {@link
+   * PendingQueue#BYTE_BOUNDED}
+   * @param spillDirectory where to spill spans, or null to drop them
+   * @param spillMaxBytes upper bound of disk used in the spill directory
+   * @throws IllegalArgumentException if the spill directory couldn't be opened
+   * @since 3.18
+   */
+  protected FlushingSpanCollector(SpanCollectorMetricsHandler metrics, int flushInterval,
+      PendingQueue pendingQueue, int queuedMaxBytes, @Nullable File spillDirectory,
+      int spillMaxBytes) {
     this.metrics = metrics;
+    this.pending = PendingSpans.create(pendingQueue, queuedMaxBytes);
+    try {
+      this.spill = spillDirectory != null ? SpanSpill.open(spillDirectory, spillMaxBytes) : null;
+    } catch (IOException e) {
+      throw new IllegalArgumentException("couldn't open spill directory " + spillDirectory, e);
+    }
     this.flusher = flushInterval > 0 ? new Flusher(this, flushInterval, getClass().getSimpleName()) : null;
   }
 
   /**
-   * Queues the span for collection, or drops it if the queue is full.
+   * Queues the span for collection, or drops it if the queue is full. When spilling, a span that
+   * doesn't fit in the queue is copied into a segment the flushing thread prepared, so this never
+   * waits for disk.
    *
    * @param span Span, should not be <code>null</code>.
    */
   @Override
   public void collect(Span span) {
     metrics.incrementAcceptedSpans(1);
-    if (!pending.offer(span)) {
+    if (!pending.offer(span) && (spill == null || !spill.offer(span))) {
       metrics.incrementDroppedSpans(1);
     }
   }
@@ -56,19 +135,67 @@ public abstract class FlushingSpanCollector implements SpanCollector, Flushable,
    */
   @Override
   public void flush() {
-    if (pending.isEmpty()) return;
-    List<Span> drained = new ArrayList<Span>(pending.size());
-    pending.drainTo(drained);
-    if (drained.isEmpty()) return;
+    int size = pending.size();
+    boolean reported = true;
+    if (size != 0) {
+      List<Span> drained = new ArrayList<Span>(size);
+      pending.drainTo(drained);
+      reported = drained.isEmpty() || report(drained);
+    }
+    if (spill != null) {
+      if (reported) replay();
+      spill.prepare(); // so that collect() can spill without creating files
+    }
+  }
 
-    int spanCount = drained.size();
+  /** Returns false if the spans were spilled or dropped. */
+  boolean report(List<Span> spans) {
     try {
-      reportSpans(drained);
+      reportSpans(spans);
+      return true;
     } catch (IOException e) {
-      metrics.incrementDroppedSpans(spanCount);
+      reportFailed(spans);
     } catch (RuntimeException e) {
-      metrics.incrementDroppedSpans(spanCount);
+      reportFailed(spans);
+    }
+    return false;
+  }
+
+  /**
+   * Reports a batch of spilled spans, leaving them spilled if that fails. If some were reported
+   * before the failure, the batch is removed and the rest are spilled again.
+   */
+  void replay() {
+    List<Span> replayed = new ArrayList<Span>();
+    int count = spill.peek(replayed, PendingSpans.DEFAULT_CAPACITY);
+    if (count != 0) {
+      try {
+        reportSpans(replayed);
+      } catch (IOException e) {
+        if (replayed.size() < count) replayFailed(replayed);
+        return;
+      } catch (RuntimeException e) {
+        if (replayed.size() < count) replayFailed(replayed);
+        return;
+      }
     }
+    spill.commit();
+  }
+
+  void replayFailed(List<Span> unreported) {
+    spill.commit();
+    reportFailed(unreported);
+  }
+
+  /**
+   * Spills spans that failed to report, or increments dropped spans if they couldn't be. Call this
+   * when spans {@link #reportSpans(List) reported} asynchronously fail.
+   *
+   * @since 3.18
+   */
+  protected final void reportFailed(List<Span> spans) {
+    int dropped = spill != null ? spill.append(spans) : spans.size();
+    if (dropped != 0) metrics.incrementDroppedSpans(dropped);
   }
 
   /** Calls flush on a fixed interval */
@@ -95,6 +222,9 @@ public abstract class FlushingSpanCollector implements SpanCollector, Flushable,
   /**
    * Reports a list of spans over the current transport.
    *
+   * <p>Implementations that send the list in parts should remove spans already sent from it before
+   * throwing, so that only the rest are spilled or dropped.
+   *
    * @throws IOException (or RuntimeException) when thrown, drop metrics will increment accordingly
    */
   protected abstract void reportSpans(List<Span> drained) throws IOException;
@@ -110,8 +240,13 @@ public abstract class FlushingSpanCollector implements SpanCollector, Flushable,
   @Override
   public void close() {
     if (flusher != null) flusher.scheduler.shutdown();
-    // throw any outstanding spans on the floor
-    int dropped = pending.drainTo(new LinkedList<Span>());
-    metrics.incrementDroppedSpans(dropped);
+    List<Span> outstanding = new ArrayList<Span>(pending.size());
+    pending.drainTo(outstanding);
+    if (spill == null) { // throw any outstanding spans on the floor
+      metrics.incrementDroppedSpans(outstanding.size());
+    } else {
+      reportFailed(outstanding);
+      spill.close();
+    }
   }
 }
@@ -35,6 +35,16 @@ public class IdConversion {
    * bits higher than 64.
    */
   public static long convertToLong(String lowerHex) {
+    return convertToLong((CharSequence) lowerHex);
+  }
+
+  /**
+   * Like {@link #convertToLong(String)}, except it reads the characters directly, for example from
+   * a header buffer. This doesn't allocate unless the input is invalid.
+   *
+   * @since 3.18
+   */
+  public static long convertToLong(CharSequence lowerHex) {
     int length = lowerHex.length();
     if (length < 1 || length > 32) throw isntLowerHexLong(lowerHex);
 
@@ -49,6 +59,15 @@ public class IdConversion {
    * specified index.
    */
   public static long convertToLong(String lowerHex, int index) {
+    return convertToLong((CharSequence) lowerHex, index);
+  }
+
+  /**
+   * Like {@link #convertToLong(String, int)}, except it reads the characters directly.
+   *
+   * @since 3.18
+   */
+  public static long convertToLong(CharSequence lowerHex, int index) {
     long result = 0;
     for (int endIndex = Math.min(index + 16, lowerHex.length()); index < endIndex; index++) {
       char c = lowerHex.charAt(index);
@@ -64,7 +83,7 @@ public class IdConversion {
     return result;
   }
 
-  static NumberFormatException isntLowerHexLong(String lowerHex) {
+  static NumberFormatException isntLowerHexLong(CharSequence lowerHex) {
     throw new NumberFormatException(
         lowerHex + " should be a 1 to 32 character lower-hex string with no prefix");
   }
@@ -1,7 +1,6 @@
 package com.github.kristofa.brave;
 
-import java.util.Deque;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.Arrays;
 
 import com.github.kristofa.brave.internal.Util;
 import com.twitter.zipkin.gen.Endpoint;
@@ -15,8 +14,16 @@ import com.twitter.zipkin.gen.Span;
  * {@link LocalTracer#finishSpan() finish spans} or clear the local span at
  * completion of the local trace span to avoid linking spans with incorrect
  * parents and avoid leaking spans and associated memory.
+ * <p>
+ * Each thread has its own stack of local spans. A child thread starts with a copy of its parent's stack when created, so
+ * spans started or finished in the child don't change the parent's current local span.
+ * <p>
+ * Beware of pooled threads created inside a local span, for example when a pool starts its threads lazily. Such a thread
+ * keeps its copy of the stack for its whole life, long after the parent finished those spans, and uses them as the
+ * parent of later, unrelated work it runs. Create pools, and start their threads, outside of local spans to avoid this.
  */
-public final class InheritableServerClientAndLocalSpanState implements ServerClientAndLocalSpanState {
+public final class InheritableServerClientAndLocalSpanState implements ServerClientAndLocalSpanState,
+        NestedLocalSpanState {
 
     private final InheritableThreadLocal<ServerSpan> currentServerSpan =
             new InheritableThreadLocal<ServerSpan>() {
@@ -28,11 +35,16 @@ public final class InheritableServerClientAndLocalSpanState implements ServerCli
 
     private final InheritableThreadLocal<Span> currentClientSpan = new InheritableThreadLocal<Span>();
 
-    private final InheritableThreadLocal<Deque<Span>> currentLocalSpan =
-            new InheritableThreadLocal<Deque<Span>>() {
+    private final InheritableThreadLocal<LocalSpanStack> currentLocalSpan =
+            new InheritableThreadLocal<LocalSpanStack>() {
+                @Override
+                protected LocalSpanStack initialValue() {
+                    return new LocalSpanStack();
+                }
+
                 @Override
-                protected Deque<Span> initialValue() {
-                    return new LinkedBlockingDeque<Span>();
+                protected LocalSpanStack childValue(LocalSpanStack parentValue) {
+                    return parentValue.copy();
                 }
             };
 
@@ -82,7 +94,7 @@ public final class InheritableServerClientAndLocalSpanState implements ServerCli
 
     @Override
     public Span getCurrentLocalSpan() {
-        return currentLocalSpan.get().peekFirst();
+        return currentLocalSpan.get().peek();
     }
 
     /**
@@ -93,12 +105,12 @@ public final class InheritableServerClientAndLocalSpanState implements ServerCli
      */
     @Override
     public void setCurrentLocalSpan(Span span) {
-        Deque<Span> deque = currentLocalSpan.get();
+        LocalSpanStack stack = currentLocalSpan.get();
         if (span == null) {
             // pop to remove
-            deque.pollFirst();
+            stack.pop();
         } else {
-            deque.addFirst(span);
+            stack.push(span);
         }
     }
 
@@ -111,4 +123,47 @@ public final class InheritableServerClientAndLocalSpanState implements ServerCli
                 + "currentServerSpan=" + currentServerSpan
                 + "}";
     }
+
+    /**
+     * Stack of local spans, only accessed by the thread that owns it. Unlike a deque, pushing a span doesn't allocate
+     * unless the stack needs to grow.
+     */
+    static final class LocalSpanStack {
+        static final int INITIAL_CAPACITY = 4;
+
+        Span[] spans;
+        int size;
+
+        LocalSpanStack() {
+            this(new Span[INITIAL_CAPACITY], 0);
+        }
+
+        LocalSpanStack(Span[] spans, int size) {
+            this.spans = spans;
+            this.size = size;
+        }
+
+        Span peek() {
+            return size == 0 ? null : spans[size - 1];
+        }
+
+        void push(Span span) {
+            if (size == spans.length) spans = Arrays.copyOf(spans, size * 2);
+            spans[size++] = span;
+        }
+
+        void pop() {
+            if (size == 0) return;
+            spans[--size] = null; // don't retain finished spans
+        }
+
+        LocalSpanStack copy() {
+            return new LocalSpanStack(Arrays.copyOf(spans, Math.max(size, INITIAL_CAPACITY)), size);
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(Arrays.copyOf(spans, size));
+        }
+    }
 }
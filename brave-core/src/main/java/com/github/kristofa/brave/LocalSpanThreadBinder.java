@@ -48,6 +48,10 @@ public final class LocalSpanThreadBinder extends CurrentSpan {
     state.setCurrentLocalSpan(span);
   }
 
+  LocalSpanState state() {
+    return state;
+  }
+
   @Override Span get() {
     return getCurrentLocalSpan();
   }
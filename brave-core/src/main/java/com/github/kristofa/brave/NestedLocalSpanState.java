@@ -0,0 +1,13 @@
+package com.github.kristofa.brave;
+
+/**
+ * A {@link LocalSpanState} which keeps a stack of nested local spans per thread, instead of a single one.
+ * {@link #setCurrentLocalSpan(com.twitter.zipkin.gen.Span)} pushes a span onto the stack, and setting null pops the
+ * innermost span.
+ * <p/>
+ * When Brave is built with such a state, a new local span's parent is the current local span, if there is one.
+ *
+ * @since 3.18
+ */
+public interface NestedLocalSpanState extends LocalSpanState {
+}
@@ -0,0 +1,137 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.internal.Nullable;
+import com.twitter.zipkin.gen.Annotation;
+import com.twitter.zipkin.gen.BinaryAnnotation;
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Holds spans between {@link FlushingSpanCollector#collect(Span) collection} on request threads and
+ * {@link FlushingSpanCollector#flush() flushing} on the reporting thread.
+ */
+abstract class PendingSpans {
+  static final int DEFAULT_CAPACITY = 1000;
+
+  static PendingSpans create(FlushingSpanCollector.PendingQueue type, int queuedMaxBytes) {
+    switch (type) {
+      case LINKED:
+        return new Linked(DEFAULT_CAPACITY);
+      case RING_BUFFER:
+        return new SpanRingBuffer(DEFAULT_CAPACITY);
+      case BYTE_BOUNDED:
+        return new ByteBounded(queuedMaxBytes);
+      default:
+        throw new AssertionError(type);
+    }
+  }
+
+  /** Returns false if the span was dropped because this is full. */
+  abstract boolean offer(Span span);
+
+  /** Moves pending spans into the list, returning how many were moved. */
+  abstract int drainTo(List<Span> drained);
+
+  /** Returns an estimate of the count of pending spans. */
+  abstract int size();
+
+  static final class Linked extends PendingSpans {
+    final BlockingQueue<Span> queue;
+
+    Linked(int capacity) {
+      this.queue = new LinkedBlockingQueue<Span>(capacity);
+    }
+
+    @Override boolean offer(Span span) {
+      return queue.offer(span);
+    }
+
+    @Override int drainTo(List<Span> drained) {
+      return queue.drainTo(drained);
+    }
+
+    @Override int size() {
+      return queue.size();
+    }
+  }
+
+  /**
+   * Bounds pending spans by their estimated encoded size, as opposed to count. This keeps a burst of
+   * spans with large tags, such as SQL statements, from exhausting the heap, while letting many
+   * small spans through.
+   */
+  static final class ByteBounded extends PendingSpans {
+    final int maxBytes;
+    final ArrayDeque<Span> spans = new ArrayDeque<Span>();
+    int bytes; // guarded by this
+
+    ByteBounded(int maxBytes) {
+      if (maxBytes < 1) throw new IllegalArgumentException("maxBytes < 1: " + maxBytes);
+      this.maxBytes = maxBytes;
+    }
+
+    @Override boolean offer(Span span) {
+      int spanBytes = sizeInBytes(span); // outside the lock, as this reads every annotation
+      synchronized (this) {
+        if (maxBytes - bytes < spanBytes) return false;
+        spans.add(span);
+        bytes += spanBytes;
+        return true;
+      }
+    }
+
+    @Override synchronized int drainTo(List<Span> drained) {
+      int count = spans.size();
+      drained.addAll(spans);
+      spans.clear();
+      bytes = 0;
+      return count;
+    }
+
+    @Override synchronized int size() {
+      return spans.size();
+    }
+
+    synchronized int bytes() {
+      return bytes;
+    }
+  }
+
+  /**
+   * Estimates the thrift-encoded size of a span without encoding it. Strings are counted in chars,
+   * so non-ASCII text is underestimated. Fixed-width fields are rounded up to include field headers.
+   */
+  static int sizeInBytes(Span span) {
+    int result = 64; // ids, timestamp, duration, debug and framing
+    String name = span.getName();
+    if (name != null) result += name.length();
+    List<Annotation> annotations = span.getAnnotations();
+    for (int i = 0, length = annotations.size(); i < length; i++) {
+      Annotation a = annotations.get(i);
+      result += 16 + a.value.length() + sizeInBytes(a.host);
+    }
+    List<BinaryAnnotation> binaryAnnotations = span.getBinary_annotations();
+    for (int i = 0, length = binaryAnnotations.size(); i < length; i++) {
+      BinaryAnnotation b = binaryAnnotations.get(i);
+      result += 16 + b.key.length() + b.value.length + sizeInBytes(b.host);
+    }
+    return result;
+  }
+
+  static int sizeInBytes(@Nullable Endpoint endpoint) {
+    if (endpoint == null) return 0;
+    int result = 24 + endpoint.service_name.length();
+    if (endpoint.ipv6 != null) result += endpoint.ipv6.length;
+    return result;
+  }
+
+  /** Like zipkin's AsyncReporter, the default byte budget is 1% of the maximum heap. */
+  static int onePercentOfMemory() {
+    long result = (long) (Runtime.getRuntime().maxMemory() * 0.01);
+    return (int) Math.max(1, Math.min(Integer.MAX_VALUE, result));
+  }
+}
@@ -0,0 +1,68 @@
+package com.github.kristofa.brave;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static zipkin.internal.Util.checkArgument;
+
+/**
+ * This sampler admits at most a fixed number of new traces per second, regardless of how much
+ * traffic the process receives. It is appropriate when a spike in requests shouldn't translate into
+ * a spike of spans sent to Zipkin. Like other samplers, it is only consulted at the root of a trace,
+ * so downstream services honor the decision made here.
+ *
+ * <h3>Implementation</h3>
+ *
+ * <p>This is a token bucket holding up to one second's worth of traces, implemented as a generic
+ * cell rate algorithm. Instead of a token count and refill timer, it keeps a single timestamp: the
+ * time at which the bucket would be full again. Each admitted trace moves that time forward by
+ * {@code 1 second / tracesPerSecond}, and a trace is rejected when doing so would move it more than
+ * a second past now. The timestamp is advanced with compare-and-set, so callers never block.
+ */
+public final class RateLimitingSampler extends Sampler {
+  static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  /**
+   * @param tracesPerSecond 0 means never sample. Otherwise, the maximum count of new traces to
+   * start per second, which cannot be more than one per nanosecond.
+   */
+  public static Sampler create(int tracesPerSecond) {
+    checkArgument(tracesPerSecond >= 0 && tracesPerSecond <= NANOS_PER_SECOND,
+        "tracesPerSecond should be between 0 and %s: was %s", NANOS_PER_SECOND, tracesPerSecond);
+    if (tracesPerSecond == 0) return NEVER_SAMPLE;
+    return new RateLimitingSampler(tracesPerSecond, System.nanoTime());
+  }
+
+  private final int tracesPerSecond;
+  private final long nanosPerTrace;
+  private final long burstTolerance;
+  /** Time the bucket is full again, in {@link System#nanoTime()} units. */
+  private final AtomicLong fullAt;
+
+  RateLimitingSampler(int tracesPerSecond, long nowNanos) {
+    this.tracesPerSecond = tracesPerSecond;
+    this.nanosPerTrace = NANOS_PER_SECOND / tracesPerSecond;
+    this.burstTolerance = NANOS_PER_SECOND - nanosPerTrace;
+    this.fullAt = new AtomicLong(nowNanos);
+  }
+
+  @Override
+  public boolean isSampled(long traceIdIgnored) {
+    return isSampledAt(System.nanoTime());
+  }
+
+  boolean isSampledAt(long nowNanos) {
+    while (true) {
+      long current = fullAt.get();
+      // once the bucket is full, idle time doesn't add more tokens
+      long start = current - nowNanos < 0 ? nowNanos : current;
+      if (start - nowNanos > burstTolerance) return false;
+      if (fullAt.compareAndSet(current, start + nanosPerTrace)) return true;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "RateLimitingSampler(" + tracesPerSecond + ")";
+  }
+}
@@ -1,11 +1,15 @@
 package com.github.kristofa.brave;
 
 import com.github.kristofa.brave.internal.InternalSpan;
+import com.github.kristofa.brave.internal.Nullable;
 import com.google.auto.value.AutoValue;
 import com.twitter.zipkin.gen.Annotation;
 import com.twitter.zipkin.gen.BinaryAnnotation;
 import com.twitter.zipkin.gen.Endpoint;
 import com.twitter.zipkin.gen.Span;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import zipkin.Constants;
 import zipkin.reporter.Reporter;
 
@@ -45,6 +49,32 @@ abstract class Recorder {
   /** Reports whatever is present even if unfinished. */
   abstract void flush(Span span);
 
+  static String annotationValue(SpanKind kind, boolean start) {
+    switch (kind) {
+      case CLIENT:
+        return start ? Constants.CLIENT_SEND : Constants.CLIENT_RECV;
+      case SERVER:
+        return start ? Constants.SERVER_RECV : Constants.SERVER_SEND;
+      default:
+        throw new AssertionError(kind + " is not yet supported");
+    }
+  }
+
+  static String addressKey(SpanKind kind) {
+    switch (kind) {
+      case CLIENT:
+        return Constants.SERVER_ADDR;
+      case SERVER:
+        return Constants.CLIENT_ADDR;
+      default:
+        throw new AssertionError(kind + " is not yet supported");
+    }
+  }
+
+  /**
+   * Synchronizes on the span to record into it. When {@link #limits()} are set, the span's lists are
+   * checked under that lock before an annotation or tag is added.
+   */
   @AutoValue
   static abstract class Default extends Recorder {
     abstract Endpoint localEndpoint();
@@ -53,6 +83,8 @@ abstract class Recorder {
 
     abstract Reporter<zipkin.Span> reporter();
 
+    abstract SpanLimits limits();
+
     @Override void name(Span span, String name) {
       synchronized (span) {
         span.setName(name);
@@ -64,17 +96,7 @@ abstract class Recorder {
     }
 
     @Override void start(Span span, SpanKind kind) {
-      String value;
-      switch (kind) {
-        case CLIENT:
-          value = Constants.CLIENT_SEND;
-          break;
-        case SERVER:
-          value = Constants.SERVER_RECV;
-          break;
-        default:
-          throw new AssertionError(kind + " is not yet supported");
-      }
+      String value = annotationValue(kind, true);
       Long timestamp = clock().currentTimeMicroseconds();
       Annotation annotation = Annotation.create(timestamp, value, localEndpoint());
 
@@ -102,33 +124,28 @@ abstract class Recorder {
     }
 
     @Override void annotate(Span span, long timestamp, String value) {
+      int max = limits().maxAnnotations();
       Annotation annotation = Annotation.create(timestamp, value, localEndpoint());
       synchronized (span) {
+        if (max != Integer.MAX_VALUE && span.getAnnotations().size() >= max) return;
         span.addToAnnotations(annotation);
       }
     }
 
     @Override void remoteAddress(Span span, SpanKind kind, Endpoint endpoint) {
-      String address;
-      switch (kind) {
-        case CLIENT:
-          address = Constants.SERVER_ADDR;
-          break;
-        case SERVER:
-          address = Constants.CLIENT_ADDR;
-          break;
-        default:
-          throw new AssertionError(kind + " is not yet supported");
-      }
-      BinaryAnnotation ba = BinaryAnnotation.address(address, endpoint);
+      BinaryAnnotation ba = BinaryAnnotation.address(addressKey(kind), endpoint);
       synchronized (span) {
         span.addToBinary_annotations(ba);
       }
     }
 
     @Override void tag(Span span, String key, String value) {
-      BinaryAnnotation ba = BinaryAnnotation.create(key, value, localEndpoint());
+      SpanLimits limits = limits();
+      int max = limits.maxBinaryAnnotations();
+      BinaryAnnotation ba =
+          BinaryAnnotation.create(key, limits.truncateTagValue(value), localEndpoint());
       synchronized (span) {
+        if (max != Integer.MAX_VALUE && span.getBinary_annotations().size() >= max) return;
         span.addToBinary_annotations(ba);
       }
     }
@@ -145,17 +162,7 @@ abstract class Recorder {
     }
 
     @Override void finish(Span span, SpanKind kind) {
-      String value;
-      switch (kind) {
-        case CLIENT:
-          value = Constants.CLIENT_RECV;
-          break;
-        case SERVER:
-          value = Constants.SERVER_SEND;
-          break;
-        default:
-          throw new AssertionError(kind + " is not yet supported");
-      }
+      String value = annotationValue(kind, false);
       long endTimestamp = clock().currentTimeMicroseconds();
       Annotation annotation = Annotation.create(endTimestamp, value, localEndpoint());
 
@@ -180,4 +187,339 @@ abstract class Recorder {
       reporter().report(toZipkin(span));
     }
   }
+  /**
+   * Records into state attached to the span instead of synchronizing on it. Annotations are pushed
+   * onto immutable linked lists published with compare-and-set, so callers never block each other
+   * and the usual case, a single thread recording a span, never retries.
+   *
+   * <p>Data recorded this way isn't visible via getters on {@link Span}. It is only materialized
+   * when the span is {@link #flush(Span) flushed} to the reporter.
+   *
+   * <p>When a {@link #pool()} is present, the record is detached from the span and recycled after
+   * it is finished. Each recording {@link #enter(SpanRecord, Span) enters} the record, which is
+   * only released once no recording is in progress. Recording after the span finished is dropped,
+   * even if the record was already reused by another span.
+   */
+  @AutoValue
+  static abstract class LockFree extends Recorder {
+    abstract Endpoint localEndpoint();
+
+    abstract AnnotationSubmitter.Clock clock();
+
+    abstract Reporter<zipkin.Span> reporter();
+
+    abstract SpanLimits limits();
+
+    @Nullable abstract SpanRecordPool pool();
+
+    @Override void name(Span span, String name) {
+      SpanRecord record = record(span);
+      if (!enter(record, span)) return;
+      try {
+        record.name = name == null || name.isEmpty() ? "" : name.toLowerCase(Locale.ROOT);
+      } finally {
+        exit(record);
+      }
+    }
+
+    @Override void start(Span span) {
+      start(span, clock().currentTimeMicroseconds());
+    }
+
+    @Override void start(Span span, SpanKind kind) {
+      long timestamp = clock().currentTimeMicroseconds();
+      Annotation annotation =
+          Annotation.create(timestamp, annotationValue(kind, true), localEndpoint());
+
+      // See Recorder.Default: the server half of a shared span doesn't report timestamp
+      boolean serverHalf = InternalSpan.instance.context(span).shared && kind == SpanKind.SERVER;
+
+      SpanRecord record = record(span);
+      if (!enter(record, span)) return;
+      try {
+        record.timestamp = serverHalf ? null : timestamp;
+        record.add(SpanRecord.ANNOTATIONS, newNode(annotation));
+        record.count(SpanRecord.ANNOTATION_COUNT, limits().maxAnnotations());
+      } finally {
+        exit(record);
+      }
+    }
+
+    @Override void start(Span span, long timestamp) {
+      SpanRecord record = record(span);
+      if (!enter(record, span)) return;
+      try {
+        record.timestamp = timestamp;
+      } finally {
+        exit(record);
+      }
+    }
+
+    @Override void annotate(Span span, String value) {
+      annotate(span, clock().currentTimeMicroseconds(), value);
+    }
+
+    @Override void annotate(Span span, long timestamp, String value) {
+      SpanRecord record = record(span);
+      if (!enter(record, span)) return;
+      try {
+        if (!record.reserve(SpanRecord.ANNOTATION_COUNT, limits().maxAnnotations())) return;
+        Annotation annotation = Annotation.create(timestamp, value, localEndpoint());
+        record.add(SpanRecord.ANNOTATIONS, newNode(annotation));
+      } finally {
+        exit(record);
+      }
+    }
+
+    @Override void remoteAddress(Span span, SpanKind kind, Endpoint endpoint) {
+      BinaryAnnotation ba = BinaryAnnotation.address(addressKey(kind), endpoint);
+      SpanRecord record = record(span);
+      if (!enter(record, span)) return;
+      try {
+        record.add(SpanRecord.BINARY_ANNOTATIONS, newNode(ba));
+        record.count(SpanRecord.BINARY_ANNOTATION_COUNT, limits().maxBinaryAnnotations());
+      } finally {
+        exit(record);
+      }
+    }
+
+    @Override void tag(Span span, String key, String value) {
+      SpanLimits limits = limits();
+      SpanRecord record = record(span);
+      if (!enter(record, span)) return;
+      try {
+        if (!record.reserve(SpanRecord.BINARY_ANNOTATION_COUNT, limits.maxBinaryAnnotations())) {
+          return;
+        }
+        BinaryAnnotation ba =
+            BinaryAnnotation.create(key, limits.truncateTagValue(value), localEndpoint());
+        record.add(SpanRecord.BINARY_ANNOTATIONS, newNode(ba));
+      } finally {
+        exit(record);
+      }
+    }
+
+    @Override void finish(Span span) {
+      long endTimestamp = clock().currentTimeMicroseconds();
+      SpanRecord record = record(span);
+      if (!enter(record, span)) return; // already finished
+      try {
+        record.finish(endTimestamp);
+        reporter().report(record.materialize(span));
+      } finally {
+        exit(record);
+      }
+      recycle(span, record);
+    }
+
+    @Override void finish(Span span, SpanKind kind) {
+      long endTimestamp = clock().currentTimeMicroseconds();
+      Annotation annotation =
+          Annotation.create(endTimestamp, annotationValue(kind, false), localEndpoint());
+
+      SpanRecord record = record(span);
+      if (!enter(record, span)) return; // already finished
+      try {
+        record.add(SpanRecord.ANNOTATIONS, newNode(annotation));
+        record.count(SpanRecord.ANNOTATION_COUNT, limits().maxAnnotations());
+        record.finish(endTimestamp);
+        reporter().report(record.materialize(span));
+      } finally {
+        exit(record);
+      }
+      recycle(span, record);
+    }
+
+    @Override void finish(Span span, long duration) {
+      SpanRecord record = record(span);
+      if (!enter(record, span)) return; // already finished
+      try {
+        record.duration = duration;
+        reporter().report(record.materialize(span));
+      } finally {
+        exit(record);
+      }
+      recycle(span, record);
+    }
+
+    @Override void flush(Span span) {
+      SpanRecord record = (SpanRecord) InternalSpan.instance.recording(span);
+      if (record == null) {
+        reporter().report(toZipkin(span));
+        return;
+      }
+      if (!enter(record, span)) return; // finished, so already reported
+      try {
+        reporter().report(record.materialize(span));
+      } finally {
+        exit(record);
+      }
+    }
+
+    /** Returns the record attached to this span, attaching a new one on first use. */
+    SpanRecord record(Span span) {
+      Object record = InternalSpan.instance.recording(span);
+      if (record != null) return (SpanRecord) record;
+      SpanRecordPool pool = pool();
+      SpanRecord newRecord = pool != null ? pool.acquire(span) : new SpanRecord();
+      while (!InternalSpan.instance.compareAndSetRecording(span, null, newRecord)) {
+        record = InternalSpan.instance.recording(span);
+        if (record != null) { // another thread won
+          if (pool != null) pool.release(newRecord);
+          return (SpanRecord) record;
+        }
+      }
+      return newRecord;
+    }
+
+    Node newNode(Object value) {
+      SpanRecordPool pool = pool();
+      return pool != null ? pool.newNode(value) : new Node(value);
+    }
+
+    /**
+     * Returns false if the record was recycled since it was looked up, in which case the caller
+     * must not record into it. Otherwise, call {@link #exit(SpanRecord)} once done recording.
+     */
+    boolean enter(SpanRecord record, Span span) {
+      if (pool() == null) return true; // records are never reused
+      if (!record.tryEnter()) return false;
+      if (record.owner == span) return true;
+      exit(record); // reused by another span
+      return false;
+    }
+
+    /** Releases the record if it was recycled while this thread was recording. */
+    void exit(SpanRecord record) {
+      SpanRecordPool pool = pool();
+      if (pool != null && record.exit()) pool.release(record);
+    }
+
+    /**
+     * Detaches the record from the finished span and returns it to the pool, if there is one. If
+     * other threads are recording into it, the last to {@link #exit(SpanRecord) exit} releases it.
+     */
+    void recycle(Span span, SpanRecord record) {
+      SpanRecordPool pool = pool();
+      if (pool != null && InternalSpan.instance.compareAndSetRecording(span, record, null)
+          && record.markRecycled()) {
+        pool.release(record);
+      }
+    }
+  }
+
+  /** Mutable span data whose fields are published without locking. */
+  static final class SpanRecord {
+    static final AtomicReferenceFieldUpdater<SpanRecord, Node> ANNOTATIONS =
+        AtomicReferenceFieldUpdater.newUpdater(SpanRecord.class, Node.class, "annotations");
+    static final AtomicReferenceFieldUpdater<SpanRecord, Node> BINARY_ANNOTATIONS =
+        AtomicReferenceFieldUpdater.newUpdater(SpanRecord.class, Node.class, "binaryAnnotations");
+    static final AtomicIntegerFieldUpdater<SpanRecord> ANNOTATION_COUNT =
+        AtomicIntegerFieldUpdater.newUpdater(SpanRecord.class, "annotationCount");
+    static final AtomicIntegerFieldUpdater<SpanRecord> BINARY_ANNOTATION_COUNT =
+        AtomicIntegerFieldUpdater.newUpdater(SpanRecord.class, "binaryAnnotationCount");
+    static final AtomicIntegerFieldUpdater<SpanRecord> WRITERS =
+        AtomicIntegerFieldUpdater.newUpdater(SpanRecord.class, "writers");
+    /** Set in {@link #writers} once the span finished, so no new writer may enter. */
+    static final int RECYCLED = Integer.MIN_VALUE;
+
+    volatile String name; // null until set, which means use the span's name
+    volatile Long timestamp;
+    volatile Long duration;
+    volatile Node annotations; // newest first
+    volatile Node binaryAnnotations; // newest first
+    volatile int annotationCount; // only maintained when limited
+    volatile int binaryAnnotationCount; // only maintained when limited
+    volatile int writers; // threads recording, with RECYCLED once finished; only used when pooled
+    volatile Span owner; // set by SpanRecordPool, before writers are reset
+    SpanRecord nextFree; // used by SpanRecordPool
+    SpanRecordPool.Leak leak; // used by SpanRecordPool
+
+    /** Counts a thread recording into this record, unless it was recycled. */
+    boolean tryEnter() {
+      for (int w; ((w = writers) & RECYCLED) == 0; ) {
+        if (WRITERS.compareAndSet(this, w, w + 1)) return true;
+      }
+      return false;
+    }
+
+    /** Returns true if the record was recycled, and the calling thread was the last recording. */
+    boolean exit() {
+      return WRITERS.decrementAndGet(this) == RECYCLED;
+    }
+
+    /** Stops new writers entering. Returns true if none are recording, so it can be released. */
+    boolean markRecycled() {
+      for (;;) {
+        int w = writers;
+        if (WRITERS.compareAndSet(this, w, w | RECYCLED)) return w == 0;
+      }
+    }
+
+    /** Pushes the node onto the list, retrying only when another thread pushed concurrently. */
+    void add(AtomicReferenceFieldUpdater<SpanRecord, Node> list, Node node) {
+      do {
+        node.next = list.get(this);
+      } while (!list.compareAndSet(this, node.next, node));
+    }
+
+    /**
+     * Returns true if an entry may be added to a list limited to max entries, counting it. Counts
+     * may exceed max, as rejected entries are counted too.
+     */
+    boolean reserve(AtomicIntegerFieldUpdater<SpanRecord> count, int max) {
+      return max == Integer.MAX_VALUE || count.incrementAndGet(this) <= max;
+    }
+
+    /** Counts an entry which is added regardless of the limit, such as "sr". */
+    void count(AtomicIntegerFieldUpdater<SpanRecord> count, int max) {
+      if (max != Integer.MAX_VALUE) count.incrementAndGet(this);
+    }
+
+    void finish(long endTimestamp) {
+      Long startTimestamp = timestamp;
+      if (startTimestamp != null) {
+        duration = Math.max(1L, endTimestamp - startTimestamp);
+      }
+    }
+
+    /** Combines the identity of the span with what was recorded. */
+    zipkin.Span materialize(Span span) {
+      zipkin.Span.Builder result = zipkin.Span.builder();
+      result.traceId(span.getTrace_id());
+      result.traceIdHigh(span.getTrace_id_high());
+      result.id(span.getId());
+      result.parentId(span.getParent_id());
+      String name = this.name;
+      result.name(name != null ? name : span.getName());
+      result.timestamp(timestamp);
+      result.duration(duration);
+      result.debug(span.isDebug());
+      for (Object a : Node.toArray(annotations)) {
+        result.addAnnotation(toZipkin((Annotation) a));
+      }
+      for (Object b : Node.toArray(binaryAnnotations)) {
+        result.addBinaryAnnotation(toZipkin((BinaryAnnotation) b));
+      }
+      return result.build();
+    }
+  }
+
+  static final class Node {
+    Object value; // only reassigned by SpanRecordPool
+    Node next; // written before publication
+
+    Node(Object value) {
+      this.value = value;
+    }
+
+    /** Returns the values in insertion order, which is the reverse of the list. */
+    static Object[] toArray(Node head) {
+      int size = 0;
+      for (Node n = head; n != null; n = n.next) size++;
+      Object[] result = new Object[size];
+      for (Node n = head; n != null; n = n.next) result[--size] = n.value;
+      return result;
+    }
+  }
 }
@@ -0,0 +1,97 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.internal.SpanScope;
+import com.github.kristofa.brave.internal.Util;
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+
+/**
+ * {@link ServerClientAndLocalSpanState} implementation that keeps trace state in immutable scopes, which child threads
+ * share with their parent instead of copying. It supports nested local spans, like
+ * {@link InheritableServerClientAndLocalSpanState}.
+ * <p>
+ * Every change to the server, client or local span binds a new scope to the current thread. A thread created while a
+ * scope is bound starts with a reference to that same scope, so creating a thread costs one inherited value regardless of
+ * how deeply local spans are nested. This suits applications which create many short-lived threads, such as a thread per
+ * task. As scopes are immutable, spans started or finished in a child thread never change the parent's spans.
+ * <p>
+ * As with {@link InheritableServerClientAndLocalSpanState}, tracers must {@link LocalTracer#finishSpan() finish spans} or
+ * clear the local span at completion of the local trace span to avoid linking spans with incorrect parents.
+ *
+ * @since 3.18
+ */
+public final class ScopedServerClientAndLocalSpanState implements ServerClientAndLocalSpanState,
+        NestedLocalSpanState {
+
+    private final InheritableThreadLocal<SpanScope> currentScope = new InheritableThreadLocal<SpanScope>() {
+        @Override
+        protected SpanScope initialValue() {
+            return SpanScope.EMPTY;
+        }
+    };
+
+    private final Endpoint endpoint;
+
+    /**
+     * @param endpoint Endpoint of the local service being traced.
+     */
+    public ScopedServerClientAndLocalSpanState(Endpoint endpoint) {
+        Util.checkNotNull(endpoint, "Endpoint must be specified.");
+        Util.checkNotBlank(endpoint.service_name, "Service name must be specified.");
+        this.endpoint = endpoint;
+    }
+
+    /** Never returns null: {@code setCurrentServerSpan(null)} coerces to {@link ServerSpan#EMPTY} */
+    @Override
+    public ServerSpan getCurrentServerSpan() {
+        return currentScope.get().serverSpan();
+    }
+
+    @Override
+    public void setCurrentServerSpan(final ServerSpan span) {
+        currentScope.set(currentScope.get().withServerSpan(span));
+    }
+
+    @Override
+    public Endpoint endpoint() {
+        return endpoint;
+    }
+
+    @Override
+    public Span getCurrentClientSpan() {
+        return currentScope.get().clientSpan();
+    }
+
+    @Override
+    public void setCurrentClientSpan(final Span span) {
+        currentScope.set(currentScope.get().withClientSpan(span));
+    }
+
+    @Override
+    public Boolean sample() {
+        return getCurrentServerSpan().getSample();
+    }
+
+    @Override
+    public Span getCurrentLocalSpan() {
+        return currentScope.get().localSpan();
+    }
+
+    /**
+     * Sets the specified local span as the active span at the top of the
+     * stack, or if the specified span is null, the top of the stack is popped.
+     *
+     * @param span Local span.
+     */
+    @Override
+    public void setCurrentLocalSpan(Span span) {
+        SpanScope scope = currentScope.get();
+        SpanScope next = scope.withLocalSpan(span);
+        if (next != scope) currentScope.set(next);
+    }
+
+    @Override
+    public String toString() {
+        return "ScopedServerClientAndLocalSpanState{endpoint=" + endpoint + ", currentScope=" + currentScope.get() + "}";
+    }
+}
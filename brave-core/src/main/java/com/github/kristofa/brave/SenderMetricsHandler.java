@@ -0,0 +1,18 @@
+package com.github.kristofa.brave;
+
+/**
+ * A {@linkplain SpanCollectorMetricsHandler} which is also told how long it took to send spans to
+ * the target collector. Span collectors that measure this check for it with {@code instanceof}.
+ *
+ * @since 3.18
+ */
+public interface SenderMetricsHandler extends SpanCollectorMetricsHandler {
+
+  /**
+   * Called after spans were delivered to the target collector.
+   *
+   * @param quantity the number of spans sent.
+   * @param latencyNanos how long the send took, including reading the response.
+   */
+  void recordSendLatency(int quantity, long latencyNanos);
+}
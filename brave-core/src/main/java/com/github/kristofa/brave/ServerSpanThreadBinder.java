@@ -52,6 +52,10 @@ public class ServerSpanThreadBinder extends CurrentSpan {
         state.setCurrentServerSpan(span);
     }
 
+    ServerSpanState state() {
+        return state;
+    }
+
     @Override Span get() {
         ServerSpan result = getCurrentServerSpan();
         return result != null ? result.getSpan(): null;
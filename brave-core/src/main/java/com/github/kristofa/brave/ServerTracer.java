@@ -80,7 +80,8 @@ public abstract class ServerTracer extends AnnotationSubmitter {
 
         public final ServerTracer build() {
             return new AutoValue_ServerTracer(
-                new AutoValue_Recorder_Default(localEndpoint, clock, reporter),
+                new AutoValue_Recorder_Default(
+                    localEndpoint, clock, reporter, SpanLimits.UNLIMITED),
                 currentSpan,
                 spanFactoryBuilder.build()
             );
@@ -64,6 +64,29 @@ public final class SpanId {
     this.shared = builder.shared;
   }
 
+  SpanId(long traceIdHigh, long traceId, long parentId, long spanId, long flags, boolean shared) {
+    this.traceIdHigh = traceIdHigh;
+    this.traceId = traceId;
+    this.parentId = parentId;
+    this.spanId = spanId;
+    this.flags = flags;
+    this.shared = shared;
+  }
+
+  /**
+   * Creates a span ID from values parsed off the wire, without the boxing and intermediate builder
+   * of {@link #builder()}.
+   *
+   * @param parentId the parent's span ID. Ignored when {@code flags} include {@link #FLAG_IS_ROOT}.
+   * @param flags for example, {@link #FLAG_SAMPLING_SET} and {@link #FLAG_SAMPLED}
+   * @since 3.18
+   */
+  public static SpanId create(long traceIdHigh, long traceId, long parentId, long spanId,
+      long flags) {
+    boolean root = (flags & FLAG_IS_ROOT) == FLAG_IS_ROOT;
+    return new SpanId(traceIdHigh, traceId, root ? traceId : parentId, spanId, flags, false);
+  }
+
   /** Deserializes this from a big-endian byte array */
   public static SpanId fromBytes(byte[] bytes) {
     checkNotNull(bytes, "bytes");
@@ -72,18 +95,13 @@ public final class SpanId {
     }
 
     ByteBuffer buffer = ByteBuffer.wrap(bytes);
-    Builder builder = new Builder();
-    builder.spanId(buffer.getLong(0));
-    builder.parentId(buffer.getLong(8));
+    long spanId = buffer.getLong(0);
+    long parentId = buffer.getLong(8);
     if (bytes.length == 32) {
-      builder.traceId(buffer.getLong(16));
-      builder.flags(buffer.getLong(24));
-    } else {
-      builder.traceIdHigh(buffer.getLong(16));
-      builder.traceId(buffer.getLong(24));
-      builder.flags(buffer.getLong(32));
+      return new SpanId(0L, buffer.getLong(16), parentId, spanId, buffer.getLong(24), false);
     }
-    return new SpanId(builder);
+    return new SpanId(buffer.getLong(16), buffer.getLong(24), parentId, spanId,
+        buffer.getLong(32), false);
   }
 
   public static Builder builder() {
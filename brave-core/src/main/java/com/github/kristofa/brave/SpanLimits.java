@@ -0,0 +1,103 @@
+package com.github.kristofa.brave;
+
+import com.google.auto.value.AutoValue;
+
+/**
+ * Bounds how much data a span holds, so that a loop of annotations or a huge tag, such as a SQL
+ * statement, doesn't bloat memory or the encoded span. Configure with {@link
+ * Brave.Builder#spanLimits(SpanLimits)}.
+ *
+ * <p>Limits are checked when data is recorded. Annotations and tags over a limit are dropped, and
+ * tag values over {@link #maxTagValueBytes()} are truncated, ending in {@link #TRUNCATION_MARKER}.
+ * Annotations and addresses which define the span, such as "sr" and "sa", are always recorded,
+ * though they count towards the limits.
+ *
+ * @since 3.18
+ */
+@AutoValue
+public abstract class SpanLimits {
+  /** Ends tag values that were truncated. */
+  public static final String TRUNCATION_MARKER = "...";
+
+  /** Limits nothing. This is the default. */
+  public static final SpanLimits UNLIMITED = builder().build();
+
+  public static Builder builder() {
+    return new AutoValue_SpanLimits.Builder()
+        .maxAnnotations(Integer.MAX_VALUE)
+        .maxBinaryAnnotations(Integer.MAX_VALUE)
+        .maxTagValueBytes(Integer.MAX_VALUE);
+  }
+
+  /** Annotations, such as "sr" or custom events, after which custom events are dropped. */
+  public abstract int maxAnnotations();
+
+  /** Binary annotations, such as tags or "sa", after which tags are dropped. */
+  public abstract int maxBinaryAnnotations();
+
+  /** The maximum UTF-8 length of a tag value, including the truncation marker. */
+  public abstract int maxTagValueBytes();
+
+  @AutoValue.Builder
+  public static abstract class Builder {
+    /** Defaults to unlimited. */
+    public abstract Builder maxAnnotations(int maxAnnotations);
+
+    /** Defaults to unlimited. */
+    public abstract Builder maxBinaryAnnotations(int maxBinaryAnnotations);
+
+    /** Defaults to unlimited. Must be at least the length of {@link #TRUNCATION_MARKER}. */
+    public abstract Builder maxTagValueBytes(int maxTagValueBytes);
+
+    abstract SpanLimits autoBuild();
+
+    public final SpanLimits build() {
+      SpanLimits result = autoBuild();
+      if (result.maxAnnotations() < 0) {
+        throw new IllegalArgumentException("maxAnnotations < 0: " + result.maxAnnotations());
+      }
+      if (result.maxBinaryAnnotations() < 0) {
+        throw new IllegalArgumentException(
+            "maxBinaryAnnotations < 0: " + result.maxBinaryAnnotations());
+      }
+      if (result.maxTagValueBytes() < TRUNCATION_MARKER.length()) {
+        throw new IllegalArgumentException(
+            "maxTagValueBytes < " + TRUNCATION_MARKER.length() + ": " + result.maxTagValueBytes());
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Returns the value if its UTF-8 encoding fits in {@link #maxTagValueBytes()}. Otherwise, returns
+   * the longest prefix which fits along with the {@link #TRUNCATION_MARKER}, followed by it.
+   */
+  String truncateTagValue(String value) {
+    int max = maxTagValueBytes();
+    if (value == null || value.length() <= max / 3) return value; // UTF-8 is <= 3 bytes per char
+    int budget = max - TRUNCATION_MARKER.length(), bytes = 0, cut = -1;
+    for (int i = 0, length = value.length(); i < length; ) {
+      char c = value.charAt(i);
+      int charBytes, charCount = 1;
+      if (c < 0x80) {
+        charBytes = 1;
+      } else if (c < 0x800) {
+        charBytes = 2;
+      } else if (Character.isHighSurrogate(c) && i + 1 < length
+          && Character.isLowSurrogate(value.charAt(i + 1))) {
+        charBytes = 4; // don't split the pair
+        charCount = 2;
+      } else {
+        charBytes = 3;
+      }
+      if (cut == -1 && bytes + charBytes > budget) cut = i;
+      bytes += charBytes;
+      if (bytes > max) return value.substring(0, cut) + TRUNCATION_MARKER;
+      i += charCount;
+    }
+    return value;
+  }
+
+  SpanLimits() {
+  }
+}
@@ -0,0 +1,157 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.Recorder.Node;
+import com.github.kristofa.brave.Recorder.SpanRecord;
+import com.twitter.zipkin.gen.Span;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Recycles the records and list nodes used by {@link Recorder.LockFree} once a span finished and
+ * was handed to the reporter. The reporter receives a {@link zipkin.Span} copy, so nothing it
+ * holds refers to recycled objects.
+ *
+ * <p>Free lists are per-thread and bounded, so there is no coordination between threads, and a
+ * thread that finishes more spans than it starts doesn't accumulate garbage.
+ *
+ * <p>When this class's logger is at {@link Level#FINE}, records are tracked against their span.
+ * If a span is garbage collected without being finished, a warning is logged with its IDs.
+ */
+final class SpanRecordPool {
+  static final Logger logger = Logger.getLogger(SpanRecordPool.class.getName());
+
+  static final int MAX_FREE_RECORDS = 32;
+  static final int MAX_FREE_NODES = 512;
+
+  static final class FreeList {
+    SpanRecord records; // linked via SpanRecord.nextFree
+    int recordCount;
+    Node nodes; // linked via Node.next
+    int nodeCount;
+  }
+
+  final ThreadLocal<FreeList> freeList = new ThreadLocal<FreeList>() {
+    @Override protected FreeList initialValue() {
+      return new FreeList();
+    }
+  };
+
+  final LeakDetector leakDetector; // null unless debug logging is enabled
+
+  SpanRecordPool() {
+    this(logger.isLoggable(Level.FINE));
+  }
+
+  SpanRecordPool(boolean detectLeaks) {
+    this.leakDetector = detectLeaks ? new LeakDetector() : null;
+  }
+
+  /** Returns a cleared record for the span. */
+  SpanRecord acquire(Span span) {
+    FreeList free = freeList.get();
+    SpanRecord result = free.records;
+    if (result != null) {
+      free.records = result.nextFree;
+      free.recordCount--;
+      result.nextFree = null;
+    } else {
+      result = new SpanRecord();
+    }
+    if (leakDetector != null) result.leak = leakDetector.track(span);
+    // set the owner before letting writers in, so a thread holding this record from its last span
+    // sees it was reused
+    result.owner = span;
+    result.writers = 0;
+    return result;
+  }
+
+  Node newNode(Object value) {
+    FreeList free = freeList.get();
+    Node result = free.nodes;
+    if (result == null) return new Node(value);
+    free.nodes = result.next;
+    free.nodeCount--;
+    result.value = value;
+    result.next = null;
+    return result;
+  }
+
+  /** Clears the record and returns it and its nodes to the current thread's free list. */
+  void release(SpanRecord record) {
+    if (record.leak != null) {
+      leakDetector.close(record.leak);
+      record.leak = null;
+    }
+    FreeList free = freeList.get();
+    releaseNodes(free, record.annotations);
+    releaseNodes(free, record.binaryAnnotations);
+    record.name = null;
+    record.timestamp = null;
+    record.duration = null;
+    record.annotations = null;
+    record.binaryAnnotations = null;
+    record.annotationCount = 0;
+    record.binaryAnnotationCount = 0;
+    record.owner = null;
+    if (free.recordCount < MAX_FREE_RECORDS) {
+      record.nextFree = free.records;
+      free.records = record;
+      free.recordCount++;
+    }
+  }
+
+  static void releaseNodes(FreeList free, Node head) {
+    for (Node node = head, next; node != null && free.nodeCount < MAX_FREE_NODES; node = next) {
+      next = node.next;
+      node.value = null;
+      node.next = free.nodes;
+      free.nodes = node;
+      free.nodeCount++;
+    }
+  }
+
+  /** Logs spans that were collected without their record being released. */
+  static final class LeakDetector {
+    final ReferenceQueue<Span> queue = new ReferenceQueue<Span>();
+    // Holds the references until they are enqueued or closed
+    final Set<Leak> outstanding =
+        Collections.newSetFromMap(new ConcurrentHashMap<Leak, Boolean>());
+
+    Leak track(Span span) {
+      reportLeaks();
+      Leak leak = new Leak(span, queue);
+      outstanding.add(leak);
+      return leak;
+    }
+
+    void close(Leak leak) {
+      leak.clear();
+      outstanding.remove(leak);
+    }
+
+    void reportLeaks() {
+      for (Reference<? extends Span> ref; (ref = queue.poll()) != null; ) {
+        Leak leak = (Leak) ref;
+        if (outstanding.remove(leak)) {
+          logger.warning("Span " + leak.context + " was garbage collected before it finished. "
+              + "Spans recorded with a pool must be finished, or their records aren't recycled.");
+        }
+      }
+    }
+  }
+
+  static final class Leak extends WeakReference<Span> {
+    final SpanId context;
+
+    Leak(Span span, ReferenceQueue<Span> queue) {
+      super(span, queue);
+      this.context = Brave.context(span);
+    }
+  }
+}
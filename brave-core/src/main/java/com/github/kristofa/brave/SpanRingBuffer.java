@@ -0,0 +1,84 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Span;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, array-backed queue of spans, for many producers and a single consumer. Request threads
+ * hand off a span with a compare-and-set on the producer sequence, followed by an ordered store
+ * into the slot. They never block or allocate.
+ *
+ * <h3>Implementation</h3>
+ *
+ * <p>Sequences only increase, and map to slots by masking with the array length, which is a power
+ * of two. A producer claims a sequence when it is less than {@code capacity} ahead of the consumer.
+ * The consumer sequence is re-read only when a cached copy says the buffer is full, so producers
+ * rarely touch the consumer's cache line. Both sequences are padded to avoid false sharing.
+ *
+ * <p>A claimed slot isn't readable until the producer stores the span. The consumer stops draining
+ * at the first empty slot, so a span mid-handoff is picked up on the next drain.
+ */
+final class SpanRingBuffer extends PendingSpans {
+  final int capacity;
+  final int mask;
+  final AtomicReferenceArray<Span> slots;
+  final PaddedSequence producerSequence = new PaddedSequence();
+  final PaddedSequence consumerSequence = new PaddedSequence();
+  /** Last consumer sequence seen by a producer. Racy updates are fine, as it only increases. */
+  volatile long consumerSequenceCache;
+
+  SpanRingBuffer(int capacity) {
+    if (capacity < 1) throw new IllegalArgumentException("capacity < 1: " + capacity);
+    this.capacity = capacity;
+    int length = Integer.highestOneBit(capacity);
+    if (length < capacity) length <<= 1;
+    this.mask = length - 1;
+    this.slots = new AtomicReferenceArray<Span>(length);
+  }
+
+  @Override boolean offer(Span span) {
+    long sequence;
+    do {
+      sequence = producerSequence.get();
+      if (sequence - consumerSequenceCache >= capacity) {
+        long consumed = consumerSequence.get();
+        if (sequence - consumed >= capacity) return false; // full
+        consumerSequenceCache = consumed;
+      }
+    } while (!producerSequence.compareAndSet(sequence, sequence + 1));
+    slots.lazySet((int) sequence & mask, span);
+    return true;
+  }
+
+  /**
+   * Synchronized as {@link FlushingSpanCollector#flush()} can be called externally while the
+   * flusher thread drains. This only contends between consumers, never with producers.
+   */
+  @Override synchronized int drainTo(List<Span> drained) {
+    long sequence = consumerSequence.get();
+    long end = producerSequence.get();
+    int count = 0;
+    for (; sequence < end; sequence++, count++) {
+      int index = (int) sequence & mask;
+      Span span = slots.get(index);
+      if (span == null) break; // producer claimed the slot, but hasn't stored into it yet
+      slots.lazySet(index, null);
+      drained.add(span);
+    }
+    consumerSequence.lazySet(sequence);
+    return count;
+  }
+
+  @Override int size() {
+    long size = producerSequence.get() - consumerSequence.get();
+    return (int) Math.max(0, Math.min(size, capacity));
+  }
+
+  /** Fills the cache line after the value, so that other hot fields don't share it. */
+  @SuppressWarnings("unused")
+  static final class PaddedSequence extends AtomicLong {
+    long p1, p2, p3, p4, p5, p6, p7;
+  }
+}
@@ -0,0 +1,403 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.internal.DirectSpanCodec;
+import com.twitter.zipkin.gen.Span;
+import com.twitter.zipkin.gen.SpanCodec;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Holds spans that couldn't be reported in memory-mapped files, so that they can be replayed once
+ * the transport recovers. Spans left over when the process exits are replayed on the next start.
+ *
+ * <p>Spans are appended to segment files in a directory, oldest first. Disk usage is bounded by the
+ * total size of segment files: when no more fit, appends fail. A segment is deleted once all its
+ * spans are replayed. Segments left by an instance with a different segment size are replayed
+ * as-is, and count against the bound.
+ *
+ * <p>Request threads only {@link #offer(Span) offer} spans, which copies them into the mapped
+ * memory of the current segment, or of a spare segment {@link #prepare() prepared} ahead of time
+ * by the flushing thread. They never create files or wait for disk: if neither has room, the span
+ * is dropped.
+ *
+ * <p>Each segment starts with a header holding the read position, guarded by a checksum. Records
+ * are a length, a checksum and the thrift-encoded span. On open, records are scanned from the read
+ * position until the first that is empty or corrupt, so a crash mid-write loses at most that span.
+ * Full segments are forced to disk when the flushing thread prepares, and the rest on close: spans
+ * survive a process crash, but not a power loss.
+ */
+final class SpanSpill implements Closeable {
+  static final Logger LOGGER = Logger.getLogger(SpanSpill.class.getName());
+  static final String SUFFIX = ".spill";
+  static final int MAGIC = 0x5350494c; // "SPIL"
+  static final int VERSION = 1;
+  /** magic, version, read position, checksum of the prior fields */
+  static final int HEADER_SIZE = 4 + 4 + 4 + 8;
+  /** length and checksum */
+  static final int RECORD_OVERHEAD = 4 + 4;
+  static final int DEFAULT_SEGMENT_BYTES = 1024 * 1024;
+
+  final File directory;
+  final int segmentBytes;
+  final long maxBytes;
+  /** Oldest first. The last is appended to. */
+  final ArrayDeque<Segment> segments = new ArrayDeque<Segment>(); // guarded by this
+  final CRC32 crc = new CRC32(); // guarded by this
+  /** Empty segment to append to once the last is full, so that request threads needn't create one */
+  Segment spare; // guarded by this
+  /** Size of segment files, including the spare and one being prepared */
+  long usedBytes; // guarded by this
+  long nextSegmentIndex; // guarded by this
+  /** Position in the first segment after the last {@link #peek(List, int) peek}. */
+  int peekedPosition = -1; // guarded by this
+  boolean closed; // guarded by this
+
+  /**
+   * Opens spill files in the directory, creating it if needed.
+   *
+   * @param maxBytes upper bound of disk used by segment files
+   */
+  static SpanSpill open(File directory, int maxBytes) throws IOException {
+    int segmentBytes = Math.min(DEFAULT_SEGMENT_BYTES, maxBytes);
+    return new SpanSpill(directory, segmentBytes, maxBytes / segmentBytes);
+  }
+
+  SpanSpill(File directory, int segmentBytes, int maxSegments) throws IOException {
+    if (segmentBytes <= HEADER_SIZE + RECORD_OVERHEAD) {
+      throw new IllegalArgumentException("segmentBytes too small: " + segmentBytes);
+    }
+    if (maxSegments < 1) throw new IllegalArgumentException("maxSegments < 1: " + maxSegments);
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("couldn't create spill directory " + directory);
+    }
+    this.directory = directory;
+    this.segmentBytes = segmentBytes;
+    this.maxBytes = (long) segmentBytes * maxSegments;
+    recover();
+  }
+
+  /**
+   * Appends the span if it fits in the current or spare segment, returning false if it was dropped.
+   * Unlike {@link #append(Span)}, this never creates a segment file, so is safe on request threads.
+   */
+  boolean offer(Span span) {
+    return append(DirectSpanCodec.THRIFT.writeSpan(span), false); // encode outside the lock
+  }
+
+  /** Appends the span, returning false if it was dropped because the spill is full. */
+  boolean append(Span span) {
+    return append(DirectSpanCodec.THRIFT.writeSpan(span), true); // encode outside the lock
+  }
+
+  /** Appends the spans, returning how many were dropped because the spill is full. */
+  int append(List<Span> spans) {
+    int dropped = 0;
+    for (int i = 0, length = spans.size(); i < length; i++) {
+      if (!append(spans.get(i))) dropped++;
+    }
+    return dropped;
+  }
+
+  /**
+   * @param create whether a segment file can be created when the last is full and there's no spare.
+   */
+  synchronized boolean append(byte[] encoded, boolean create) {
+    int recordSize = RECORD_OVERHEAD + encoded.length;
+    if (closed || HEADER_SIZE + recordSize > segmentBytes) return false;
+    Segment segment = segments.peekLast();
+    if (segment == null || segment.size - segment.writePosition < recordSize) {
+      if (spare != null) {
+        segment = spare;
+        spare = null;
+      } else if (!create || usedBytes + segmentBytes > maxBytes) {
+        return false;
+      } else {
+        try {
+          segment = createSegment(nextSegmentIndex++);
+        } catch (IOException e) {
+          LOGGER.log(Level.WARNING, "couldn't create spill segment in " + directory, e);
+          return false;
+        }
+        writeHeader(segment);
+        usedBytes += segmentBytes;
+      }
+      segments.addLast(segment); // the previous segment is forced on the next prepare
+    }
+    MappedByteBuffer buffer = segment.buffer;
+    int position = segment.writePosition;
+    // write the payload before the length, so a crash never exposes a length without its bytes
+    buffer.putInt(position + 4, checksum(encoded, 0, encoded.length));
+    for (int i = 0; i < encoded.length; i++) {
+      buffer.put(position + RECORD_OVERHEAD + i, encoded[i]);
+    }
+    buffer.putInt(position, encoded.length);
+    segment.writePosition = position + recordSize;
+    return true;
+  }
+
+  /**
+   * Adds up to max spans from the oldest segment to the list, without removing them. Call {@link
+   * #commit()} once they are reported, or they will be returned again.
+   *
+   * @return the count of spans added
+   */
+  int peek(List<Span> spans, int max) {
+    List<byte[]> records = new ArrayList<byte[]>();
+    synchronized (this) {
+      Segment segment = segments.peekFirst();
+      if (closed || segment == null) return 0;
+      MappedByteBuffer buffer = segment.buffer;
+      int position = segment.readPosition;
+      while (records.size() < max && position < segment.writePosition) {
+        int length = buffer.getInt(position);
+        byte[] encoded = new byte[length];
+        for (int i = 0; i < length; i++) {
+          encoded[i] = buffer.get(position + RECORD_OVERHEAD + i);
+        }
+        records.add(encoded);
+        position += RECORD_OVERHEAD + length;
+      }
+      peekedPosition = position;
+    }
+    int count = 0;
+    for (int i = 0, length = records.size(); i < length; i++) { // decode outside the lock
+      try {
+        spans.add(SpanCodec.THRIFT.readSpan(records.get(i)));
+        count++;
+      } catch (IllegalArgumentException e) { // checksum passed, so written by an incompatible codec
+        LOGGER.log(Level.FINE, "skipping span that couldn't be decoded", e);
+      }
+    }
+    return count;
+  }
+
+  /** Removes spans returned by the last {@link #peek(List, int) peek}. */
+  synchronized void commit() {
+    Segment segment = segments.peekFirst();
+    if (closed || segment == null || peekedPosition == -1) return;
+    segment.readPosition = peekedPosition;
+    peekedPosition = -1;
+    if (segment.readPosition < segment.writePosition) {
+      writeHeader(segment);
+    } else { // fully replayed
+      segments.removeFirst();
+      usedBytes -= segment.size;
+      if (!segment.file.delete()) {
+        LOGGER.warning("couldn't delete replayed spill segment " + segment.file);
+      }
+    }
+  }
+
+  /** Returns true if there are no spans to replay. */
+  synchronized boolean isEmpty() {
+    for (Segment segment : segments) {
+      if (segment.readPosition < segment.writePosition) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Forces full segments to disk, and creates a spare segment if there's room for one. Call this
+   * from the flushing thread, so that request threads {@link #offer(Span) offering} spans never
+   * wait for disk.
+   */
+  void prepare() {
+    List<Segment> full = new ArrayList<Segment>();
+    long index = -1;
+    synchronized (this) {
+      if (closed) return;
+      for (Segment segment : segments) {
+        if (segment != segments.peekLast() && !segment.forced) {
+          segment.forced = true;
+          full.add(segment);
+        }
+      }
+      if (spare == null && usedBytes + segmentBytes <= maxBytes) {
+        index = nextSegmentIndex++;
+        usedBytes += segmentBytes; // reserve space for the spare
+      }
+    }
+    for (int i = 0, length = full.size(); i < length; i++) {
+      full.get(i).buffer.force();
+    }
+    if (index == -1) return;
+
+    Segment segment = null;
+    try {
+      segment = createSegment(index);
+    } catch (IOException e) {
+      LOGGER.log(Level.WARNING, "couldn't create spill segment in " + directory, e);
+    }
+    synchronized (this) {
+      if (segment != null && !closed) {
+        writeHeader(segment);
+        spare = segment;
+        return;
+      }
+      usedBytes -= segmentBytes;
+    }
+    if (segment != null && !segment.file.delete()) { // closed while creating
+      LOGGER.warning("couldn't delete spare spill segment " + segment.file);
+    }
+  }
+
+  /** Forces segments to disk. Spans not yet replayed remain for the next instance to replay. */
+  @Override public synchronized void close() {
+    if (closed) return;
+    closed = true;
+    for (Segment segment : segments) {
+      segment.buffer.force();
+    }
+    segments.clear();
+    if (spare != null && !spare.file.delete()) {
+      LOGGER.warning("couldn't delete spare spill segment " + spare.file);
+    }
+    spare = null;
+  }
+
+  void recover() throws IOException {
+    File[] files = directory.listFiles(new FilenameFilter() {
+      @Override public boolean accept(File dir, String name) {
+        return name.endsWith(SUFFIX) && segmentIndex(name) >= 0;
+      }
+    });
+    if (files == null) throw new IOException("couldn't list spill directory " + directory);
+    Arrays.sort(files);
+    for (File file : files) {
+      nextSegmentIndex = segmentIndex(file.getName()) + 1;
+      // segments keep the size they were created with, which differs if spillMaxBytes changed
+      long length = file.length();
+      Segment segment = length > HEADER_SIZE + RECORD_OVERHEAD && length <= Integer.MAX_VALUE
+          ? openSegment(file, (int) length)
+          : null;
+      if (segment == null) {
+        LOGGER.warning("discarding spill segment with a corrupt header or unexpected size " + file);
+        if (!file.delete()) throw new IOException("couldn't delete corrupt spill segment " + file);
+      } else if (segment.readPosition == segment.writePosition) {
+        if (!file.delete()) throw new IOException("couldn't delete replayed spill segment " + file);
+      } else if (usedBytes + segment.size <= maxBytes) {
+        segments.addLast(segment);
+        usedBytes += segment.size;
+      } else {
+        LOGGER.warning("spill is full; discarding segment that wasn't replayed " + file);
+        if (!file.delete()) throw new IOException("couldn't delete spill segment " + file);
+      }
+    }
+  }
+
+  /** Maps a new segment file. The caller writes its header. */
+  Segment createSegment(long index) throws IOException {
+    File file = new File(directory, segmentName(index));
+    return new Segment(file, map(file, segmentBytes), segmentBytes);
+  }
+
+  /** Returns null if the header is corrupt. */
+  Segment openSegment(File file, int size) throws IOException {
+    Segment segment = new Segment(file, map(file, size), size);
+    MappedByteBuffer buffer = segment.buffer;
+    int readPosition = buffer.getInt(8);
+    if (buffer.getInt(0) != MAGIC
+        || buffer.getInt(4) != VERSION
+        || readPosition < HEADER_SIZE
+        || readPosition > size
+        || buffer.getLong(12) != headerChecksum(readPosition)) {
+      return null;
+    }
+    segment.readPosition = readPosition;
+    // scan for the end of the last intact record
+    int position = readPosition;
+    while (size - position >= RECORD_OVERHEAD) {
+      int length = buffer.getInt(position);
+      if (length <= 0 || length > size - position - RECORD_OVERHEAD) break;
+      byte[] encoded = new byte[length];
+      for (int i = 0; i < length; i++) {
+        encoded[i] = buffer.get(position + RECORD_OVERHEAD + i);
+      }
+      if (buffer.getInt(position + 4) != checksum(encoded, 0, length)) break;
+      position += RECORD_OVERHEAD + length;
+    }
+    segment.writePosition = position;
+    return segment;
+  }
+
+  void writeHeader(Segment segment) {
+    MappedByteBuffer buffer = segment.buffer;
+    buffer.putInt(0, MAGIC);
+    buffer.putInt(4, VERSION);
+    buffer.putInt(8, segment.readPosition);
+    buffer.putLong(12, headerChecksum(segment.readPosition));
+  }
+
+  long headerChecksum(int readPosition) {
+    crc.reset();
+    for (int value : new int[] {MAGIC, VERSION, readPosition}) {
+      crc.update(value >>> 24);
+      crc.update(value >>> 16);
+      crc.update(value >>> 8);
+      crc.update(value);
+    }
+    return crc.getValue();
+  }
+
+  int checksum(byte[] bytes, int offset, int length) {
+    crc.reset();
+    crc.update(bytes, offset, length);
+    return (int) crc.getValue();
+  }
+
+  /** The mapping outlives the file handle, and is released when the buffer is collected. */
+  static MappedByteBuffer map(File file, int size) throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      raf.setLength(size); // zero-filled when new, so an unwritten record has length 0
+      return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+    } finally {
+      raf.close();
+    }
+  }
+
+  static String segmentName(long index) {
+    String digits = Long.toString(index);
+    char[] padded = new char[19]; // sorts by name in index order
+    Arrays.fill(padded, '0');
+    digits.getChars(0, digits.length(), padded, padded.length - digits.length());
+    return new String(padded) + SUFFIX;
+  }
+
+  /** Returns -1 if the name isn't that of a segment. */
+  static long segmentIndex(String name) {
+    try {
+      return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  static final class Segment {
+    final File file;
+    final MappedByteBuffer buffer;
+    final int size;
+    int readPosition = HEADER_SIZE;
+    int writePosition = HEADER_SIZE;
+    /** True once forced to disk after it filled */
+    boolean forced;
+
+    Segment(File file, MappedByteBuffer buffer, int size) {
+      this.file = file;
+      this.buffer = buffer;
+      this.size = size;
+    }
+  }
+}
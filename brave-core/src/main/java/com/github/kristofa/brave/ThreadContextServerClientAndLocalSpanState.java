@@ -0,0 +1,175 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.internal.Nullable;
+import com.github.kristofa.brave.internal.Util;
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+
+/**
+ * {@link ServerClientAndLocalSpanState} implementation that keeps the server, client and local span of a thread in one
+ * mutable context, held by a single ThreadLocal variable.
+ * <p/>
+ * {@link ThreadLocalServerClientAndLocalSpanState} uses a ThreadLocal per span, so saving and restoring the spans of a
+ * thread costs a lookup per span. Here, {@link #snapshot()} and {@link #restore(Snapshot)} capture or replace the server
+ * and local span with one lookup. {@link BraveRunnable}, {@link BraveCallable}, {@link BraveExecutorService} and
+ * {@link CapturedSpans} use them when Brave is built with this state. Like with other states, the client span stays
+ * with the thread that started it.
+ * <p/>
+ * Like {@link ThreadLocalServerClientAndLocalSpanState}, there is one current local span per thread, so nested local
+ * spans aren't supported.
+ *
+ * @since 3.18
+ */
+public final class ThreadContextServerClientAndLocalSpanState implements ServerClientAndLocalSpanState {
+
+    /** Only ever read or written by the thread that owns it. */
+    static final class Context {
+        ServerSpan serverSpan = ServerSpan.EMPTY;
+        Span clientSpan;
+        Span localSpan;
+    }
+
+    private final static ThreadLocal<Context> currentContext = new ThreadLocal<Context>() {
+
+        @Override
+        protected Context initialValue() {
+            return new Context();
+        }
+    };
+
+    private final Endpoint endpoint;
+
+    // visible for testing
+    public static void clear() {
+        currentContext.remove();
+    }
+
+    /**
+     * @param endpoint Endpoint of the local service being traced.
+     */
+    public ThreadContextServerClientAndLocalSpanState(Endpoint endpoint) {
+        Util.checkNotNull(endpoint, "endpoint must be specified.");
+        Util.checkNotBlank(endpoint.service_name, "Service name must be specified.");
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * Returns the spans bound to the current thread. Pass this to {@link #restore(Snapshot)} on another thread to continue
+     * the trace there.
+     */
+    public Snapshot snapshot() {
+        return currentSnapshot();
+    }
+
+    /**
+     * Binds the spans in the snapshot to the current thread, returning the spans that were bound before. Pass the result to
+     * this method again when done, to put the thread back as it was.
+     */
+    public Snapshot restore(Snapshot snapshot) {
+        return Util.checkNotNull(snapshot, "snapshot").swap();
+    }
+
+    // The context is static, so snapshots can be swapped without a reference to the state
+    static Snapshot currentSnapshot() {
+        Context context = currentContext.get();
+        return new Snapshot(context.serverSpan, context.localSpan);
+    }
+
+    /** Never returns null: {@code setCurrentServerSpan(null)} coerces to {@link ServerSpan#EMPTY} */
+    @Override
+    public ServerSpan getCurrentServerSpan() {
+        return currentContext.get().serverSpan;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setCurrentServerSpan(final ServerSpan span) {
+        currentContext.get().serverSpan = span != null ? span : ServerSpan.EMPTY;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Endpoint endpoint() {
+        return endpoint;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Span getCurrentClientSpan() {
+        return currentContext.get().clientSpan;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setCurrentClientSpan(final Span span) {
+        currentContext.get().clientSpan = span;
+    }
+
+    @Override
+    public Boolean sample() {
+        return currentContext.get().serverSpan.getSample();
+    }
+
+    @Override
+    public Span getCurrentLocalSpan() {
+        return currentContext.get().localSpan;
+    }
+
+    @Override
+    public void setCurrentLocalSpan(Span span) {
+        currentContext.get().localSpan = span;
+    }
+
+    /**
+     * Immutable copy of the server and local span bound to a thread, taken by {@link #snapshot()}. The client span isn't
+     * included: it belongs to the thread which sent the request, so restoring a snapshot leaves it in place.
+     */
+    public static final class Snapshot extends CapturedSpans {
+        final ServerSpan serverSpan;
+        final Span localSpan;
+
+        Snapshot(ServerSpan serverSpan, @Nullable Span localSpan) {
+            this.serverSpan = serverSpan;
+            this.localSpan = localSpan;
+        }
+
+        @Override
+        public Snapshot swap() {
+            Context context = currentContext.get();
+            Snapshot previous = new Snapshot(context.serverSpan, context.localSpan);
+            context.serverSpan = serverSpan;
+            context.localSpan = localSpan;
+            return previous;
+        }
+
+        @Override
+        public void restore() {
+            Context context = currentContext.get();
+            context.serverSpan = serverSpan;
+            context.localSpan = localSpan;
+        }
+
+        /** Never returns null: absent a server span, this is {@link ServerSpan#EMPTY} */
+        public ServerSpan serverSpan() {
+            return serverSpan;
+        }
+
+        @Nullable
+        public Span localSpan() {
+            return localSpan;
+        }
+
+        @Override
+        public String toString() {
+            return "Snapshot{serverSpan=" + serverSpan + ", localSpan=" + localSpan + "}";
+        }
+    }
+}
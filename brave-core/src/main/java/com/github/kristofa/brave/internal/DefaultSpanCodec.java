@@ -87,19 +87,27 @@ public final class DefaultSpanCodec implements SpanCodec {
     result.duration(span.getDuration());
     result.debug(span.isDebug());
     for (Annotation a : span.getAnnotations()) {
-      result.addAnnotation(zipkin.Annotation.create(a.timestamp, a.value, from(a.host)));
+      result.addAnnotation(toZipkin(a));
     }
     for (BinaryAnnotation a : span.getBinary_annotations()) {
-      result.addBinaryAnnotation(zipkin.BinaryAnnotation.builder()
-          .key(a.key)
-          .value(a.value)
-          .type(zipkin.BinaryAnnotation.Type.fromValue(a.type.getValue()))
-          .endpoint(from(a.host))
-          .build());
+      result.addBinaryAnnotation(toZipkin(a));
     }
     return result.build();
   }
 
+  public static zipkin.Annotation toZipkin(Annotation a) {
+    return zipkin.Annotation.create(a.timestamp, a.value, from(a.host));
+  }
+
+  public static zipkin.BinaryAnnotation toZipkin(BinaryAnnotation a) {
+    return zipkin.BinaryAnnotation.builder()
+        .key(a.key)
+        .value(a.value)
+        .type(zipkin.BinaryAnnotation.Type.fromValue(a.type.getValue()))
+        .endpoint(from(a.host))
+        .build();
+  }
+
   private static zipkin.Endpoint from(Endpoint host) {
     if (host == null) return null;
     return zipkin.Endpoint.builder()
@@ -0,0 +1,689 @@
+package com.github.kristofa.brave.internal;
+
+import com.twitter.zipkin.gen.Annotation;
+import com.twitter.zipkin.gen.AnnotationType;
+import com.twitter.zipkin.gen.BinaryAnnotation;
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import com.twitter.zipkin.gen.SpanCodec;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes {@link Span} directly to the Zipkin v1 wire formats, without first converting it to a
+ * {@link zipkin.Span}. Encoding happens into a buffer reused by the calling thread, so the only
+ * allocation per call is the resulting array.
+ *
+ * <p>Unlike {@link DefaultSpanCodec}, annotations are written in the order they were recorded, as
+ * opposed to sorted by timestamp. Decoding is delegated to {@link DefaultSpanCodec}.
+ */
+public abstract class DirectSpanCodec implements SpanCodec {
+  public static final DirectSpanCodec JSON = new JsonEncoder();
+  public static final DirectSpanCodec THRIFT = new ThriftEncoder();
+
+  /** Buffers larger than this are not retained between calls */
+  static final int MAX_RETAINED_BUFFER = 64 * 1024;
+
+  static final ThreadLocal<Buffer> BUFFER = new ThreadLocal<Buffer>() {
+    @Override protected Buffer initialValue() {
+      return new Buffer(1024);
+    }
+  };
+
+  final SpanCodec decoder;
+
+  DirectSpanCodec(SpanCodec decoder) {
+    this.decoder = decoder;
+  }
+
+  @Override public byte[] writeSpan(Span span) {
+    Buffer buffer = acquireBuffer();
+    writeSpan(span, buffer);
+    byte[] result = buffer.toByteArray();
+    releaseBuffer(buffer);
+    return result;
+  }
+
+  @Override public byte[] writeSpans(List<Span> spans) {
+    Buffer buffer = acquireBuffer();
+    writeSpans(spans, buffer);
+    byte[] result = buffer.toByteArray();
+    releaseBuffer(buffer);
+    return result;
+  }
+
+  @Override public Span readSpan(byte[] bytes) {
+    return decoder.readSpan(bytes);
+  }
+
+  /** Appends the encoded span to the buffer. */
+  public abstract void writeSpan(Span span, Buffer buffer);
+
+  /** Appends the encoded list of spans to the buffer. */
+  public abstract void writeSpans(List<Span> spans, Buffer buffer);
+
+  /**
+   * Returns the calling thread's buffer, emptied. {@link #writeSpan(Span)} and {@link
+   * #writeSpans(List)} reuse it, so its contents are only valid until either is next called on this
+   * thread. Call {@link #releaseBuffer(Buffer)} when done with it.
+   */
+  public static Buffer acquireBuffer() {
+    Buffer buffer = BUFFER.get();
+    buffer.pos = 0;
+    return buffer;
+  }
+
+  /** Drops the calling thread's buffer if it grew too large to retain. */
+  public static void releaseBuffer(Buffer buffer) {
+    if (buffer.bytes.length > MAX_RETAINED_BUFFER) BUFFER.remove();
+  }
+
+  /** A growable byte array which encoders write into. */
+  public static final class Buffer {
+    byte[] bytes;
+    int pos;
+
+    public Buffer(int initialCapacity) {
+      this.bytes = new byte[initialCapacity];
+    }
+
+    public int size() {
+      return pos;
+    }
+
+    public void clear() {
+      pos = 0;
+    }
+
+    /** Returns the array backing this buffer, valid from offset zero to {@link #size()}. */
+    public byte[] array() {
+      return bytes;
+    }
+
+    public byte[] toByteArray() {
+      return Arrays.copyOf(bytes, pos);
+    }
+
+    void ensureCapacity(int count) {
+      if (pos + count <= bytes.length) return;
+      bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, pos + count));
+    }
+
+    void writeByte(int b) {
+      ensureCapacity(1);
+      bytes[pos++] = (byte) b;
+    }
+
+    void write(byte[] b) {
+      ensureCapacity(b.length);
+      System.arraycopy(b, 0, bytes, pos, b.length);
+      pos += b.length;
+    }
+
+    void writeAscii(String s) {
+      int length = s.length();
+      ensureCapacity(length);
+      for (int i = 0; i < length; i++) {
+        bytes[pos++] = (byte) s.charAt(i);
+      }
+    }
+
+    void writeShort(int v) {
+      ensureCapacity(2);
+      bytes[pos++] = (byte) ((v >>> 8) & 0xff);
+      bytes[pos++] = (byte) (v & 0xff);
+    }
+
+    void writeInt(int v) {
+      ensureCapacity(4);
+      bytes[pos++] = (byte) ((v >>> 24) & 0xff);
+      bytes[pos++] = (byte) ((v >>> 16) & 0xff);
+      bytes[pos++] = (byte) ((v >>> 8) & 0xff);
+      bytes[pos++] = (byte) (v & 0xff);
+    }
+
+    void writeLong(long v) {
+      ensureCapacity(8);
+      for (int shift = 56; shift >= 0; shift -= 8) {
+        bytes[pos++] = (byte) ((v >>> shift) & 0xff);
+      }
+    }
+
+    /** Writes the value as ASCII decimal digits. */
+    void writeDecimal(long v) {
+      if (v == Long.MIN_VALUE) {
+        writeAscii("-9223372036854775808");
+        return;
+      }
+      ensureCapacity(20);
+      if (v < 0) {
+        bytes[pos++] = '-';
+        v = -v;
+      }
+      int digits = 1;
+      for (long i = v / 10; i != 0; i /= 10) digits++;
+      int end = pos += digits;
+      do {
+        bytes[--end] = (byte) ('0' + (v % 10));
+        v /= 10;
+      } while (v != 0);
+    }
+
+    /** Writes 16 lower-hex characters, the same as {@link com.github.kristofa.brave.IdConversion}. */
+    void writeLowerHex(long v) {
+      ensureCapacity(16);
+      for (int shift = 60; shift >= 0; shift -= 4) {
+        bytes[pos++] = (byte) HEX_DIGITS[(int) ((v >>> shift) & 0xf)];
+      }
+    }
+
+    /** Writes the string as UTF-8, without any escaping. */
+    void writeUtf8(String s) {
+      for (int i = 0, length = s.length(); i < length; i++) {
+        char c = s.charAt(i);
+        if (c < 0x80) {
+          writeByte(c);
+        } else {
+          writeUtf8CodePoint(s, i);
+          if (Character.isHighSurrogate(c) && i + 1 < length
+              && Character.isLowSurrogate(s.charAt(i + 1))) {
+            i++;
+          }
+        }
+      }
+    }
+
+    void writeUtf8CodePoint(String s, int i) {
+      char c = s.charAt(i);
+      if (c < 0x800) {
+        ensureCapacity(2);
+        bytes[pos++] = (byte) (0xc0 | (c >> 6));
+        bytes[pos++] = (byte) (0x80 | (c & 0x3f));
+      } else if (c < Character.MIN_SURROGATE || c > Character.MAX_SURROGATE) {
+        ensureCapacity(3);
+        bytes[pos++] = (byte) (0xe0 | (c >> 12));
+        bytes[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+        bytes[pos++] = (byte) (0x80 | (c & 0x3f));
+      } else if (Character.isHighSurrogate(c) && i + 1 < s.length()
+          && Character.isLowSurrogate(s.charAt(i + 1))) {
+        int codePoint = Character.toCodePoint(c, s.charAt(i + 1));
+        ensureCapacity(4);
+        bytes[pos++] = (byte) (0xf0 | (codePoint >> 18));
+        bytes[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+        bytes[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+        bytes[pos++] = (byte) (0x80 | (codePoint & 0x3f));
+      } else { // malformed surrogate
+        writeByte('?');
+      }
+    }
+  }
+
+  static int utf8Length(String s) {
+    int result = 0;
+    for (int i = 0, length = s.length(); i < length; i++) {
+      char c = s.charAt(i);
+      if (c < 0x80) {
+        result++;
+      } else if (c < 0x800) {
+        result += 2;
+      } else if (c < Character.MIN_SURROGATE || c > Character.MAX_SURROGATE) {
+        result += 3;
+      } else if (Character.isHighSurrogate(c) && i + 1 < length
+          && Character.isLowSurrogate(s.charAt(i + 1))) {
+        result += 4;
+        i++;
+      } else {
+        result++; // malformed surrogate is written as '?'
+      }
+    }
+    return result;
+  }
+
+  static final char[] HEX_DIGITS =
+      {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+  static final class JsonEncoder extends DirectSpanCodec {
+    static final char[] BASE64 =
+        "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+
+    JsonEncoder() {
+      super(DefaultSpanCodec.JSON);
+    }
+
+    @Override public void writeSpans(List<Span> spans, Buffer b) {
+      b.writeByte('[');
+      for (int i = 0, length = spans.size(); i < length; i++) {
+        if (i > 0) b.writeByte(',');
+        writeSpan(spans.get(i), b);
+      }
+      b.writeByte(']');
+    }
+
+    @Override public void writeSpan(Span span, Buffer b) {
+      b.writeAscii("{\"traceId\":\"");
+      if (span.getTrace_id_high() != 0) b.writeLowerHex(span.getTrace_id_high());
+      b.writeLowerHex(span.getTrace_id());
+      b.writeAscii("\",\"id\":\"");
+      b.writeLowerHex(span.getId());
+      b.writeAscii("\",\"name\":\"");
+      writeEscaped(span.getName(), b);
+      b.writeByte('"');
+      Long parentId = span.getParent_id();
+      if (parentId != null) {
+        b.writeAscii(",\"parentId\":\"");
+        b.writeLowerHex(parentId);
+        b.writeByte('"');
+      }
+      Long timestamp = span.getTimestamp();
+      if (timestamp != null) {
+        b.writeAscii(",\"timestamp\":");
+        b.writeDecimal(timestamp);
+      }
+      Long duration = span.getDuration();
+      if (duration != null) {
+        b.writeAscii(",\"duration\":");
+        b.writeDecimal(duration);
+      }
+      List<Annotation> annotations = span.getAnnotations();
+      if (!annotations.isEmpty()) {
+        b.writeAscii(",\"annotations\":[");
+        for (int i = 0, length = annotations.size(); i < length; i++) {
+          if (i > 0) b.writeByte(',');
+          writeAnnotation(annotations.get(i), b);
+        }
+        b.writeByte(']');
+      }
+      List<BinaryAnnotation> binaryAnnotations = span.getBinary_annotations();
+      if (!binaryAnnotations.isEmpty()) {
+        b.writeAscii(",\"binaryAnnotations\":[");
+        for (int i = 0, length = binaryAnnotations.size(); i < length; i++) {
+          if (i > 0) b.writeByte(',');
+          writeBinaryAnnotation(binaryAnnotations.get(i), b);
+        }
+        b.writeByte(']');
+      }
+      Boolean debug = span.isDebug();
+      if (debug != null && debug) b.writeAscii(",\"debug\":true");
+      b.writeByte('}');
+    }
+
+    static void writeAnnotation(Annotation a, Buffer b) {
+      b.writeAscii("{\"timestamp\":");
+      b.writeDecimal(a.timestamp);
+      b.writeAscii(",\"value\":\"");
+      writeEscaped(a.value, b);
+      b.writeByte('"');
+      if (a.host != null) {
+        b.writeAscii(",\"endpoint\":");
+        writeEndpoint(a.host, b);
+      }
+      b.writeByte('}');
+    }
+
+    static void writeBinaryAnnotation(BinaryAnnotation a, Buffer b) {
+      b.writeAscii("{\"key\":\"");
+      writeEscaped(a.key, b);
+      b.writeAscii("\",\"value\":");
+      byte[] value = a.value;
+      switch (a.type) {
+        case BOOL:
+          b.writeAscii(value[0] == 1 ? "true" : "false");
+          break;
+        case STRING:
+          b.writeByte('"');
+          writeEscaped(value, b);
+          b.writeByte('"');
+          break;
+        case BYTES:
+          b.writeByte('"');
+          writeBase64(value, b);
+          b.writeByte('"');
+          break;
+        case I16:
+          b.writeDecimal((short) (((value[0] & 0xff) << 8) | (value[1] & 0xff)));
+          break;
+        case I32:
+          b.writeDecimal(readInt(value, 0));
+          break;
+        case I64:
+          b.writeDecimal(readLong(value));
+          break;
+        case DOUBLE:
+          b.writeAscii(Double.toString(Double.longBitsToDouble(readLong(value))));
+          break;
+        default:
+          throw new AssertionError(a.type + " is not yet supported");
+      }
+      if (a.type != AnnotationType.STRING && a.type != AnnotationType.BOOL) {
+        b.writeAscii(",\"type\":\"");
+        b.writeAscii(a.type.name());
+        b.writeByte('"');
+      }
+      if (a.host != null) {
+        b.writeAscii(",\"endpoint\":");
+        writeEndpoint(a.host, b);
+      }
+      b.writeByte('}');
+    }
+
+    static void writeEndpoint(Endpoint e, Buffer b) {
+      b.writeAscii("{\"serviceName\":\"");
+      writeEscaped(e.service_name, b);
+      b.writeByte('"');
+      if (e.ipv4 != 0) {
+        b.writeAscii(",\"ipv4\":\"");
+        b.writeDecimal((e.ipv4 >> 24) & 0xff);
+        b.writeByte('.');
+        b.writeDecimal((e.ipv4 >> 16) & 0xff);
+        b.writeByte('.');
+        b.writeDecimal((e.ipv4 >> 8) & 0xff);
+        b.writeByte('.');
+        b.writeDecimal(e.ipv4 & 0xff);
+        b.writeByte('"');
+      }
+      if (e.port != null && e.port != 0) {
+        b.writeAscii(",\"port\":");
+        b.writeDecimal(e.port & 0xffff);
+      }
+      if (e.ipv6 != null) {
+        b.writeAscii(",\"ipv6\":\"");
+        writeIpv6(e.ipv6, b);
+        b.writeByte('"');
+      }
+      b.writeByte('}');
+    }
+
+    /** Writes the address in RFC 5952 form: lower-hex, with the longest run of zeros elided. */
+    static void writeIpv6(byte[] ipv6, Buffer b) {
+      int zeroStart = -1, zeroLength = 0;
+      for (int i = 0; i < 8; ) {
+        if (group(ipv6, i) != 0) {
+          i++;
+          continue;
+        }
+        int start = i;
+        while (i < 8 && group(ipv6, i) == 0) i++;
+        if (i - start > zeroLength) {
+          zeroStart = start;
+          zeroLength = i - start;
+        }
+      }
+      if (zeroLength < 2) zeroStart = -1;
+      for (int i = 0; i < 8; i++) {
+        if (i == zeroStart) {
+          b.writeAscii("::");
+          i += zeroLength - 1;
+          continue;
+        }
+        if (i > 0 && i != zeroStart + zeroLength) b.writeByte(':');
+        int group = group(ipv6, i);
+        boolean leading = true;
+        for (int shift = 12; shift >= 0; shift -= 4) {
+          int digit = (group >>> shift) & 0xf;
+          if (leading && digit == 0 && shift != 0) continue;
+          leading = false;
+          b.writeByte(HEX_DIGITS[digit]);
+        }
+      }
+    }
+
+    static int group(byte[] ipv6, int i) {
+      return ((ipv6[i * 2] & 0xff) << 8) | (ipv6[i * 2 + 1] & 0xff);
+    }
+
+    static void writeEscaped(String s, Buffer b) {
+      for (int i = 0, length = s.length(); i < length; i++) {
+        char c = s.charAt(i);
+        if (c < 0x80) {
+          writeEscaped(c, b);
+        } else if (c == '\u2028' || c == '\u2029') {
+          b.writeAscii(c == '\u2028' ? "\\u2028" : "\\u2029");
+        } else {
+          b.writeUtf8CodePoint(s, i);
+          if (Character.isHighSurrogate(c) && i + 1 < length
+              && Character.isLowSurrogate(s.charAt(i + 1))) {
+            i++;
+          }
+        }
+      }
+    }
+
+    /** Escapes UTF-8 encoded bytes, passing through any multi-byte sequences as-is. */
+    static void writeEscaped(byte[] utf8, Buffer b) {
+      for (byte c : utf8) {
+        if (c >= 0) {
+          writeEscaped((char) c, b);
+        } else {
+          b.writeByte(c);
+        }
+      }
+    }
+
+    static void writeEscaped(char c, Buffer b) {
+      switch (c) {
+        case '"':
+          b.writeAscii("\\\"");
+          return;
+        case '\\':
+          b.writeAscii("\\\\");
+          return;
+        case '\t':
+          b.writeAscii("\\t");
+          return;
+        case '\b':
+          b.writeAscii("\\b");
+          return;
+        case '\n':
+          b.writeAscii("\\n");
+          return;
+        case '\r':
+          b.writeAscii("\\r");
+          return;
+        case '\f':
+          b.writeAscii("\\f");
+          return;
+        default:
+          if (c < 0x20) {
+            b.writeAscii("\\u00");
+            b.writeByte(HEX_DIGITS[c >> 4]);
+            b.writeByte(HEX_DIGITS[c & 0xf]);
+          } else {
+            b.writeByte(c);
+          }
+      }
+    }
+
+    static void writeBase64(byte[] in, Buffer b) {
+      int i = 0;
+      for (int end = in.length - in.length % 3; i < end; i += 3) {
+        int n = ((in[i] & 0xff) << 16) | ((in[i + 1] & 0xff) << 8) | (in[i + 2] & 0xff);
+        b.writeByte(BASE64[(n >> 18) & 0x3f]);
+        b.writeByte(BASE64[(n >> 12) & 0x3f]);
+        b.writeByte(BASE64[(n >> 6) & 0x3f]);
+        b.writeByte(BASE64[n & 0x3f]);
+      }
+      switch (in.length - i) {
+        case 1: {
+          int n = (in[i] & 0xff) << 16;
+          b.writeByte(BASE64[(n >> 18) & 0x3f]);
+          b.writeByte(BASE64[(n >> 12) & 0x3f]);
+          b.writeAscii("==");
+          break;
+        }
+        case 2: {
+          int n = ((in[i] & 0xff) << 16) | ((in[i + 1] & 0xff) << 8);
+          b.writeByte(BASE64[(n >> 18) & 0x3f]);
+          b.writeByte(BASE64[(n >> 12) & 0x3f]);
+          b.writeByte(BASE64[(n >> 6) & 0x3f]);
+          b.writeByte('=');
+          break;
+        }
+        default:
+      }
+    }
+
+    static int readInt(byte[] b, int offset) {
+      return ((b[offset] & 0xff) << 24)
+          | ((b[offset + 1] & 0xff) << 16)
+          | ((b[offset + 2] & 0xff) << 8)
+          | (b[offset + 3] & 0xff);
+    }
+
+    static long readLong(byte[] b) {
+      return ((long) readInt(b, 0) << 32) | (readInt(b, 4) & 0xffffffffL);
+    }
+
+    @Override public String toString() {
+      return "DirectSpanCodec.JSON";
+    }
+  }
+
+  /** Writes TBinaryProtocol for the types in zipkinCore.thrift */
+  static final class ThriftEncoder extends DirectSpanCodec {
+    static final byte TYPE_STOP = 0;
+    static final byte TYPE_BOOL = 2;
+    static final byte TYPE_I16 = 6;
+    static final byte TYPE_I32 = 8;
+    static final byte TYPE_I64 = 10;
+    static final byte TYPE_STRING = 11;
+    static final byte TYPE_STRUCT = 12;
+    static final byte TYPE_LIST = 15;
+
+    ThriftEncoder() {
+      super(DefaultSpanCodec.THRIFT);
+    }
+
+    @Override public void writeSpans(List<Span> spans, Buffer b) {
+      int length = spans.size();
+      writeListBegin(TYPE_STRUCT, length, b);
+      for (int i = 0; i < length; i++) {
+        writeSpan(spans.get(i), b);
+      }
+    }
+
+    @Override public void writeSpan(Span span, Buffer b) {
+      writeFieldBegin(TYPE_I64, 1, b);
+      b.writeLong(span.getTrace_id());
+
+      writeFieldBegin(TYPE_STRING, 3, b);
+      writeString(span.getName(), b);
+
+      writeFieldBegin(TYPE_I64, 4, b);
+      b.writeLong(span.getId());
+
+      Long parentId = span.getParent_id();
+      if (parentId != null) {
+        writeFieldBegin(TYPE_I64, 5, b);
+        b.writeLong(parentId);
+      }
+
+      List<Annotation> annotations = span.getAnnotations();
+      writeFieldBegin(TYPE_LIST, 6, b);
+      writeListBegin(TYPE_STRUCT, annotations.size(), b);
+      for (int i = 0, length = annotations.size(); i < length; i++) {
+        writeAnnotation(annotations.get(i), b);
+      }
+
+      List<BinaryAnnotation> binaryAnnotations = span.getBinary_annotations();
+      writeFieldBegin(TYPE_LIST, 8, b);
+      writeListBegin(TYPE_STRUCT, binaryAnnotations.size(), b);
+      for (int i = 0, length = binaryAnnotations.size(); i < length; i++) {
+        writeBinaryAnnotation(binaryAnnotations.get(i), b);
+      }
+
+      Boolean debug = span.isDebug();
+      if (debug != null) {
+        writeFieldBegin(TYPE_BOOL, 9, b);
+        b.writeByte(debug ? 1 : 0);
+      }
+
+      Long timestamp = span.getTimestamp();
+      if (timestamp != null) {
+        writeFieldBegin(TYPE_I64, 10, b);
+        b.writeLong(timestamp);
+      }
+
+      Long duration = span.getDuration();
+      if (duration != null) {
+        writeFieldBegin(TYPE_I64, 11, b);
+        b.writeLong(duration);
+      }
+
+      if (span.getTrace_id_high() != 0) {
+        writeFieldBegin(TYPE_I64, 12, b);
+        b.writeLong(span.getTrace_id_high());
+      }
+
+      b.writeByte(TYPE_STOP);
+    }
+
+    static void writeAnnotation(Annotation a, Buffer b) {
+      writeFieldBegin(TYPE_I64, 1, b);
+      b.writeLong(a.timestamp);
+
+      writeFieldBegin(TYPE_STRING, 2, b);
+      writeString(a.value, b);
+
+      if (a.host != null) {
+        writeFieldBegin(TYPE_STRUCT, 3, b);
+        writeEndpoint(a.host, b);
+      }
+      b.writeByte(TYPE_STOP);
+    }
+
+    static void writeBinaryAnnotation(BinaryAnnotation a, Buffer b) {
+      writeFieldBegin(TYPE_STRING, 1, b);
+      writeString(a.key, b);
+
+      writeFieldBegin(TYPE_STRING, 2, b);
+      b.writeInt(a.value.length);
+      b.write(a.value);
+
+      writeFieldBegin(TYPE_I32, 3, b);
+      b.writeInt(a.type.getValue());
+
+      if (a.host != null) {
+        writeFieldBegin(TYPE_STRUCT, 4, b);
+        writeEndpoint(a.host, b);
+      }
+      b.writeByte(TYPE_STOP);
+    }
+
+    static void writeEndpoint(Endpoint e, Buffer b) {
+      writeFieldBegin(TYPE_I32, 1, b);
+      b.writeInt(e.ipv4);
+
+      writeFieldBegin(TYPE_I16, 2, b);
+      b.writeShort(e.port == null ? 0 : e.port);
+
+      writeFieldBegin(TYPE_STRING, 3, b);
+      writeString(e.service_name, b);
+
+      if (e.ipv6 != null) {
+        writeFieldBegin(TYPE_STRING, 4, b);
+        b.writeInt(e.ipv6.length);
+        b.write(e.ipv6);
+      }
+      b.writeByte(TYPE_STOP);
+    }
+
+    static void writeFieldBegin(byte type, int id, Buffer b) {
+      b.writeByte(type);
+      b.writeShort(id);
+    }
+
+    static void writeListBegin(byte elementType, int size, Buffer b) {
+      b.writeByte(elementType);
+      b.writeInt(size);
+    }
+
+    static void writeString(String s, Buffer b) {
+      b.writeInt(utf8Length(s));
+      b.writeUtf8(s);
+    }
+
+    @Override public String toString() {
+      return "DirectSpanCodec.THRIFT";
+    }
+  }
+}
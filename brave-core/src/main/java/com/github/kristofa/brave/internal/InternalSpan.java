@@ -25,5 +25,14 @@ public abstract class InternalSpan {
    */
   public abstract @Nullable SpanId context(Span span);
 
+  /**
+   * Returns state a recorder attached to this span instead of mutating it, or null if there was
+   * none.
+   */
+  public abstract @Nullable Object recording(Span span);
+
+  /** Atomically attaches recorder state to this span, if the current value is {@code expect}. */
+  public abstract boolean compareAndSetRecording(Span span, @Nullable Object expect, Object update);
+
   public static InternalSpan instance;
 }
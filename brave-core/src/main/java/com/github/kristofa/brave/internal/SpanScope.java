@@ -0,0 +1,82 @@
+package com.github.kristofa.brave.internal;
+
+import com.github.kristofa.brave.ServerSpan;
+import com.twitter.zipkin.gen.Span;
+
+/**
+ * The server, client and nested local spans of a thread. Never modified, so threads can share it:
+ * changes return a new scope.
+ *
+ * <p>Used by span states which bind a reference to the current scope, instead of copying spans
+ * into each thread.
+ */
+public final class SpanScope {
+  public static final SpanScope EMPTY = new SpanScope(ServerSpan.EMPTY, null, null);
+
+  final ServerSpan serverSpan;
+  @Nullable final Span clientSpan;
+  @Nullable final LocalSpans localSpans;
+
+  SpanScope(ServerSpan serverSpan, @Nullable Span clientSpan, @Nullable LocalSpans localSpans) {
+    this.serverSpan = serverSpan;
+    this.clientSpan = clientSpan;
+    this.localSpans = localSpans;
+  }
+
+  /** Never returns null: {@code withServerSpan(null)} coerces to {@link ServerSpan#EMPTY} */
+  public ServerSpan serverSpan() {
+    return serverSpan;
+  }
+
+  @Nullable public Span clientSpan() {
+    return clientSpan;
+  }
+
+  /** Returns the innermost local span, or null if there is none. */
+  @Nullable public Span localSpan() {
+    return localSpans != null ? localSpans.span : null;
+  }
+
+  public SpanScope withServerSpan(@Nullable ServerSpan span) {
+    return new SpanScope(span != null ? span : ServerSpan.EMPTY, clientSpan, localSpans);
+  }
+
+  public SpanScope withClientSpan(@Nullable Span span) {
+    return new SpanScope(serverSpan, span, localSpans);
+  }
+
+  /**
+   * Pushes the local span onto the stack of nested local spans, or if the span is null, pops the
+   * innermost. Returns this scope when there's nothing to pop.
+   */
+  public SpanScope withLocalSpan(@Nullable Span span) {
+    if (span != null) return new SpanScope(serverSpan, clientSpan, new LocalSpans(span, localSpans));
+    if (localSpans == null) return this;
+    return new SpanScope(serverSpan, clientSpan, localSpans.parent);
+  }
+
+  /** Returns true if this scope holds no spans. */
+  public boolean isEmpty() {
+    return serverSpan == ServerSpan.EMPTY && clientSpan == null && localSpans == null;
+  }
+
+  @Override public String toString() {
+    return "SpanScope{serverSpan=" + serverSpan + ", clientSpan=" + clientSpan + ", localSpans="
+        + localSpans + "}";
+  }
+
+  /** Stack of nested local spans, linked from the innermost span to the outermost. */
+  static final class LocalSpans {
+    final Span span;
+    @Nullable final LocalSpans parent;
+
+    LocalSpans(Span span, @Nullable LocalSpans parent) {
+      this.span = span;
+      this.parent = parent;
+    }
+
+    @Override public String toString() {
+      return parent != null ? span + ", " + parent : String.valueOf(span);
+    }
+  }
+}
@@ -8,6 +8,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import static com.github.kristofa.brave.internal.Util.equal;
 
@@ -40,9 +41,20 @@ public class Span implements Serializable {
         }
         return span.context;
       }
+
+      @Override public Object recording(Span span) {
+        return span.recording;
+      }
+
+      @Override public boolean compareAndSetRecording(Span span, Object expect, Object update) {
+        return RECORDING.compareAndSet(span, expect, update);
+      }
     };
   }
 
+  static final AtomicReferenceFieldUpdater<Span, Object> RECORDING =
+      AtomicReferenceFieldUpdater.newUpdater(Span.class, Object.class, "recording");
+
   static final long serialVersionUID = 1L;
 
   private SpanId context; // nullable for deprecated constructor
@@ -56,6 +68,7 @@ public class Span implements Serializable {
   private Boolean debug; // optional
   private Long timestamp; // optional
   private Long duration; // optional
+  private transient volatile Object recording; // nullable, attached by lock-free recorders
 
   /**
    * Span is an internal type, don't create new instances manually.
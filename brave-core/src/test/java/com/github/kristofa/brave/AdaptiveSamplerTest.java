@@ -0,0 +1,130 @@
+package com.github.kristofa.brave;
+
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import zipkin.reporter.InMemoryReporterMetrics;
+import zipkin.reporter.ReporterMetrics;
+
+import static com.github.kristofa.brave.AdaptiveSampler.ADJUST_INTERVAL_NANOS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class AdaptiveSamplerTest {
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  long now = 1000L;
+  AdaptiveSampler sampler = new AdaptiveSampler(10000, now);
+  SpanCollectorMetricsHandler metrics =
+      sampler.metricsHandler(new EmptySpanCollectorMetricsHandler());
+
+  @Test
+  public void samplesAtConfiguredRateWithoutDrops() {
+    metrics.incrementAcceptedSpans(100);
+    nextInterval();
+
+    assertThat(sampler.currentRate()).isEqualTo(1.0f);
+    assertThat(new Random().longs(1000).allMatch(id -> sampler.isSampledAt(id, now))).isTrue();
+  }
+
+  @Test
+  public void dropsAtLeastHalveRate() {
+    metrics.incrementAcceptedSpans(100);
+    metrics.incrementDroppedSpans(10);
+    nextInterval();
+
+    assertThat(sampler.currentRate()).isEqualTo(0.5f);
+  }
+
+  @Test
+  public void dropsReduceRateInProportion() {
+    metrics.incrementAcceptedSpans(100);
+    metrics.incrementDroppedSpans(90);
+    nextInterval();
+
+    assertThat(sampler.currentRate()).isEqualTo(0.1f);
+  }
+
+  @Test
+  public void rateDoesntGoBelowMinimum() {
+    for (int i = 0; i < 20; i++) {
+      metrics.incrementDroppedSpans(10);
+      nextInterval();
+    }
+
+    assertThat(sampler.currentRate()).isEqualTo(0.0001f);
+  }
+
+  @Test
+  public void recoversWhenDropsStop() {
+    metrics.incrementAcceptedSpans(100);
+    metrics.incrementDroppedSpans(50);
+    nextInterval();
+    assertThat(sampler.currentRate()).isEqualTo(0.5f);
+
+    for (int i = 0; i < 5; i++) {
+      metrics.incrementAcceptedSpans(100);
+      nextInterval();
+    }
+    assertThat(sampler.currentRate()).isEqualTo(1.0f);
+
+    nextInterval();
+    assertThat(sampler.currentRate()).isEqualTo(1.0f); // doesn't exceed the configured rate
+  }
+
+  @Test
+  public void doesntAdjustBeforeIntervalElapses() {
+    metrics.incrementDroppedSpans(10);
+    sampler.isSampledAt(1L, now + ADJUST_INTERVAL_NANOS - 1);
+
+    assertThat(sampler.currentRate()).isEqualTo(1.0f);
+  }
+
+  @Test
+  public void metricsHandler_forwardsToDelegate() {
+    SpanCollectorMetricsHandler delegate = mock(SpanCollectorMetricsHandler.class);
+    metrics = sampler.metricsHandler(delegate);
+
+    metrics.incrementAcceptedSpans(2);
+    metrics.incrementDroppedSpans(1);
+
+    verify(delegate).incrementAcceptedSpans(2);
+    verify(delegate).incrementDroppedSpans(1);
+  }
+
+  @Test
+  public void reporterMetrics_informsSampler() {
+    InMemoryReporterMetrics delegate = new InMemoryReporterMetrics();
+    ReporterMetrics reporterMetrics = sampler.reporterMetrics(delegate);
+
+    reporterMetrics.incrementSpans(100);
+    reporterMetrics.incrementSpansDropped(50);
+    nextInterval();
+
+    assertThat(sampler.currentRate()).isEqualTo(0.5f);
+    assertThat(delegate.spans()).isEqualTo(100);
+    assertThat(delegate.spansDropped()).isEqualTo(50);
+  }
+
+  @Test
+  public void rateCantBeZero() {
+    thrown.expect(IllegalArgumentException.class);
+
+    AdaptiveSampler.create(0.0f);
+  }
+
+  @Test
+  public void rateCantBeOverOne() {
+    thrown.expect(IllegalArgumentException.class);
+
+    AdaptiveSampler.create(1.1f);
+  }
+
+  void nextInterval() {
+    now += ADJUST_INTERVAL_NANOS;
+    sampler.isSampledAt(1L, now);
+  }
+}
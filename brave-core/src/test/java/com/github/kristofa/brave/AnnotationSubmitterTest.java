@@ -148,7 +148,8 @@ public class AnnotationSubmitterTest {
             }
         };
         AnnotationSubmitter.DefaultClock clock = new AnnotationSubmitter.DefaultClock();
-        Recorder recorder = new AutoValue_Recorder_Default(endpoint, clock, spans::add);
+        Recorder recorder = new AutoValue_Recorder_Default(
+            endpoint, clock, spans::add, SpanLimits.UNLIMITED);
         return new AnnotationSubmitter(){
             @Override CurrentSpan currentSpan() {
                 return currentSpan;
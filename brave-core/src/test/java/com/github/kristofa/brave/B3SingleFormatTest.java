@@ -0,0 +1,117 @@
+package com.github.kristofa.brave;
+
+import org.junit.Test;
+
+import static com.github.kristofa.brave.B3SingleFormat.parseB3SingleFormat;
+import static com.github.kristofa.brave.B3SingleFormat.writeB3SingleFormat;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class B3SingleFormatTest {
+  String traceId = "0000000000000001";
+  String parentId = "0000000000000002";
+  String spanId = "0000000000000003";
+
+  @Test public void write_notSampled() {
+    assertThat(writeB3SingleFormat(null))
+        .isEqualTo("0");
+  }
+
+  @Test public void write_root() {
+    SpanId id = SpanId.builder().traceId(1L).parentId(null).spanId(3L).sampled(true).build();
+
+    assertThat(writeB3SingleFormat(id))
+        .isEqualTo(traceId + "-" + spanId + "-1");
+  }
+
+  @Test public void write_child() {
+    SpanId id = SpanId.builder().traceId(1L).parentId(2L).spanId(3L).build();
+
+    assertThat(writeB3SingleFormat(id))
+        .isEqualTo(traceId + "-" + spanId + "-1-" + parentId);
+  }
+
+  @Test public void write_debug() {
+    SpanId id = SpanId.builder().traceId(1L).parentId(2L).spanId(3L).debug(true).build();
+
+    assertThat(writeB3SingleFormat(id))
+        .isEqualTo(traceId + "-" + spanId + "-d-" + parentId);
+  }
+
+  @Test public void write_128bit() {
+    SpanId id = SpanId.builder().traceIdHigh(9L).traceId(1L).parentId(2L).spanId(3L).build();
+
+    assertThat(writeB3SingleFormat(id))
+        .isEqualTo("0000000000000009" + traceId + "-" + spanId + "-1-" + parentId);
+  }
+
+  @Test public void parse_roundTrip() {
+    SpanId id = SpanId.builder().traceIdHigh(9L).traceId(1L).parentId(2L).spanId(3L)
+        .sampled(true).build();
+
+    assertThat(parseB3SingleFormat(writeB3SingleFormat(id)).getSpanId())
+        .isEqualToComparingFieldByField(id);
+  }
+
+  @Test public void parse_root() {
+    TraceData traceData = parseB3SingleFormat(traceId + "-" + spanId + "-1");
+
+    assertThat(traceData.getSample()).isTrue();
+    assertThat(traceData.getSpanId().root()).isTrue();
+    assertThat(traceData.getSpanId().traceId).isEqualTo(1L);
+    assertThat(traceData.getSpanId().spanId).isEqualTo(3L);
+  }
+
+  @Test public void parse_notSampled() {
+    assertThat(parseB3SingleFormat("0"))
+        .isSameAs(TraceData.NOT_SAMPLED);
+    assertThat(parseB3SingleFormat(traceId + "-" + spanId + "-0-" + parentId).getSample())
+        .isFalse();
+  }
+
+  @Test public void parse_samplingOnly_noIdsToJoin() {
+    assertThat(parseB3SingleFormat("1"))
+        .isSameAs(TraceData.EMPTY);
+    assertThat(parseB3SingleFormat("d"))
+        .isSameAs(TraceData.EMPTY);
+  }
+
+  @Test public void parse_debug() {
+    SpanId id = parseB3SingleFormat(traceId + "-" + spanId + "-d-" + parentId).getSpanId();
+
+    assertThat(id.debug()).isTrue();
+    assertThat(id.sampled()).isTrue();
+    assertThat(id.nullableParentId()).isEqualTo(2L);
+  }
+
+  @Test public void parse_deferred() {
+    assertThat(parseB3SingleFormat(traceId + "-" + spanId).getSample())
+        .isNull();
+    assertThat(parseB3SingleFormat(traceId + "-" + spanId + "-" + parentId).getSpanId()
+        .nullableParentId()).isEqualTo(2L);
+  }
+
+  @Test public void parse_unpaddedIds() {
+    SpanId id = parseB3SingleFormat("1-3-1-2").getSpanId();
+
+    assertThat(id.traceId).isEqualTo(1L);
+    assertThat(id.spanId).isEqualTo(3L);
+    assertThat(id.parentId).isEqualTo(2L);
+  }
+
+  @Test public void parse_charSequence() {
+    assertThat(parseB3SingleFormat(new StringBuilder(traceId + "-" + spanId + "-1")).getSpanId())
+        .isEqualTo(SpanId.builder().traceId(1L).spanId(3L).build());
+  }
+
+  @Test public void parse_malformed() {
+    assertThat(parseB3SingleFormat("")).isNull();
+    assertThat(parseB3SingleFormat("x")).isNull();
+    assertThat(parseB3SingleFormat(traceId)).isNull();
+    assertThat(parseB3SingleFormat(traceId + "-")).isNull();
+    assertThat(parseB3SingleFormat("-" + spanId)).isNull();
+    assertThat(parseB3SingleFormat(traceId + "-" + spanId + "-x")).isNull();
+    assertThat(parseB3SingleFormat(traceId.toUpperCase() + "A-" + spanId)).isNull();
+    assertThat(parseB3SingleFormat(traceId + "-" + spanId + "-1-" + parentId + "0")).isNull();
+    assertThat(parseB3SingleFormat(traceId + traceId + "0-" + spanId)).isNull();
+  }
+}
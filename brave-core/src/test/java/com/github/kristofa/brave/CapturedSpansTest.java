@@ -0,0 +1,119 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Test;
+import zipkin.reporter.Reporter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CapturedSpansTest {
+  static final Endpoint ENDPOINT = Endpoint.create("service", 127 << 24 | 1);
+
+  @After public void clear() {
+    ThreadLocalServerClientAndLocalSpanState.clear();
+    ThreadContextServerClientAndLocalSpanState.clear();
+  }
+
+  @Test public void threadContextState_capturesSnapshot() {
+    Brave brave = new Brave.Builder(new ThreadContextServerClientAndLocalSpanState(ENDPOINT))
+        .reporter(Reporter.NOOP).build();
+
+    assertThat(CapturedSpans.capture(brave))
+        .isInstanceOf(ThreadContextServerClientAndLocalSpanState.Snapshot.class);
+    swapsSpansOnAnotherThread(brave);
+  }
+
+  @Test public void threadLocalState() {
+    Brave brave = new Brave.Builder(new ThreadLocalServerClientAndLocalSpanState(ENDPOINT))
+        .reporter(Reporter.NOOP).build();
+
+    assertThat(CapturedSpans.capture(brave)).isInstanceOf(CapturedSpans.BinderSpans.class);
+    swapsSpansOnAnotherThread(brave);
+  }
+
+  @Test public void inheritableState_restoreUndoesSwap() {
+    Brave brave = new Brave.Builder(new InheritableServerClientAndLocalSpanState(ENDPOINT))
+        .reporter(Reporter.NOOP).build();
+
+    assertThat(CapturedSpans.capture(brave)).isInstanceOf(CapturedSpans.BinderSpans.class);
+    restoreUndoesSwapOfNestedSpans(brave);
+  }
+
+  @Test public void scopedState_restoreUndoesSwap() {
+    Brave brave = new Brave.Builder(new ScopedServerClientAndLocalSpanState(ENDPOINT))
+        .reporter(Reporter.NOOP).build();
+
+    restoreUndoesSwapOfNestedSpans(brave);
+  }
+
+  /** Setting a local span pushes it on these states, so restoring must pop what swapping pushed. */
+  void restoreUndoesSwapOfNestedSpans(Brave brave) {
+    LocalSpanThreadBinder localSpanThreadBinder = brave.localSpanThreadBinder();
+    brave.localTracer().startNewSpan("component", "outer");
+    Span outer = localSpanThreadBinder.getCurrentLocalSpan();
+    CapturedSpans spans = CapturedSpans.capture(brave);
+
+    // like callbacks run inline on the capturing thread
+    for (int i = 0; i < 2; i++) {
+      CapturedSpans previous = spans.swap();
+      assertThat(localSpanThreadBinder.getCurrentLocalSpan()).isSameAs(outer);
+      previous.restore();
+      assertThat(localSpanThreadBinder.getCurrentLocalSpan()).isSameAs(outer);
+    }
+
+    brave.localTracer().finishSpan();
+    assertThat(localSpanThreadBinder.getCurrentLocalSpan()).isNull();
+
+    // swapping in no local span hides the current one until restored
+    CapturedSpans none = CapturedSpans.capture(brave);
+    brave.localTracer().startNewSpan("component", "inner");
+    Span inner = localSpanThreadBinder.getCurrentLocalSpan();
+
+    CapturedSpans previous = none.swap();
+    assertThat(localSpanThreadBinder.getCurrentLocalSpan()).isNull();
+    previous.restore();
+    assertThat(localSpanThreadBinder.getCurrentLocalSpan()).isSameAs(inner);
+
+    brave.localTracer().finishSpan();
+    assertThat(localSpanThreadBinder.getCurrentLocalSpan()).isNull();
+  }
+
+  void swapsSpansOnAnotherThread(Brave brave) {
+    brave.serverTracer().setStateCurrentTrace(1L, 2L, null, "get");
+    brave.localTracer().startNewSpan("component", "operation");
+    Span localSpan = brave.localSpanThreadBinder().getCurrentLocalSpan();
+    ServerSpan serverSpan = brave.serverSpanThreadBinder().getCurrentServerSpan();
+    CapturedSpans spans = CapturedSpans.capture(brave);
+
+    AtomicReference<Span> swappedLocal = new AtomicReference<>();
+    AtomicReference<ServerSpan> swappedServer = new AtomicReference<>();
+    AtomicReference<Span> restoredLocal = new AtomicReference<>();
+    AtomicReference<ServerSpan> restoredServer = new AtomicReference<>();
+    Thread thread = new Thread(() -> {
+      ServerSpan ownServerSpan = ServerSpan.create(Brave.toSpan(SpanId.builder().spanId(3L).build()));
+      brave.serverSpanThreadBinder().setCurrentSpan(ownServerSpan);
+
+      CapturedSpans previous = spans.swap();
+      swappedLocal.set(brave.localSpanThreadBinder().getCurrentLocalSpan());
+      swappedServer.set(brave.serverSpanThreadBinder().getCurrentServerSpan());
+      previous.restore();
+      restoredLocal.set(brave.localSpanThreadBinder().getCurrentLocalSpan());
+      restoredServer.set(brave.serverSpanThreadBinder().getCurrentServerSpan());
+    });
+    thread.start();
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      throw new AssertionError(e);
+    }
+
+    assertThat(swappedLocal.get()).isSameAs(localSpan);
+    assertThat(swappedServer.get()).isSameAs(serverSpan);
+    assertThat(restoredLocal.get()).isNull();
+    assertThat(restoredServer.get()).isNotSameAs(serverSpan);
+    assertThat(restoredServer.get().getSpan().getId()).isEqualTo(3L);
+  }
+}
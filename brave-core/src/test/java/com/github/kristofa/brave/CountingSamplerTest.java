@@ -1,9 +1,12 @@
 package com.github.kristofa.brave;
 
+import java.util.ArrayList;
+import java.util.List;
 import org.assertj.core.data.Percentage;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.data.Percentage.withPercentage;
 
 public class CountingSamplerTest extends SamplerTest {
@@ -22,5 +25,24 @@ public class CountingSamplerTest extends SamplerTest {
     newSampler(0.0001f);
   }
 
+  /** The only discontinuity is where the counter overflows, which skips positions 48 to 51. */
+  @Test
+  public void counterOverflow() {
+    CountingSampler sampler = (CountingSampler) newSampler(0.5f);
+    sampler.counter.set(Integer.MAX_VALUE - 50);
+
+    List<Integer> skipped = new ArrayList<>();
+    int last = CountingSampler.mod(sampler.counter.get() - 1, 100);
+    for (int i = 0; i < 200; i++) {
+      int position = CountingSampler.mod(sampler.counter.get(), 100);
+      for (int expected = (last + 1) % 100; expected != position; expected = (expected + 1) % 100) {
+        skipped.add(expected);
+      }
+      sampler.isSampled(0L);
+      last = position;
+    }
+    assertThat(skipped).containsExactly(48, 49, 50, 51);
+    assertThat(sampler.counter.get()).isEqualTo(Integer.MIN_VALUE + 149);
+  }
 
 }
@@ -38,7 +38,8 @@ public class ITAnnotationSubmitterConcurrency {
             return span;
         }
     };
-    Recorder recorder = new AutoValue_Recorder_Default(endpoint, clock, Reporter.NOOP);
+    Recorder recorder = new AutoValue_Recorder_Default(
+        endpoint, clock, Reporter.NOOP, SpanLimits.UNLIMITED);
     AnnotationSubmitter annotationSubmitter = AnnotationSubmitter.create(currentSpan, recorder);
 
     @Before
@@ -83,4 +83,17 @@ public class IdConversionTest {
     assertThat(IdConversion.convertToLong("463ac35c9f6413ad48485a3953bb6124", 0))
         .isEqualTo(IdConversion.convertToLong("463ac35c9f6413ad"));
   }
+
+  @Test
+  public void convertToLong_charSequence() {
+    assertThat(IdConversion.convertToLong(new StringBuilder("463ac35c9f6413ad48485a3953bb6124")))
+        .isEqualTo(IdConversion.convertToLong("48485a3953bb6124"));
+    assertThat(IdConversion.convertToLong(new StringBuilder("463ac35c9f6413ad48485a3953bb6124"), 0))
+        .isEqualTo(IdConversion.convertToLong("463ac35c9f6413ad"));
+  }
+
+  @Test(expected = NumberFormatException.class)
+  public void convertToLong_charSequence_invalid() {
+    IdConversion.convertToLong(new StringBuilder("7FFFFFFFFFFFFFFF"));
+  }
 }
@@ -7,6 +7,8 @@ import static org.junit.Assert.assertSame;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -121,6 +123,46 @@ public class InheritableServerClientAndLocalSpanStateTest {
         assertThat(currentParentSpan(state)).isNull();
     }
 
+    @Test
+    public void localSpans_nestBeyondInitialCapacity() {
+        Span[] spans = new Span[InheritableServerClientAndLocalSpanState.LocalSpanStack.INITIAL_CAPACITY * 3];
+        for (int i = 0; i < spans.length; i++) {
+            spans[i] = mock(Span.class);
+            state.setCurrentLocalSpan(spans[i]);
+        }
+        for (int i = spans.length - 1; i >= 0; i--) {
+            assertSame(spans[i], state.getCurrentLocalSpan());
+            state.setCurrentLocalSpan(null);
+        }
+        assertNull(state.getCurrentLocalSpan());
+
+        state.setCurrentLocalSpan(null); // popping an empty stack is harmless
+        assertNull(state.getCurrentLocalSpan());
+    }
+
+    @Test
+    public void childThread_inheritsCopyOfLocalSpans() throws Exception {
+        state.setCurrentLocalSpan(mockSpan);
+        Span childSpan = mock(Span.class);
+        AtomicReference<Span> inherited = new AtomicReference<>();
+        AtomicReference<Span> afterPop = new AtomicReference<>();
+
+        Thread child = new Thread(() -> {
+            inherited.set(state.getCurrentLocalSpan());
+            state.setCurrentLocalSpan(childSpan);
+            state.setCurrentLocalSpan(null);
+            state.setCurrentLocalSpan(null); // pops the inherited span
+            afterPop.set(state.getCurrentLocalSpan());
+        });
+        child.start();
+        child.join();
+
+        assertSame(mockSpan, inherited.get());
+        assertNull(afterPop.get());
+        // the child's pushes and pops didn't affect this thread
+        assertSame(mockSpan, state.getCurrentLocalSpan());
+    }
+
     @Test
     public void testToString() throws Exception {
         assertThat(state.toString()).startsWith("InheritableServerClientAndLocalSpanState");
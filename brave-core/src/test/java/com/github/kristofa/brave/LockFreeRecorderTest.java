@@ -0,0 +1,102 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import zipkin.Constants;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LockFreeRecorderTest {
+  static final Endpoint ENDPOINT = Endpoint.create("service", 127 << 24 | 1);
+  static final zipkin.Endpoint ZIPKIN_ENDPOINT = zipkin.Endpoint.create("service", 127 << 24 | 1);
+
+  long timestamp = 1000L;
+  List<zipkin.Span> spans = new ArrayList<>();
+  Recorder recorder = new AutoValue_Recorder_LockFree(
+      ENDPOINT, () -> timestamp, spans::add, SpanLimits.UNLIMITED, null);
+  Span span = Brave.toSpan(SpanId.builder().traceId(1L).spanId(1L).sampled(true).build());
+
+  @Test
+  public void recordsSpan() {
+    recorder.name(span, "GET");
+    recorder.start(span, Recorder.SpanKind.CLIENT);
+    recorder.tag(span, "http.path", "/foo");
+    timestamp = 1500L;
+    recorder.annotate(span, "wire.send");
+    timestamp = 2000L;
+    recorder.finish(span, Recorder.SpanKind.CLIENT);
+
+    assertThat(spans).containsExactly(zipkin.Span.builder()
+        .traceId(1L).id(1L).name("get").timestamp(1000L).duration(1000L)
+        .addAnnotation(zipkin.Annotation.create(1000L, Constants.CLIENT_SEND, ZIPKIN_ENDPOINT))
+        .addAnnotation(zipkin.Annotation.create(1500L, "wire.send", ZIPKIN_ENDPOINT))
+        .addAnnotation(zipkin.Annotation.create(2000L, Constants.CLIENT_RECV, ZIPKIN_ENDPOINT))
+        .addBinaryAnnotation(zipkin.BinaryAnnotation.create("http.path", "/foo", ZIPKIN_ENDPOINT))
+        .build());
+  }
+
+  @Test
+  public void doesntMutateSpan() {
+    recorder.name(span, "GET");
+    recorder.start(span);
+    recorder.annotate(span, "foo");
+    recorder.finish(span);
+
+    assertThat(span.getName()).isEmpty();
+    assertThat(span.getTimestamp()).isNull();
+    assertThat(span.getAnnotations()).isEmpty();
+  }
+
+  @Test
+  public void serverHalfOfSharedSpanHasNoTimestamp() {
+    span = Brave.toSpan(SpanId.builder().traceId(1L).spanId(1L).sampled(true).shared(true).build());
+
+    recorder.start(span, Recorder.SpanKind.SERVER);
+    timestamp = 2000L;
+    recorder.finish(span, Recorder.SpanKind.SERVER);
+
+    assertThat(spans.get(0).timestamp).isNull();
+    assertThat(spans.get(0).duration).isNull();
+  }
+
+  @Test
+  public void flush_reportsSpanFieldsWhenNothingRecorded() {
+    span.setName("foo");
+
+    recorder.flush(span);
+
+    assertThat(spans.get(0).name).isEqualTo("foo");
+  }
+
+  @Test
+  public void concurrentAnnotationsArentLost() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        int offset = t * 1000;
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 1000; i++) {
+            recorder.annotate(span, offset + i, "annotation");
+            recorder.tag(span, "key" + (offset + i), "value");
+          }
+        }));
+      }
+      for (Future<?> future : futures) future.get(10, TimeUnit.SECONDS);
+    } finally {
+      executor.shutdown();
+    }
+
+    recorder.flush(span);
+
+    assertThat(spans.get(0).annotations).hasSize(4000);
+    assertThat(spans.get(0).binaryAnnotations).hasSize(4000);
+  }
+}
@@ -0,0 +1,89 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Annotation;
+import com.twitter.zipkin.gen.BinaryAnnotation;
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PendingSpansTest {
+  static final Endpoint ENDPOINT = Endpoint.create("service", 127 << 24 | 1);
+
+  List<Span> drained = new ArrayList<>();
+
+  @Test public void create() {
+    assertThat(PendingSpans.create(FlushingSpanCollector.PendingQueue.LINKED, 100))
+        .isInstanceOf(PendingSpans.Linked.class);
+    assertThat(PendingSpans.create(FlushingSpanCollector.PendingQueue.RING_BUFFER, 100))
+        .isInstanceOf(SpanRingBuffer.class);
+    assertThat(PendingSpans.create(FlushingSpanCollector.PendingQueue.BYTE_BOUNDED, 100))
+        .isInstanceOf(PendingSpans.ByteBounded.class);
+  }
+
+  @Test public void sizeInBytes_growsWithTags() {
+    Span span = span(1L);
+    int empty = PendingSpans.sizeInBytes(span);
+
+    span.addToBinary_annotations(BinaryAnnotation.create("sql.query", "select 1", ENDPOINT));
+
+    assertThat(PendingSpans.sizeInBytes(span))
+        .isEqualTo(empty + 16 + "sql.query".length() + "select 1".length()
+            + 24 + "service".length());
+  }
+
+  @Test public void sizeInBytes_annotations() {
+    Span span = span(1L);
+    int empty = PendingSpans.sizeInBytes(span);
+
+    span.addToAnnotations(Annotation.create(1L, "sr", null));
+
+    assertThat(PendingSpans.sizeInBytes(span)).isEqualTo(empty + 16 + "sr".length());
+  }
+
+  @Test public void byteBounded_dropsWhenOverBudget() {
+    Span span = span(1L);
+    int spanBytes = PendingSpans.sizeInBytes(span);
+    PendingSpans.ByteBounded pending = new PendingSpans.ByteBounded(spanBytes * 2);
+
+    assertThat(pending.offer(span)).isTrue();
+    assertThat(pending.offer(span(2L))).isTrue();
+    assertThat(pending.offer(span(3L))).isFalse();
+
+    assertThat(pending.size()).isEqualTo(2);
+    assertThat(pending.bytes()).isEqualTo(spanBytes * 2);
+  }
+
+  @Test public void byteBounded_largeSpanDoesntCrowdOutSmallOnes() {
+    Span large = span(1L);
+    large.addToBinary_annotations(BinaryAnnotation.create("sql.query", "x", null));
+    PendingSpans.ByteBounded pending =
+        new PendingSpans.ByteBounded(PendingSpans.sizeInBytes(large) - 1);
+
+    assertThat(pending.offer(large)).isFalse();
+    assertThat(pending.offer(span(2L))).isTrue();
+  }
+
+  @Test public void byteBounded_drainReleasesBytes() {
+    Span span = span(1L);
+    PendingSpans.ByteBounded pending = new PendingSpans.ByteBounded(PendingSpans.sizeInBytes(span));
+    pending.offer(span);
+
+    assertThat(pending.drainTo(drained)).isEqualTo(1);
+    assertThat(drained).containsExactly(span);
+    assertThat(pending.bytes()).isZero();
+    assertThat(pending.offer(span(2L))).isTrue();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void byteBounded_budgetMustBePositive() {
+    new PendingSpans.ByteBounded(0);
+  }
+
+  static Span span(long id) {
+    return Brave.toSpan(SpanId.builder().traceId(id).spanId(id).build());
+  }
+}
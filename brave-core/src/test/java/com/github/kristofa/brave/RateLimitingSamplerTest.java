@@ -0,0 +1,70 @@
+package com.github.kristofa.brave;
+
+import java.util.stream.IntStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static com.github.kristofa.brave.RateLimitingSampler.NANOS_PER_SECOND;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RateLimitingSamplerTest {
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  long now = 1000L;
+  RateLimitingSampler sampler = new RateLimitingSampler(10, now);
+
+  @Test
+  public void admitsBurstOfOneSecond() {
+    assertThat(IntStream.range(0, 100).filter(i -> sampler.isSampledAt(now)).count())
+        .isEqualTo(10);
+  }
+
+  @Test
+  public void refillsOverTime() {
+    IntStream.range(0, 10).forEach(i -> sampler.isSampledAt(now));
+    assertThat(sampler.isSampledAt(now)).isFalse();
+
+    now += NANOS_PER_SECOND / 10;
+    assertThat(sampler.isSampledAt(now)).isTrue();
+    assertThat(sampler.isSampledAt(now)).isFalse();
+  }
+
+  @Test
+  public void idleTimeDoesntExceedBucket() {
+    now += NANOS_PER_SECOND * 60;
+
+    assertThat(IntStream.range(0, 100).filter(i -> sampler.isSampledAt(now)).count())
+        .isEqualTo(10);
+  }
+
+  @Test
+  public void handlesNanoTimeOverflow() {
+    now = Long.MAX_VALUE - NANOS_PER_SECOND / 20;
+    sampler = new RateLimitingSampler(10, now);
+    IntStream.range(0, 10).forEach(i -> sampler.isSampledAt(now));
+
+    now += NANOS_PER_SECOND / 10; // overflows
+    assertThat(sampler.isSampledAt(now)).isTrue();
+    assertThat(sampler.isSampledAt(now)).isFalse();
+  }
+
+  @Test
+  public void concurrentCallersDontExceedLimit() {
+    assertThat(IntStream.range(0, 100000).parallel().filter(i -> sampler.isSampledAt(now)).count())
+        .isEqualTo(10);
+  }
+
+  @Test
+  public void zeroMeansDropAllTraces() {
+    assertThat(RateLimitingSampler.create(0)).isSameAs(Sampler.NEVER_SAMPLE);
+  }
+
+  @Test
+  public void tracesPerSecondCantBeNegative() {
+    thrown.expect(IllegalArgumentException.class);
+
+    RateLimitingSampler.create(-1);
+  }
+}
@@ -0,0 +1,103 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class ScopedServerClientAndLocalSpanStateTest {
+
+    private final ScopedServerClientAndLocalSpanState state =
+        new ScopedServerClientAndLocalSpanState(Endpoint.create("service", 127 << 24 | 1));
+    private final ServerSpan mockServerSpan = mock(ServerSpan.class);
+    private final Span mockSpan = mock(Span.class);
+
+    @Test(expected = IllegalArgumentException.class)
+    public void serviceNameRequired() {
+        new ScopedServerClientAndLocalSpanState(Endpoint.create("", 127 << 24 | 1));
+    }
+
+    @Test
+    public void setCurrentServerSpanNullRevertsToEmpty() {
+        state.setCurrentServerSpan(mockServerSpan);
+        state.setCurrentServerSpan(null);
+
+        assertThat(state.getCurrentServerSpan()).isEqualTo(ServerSpan.EMPTY);
+    }
+
+    @Test
+    public void slotsAreIndependent() {
+        state.setCurrentLocalSpan(mockSpan);
+        state.setCurrentServerSpan(mockServerSpan);
+        state.setCurrentClientSpan(mockSpan);
+        state.setCurrentClientSpan(null);
+
+        assertThat(state.getCurrentServerSpan()).isSameAs(mockServerSpan);
+        assertThat(state.getCurrentClientSpan()).isNull();
+        assertThat(state.getCurrentLocalSpan()).isSameAs(mockSpan);
+    }
+
+    @Test
+    public void localSpansNest() {
+        Span outer = mock(Span.class), inner = mock(Span.class);
+        state.setCurrentLocalSpan(outer);
+        state.setCurrentLocalSpan(inner);
+
+        assertThat(state.getCurrentLocalSpan()).isSameAs(inner);
+        state.setCurrentLocalSpan(null);
+        assertThat(state.getCurrentLocalSpan()).isSameAs(outer);
+        state.setCurrentLocalSpan(null);
+        assertThat(state.getCurrentLocalSpan()).isNull();
+
+        state.setCurrentLocalSpan(null); // popping an empty stack is harmless
+        assertThat(state.getCurrentLocalSpan()).isNull();
+    }
+
+    @Test
+    public void childThread_sharesScopeWithoutAffectingParent() throws Exception {
+        state.setCurrentServerSpan(mockServerSpan);
+        state.setCurrentLocalSpan(mockSpan);
+        AtomicReference<Span> inherited = new AtomicReference<>();
+        AtomicReference<Span> afterPop = new AtomicReference<>();
+
+        Thread child = new Thread(() -> {
+            inherited.set(state.getCurrentLocalSpan());
+            state.setCurrentLocalSpan(mock(Span.class));
+            state.setCurrentLocalSpan(null);
+            state.setCurrentLocalSpan(null); // pops the inherited span
+            state.setCurrentServerSpan(null);
+            afterPop.set(state.getCurrentLocalSpan());
+        });
+        child.start();
+        child.join();
+
+        assertThat(inherited.get()).isSameAs(mockSpan);
+        assertThat(afterPop.get()).isNull();
+        assertThat(state.getCurrentLocalSpan()).isSameAs(mockSpan);
+        assertThat(state.getCurrentServerSpan()).isSameAs(mockServerSpan);
+    }
+
+    @Test
+    public void braveAllowsNestedLocalSpans() {
+        List<zipkin.Span> spans = new ArrayList<>();
+        Brave brave = new Brave.Builder(state).reporter(spans::add).build();
+
+        SpanId outer = brave.localTracer().startNewSpan("component", "outer");
+        SpanId inner = brave.localTracer().startNewSpan("component", "inner");
+        brave.localTracer().finishSpan();
+        brave.localTracer().finishSpan();
+
+        assertThat(inner.nullableParentId()).isEqualTo(outer.spanId);
+        assertThat(spans).extracting(s -> s.name).containsExactly("inner", "outer");
+    }
+
+    @Test
+    public void testToString() {
+        assertThat(state.toString()).startsWith("ScopedServerClientAndLocalSpanState");
+    }
+}
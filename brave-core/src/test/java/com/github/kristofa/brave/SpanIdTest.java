@@ -40,6 +40,22 @@ public class SpanIdTest {
         .isEqualToComparingFieldByField(id);
   }
 
+  @Test public void create_sameAsBuilder() {
+    assertThat(SpanId.create(1L, 2L, 3L, 4L, SpanId.FLAG_SAMPLING_SET | SpanId.FLAG_SAMPLED))
+        .isEqualToComparingFieldByField(
+            SpanId.builder().traceIdHigh(1L).traceId(2L).parentId(3L).spanId(4L).sampled(true)
+                .build());
+  }
+
+  @Test public void create_root() {
+    SpanId id = SpanId.create(0L, 555L, 0L, 333L, SpanId.FLAG_IS_ROOT);
+
+    assertThat(id.root()).isTrue();
+    assertThat(id.nullableParentId()).isNull();
+    assertThat(id).isEqualToComparingFieldByField(
+        SpanId.builder().traceId(555L).parentId(null).spanId(333L).build());
+  }
+
   @Test public void compareUnequalIds() {
     SpanId id = SpanId.builder().spanId(0L).build();
 
@@ -0,0 +1,119 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import zipkin.Constants;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SpanLimitsTest {
+  static final Charset UTF_8 = Charset.forName("UTF-8");
+  static final Endpoint ENDPOINT = Endpoint.create("service", 127 << 24 | 1);
+
+  SpanLimits limits = SpanLimits.builder()
+      .maxAnnotations(2)
+      .maxBinaryAnnotations(2)
+      .maxTagValueBytes(10).build();
+  List<zipkin.Span> spans = new ArrayList<>();
+  Span span = Brave.toSpan(SpanId.builder().traceId(1L).spanId(1L).sampled(true).build());
+
+  @Test public void unlimited_doesntTruncate() {
+    String value = new String(new char[10000]).replace('\0', 'a');
+
+    assertThat(SpanLimits.UNLIMITED.truncateTagValue(value)).isSameAs(value);
+  }
+
+  @Test public void truncateTagValue_fits() {
+    assertThat(limits.truncateTagValue("0123456789")).isEqualTo("0123456789");
+    assertThat(limits.truncateTagValue(null)).isNull();
+  }
+
+  @Test public void truncateTagValue_ascii() {
+    assertThat(limits.truncateTagValue("0123456789a")).isEqualTo("0123456...");
+  }
+
+  @Test public void truncateTagValue_multiByte_fitsInUtf8Bytes() {
+    String truncated = limits.truncateTagValue("éééééééééé"); // 20 bytes
+
+    assertThat(truncated).isEqualTo("ééé...");
+    assertThat(truncated.getBytes(UTF_8).length).isLessThanOrEqualTo(10);
+  }
+
+  @Test public void truncateTagValue_doesntSplitSurrogatePairs() {
+    String truncated = limits.truncateTagValue("a😀😀😀"); // 13 bytes
+
+    assertThat(truncated).isEqualTo("a😀...");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void maxTagValueBytes_mustFitMarker() {
+    SpanLimits.builder().maxTagValueBytes(2).build();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void maxAnnotations_mustNotBeNegative() {
+    SpanLimits.builder().maxAnnotations(-1).build();
+  }
+
+  @Test public void defaultRecorder_enforcesLimits() {
+    recordOverLimits(new AutoValue_Recorder_Default(ENDPOINT, () -> 1000L, spans::add, limits));
+
+    assertLimited(spans.get(0));
+  }
+
+  @Test public void lockFreeRecorder_enforcesLimits() {
+    recordOverLimits(
+        new AutoValue_Recorder_LockFree(ENDPOINT, () -> 1000L, spans::add, limits, null));
+
+    assertLimited(spans.get(0));
+  }
+
+  @Test public void pooledRecorder_resetsCounts() {
+    Recorder recorder = new AutoValue_Recorder_LockFree(
+        ENDPOINT, () -> 1000L, spans::add, limits, new SpanRecordPool(false));
+    recordOverLimits(recorder);
+    span = Brave.toSpan(SpanId.builder().traceId(2L).spanId(2L).sampled(true).build());
+    recordOverLimits(recorder);
+
+    assertLimited(spans.get(1));
+  }
+
+  @Test public void braveBuilder_appliesLimits() {
+    Brave brave = new Brave.Builder().spanLimits(limits).reporter(spans::add).build();
+
+    brave.localTracer().startNewSpan("component", "operation");
+    brave.localTracer().submitBinaryAnnotation("sql.query", "select * from users");
+    brave.localTracer().finishSpan();
+
+    assertThat(spans.get(0).binaryAnnotations)
+        .extracting(b -> new String(b.value, UTF_8))
+        .contains("select ...");
+  }
+
+  /** Adds a server span's core annotations, plus more annotations and tags than allowed. */
+  void recordOverLimits(Recorder recorder) {
+    recorder.start(span, Recorder.SpanKind.SERVER);
+    recorder.remoteAddress(span, Recorder.SpanKind.SERVER, ENDPOINT);
+    recorder.annotate(span, "one");
+    recorder.annotate(span, "two");
+    recorder.tag(span, "sql.query", "select * from users");
+    recorder.tag(span, "dropped", "bar");
+    recorder.finish(span, Recorder.SpanKind.SERVER);
+  }
+
+  static void assertLimited(zipkin.Span span) {
+    // core annotations are kept, even if over the limit. Timestamps are equal, so order varies.
+    assertThat(span.annotations).extracting(a -> a.value)
+        .containsOnly(Constants.SERVER_RECV, "one", Constants.SERVER_SEND)
+        .hasSize(3);
+    assertThat(span.binaryAnnotations).extracting(b -> b.key)
+        .containsOnly(Constants.CLIENT_ADDR, "sql.query")
+        .hasSize(2);
+    assertThat(span.binaryAnnotations).extracting(b -> new String(b.value, UTF_8))
+        .contains("select ...");
+  }
+}
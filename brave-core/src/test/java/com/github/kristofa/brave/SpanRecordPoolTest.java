@@ -0,0 +1,119 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.Recorder.SpanRecord;
+import com.github.kristofa.brave.internal.InternalSpan;
+import com.github.kristofa.brave.internal.Util;
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SpanRecordPoolTest {
+  static final Endpoint ENDPOINT = Endpoint.create("service", 127 << 24 | 1);
+
+  long timestamp = 1000L;
+  List<zipkin.Span> spans = new ArrayList<>();
+  SpanRecordPool pool = new SpanRecordPool(false);
+  Recorder.LockFree recorder =
+      new AutoValue_Recorder_LockFree(
+          ENDPOINT, () -> timestamp, spans::add, SpanLimits.UNLIMITED, pool);
+
+  @Test
+  public void finish_recyclesRecord() {
+    Span span1 = newSpan(1L);
+    recorder.start(span1, Recorder.SpanKind.SERVER);
+    SpanRecord record = recorder.record(span1);
+    recorder.finish(span1, Recorder.SpanKind.SERVER);
+
+    assertThat(InternalSpan.instance.recording(span1)).isNull();
+    assertThat(recorder.record(newSpan(2L))).isSameAs(record);
+  }
+
+  @Test
+  public void recordingAfterReuse_isDropped() {
+    Span span1 = newSpan(1L);
+    SpanRecord record = recorder.record(span1); // a thread looks up the record, then stalls
+    recorder.finish(span1, 1L);
+
+    Span span2 = newSpan(2L);
+    assertThat(recorder.record(span2)).isSameAs(record);
+    recorder.name(span2, "bar");
+
+    assertThat(recorder.enter(record, span1)).isFalse(); // the stalled thread resumes
+    recorder.finish(span2, 2L);
+    assertThat(spans.get(1).name).isEqualTo("bar");
+  }
+
+  @Test
+  public void recordingDuringFinish_delaysRelease() {
+    Span span1 = newSpan(1L);
+    SpanRecord record = recorder.record(span1);
+    assertThat(recorder.enter(record, span1)).isTrue(); // another thread is recording
+
+    recorder.finish(span1, 1L);
+    assertThat(recorder.record(newSpan(2L))).isNotSameAs(record);
+
+    recorder.exit(record); // the last writer releases it
+    assertThat(recorder.record(newSpan(3L))).isSameAs(record);
+  }
+
+  @Test
+  public void recyclingDoesntAffectReportedSpans() {
+    Span span1 = newSpan(1L);
+    recorder.name(span1, "foo");
+    recorder.tag(span1, "key", "value1");
+    recorder.finish(span1, 1L);
+
+    Span span2 = newSpan(2L);
+    recorder.name(span2, "bar");
+    recorder.tag(span2, "key", "value2");
+    recorder.finish(span2, 2L);
+
+    assertThat(spans).extracting(s -> s.name).containsExactly("foo", "bar");
+    assertThat(spans).flatExtracting(s -> s.binaryAnnotations)
+        .extracting(b -> new String(b.value, Util.UTF_8))
+        .containsExactly("value1", "value2");
+  }
+
+  @Test
+  public void acquire_clearsRecycledRecord() {
+    Span span1 = newSpan(1L);
+    recorder.name(span1, "foo");
+    recorder.annotate(span1, "foo");
+    recorder.finish(span1, 1L);
+
+    SpanRecord record = recorder.record(newSpan(2L));
+    assertThat(record.name).isNull();
+    assertThat(record.duration).isNull();
+    assertThat(record.annotations).isNull();
+  }
+
+  @Test
+  public void leakDetector_forgetsReleasedRecords() {
+    pool = new SpanRecordPool(true);
+
+    SpanRecord record = pool.acquire(newSpan(1L));
+    assertThat(pool.leakDetector.outstanding).hasSize(1);
+
+    pool.release(record);
+    assertThat(pool.leakDetector.outstanding).isEmpty();
+  }
+
+  @Test
+  public void leakDetector_reportsCollectedSpans() {
+    pool = new SpanRecordPool(true);
+
+    SpanRecord record = pool.acquire(newSpan(1L));
+    record.leak.enqueue(); // simulate the span being garbage collected
+
+    pool.leakDetector.reportLeaks();
+    assertThat(pool.leakDetector.outstanding).isEmpty();
+  }
+
+  static Span newSpan(long id) {
+    return Brave.toSpan(SpanId.builder().traceId(id).spanId(id).sampled(true).build());
+  }
+}
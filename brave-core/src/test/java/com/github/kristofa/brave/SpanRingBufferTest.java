@@ -0,0 +1,103 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Span;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SpanRingBufferTest {
+  SpanRingBuffer buffer = new SpanRingBuffer(3);
+  List<Span> drained = new ArrayList<>();
+
+  @Test public void lengthIsPowerOfTwo() {
+    assertThat(buffer.slots.length()).isEqualTo(4);
+    assertThat(new SpanRingBuffer(4).slots.length()).isEqualTo(4);
+    assertThat(new SpanRingBuffer(1000).slots.length()).isEqualTo(1024);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void capacityMustBePositive() {
+    new SpanRingBuffer(0);
+  }
+
+  @Test public void drainsInOrder() {
+    Span one = span(1L), two = span(2L);
+    assertThat(buffer.offer(one)).isTrue();
+    assertThat(buffer.offer(two)).isTrue();
+
+    assertThat(buffer.drainTo(drained)).isEqualTo(2);
+    assertThat(drained).containsExactly(one, two);
+    assertThat(buffer.size()).isZero();
+  }
+
+  @Test public void rejectsWhenFull() {
+    assertThat(buffer.offer(span(1L))).isTrue();
+    assertThat(buffer.offer(span(2L))).isTrue();
+    assertThat(buffer.offer(span(3L))).isTrue();
+    assertThat(buffer.size()).isEqualTo(3);
+
+    // capacity is honored, even though there's a spare slot in the array
+    assertThat(buffer.offer(span(4L))).isFalse();
+    assertThat(buffer.size()).isEqualTo(3);
+  }
+
+  @Test public void acceptsAfterDrain_wrapsAround() {
+    for (long i = 0; i < 10; i++) {
+      assertThat(buffer.offer(span(i))).isTrue();
+      assertThat(buffer.offer(span(i))).isTrue();
+      assertThat(buffer.drainTo(drained)).isEqualTo(2);
+    }
+    assertThat(drained).hasSize(20);
+    for (int i = 0; i < 4; i++) {
+      assertThat(buffer.slots.get(i)).isNull(); // drained slots don't retain spans
+    }
+  }
+
+  @Test public void drainEmpty() {
+    assertThat(buffer.drainTo(drained)).isZero();
+    assertThat(drained).isEmpty();
+  }
+
+  @Test(timeout = 10000L)
+  public void multipleProducers_eachSpanDrainedOnce() throws Exception {
+    int producers = 8, spansPerProducer = 1000;
+    SpanRingBuffer buffer = new SpanRingBuffer(16);
+    ExecutorService exec = Executors.newFixedThreadPool(producers);
+    CountDownLatch done = new CountDownLatch(producers);
+    for (int p = 0; p < producers; p++) {
+      long base = p * (long) spansPerProducer;
+      exec.execute(() -> {
+        for (long i = base; i < base + spansPerProducer; i++) {
+          Span span = span(i);
+          while (!buffer.offer(span)) Thread.yield();
+        }
+        done.countDown();
+      });
+    }
+
+    Set<Long> ids = new HashSet<>();
+    while (done.getCount() > 0 || buffer.size() > 0) {
+      drained.clear();
+      if (buffer.drainTo(drained) == 0) Thread.yield();
+      for (Span span : drained) {
+        assertThat(ids.add(span.getId())).isTrue();
+      }
+    }
+    exec.shutdown();
+    assertThat(exec.awaitTermination(1, TimeUnit.SECONDS)).isTrue();
+
+    assertThat(ids).hasSize(producers * spansPerProducer);
+  }
+
+  static Span span(long id) {
+    return Brave.toSpan(SpanId.builder().traceId(id).spanId(id).build());
+  }
+}
@@ -0,0 +1,304 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.internal.DirectSpanCodec;
+import com.twitter.zipkin.gen.Span;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SpanSpillTest {
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  int recordSize = SpanSpill.RECORD_OVERHEAD + DirectSpanCodec.THRIFT.writeSpan(span(1L)).length;
+  List<Span> peeked = new ArrayList<>();
+  SpanSpill spill;
+
+  @After public void close() {
+    if (spill != null) spill.close();
+  }
+
+  @Test public void peekThenCommit() throws IOException {
+    spill = spill(3);
+    spill.append(span(1L));
+    spill.append(span(2L));
+
+    assertThat(spill.peek(peeked, 10)).isEqualTo(2);
+    assertThat(peeked).extracting(Span::getId).containsExactly(1L, 2L);
+    spill.commit();
+
+    assertThat(spill.isEmpty()).isTrue();
+    assertThat(spill.peek(peeked, 10)).isZero();
+  }
+
+  @Test public void peekWithoutCommit_returnsSameSpans() throws IOException {
+    spill = spill(3);
+    spill.append(span(1L));
+    spill.append(span(2L));
+
+    assertThat(spill.peek(peeked, 1)).isEqualTo(1);
+    assertThat(spill.peek(peeked, 1)).isEqualTo(1);
+    assertThat(peeked).extracting(Span::getId).containsExactly(1L, 1L);
+  }
+
+  @Test public void rotatesSegments_deletesReplayed() throws IOException {
+    spill = spill(3);
+    for (long i = 0; i < 6; i++) assertThat(spill.append(span(i))).isTrue();
+    assertThat(segmentFiles()).hasSize(3);
+
+    spill.peek(peeked, 10); // only reads the oldest segment
+    assertThat(peeked).extracting(Span::getId).containsExactly(0L, 1L);
+    spill.commit();
+    assertThat(segmentFiles()).hasSize(2);
+  }
+
+  @Test public void boundedBySegmentCount() throws IOException {
+    spill = spill(2);
+    for (long i = 0; i < 4; i++) assertThat(spill.append(span(i))).isTrue();
+
+    assertThat(spill.append(span(4L))).isFalse();
+    assertThat(segmentFiles()).hasSize(2);
+  }
+
+  @Test public void offer_onlyUsesPreparedSegments() throws IOException {
+    spill = spill(3);
+    assertThat(spill.offer(span(1L))).isFalse();
+    assertThat(segmentFiles()).isEmpty();
+
+    spill.prepare();
+    assertThat(segmentFiles()).hasSize(1);
+    assertThat(spill.offer(span(1L))).isTrue();
+    assertThat(spill.offer(span(2L))).isTrue();
+    assertThat(spill.offer(span(3L))).isFalse(); // full, and there's no spare yet
+
+    spill.prepare();
+    assertThat(spill.offer(span(3L))).isTrue();
+    assertThat(segmentFiles()).hasSize(2);
+  }
+
+  @Test public void prepare_spareCountsAgainstBound() throws IOException {
+    spill = spill(2);
+    spill.prepare();
+    for (long i = 0; i < 4; i++) assertThat(spill.append(span(i))).isTrue();
+    spill.prepare();
+
+    assertThat(spill.offer(span(4L))).isFalse();
+    assertThat(segmentFiles()).hasSize(2);
+  }
+
+  @Test public void close_deletesSpare() throws IOException {
+    spill = spill(3);
+    spill.append(span(1L));
+    spill.prepare();
+    assertThat(segmentFiles()).hasSize(2);
+
+    spill.close();
+    assertThat(segmentFiles()).hasSize(1);
+  }
+
+  @Test public void spanLargerThanSegment_notAppended() throws IOException {
+    spill = spill(2);
+    Span span = span(1L);
+    span.setName(new String(new char[segmentBytes()]).replace('\0', 'a'));
+
+    assertThat(spill.append(span)).isFalse();
+    assertThat(segmentFiles()).isEmpty();
+  }
+
+  @Test public void reopen_replaysUncommitted() throws IOException {
+    spill = spill(3);
+    for (long i = 0; i < 5; i++) spill.append(span(i));
+    spill.peek(peeked, 1);
+    spill.commit();
+    spill.close();
+
+    spill = spill(3);
+    peeked.clear();
+    while (spill.peek(peeked, 10) != 0) spill.commit();
+    assertThat(peeked).extracting(Span::getId).containsExactly(1L, 2L, 3L, 4L);
+  }
+
+  @Test public void reopen_replaysSegmentsOfAnotherSize() throws IOException {
+    spill = spill(3);
+    for (long i = 0; i < 3; i++) spill.append(span(i));
+    spill.close();
+
+    spill = new SpanSpill(folder.getRoot(), segmentBytes() - 1, 6); // fits one span
+    while (spill.peek(peeked, 10) != 0) spill.commit();
+    assertThat(peeked).extracting(Span::getId).containsExactly(0L, 1L, 2L);
+  }
+
+  @Test public void reopen_discardsSegmentsOverBound() throws IOException {
+    spill = spill(3);
+    for (long i = 0; i < 6; i++) spill.append(span(i));
+    spill.close();
+
+    spill = spill(2);
+    assertThat(segmentFiles()).hasSize(2);
+    while (spill.peek(peeked, 10) != 0) spill.commit();
+    assertThat(peeked).extracting(Span::getId).containsExactly(0L, 1L, 2L, 3L);
+  }
+
+  @Test public void reopen_stopsAtTornRecord() throws IOException {
+    spill = spill(3);
+    spill.append(span(1L));
+    spill.append(span(2L));
+    spill.close();
+
+    corrupt(segmentFiles()[0], SpanSpill.HEADER_SIZE + recordSize + SpanSpill.RECORD_OVERHEAD);
+
+    spill = spill(3);
+    spill.peek(peeked, 10);
+    assertThat(peeked).extracting(Span::getId).containsExactly(1L);
+  }
+
+  @Test public void reopen_discardsCorruptHeader() throws IOException {
+    spill = spill(3);
+    spill.append(span(1L));
+    spill.close();
+
+    corrupt(segmentFiles()[0], 8); // read position
+
+    spill = spill(3);
+    assertThat(spill.isEmpty()).isTrue();
+    assertThat(segmentFiles()).isEmpty();
+  }
+
+  @Test public void segmentNamesSortInIndexOrder() {
+    assertThat(SpanSpill.segmentName(9).compareTo(SpanSpill.segmentName(10))).isNegative();
+    assertThat(SpanSpill.segmentIndex(SpanSpill.segmentName(Long.MAX_VALUE)))
+        .isEqualTo(Long.MAX_VALUE);
+    assertThat(SpanSpill.segmentIndex("foo.spill")).isEqualTo(-1);
+  }
+
+  @Test public void collector_spillsFailedReports_thenReplays() throws IOException {
+    AtomicInteger dropped = new AtomicInteger();
+    List<Span> reported = new ArrayList<>();
+    boolean[] fail = {true};
+    FlushingSpanCollector collector = new FlushingSpanCollector(metrics(dropped), 0,
+        FlushingSpanCollector.PendingQueue.LINKED, FlushingSpanCollector.DEFAULT_QUEUED_MAX_BYTES,
+        folder.getRoot(), FlushingSpanCollector.DEFAULT_SPILL_MAX_BYTES) {
+      @Override protected void reportSpans(List<Span> drained) throws IOException {
+        if (fail[0]) throw new IOException("collector is down");
+        reported.addAll(drained);
+      }
+    };
+
+    collector.collect(span(1L));
+    collector.flush();
+    collector.collect(span(2L));
+    collector.flush();
+    assertThat(reported).isEmpty();
+    assertThat(dropped.get()).isZero();
+
+    fail[0] = false;
+    collector.collect(span(3L));
+    collector.flush();
+    assertThat(reported).extracting(Span::getId).containsExactly(3L, 1L, 2L);
+
+    collector.flush(); // already replayed
+    assertThat(reported).hasSize(3);
+    collector.close();
+  }
+
+  @Test public void collector_partialReport_spillsOnlyUnreported() throws IOException {
+    AtomicInteger dropped = new AtomicInteger();
+    List<Span> reported = new ArrayList<>();
+    boolean[] fail = {true};
+    FlushingSpanCollector collector = new FlushingSpanCollector(metrics(dropped), 0,
+        FlushingSpanCollector.PendingQueue.LINKED, FlushingSpanCollector.DEFAULT_QUEUED_MAX_BYTES,
+        folder.getRoot(), FlushingSpanCollector.DEFAULT_SPILL_MAX_BYTES) {
+      @Override protected void reportSpans(List<Span> drained) throws IOException {
+        reported.add(drained.remove(0)); // sends one span at a time
+        if (fail[0]) throw new IOException("collector is down");
+        reported.addAll(drained);
+      }
+    };
+
+    collector.collect(span(1L));
+    collector.collect(span(2L));
+    collector.collect(span(3L));
+    collector.flush(); // reports 1, spills 2 and 3
+    collector.flush(); // replays 2, spills 3 again
+    assertThat(reported).extracting(Span::getId).containsExactly(1L, 2L);
+
+    fail[0] = false;
+    collector.flush();
+    collector.flush(); // already replayed
+    assertThat(reported).extracting(Span::getId).containsExactly(1L, 2L, 3L);
+    assertThat(dropped.get()).isZero();
+    collector.close();
+  }
+
+  @Test public void collector_spillsOnClose_replaysInNextInstance() throws IOException {
+    AtomicInteger dropped = new AtomicInteger();
+    List<Span> reported = new ArrayList<>();
+    FlushingSpanCollector first = collector(metrics(dropped), reported);
+    first.collect(span(1L));
+    first.close();
+    assertThat(dropped.get()).isZero();
+
+    FlushingSpanCollector second = collector(metrics(dropped), reported);
+    second.flush();
+    assertThat(reported).extracting(Span::getId).containsExactly(1L);
+    second.close();
+  }
+
+  FlushingSpanCollector collector(SpanCollectorMetricsHandler metrics, List<Span> reported) {
+    return new FlushingSpanCollector(metrics, 0, FlushingSpanCollector.PendingQueue.LINKED,
+        FlushingSpanCollector.DEFAULT_QUEUED_MAX_BYTES, folder.getRoot(),
+        FlushingSpanCollector.DEFAULT_SPILL_MAX_BYTES) {
+      @Override protected void reportSpans(List<Span> drained) {
+        reported.addAll(drained);
+      }
+    };
+  }
+
+  static SpanCollectorMetricsHandler metrics(AtomicInteger dropped) {
+    return new SpanCollectorMetricsHandler() {
+      @Override public void incrementAcceptedSpans(int quantity) {
+      }
+
+      @Override public void incrementDroppedSpans(int quantity) {
+        dropped.addAndGet(quantity);
+      }
+    };
+  }
+
+  /** Each segment fits two spans of the test size. */
+  SpanSpill spill(int maxSegments) throws IOException {
+    return new SpanSpill(folder.getRoot(), segmentBytes(), maxSegments);
+  }
+
+  int segmentBytes() {
+    return SpanSpill.HEADER_SIZE + 2 * recordSize;
+  }
+
+  File[] segmentFiles() {
+    return folder.getRoot().listFiles((dir, name) -> name.endsWith(SpanSpill.SUFFIX));
+  }
+
+  static void corrupt(File file, int position) throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      raf.seek(position);
+      int value = raf.read();
+      raf.seek(position);
+      raf.write(value ^ 0xff);
+    } finally {
+      raf.close();
+    }
+  }
+
+  static Span span(long id) {
+    return Brave.toSpan(SpanId.builder().traceId(id).spanId(id).build());
+  }
+}
@@ -0,0 +1,140 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.ThreadContextServerClientAndLocalSpanState.Snapshot;
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import zipkin.reporter.Reporter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class ThreadContextServerClientAndLocalSpanStateTest {
+
+    private ThreadContextServerClientAndLocalSpanState state;
+    private ServerSpan mockServerSpan;
+    private Span mockClientSpan;
+    private Span mockLocalSpan;
+
+    @Before
+    public void setup() {
+        ThreadContextServerClientAndLocalSpanState.clear();
+        state = new ThreadContextServerClientAndLocalSpanState(Endpoint.create("service", 127 << 24 | 1));
+        mockServerSpan = mock(ServerSpan.class);
+        mockClientSpan = mock(Span.class);
+        mockLocalSpan = mock(Span.class);
+    }
+
+    @After
+    public void tearDown() {
+        ThreadContextServerClientAndLocalSpanState.clear();
+    }
+
+    @Test
+    public void setCurrentServerSpanNullRevertsToEmpty() {
+        state.setCurrentServerSpan(mockServerSpan);
+        state.setCurrentServerSpan(null);
+
+        assertThat(state.getCurrentServerSpan()).isEqualTo(ServerSpan.EMPTY);
+    }
+
+    @Test
+    public void slotsAreIndependent() {
+        state.setCurrentServerSpan(mockServerSpan);
+        state.setCurrentClientSpan(mockClientSpan);
+        state.setCurrentLocalSpan(mockLocalSpan);
+
+        assertThat(state.getCurrentServerSpan()).isSameAs(mockServerSpan);
+        assertThat(state.getCurrentClientSpan()).isSameAs(mockClientSpan);
+        assertThat(state.getCurrentLocalSpan()).isSameAs(mockLocalSpan);
+
+        state.setCurrentClientSpan(null);
+        assertThat(state.getCurrentServerSpan()).isSameAs(mockServerSpan);
+        assertThat(state.getCurrentLocalSpan()).isSameAs(mockLocalSpan);
+    }
+
+    @Test
+    public void snapshot_isImmutable() {
+        state.setCurrentLocalSpan(mockLocalSpan);
+        Snapshot snapshot = state.snapshot();
+
+        state.setCurrentLocalSpan(null);
+
+        assertThat(snapshot.serverSpan()).isEqualTo(ServerSpan.EMPTY);
+        assertThat(snapshot.localSpan()).isSameAs(mockLocalSpan);
+    }
+
+    @Test
+    public void restore_returnsPrevious() {
+        state.setCurrentServerSpan(mockServerSpan);
+        state.setCurrentLocalSpan(mockLocalSpan);
+        Snapshot snapshot = state.snapshot();
+        ThreadContextServerClientAndLocalSpanState.clear();
+
+        Snapshot previous = state.restore(snapshot);
+        assertThat(state.getCurrentServerSpan()).isSameAs(mockServerSpan);
+        assertThat(state.getCurrentLocalSpan()).isSameAs(mockLocalSpan);
+
+        state.restore(previous);
+        assertThat(state.getCurrentServerSpan()).isEqualTo(ServerSpan.EMPTY);
+        assertThat(state.getCurrentLocalSpan()).isNull();
+    }
+
+    @Test
+    public void restore_leavesClientSpan() {
+        state.setCurrentClientSpan(mockClientSpan);
+        Snapshot snapshot = state.snapshot();
+        ThreadContextServerClientAndLocalSpanState.clear();
+        Span workerClientSpan = mock(Span.class);
+        state.setCurrentClientSpan(workerClientSpan);
+
+        Snapshot previous = state.restore(snapshot);
+        assertThat(state.getCurrentClientSpan()).isSameAs(workerClientSpan);
+
+        state.restore(previous);
+        assertThat(state.getCurrentClientSpan()).isSameAs(workerClientSpan);
+    }
+
+    @Test
+    public void restore_onAnotherThread() throws Exception {
+        state.setCurrentLocalSpan(mockLocalSpan);
+        Snapshot snapshot = state.snapshot();
+
+        AtomicReference<Span> before = new AtomicReference<>(), during = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            before.set(state.getCurrentLocalSpan());
+            state.restore(snapshot);
+            during.set(state.getCurrentLocalSpan());
+        });
+        thread.start();
+        thread.join();
+
+        assertThat(before.get()).isNull();
+        assertThat(during.get()).isSameAs(mockLocalSpan);
+    }
+
+    @Test
+    public void braveExecutorService_swapsContext() throws Exception {
+        Brave brave = new Brave.Builder(state).reporter(Reporter.NOOP).build();
+        ExecutorService delegate = Executors.newSingleThreadExecutor();
+        ExecutorService executor = BraveExecutorService.wrap(delegate, brave);
+        try {
+            brave.serverTracer().setStateCurrentTrace(1L, 2L, null, "get");
+            brave.localTracer().startNewSpan("component", "operation");
+            Span localSpan = state.getCurrentLocalSpan();
+            ServerSpan serverSpan = state.getCurrentServerSpan();
+
+            assertThat(executor.submit(() -> state.getCurrentLocalSpan()).get()).isSameAs(localSpan);
+            assertThat(executor.submit(() -> state.getCurrentServerSpan()).get()).isSameAs(serverSpan);
+            // the worker's own spans are put back afterwards
+            assertThat(delegate.submit(() -> state.getCurrentLocalSpan()).get()).isNull();
+        } finally {
+            delegate.shutdown();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.github.kristofa.brave.internal;
+
+import com.github.kristofa.brave.SpanId;
+import com.twitter.zipkin.gen.Annotation;
+import com.twitter.zipkin.gen.AnnotationType;
+import com.twitter.zipkin.gen.BinaryAnnotation;
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.junit.Test;
+import zipkin.Constants;
+
+import static com.github.kristofa.brave.internal.DefaultSpanCodec.newSpan;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DirectSpanCodecTest {
+  static {
+    InternalSpan.initializeInstanceForTests();
+  }
+
+  Endpoint browser = Endpoint.create("browser-client", 1 << 24 | 2 << 16 | 3);
+  Endpoint web = Endpoint.builder()
+      .serviceName("web")
+      .ipv4(124 << 24 | 13 << 16 | 90 << 8 | 3)
+      // Cheat so we don't have to catch an exception here
+      .ipv6(sun.net.util.IPAddressUtil.textToNumericFormatV6("2001:db8::c001"))
+      .port(80).build();
+
+  Span span = newSpan(SpanId.builder().spanId(-692101025335252320L).build()) // browser calls web
+      .setName("get")
+      .setTimestamp(1444438900939000L)
+      .setDuration(376000L)
+      .addToAnnotations(Annotation.create(1444438900939000L, Constants.SERVER_RECV, web))
+      .addToAnnotations(Annotation.create(1444438901315000L, Constants.SERVER_SEND, web))
+      .addToBinary_annotations(BinaryAnnotation.address(Constants.CLIENT_ADDR, browser))
+      .addToBinary_annotations(BinaryAnnotation.create("http.path", "/\"quoted\"\n", web));
+
+  @Test
+  public void writeSpan_json_sameAsDefault() {
+    assertThat(new String(DirectSpanCodec.JSON.writeSpan(span), Util.UTF_8))
+        .isEqualTo(new String(DefaultSpanCodec.JSON.writeSpan(span), Util.UTF_8));
+  }
+
+  @Test
+  public void writeSpan_thrift_sameAsDefault() {
+    assertThat(DirectSpanCodec.THRIFT.writeSpan(span))
+        .isEqualTo(DefaultSpanCodec.THRIFT.writeSpan(span));
+  }
+
+  @Test
+  public void writeSpans_json_sameAsDefault() {
+    assertThat(new String(DirectSpanCodec.JSON.writeSpans(Arrays.asList(span, span)), Util.UTF_8))
+        .isEqualTo(new String(DefaultSpanCodec.JSON.writeSpans(Arrays.asList(span, span)),
+            Util.UTF_8));
+  }
+
+  @Test
+  public void writeSpans_thrift_sameAsDefault() {
+    assertThat(DirectSpanCodec.THRIFT.writeSpans(Arrays.asList(span, span)))
+        .isEqualTo(DefaultSpanCodec.THRIFT.writeSpans(Arrays.asList(span, span)));
+  }
+
+  @Test
+  public void writeSpan_128bitTraceIdAndDebug() {
+    span = newSpan(SpanId.builder().traceIdHigh(1L).traceId(2L).parentId(2L).spanId(3L)
+        .debug(true).build());
+
+    assertThat(new String(DirectSpanCodec.JSON.writeSpan(span), Util.UTF_8))
+        .isEqualTo(new String(DefaultSpanCodec.JSON.writeSpan(span), Util.UTF_8));
+    assertThat(DirectSpanCodec.THRIFT.writeSpan(span))
+        .isEqualTo(DefaultSpanCodec.THRIFT.writeSpan(span));
+  }
+
+  @Test
+  public void writeSpan_unicode() {
+    span.setName("☃ snow 💩");
+
+    assertThat(new String(DirectSpanCodec.JSON.writeSpan(span), Util.UTF_8))
+        .isEqualTo(new String(DefaultSpanCodec.JSON.writeSpan(span), Util.UTF_8));
+    assertThat(DirectSpanCodec.THRIFT.writeSpan(span))
+        .isEqualTo(DefaultSpanCodec.THRIFT.writeSpan(span));
+  }
+
+  @Test
+  public void writeSpan_numericBinaryAnnotations() {
+    span = newSpan(SpanId.builder().spanId(1L).build())
+        .addToBinary_annotations(BinaryAnnotation.create("bytes", new byte[] {1, 2, 3, 4},
+            AnnotationType.BYTES, web))
+        .addToBinary_annotations(BinaryAnnotation.create("i16",
+            ByteBuffer.allocate(2).putShort((short) -2).array(), AnnotationType.I16, web))
+        .addToBinary_annotations(BinaryAnnotation.create("i32",
+            ByteBuffer.allocate(4).putInt(123456).array(), AnnotationType.I32, web))
+        .addToBinary_annotations(BinaryAnnotation.create("i64",
+            ByteBuffer.allocate(8).putLong(-1234567890123L).array(), AnnotationType.I64, web));
+
+    assertThat(new String(DirectSpanCodec.JSON.writeSpan(span), Util.UTF_8))
+        .isEqualTo(new String(DefaultSpanCodec.JSON.writeSpan(span), Util.UTF_8));
+    assertThat(DirectSpanCodec.THRIFT.writeSpan(span))
+        .isEqualTo(DefaultSpanCodec.THRIFT.writeSpan(span));
+  }
+
+  @Test
+  public void readSpan_roundTrip() {
+    assertThat(DirectSpanCodec.THRIFT.readSpan(DirectSpanCodec.THRIFT.writeSpan(span)))
+        .isEqualTo(span);
+    assertThat(DirectSpanCodec.JSON.readSpan(DirectSpanCodec.JSON.writeSpan(span)))
+        .isEqualTo(span);
+  }
+}
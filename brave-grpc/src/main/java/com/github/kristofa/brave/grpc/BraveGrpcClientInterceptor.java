@@ -1,5 +1,6 @@
 package com.github.kristofa.brave.grpc;
 
+import com.github.kristofa.brave.B3SingleFormat;
 import com.github.kristofa.brave.Brave;
 import com.github.kristofa.brave.ClientRequestAdapter;
 import com.github.kristofa.brave.ClientRequestInterceptor;
@@ -43,11 +44,33 @@ public final class BraveGrpcClientInterceptor implements ClientInterceptor {
 
     public static final class Builder {
         final Brave brave;
+        boolean b3SingleHeader = false;
+        boolean binaryMetadata = false;
 
         Builder(Brave brave) { // intentionally hidden
             this.brave = Util.checkNotNull(brave, "brave");
         }
 
+        /**
+         * When true, trace identifiers are propagated in the single "b3" metadata key, instead of
+         * one key per field. Only enable this when all servers called accept it. Default false.
+         */
+        public Builder b3SingleHeader(boolean b3SingleHeader) {
+            this.b3SingleHeader = b3SingleHeader;
+            return this;
+        }
+
+        /**
+         * When true, sampled trace identifiers are propagated as bytes in the single "b3-bin"
+         * metadata key. This avoids hex encoding and decoding on each call, and takes precedence
+         * over {@link #b3SingleHeader(boolean)}. Only enable this when all servers called accept
+         * it. Default false.
+         */
+        public Builder binaryMetadata(boolean binaryMetadata) {
+            this.binaryMetadata = binaryMetadata;
+            return this;
+        }
+
         public BraveGrpcClientInterceptor build() {
             return new BraveGrpcClientInterceptor(this);
         }
@@ -56,11 +79,15 @@ public final class BraveGrpcClientInterceptor implements ClientInterceptor {
     private final ClientRequestInterceptor clientRequestInterceptor;
     private final ClientResponseInterceptor clientResponseInterceptor;
     private final ClientSpanThreadBinder clientSpanThreadBinder;
+    private final boolean b3SingleHeader;
+    private final boolean binaryMetadata;
 
     BraveGrpcClientInterceptor(Builder b) { // intentionally hidden
         this.clientRequestInterceptor = b.brave.clientRequestInterceptor();
         this.clientResponseInterceptor = b.brave.clientResponseInterceptor();
         this.clientSpanThreadBinder = b.brave.clientSpanThreadBinder();
+        this.b3SingleHeader = b.b3SingleHeader;
+        this.binaryMetadata = b.binaryMetadata;
     }
 
     /**
@@ -71,6 +98,8 @@ public final class BraveGrpcClientInterceptor implements ClientInterceptor {
         this.clientRequestInterceptor = checkNotNull(brave.clientRequestInterceptor());
         this.clientResponseInterceptor = checkNotNull(brave.clientResponseInterceptor());
         this.clientSpanThreadBinder = checkNotNull(brave.clientSpanThreadBinder());
+        this.b3SingleHeader = false;
+        this.binaryMetadata = false;
     }
 
     @Override
@@ -80,7 +109,7 @@ public final class BraveGrpcClientInterceptor implements ClientInterceptor {
 
             @Override
             public void start(Listener<RespT> responseListener, Metadata headers) {
-                clientRequestInterceptor.handle(new GrpcClientRequestAdapter<>(method, headers));
+                clientRequestInterceptor.handle(new GrpcClientRequestAdapter<>(method, headers, b3SingleHeader, binaryMetadata));
                 final Span currentClientSpan = clientSpanThreadBinder.getCurrentClientSpan();
                 super.start(new SimpleForwardingClientCallListener<RespT>(responseListener) {
                     @Override
@@ -103,10 +132,19 @@ public final class BraveGrpcClientInterceptor implements ClientInterceptor {
 
         private final MethodDescriptor<ReqT, RespT> method;
         private final Metadata headers;
+        private final boolean b3SingleHeader;
+        private final boolean binaryMetadata;
 
         public GrpcClientRequestAdapter(MethodDescriptor<ReqT, RespT> method, Metadata headers) {
+            this(method, headers, false, false);
+        }
+
+        GrpcClientRequestAdapter(MethodDescriptor<ReqT, RespT> method, Metadata headers,
+            boolean b3SingleHeader, boolean binaryMetadata) {
             this.method = checkNotNull(method);
             this.headers = checkNotNull(headers);
+            this.b3SingleHeader = b3SingleHeader;
+            this.binaryMetadata = binaryMetadata;
         }
 
         @Override
@@ -116,7 +154,14 @@ public final class BraveGrpcClientInterceptor implements ClientInterceptor {
 
         @Override
         public void addSpanIdToRequest(@Nullable SpanId spanId) {
-            if (spanId == null) {
+            if (binaryMetadata && spanId != null) {
+                byte[] bytes = spanId.bytes();
+                // Like the ASCII keys, a propagated span ID means the trace is sampled
+                bytes[bytes.length - 1] |= SpanId.FLAG_SAMPLING_SET | SpanId.FLAG_SAMPLED;
+                headers.put(BravePropagationKeys.B3Bin, bytes);
+            } else if (b3SingleHeader) {
+                headers.put(BravePropagationKeys.B3, B3SingleFormat.writeB3SingleFormat(spanId));
+            } else if (spanId == null) {
                 headers.put(BravePropagationKeys.Sampled, "0");
             } else {
                 headers.put(BravePropagationKeys.Sampled, "1");
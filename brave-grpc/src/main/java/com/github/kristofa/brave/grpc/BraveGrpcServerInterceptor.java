@@ -4,6 +4,7 @@ import static com.github.kristofa.brave.IdConversion.convertToLong;
 import static com.github.kristofa.brave.grpc.GrpcKeys.GRPC_STATUS_CODE;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import com.github.kristofa.brave.B3SingleFormat;
 import com.github.kristofa.brave.Brave;
 import com.github.kristofa.brave.KeyValueAnnotation;
 import com.github.kristofa.brave.ServerRequestAdapter;
@@ -102,6 +103,15 @@ public final class BraveGrpcServerInterceptor implements ServerInterceptor {
 
         @Override
         public TraceData getTraceData() {
+            byte[] b3Bin = requestHeaders.get(BravePropagationKeys.B3Bin);
+            if (b3Bin != null && (b3Bin.length == 32 || b3Bin.length == 40)) {
+                return TraceData.create(SpanId.fromBytes(b3Bin));
+            }
+
+            String b3 = requestHeaders.get(BravePropagationKeys.B3);
+            TraceData b3TraceData = b3 != null ? B3SingleFormat.parseB3SingleFormat(b3) : null;
+            if (b3TraceData != null) return b3TraceData;
+
             String sampled = requestHeaders.get(BravePropagationKeys.Sampled);
             String parentSpanId = requestHeaders.get(BravePropagationKeys.ParentSpanId);
             String traceId = requestHeaders.get(BravePropagationKeys.TraceId);
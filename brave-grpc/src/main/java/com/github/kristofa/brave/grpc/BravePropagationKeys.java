@@ -15,5 +15,14 @@ class BravePropagationKeys {
         Metadata.Key.of(BraveHttpHeaders.TraceId.getName(), Metadata.ASCII_STRING_MARSHALLER);
     public static Metadata.Key<String> Sampled =
         Metadata.Key.of(BraveHttpHeaders.Sampled.getName(), Metadata.ASCII_STRING_MARSHALLER);
+    /** All of the above in a single entry. See {@link com.github.kristofa.brave.B3SingleFormat} */
+    public static Metadata.Key<String> B3 =
+        Metadata.Key.of(BraveHttpHeaders.B3.getName(), Metadata.ASCII_STRING_MARSHALLER);
+    /**
+     * All of the above as the 32 or 40 byte big-endian form of {@link
+     * com.github.kristofa.brave.SpanId#bytes()}, which is also what Finagle uses.
+     */
+    public static Metadata.Key<byte[]> B3Bin =
+        Metadata.Key.of("b3-bin", Metadata.BINARY_BYTE_MARSHALLER);
 
 }
@@ -71,4 +71,47 @@ public class GrpcClientRequestAdapterTest {
     assertThat(metadata.get(BravePropagationKeys.SpanId))
         .isEqualTo("2");
   }
+
+  @Test
+  public void b3SingleHeader() throws Exception {
+    adapter = new GrpcClientRequestAdapter(GreeterGrpc.METHOD_SAY_HELLO, metadata, true, false);
+    adapter.addSpanIdToRequest(SpanId.builder().traceId(1234L).parentId(1234L).spanId(5678L).build());
+
+    assertThat(metadata.keys())
+        .containsExactly("b3");
+
+    assertThat(metadata.get(BravePropagationKeys.B3))
+        .isEqualTo("00000000000004d2-000000000000162e-1-00000000000004d2");
+  }
+
+  @Test
+  public void b3SingleHeader_unsampled() throws Exception {
+    adapter = new GrpcClientRequestAdapter(GreeterGrpc.METHOD_SAY_HELLO, metadata, true, false);
+    adapter.addSpanIdToRequest(null);
+
+    assertThat(metadata.get(BravePropagationKeys.B3))
+        .isEqualTo("0");
+  }
+
+  @Test
+  public void binaryMetadata() throws Exception {
+    adapter = new GrpcClientRequestAdapter(GreeterGrpc.METHOD_SAY_HELLO, metadata, false, true);
+    SpanId id = SpanId.builder().traceId(1234L).parentId(1234L).spanId(5678L).build();
+    adapter.addSpanIdToRequest(id);
+
+    assertThat(metadata.keys())
+        .containsExactly("b3-bin");
+
+    assertThat(metadata.get(BravePropagationKeys.B3Bin))
+        .isEqualTo(id.toBuilder().sampled(true).build().bytes());
+  }
+
+  @Test
+  public void binaryMetadata_unsampledUsesAsciiKeys() throws Exception {
+    adapter = new GrpcClientRequestAdapter(GreeterGrpc.METHOD_SAY_HELLO, metadata, false, true);
+    adapter.addSpanIdToRequest(null);
+
+    assertThat(metadata.keys())
+        .containsExactly("x-b3-sampled");
+  }
 }
@@ -172,4 +172,41 @@ public class GrpcServerRequestAdapterTest {
     assertEquals(IdConversion.convertToLong(SPAN_ID), spanId.spanId);
     assertNull(spanId.nullableParentId());
   }
+
+  @Test
+  public void getTraceData_b3SingleHeader() {
+    metadata.put(BravePropagationKeys.B3, TRACE_ID + "-" + SPAN_ID + "-1-" + PARENT_SPAN_ID);
+    TraceData traceData = adapter.getTraceData();
+    assertTrue(traceData.getSample());
+    SpanId spanId = traceData.getSpanId();
+    assertEquals(IdConversion.convertToLong(TRACE_ID), spanId.traceId);
+    assertEquals(IdConversion.convertToLong(SPAN_ID), spanId.spanId);
+    assertEquals(IdConversion.convertToLong(PARENT_SPAN_ID), spanId.parentId);
+  }
+
+  @Test
+  public void getTraceData_b3SingleHeader_malformedFallsBack() {
+    metadata.put(BravePropagationKeys.B3, "garbage");
+    metadata.put(BravePropagationKeys.Sampled, "0");
+    assertFalse(adapter.getTraceData().getSample());
+  }
+
+  @Test
+  public void getTraceData_binaryMetadata() {
+    SpanId id = SpanId.builder().traceIdHigh(1L).traceId(2L).parentId(3L).spanId(4L)
+        .sampled(true).build();
+    metadata.put(BravePropagationKeys.B3Bin, id.bytes());
+
+    TraceData traceData = adapter.getTraceData();
+    assertTrue(traceData.getSample());
+    assertEquals(id.toString(), traceData.getSpanId().toString());
+    assertEquals(id.flags, traceData.getSpanId().flags);
+  }
+
+  @Test
+  public void getTraceData_binaryMetadata_wrongLengthFallsBack() {
+    metadata.put(BravePropagationKeys.B3Bin, new byte[] {1, 2, 3});
+    metadata.put(BravePropagationKeys.Sampled, "0");
+    assertFalse(adapter.getTraceData().getSample());
+  }
 }
@@ -28,7 +28,14 @@ public enum BraveHttpHeaders {
      * "1" means report this span to the tracing system, "0" means do not. (absent means defer the
      * decision to the receiver of this header).
      */
-    Sampled("X-B3-Sampled");
+    Sampled("X-B3-Sampled"),
+    /**
+     * All of the above in a single header: "{traceId}-{spanId}-{sampled}-{parentId}", or "0" when
+     * not sampled. Receivers check this before the other headers.
+     *
+     * @see com.github.kristofa.brave.B3SingleFormat
+     */
+    B3("b3");
 
     private final String name;
 
@@ -1,5 +1,6 @@
 package com.github.kristofa.brave.http;
 
+import com.github.kristofa.brave.B3SingleFormat;
 import com.github.kristofa.brave.ClientRequestAdapter;
 import com.github.kristofa.brave.IdConversion;
 import com.github.kristofa.brave.KeyValueAnnotation;
@@ -15,10 +16,21 @@ public class HttpClientRequestAdapter implements ClientRequestAdapter {
 
     private final HttpClientRequest request;
     private final SpanNameProvider spanNameProvider;
+    private final boolean b3SingleHeader;
 
     public HttpClientRequestAdapter(HttpClientRequest request, SpanNameProvider spanNameProvider) {
+        this(request, spanNameProvider, false);
+    }
+
+    /**
+     * @param b3SingleHeader true to propagate the trace in the single {@link BraveHttpHeaders#B3}
+     * header, instead of one header per field. Only use this when all servers called accept it.
+     */
+    public HttpClientRequestAdapter(HttpClientRequest request, SpanNameProvider spanNameProvider,
+        boolean b3SingleHeader) {
         this.request = request;
         this.spanNameProvider = spanNameProvider;
+        this.b3SingleHeader = b3SingleHeader;
     }
 
     @Override
@@ -28,7 +40,9 @@ public class HttpClientRequestAdapter implements ClientRequestAdapter {
 
     @Override
     public void addSpanIdToRequest(@Nullable SpanId spanId) {
-        if (spanId == null) {
+        if (b3SingleHeader) {
+            request.addHeader(BraveHttpHeaders.B3.getName(), B3SingleFormat.writeB3SingleFormat(spanId));
+        } else if (spanId == null) {
             request.addHeader(BraveHttpHeaders.Sampled.getName(), "0");
         } else {
             request.addHeader(BraveHttpHeaders.Sampled.getName(), "1");
@@ -0,0 +1,181 @@
+package com.github.kristofa.brave.http;
+
+import com.github.kristofa.brave.CountingSampler;
+import com.github.kristofa.brave.Sampler;
+import com.github.kristofa.brave.internal.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+
+/**
+ * Decides whether to trace an incoming request based on its HTTP method and path, before any span
+ * is created. This is useful when health checks or static assets dominate traffic, but aren't
+ * worth tracing.
+ *
+ * <p>Rules are only consulted when the caller didn't send a sampling decision. A request that
+ * matches a rule with rate 0 is never traced. Otherwise, the request is handed to
+ * {@link com.github.kristofa.brave.Brave}'s sampler as usual. In other words, rules can only
+ * lower the rate. To trace some paths more than others, leave Brave at
+ * {@link Sampler#ALWAYS_SAMPLE} and add a catch-all rule for the default:
+ * <pre>{@code
+ * sampler = HttpRuleSampler.builder()
+ *     .addRule(null, "/", 0.1f) // 10% of everything else
+ *     .addRule("GET", "/health", 0.0f)
+ *     .addRule("GET", "/static/", 0.0f)
+ *     .addRule(null, "/api/checkout", 1.0f)
+ *     .build();
+ * }</pre>
+ *
+ * <h3>Implementation</h3>
+ *
+ * <p>Path prefixes are compiled into a trie of characters when built. A lookup walks the request
+ * path once, remembering the last rule seen, so the longest matching prefix wins. At the same
+ * prefix, a rule for the request's method wins over one for any method. No allocation or regular
+ * expression is involved.
+ */
+public final class HttpRuleSampler {
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        // a later rule for the same method and prefix replaces an earlier one
+        final Map<String, Map<String, Sampler>> samplersByPrefix =
+            new LinkedHashMap<String, Map<String, Sampler>>();
+
+        /**
+         * @param method an HTTP method such as "GET", or null to match any method
+         * @param pathPrefix matched against the start of the request path, such as "/health"
+         * @param rate 0 means never sample, 1 means defer to Brave's sampler. Otherwise minimum
+         * sample rate is 0.01, or 1% of requests
+         */
+        public Builder addRule(@Nullable String method, String pathPrefix, float rate) {
+            checkNotNull(pathPrefix, "pathPrefix");
+            Map<String, Sampler> samplers = samplersByPrefix.get(pathPrefix);
+            if (samplers == null) {
+                samplers = new LinkedHashMap<String, Sampler>();
+                samplersByPrefix.put(pathPrefix, samplers);
+            }
+            samplers.put(method, CountingSampler.create(rate));
+            return this;
+        }
+
+        public HttpRuleSampler build() {
+            MutableNode root = new MutableNode();
+            for (Map.Entry<String, Map<String, Sampler>> entry : samplersByPrefix.entrySet()) {
+                MutableNode node = root;
+                String prefix = entry.getKey();
+                for (int i = 0; i < prefix.length(); i++) {
+                    Character c = prefix.charAt(i);
+                    MutableNode child = node.children.get(c);
+                    if (child == null) {
+                        child = new MutableNode();
+                        node.children.put(c, child);
+                    }
+                    node = child;
+                }
+                node.samplers.putAll(entry.getValue());
+            }
+            return new HttpRuleSampler(root.compile());
+        }
+
+        Builder() {
+        }
+    }
+
+    private final Node root;
+
+    HttpRuleSampler(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Returns false if the most specific matching rule says not to trace this request, true if it
+     * allows tracing, or null if no rule matched. Either of the latter defers to Brave's sampler.
+     *
+     * @param method the HTTP method of the request, such as "GET"
+     * @param path the path of the request, excluding the query
+     */
+    @Nullable
+    public Boolean isSampled(String method, @Nullable String path) {
+        if (path == null) return null;
+        Sampler match = root.sampler(method);
+        Node node = root;
+        for (int i = 0, length = path.length(); i < length; i++) {
+            node = node.child(path.charAt(i));
+            if (node == null) break;
+            Sampler sampler = node.sampler(method);
+            if (sampler != null) match = sampler;
+        }
+        // The samplers here are counting samplers, which ignore the trace ID
+        return match != null ? match.isSampled(0L) : null;
+    }
+
+    /** Immutable trie node. Children are sorted by character for binary search. */
+    static final class Node {
+        final char[] keys;
+        final Node[] children;
+        @Nullable final String[] methods;
+        @Nullable final Sampler[] methodSamplers;
+        @Nullable final Sampler anyMethodSampler;
+
+        Node(char[] keys, Node[] children, @Nullable String[] methods,
+            @Nullable Sampler[] methodSamplers, @Nullable Sampler anyMethodSampler) {
+            this.keys = keys;
+            this.children = children;
+            this.methods = methods;
+            this.methodSamplers = methodSamplers;
+            this.anyMethodSampler = anyMethodSampler;
+        }
+
+        @Nullable Node child(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        @Nullable Sampler sampler(String method) {
+            if (methods != null && method != null) {
+                for (int i = 0; i < methods.length; i++) {
+                    if (methods[i].equals(method)) return methodSamplers[i];
+                }
+            }
+            return anyMethodSampler;
+        }
+    }
+
+    static final class MutableNode {
+        final TreeMap<Character, MutableNode> children = new TreeMap<Character, MutableNode>();
+        final Map<String, Sampler> samplers = new LinkedHashMap<String, Sampler>();
+
+        Node compile() {
+            char[] keys = new char[children.size()];
+            Node[] compiled = new Node[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, MutableNode> entry : children.entrySet()) {
+                keys[i] = entry.getKey();
+                compiled[i++] = entry.getValue().compile();
+            }
+            List<String> methods = new ArrayList<String>();
+            List<Sampler> methodSamplers = new ArrayList<Sampler>();
+            Sampler anyMethodSampler = null;
+            for (Map.Entry<String, Sampler> entry : samplers.entrySet()) {
+                if (entry.getKey() == null) {
+                    anyMethodSampler = entry.getValue();
+                } else {
+                    methods.add(entry.getKey());
+                    methodSamplers.add(entry.getValue());
+                }
+            }
+            return new Node(keys, compiled,
+                methods.isEmpty() ? null : methods.toArray(new String[methods.size()]),
+                methods.isEmpty() ? null : methodSamplers.toArray(new Sampler[methods.size()]),
+                anyMethodSampler);
+        }
+    }
+}
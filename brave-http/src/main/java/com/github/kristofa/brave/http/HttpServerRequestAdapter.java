@@ -1,41 +1,70 @@
 package com.github.kristofa.brave.http;
 
+import com.github.kristofa.brave.B3SingleFormat;
 import com.github.kristofa.brave.KeyValueAnnotation;
 import com.github.kristofa.brave.ServerRequestAdapter;
 import com.github.kristofa.brave.SpanId;
 import com.github.kristofa.brave.TraceData;
+import com.github.kristofa.brave.internal.Nullable;
 import java.util.Collection;
 import java.util.Collections;
 import zipkin.TraceKeys;
 
 import static com.github.kristofa.brave.IdConversion.convertToLong;
+import static com.github.kristofa.brave.SpanId.FLAG_IS_ROOT;
+import static com.github.kristofa.brave.SpanId.FLAG_SAMPLED;
+import static com.github.kristofa.brave.SpanId.FLAG_SAMPLING_SET;
 
 public class HttpServerRequestAdapter implements ServerRequestAdapter {
     private final HttpServerRequest request;
     private final SpanNameProvider spanNameProvider;
+    @Nullable
+    private final HttpRuleSampler sampler;
 
     public HttpServerRequestAdapter(HttpServerRequest request, SpanNameProvider spanNameProvider) {
+        this(request, spanNameProvider, null);
+    }
+
+    /**
+     * @param sampler consulted when the caller didn't send a sampling decision, so that requests
+     * it rejects are never traced. Null means defer to Brave's sampler.
+     */
+    public HttpServerRequestAdapter(HttpServerRequest request, SpanNameProvider spanNameProvider,
+        @Nullable HttpRuleSampler sampler) {
         this.request = request;
         this.spanNameProvider = spanNameProvider;
+        this.sampler = sampler;
     }
 
     @Override
     public TraceData getTraceData() {
+        String b3 = request.getHttpHeaderValue(BraveHttpHeaders.B3.getName());
+        TraceData b3TraceData = b3 != null ? B3SingleFormat.parseB3SingleFormat(b3) : null;
+        if (b3TraceData != null) {
+            if (b3TraceData.getSample() != null || !rulesReject()) return b3TraceData;
+            SpanId spanId = b3TraceData.getSpanId();
+            return spanId != null
+                ? TraceData.create(spanId.toBuilder().sampled(false).build())
+                : TraceData.NOT_SAMPLED;
+        }
+
         String sampled = request.getHttpHeaderValue(BraveHttpHeaders.Sampled.getName());
         String parentSpanId = request.getHttpHeaderValue(BraveHttpHeaders.ParentSpanId.getName());
         String traceId = request.getHttpHeaderValue(BraveHttpHeaders.TraceId.getName());
         String spanId = request.getHttpHeaderValue(BraveHttpHeaders.SpanId.getName());
 
-        // Official sampled value is 1, though some old instrumentation send true
-        Boolean parsedSampled = sampled != null
-            ? sampled.equals("1") || sampled.equalsIgnoreCase("true")
-            : null;
+        long flags = sampledFlags(sampled);
+
+        // Apply rules before a span is created, so that rejected requests cost nothing more
+        if ((flags & FLAG_SAMPLING_SET) == 0 && rulesReject()) {
+            flags = FLAG_SAMPLING_SET;
+        }
 
         if (traceId != null && spanId != null) {
-            return TraceData.create(getSpanId(traceId, spanId, parentSpanId, parsedSampled));
-        } else if (parsedSampled == null) {
+            return TraceData.create(getSpanId(traceId, spanId, parentSpanId, flags));
+        } else if ((flags & FLAG_SAMPLING_SET) == 0) {
             return TraceData.EMPTY;
-        } else if (parsedSampled.booleanValue()) {
+        } else if ((flags & FLAG_SAMPLED) != 0) {
             // Invalid: The caller requests the trace to be sampled, but didn't pass IDs
             return TraceData.EMPTY;
         } else {
@@ -43,6 +72,11 @@ public class HttpServerRequestAdapter implements ServerRequestAdapter {
         }
     }
 
+    boolean rulesReject() {
+        return sampler != null
+            && Boolean.FALSE.equals(sampler.isSampled(request.getHttpMethod(), request.getUri().getPath()));
+    }
+
     @Override
     public String getSpanName() {
         return spanNameProvider.spanName(request);
@@ -55,12 +89,42 @@ public class HttpServerRequestAdapter implements ServerRequestAdapter {
         return Collections.singleton(uriAnnotation);
     }
 
-    static SpanId getSpanId(String traceId, String spanId, String parentSpanId, Boolean sampled) {
-        return SpanId.builder()
-            .traceIdHigh(traceId.length() == 32 ? convertToLong(traceId, 0) : 0)
-            .traceId(convertToLong(traceId))
-            .spanId(convertToLong(spanId))
-            .sampled(sampled)
-            .parentId(parentSpanId == null ? null : convertToLong(parentSpanId)).build();
-   }
+    /**
+     * Parses the sampled header into {@link SpanId#flags}, or zero if absent. This and {@link
+     * #getSpanId} read characters directly into primitives, so the only allocation is the result.
+     */
+    static long sampledFlags(@Nullable CharSequence sampled) {
+        if (sampled == null) return 0;
+        // Official sampled value is 1, though some old instrumentation send true
+        boolean result = sampled.length() == 1
+            ? sampled.charAt(0) == '1'
+            : equalsIgnoreCase(sampled, "true");
+        return result ? FLAG_SAMPLING_SET | FLAG_SAMPLED : FLAG_SAMPLING_SET;
+    }
+
+    static SpanId getSpanId(CharSequence traceId, CharSequence spanId,
+        @Nullable CharSequence parentSpanId, long flags) {
+        long parentId = 0;
+        if (parentSpanId == null) {
+            flags |= FLAG_IS_ROOT;
+        } else {
+            parentId = convertToLong(parentSpanId);
+        }
+        return SpanId.create(
+            traceId.length() == 32 ? convertToLong(traceId, 0) : 0,
+            convertToLong(traceId),
+            parentId,
+            convertToLong(spanId),
+            flags
+        );
+    }
+
+    static boolean equalsIgnoreCase(CharSequence input, String lowerCase) {
+        int length = lowerCase.length();
+        if (input.length() != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (Character.toLowerCase(input.charAt(i)) != lowerCase.charAt(i)) return false;
+        }
+        return true;
+    }
 }
@@ -70,6 +70,24 @@ public class HttpClientRequestAdapterTest {
         verifyNoMoreInteractions(request, spanNameProvider);
     }
 
+    @Test
+    public void addSpanIdToRequest_b3SingleHeader() {
+        clientRequestAdapter = new HttpClientRequestAdapter(request, spanNameProvider, true);
+        SpanId id = SpanId.builder().traceId(TRACE_ID).spanId(SPAN_ID).parentId(PARENT_SPAN_ID).build();
+        clientRequestAdapter.addSpanIdToRequest(id);
+        verify(request).addHeader(BraveHttpHeaders.B3.getName(),
+            "0000000000000001-0000000000000002-1-0000000000000003");
+        verifyNoMoreInteractions(request, spanNameProvider);
+    }
+
+    @Test
+    public void addSpanIdToRequest_b3SingleHeader_NoSpanId() {
+        clientRequestAdapter = new HttpClientRequestAdapter(request, spanNameProvider, true);
+        clientRequestAdapter.addSpanIdToRequest(null);
+        verify(request).addHeader(BraveHttpHeaders.B3.getName(), "0");
+        verifyNoMoreInteractions(request, spanNameProvider);
+    }
+
     @Test
     public void requestAnnotations() {
         when(request.getUri()).thenReturn(URI.create(TEST_URI));
@@ -0,0 +1,99 @@
+package com.github.kristofa.brave.http;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HttpRuleSamplerTest {
+
+  HttpRuleSampler sampler = HttpRuleSampler.builder()
+      .addRule(null, "/", 1.0f)
+      .addRule("GET", "/health", 0.0f)
+      .addRule(null, "/static/", 0.0f)
+      .addRule(null, "/static/index.html", 1.0f)
+      .build();
+
+  @Test
+  public void noRules_noMatch() {
+    sampler = HttpRuleSampler.builder().build();
+
+    assertThat(sampler.isSampled("GET", "/health")).isNull();
+  }
+
+  @Test
+  public void unmatchedPath() {
+    sampler = HttpRuleSampler.builder().addRule(null, "/health", 0.0f).build();
+
+    assertThat(sampler.isSampled("GET", "/api")).isNull();
+    assertThat(sampler.isSampled("GET", "/heal")).isNull();
+    assertThat(sampler.isSampled("GET", "")).isNull();
+    assertThat(sampler.isSampled("GET", null)).isNull();
+  }
+
+  @Test
+  public void catchAll() {
+    assertThat(sampler.isSampled("GET", "/api")).isTrue();
+    assertThat(sampler.isSampled("POST", "/health")).isTrue();
+  }
+
+  @Test
+  public void methodSpecific() {
+    assertThat(sampler.isSampled("GET", "/health")).isFalse();
+    assertThat(sampler.isSampled("GET", "/healthz")).isFalse();
+    assertThat(sampler.isSampled("HEAD", "/health")).isTrue();
+  }
+
+  @Test
+  public void anyMethod() {
+    assertThat(sampler.isSampled("GET", "/static/app.js")).isFalse();
+    assertThat(sampler.isSampled("PUT", "/static/app.js")).isFalse();
+  }
+
+  @Test
+  public void longestPrefixWins() {
+    assertThat(sampler.isSampled("GET", "/static/index.html")).isTrue();
+    assertThat(sampler.isSampled("GET", "/static/index.htm")).isFalse();
+  }
+
+  @Test
+  public void methodWinsOverAnyMethodAtSamePrefix() {
+    sampler = HttpRuleSampler.builder()
+        .addRule(null, "/api", 0.0f)
+        .addRule("POST", "/api", 1.0f)
+        .build();
+
+    assertThat(sampler.isSampled("POST", "/api/orders")).isTrue();
+    assertThat(sampler.isSampled("GET", "/api/orders")).isFalse();
+  }
+
+  @Test
+  public void laterRuleReplacesEarlier() {
+    sampler = HttpRuleSampler.builder()
+        .addRule("GET", "/api", 0.0f)
+        .addRule("GET", "/api", 1.0f)
+        .build();
+
+    assertThat(sampler.isSampled("GET", "/api")).isTrue();
+  }
+
+  @Test
+  public void rate() {
+    sampler = HttpRuleSampler.builder().addRule(null, "/api", 0.2f).build();
+
+    int sampled = 0;
+    for (int i = 0; i < 100; i++) {
+      if (sampler.isSampled("GET", "/api/" + i)) sampled++;
+    }
+    assertThat(sampled).isEqualTo(20);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidRate() {
+    HttpRuleSampler.builder().addRule(null, "/api", 1.1f);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void nullPrefix() {
+    HttpRuleSampler.builder().addRule(null, null, 1.0f);
+  }
+}
@@ -179,4 +179,108 @@ public class HttpServerRequestAdapterTest {
         assertEquals(IdConversion.convertToLong(SPAN_ID), spanId.spanId);
         assertNull(spanId.nullableParentId());
     }
+
+    @Test
+    public void getTraceData_ruleRejectsRequest() throws Exception {
+        adapter = new HttpServerRequestAdapter(serverRequest, spanNameProvider,
+            HttpRuleSampler.builder().addRule("GET", "/health", 0.0f).build());
+        when(serverRequest.getHttpMethod()).thenReturn("GET");
+        when(serverRequest.getUri()).thenReturn(new URI("http://youruri.com/health?verbose"));
+        assertEquals(TraceData.NOT_SAMPLED, adapter.getTraceData());
+    }
+
+    @Test
+    public void getTraceData_ruleRejectsRequest_externallyProvidedIds() throws Exception {
+        adapter = new HttpServerRequestAdapter(serverRequest, spanNameProvider,
+            HttpRuleSampler.builder().addRule("GET", "/health", 0.0f).build());
+        when(serverRequest.getHttpMethod()).thenReturn("GET");
+        when(serverRequest.getUri()).thenReturn(new URI("http://youruri.com/health"));
+        when(serverRequest.getHttpHeaderValue(BraveHttpHeaders.TraceId.getName())).thenReturn(TRACE_ID);
+        when(serverRequest.getHttpHeaderValue(BraveHttpHeaders.SpanId.getName())).thenReturn(SPAN_ID);
+        TraceData traceData = adapter.getTraceData();
+        assertFalse(traceData.getSample());
+        assertEquals(IdConversion.convertToLong(SPAN_ID), traceData.getSpanId().spanId);
+    }
+
+    @Test
+    public void getTraceData_ruleDoesntOverrideCallersDecision() throws Exception {
+        adapter = new HttpServerRequestAdapter(serverRequest, spanNameProvider,
+            HttpRuleSampler.builder().addRule("GET", "/health", 0.0f).build());
+        when(serverRequest.getHttpMethod()).thenReturn("GET");
+        when(serverRequest.getUri()).thenReturn(new URI("http://youruri.com/health"));
+        when(serverRequest.getHttpHeaderValue(BraveHttpHeaders.Sampled.getName())).thenReturn("1");
+        when(serverRequest.getHttpHeaderValue(BraveHttpHeaders.TraceId.getName())).thenReturn(TRACE_ID);
+        when(serverRequest.getHttpHeaderValue(BraveHttpHeaders.SpanId.getName())).thenReturn(SPAN_ID);
+        assertTrue(adapter.getTraceData().getSample());
+    }
+
+    @Test
+    public void getTraceData_ruleAllowsRequest() throws Exception {
+        adapter = new HttpServerRequestAdapter(serverRequest, spanNameProvider,
+            HttpRuleSampler.builder().addRule("GET", "/health", 0.0f).build());
+        when(serverRequest.getHttpMethod()).thenReturn("GET");
+        when(serverRequest.getUri()).thenReturn(new URI("http://youruri.com/api"));
+        assertEquals(TraceData.EMPTY, adapter.getTraceData());
+    }
+
+    @Test
+    public void sampledFlags() {
+        assertEquals(0L, HttpServerRequestAdapter.sampledFlags(null));
+        assertEquals(SpanId.FLAG_SAMPLING_SET | SpanId.FLAG_SAMPLED,
+            HttpServerRequestAdapter.sampledFlags("1"));
+        assertEquals(SpanId.FLAG_SAMPLING_SET | SpanId.FLAG_SAMPLED,
+            HttpServerRequestAdapter.sampledFlags(new StringBuilder("True")));
+        assertEquals(SpanId.FLAG_SAMPLING_SET, HttpServerRequestAdapter.sampledFlags("0"));
+        assertEquals(SpanId.FLAG_SAMPLING_SET, HttpServerRequestAdapter.sampledFlags("FALSE"));
+        assertEquals(SpanId.FLAG_SAMPLING_SET, HttpServerRequestAdapter.sampledFlags("tru"));
+    }
+
+    @Test
+    public void getSpanId_sameAsBuilder() {
+        SpanId expected = SpanId.builder().traceId(IdConversion.convertToLong(TRACE_ID))
+            .spanId(IdConversion.convertToLong(SPAN_ID)).parentId(null).sampled(true).build();
+        SpanId parsed = HttpServerRequestAdapter.getSpanId(TRACE_ID, SPAN_ID, null,
+            SpanId.FLAG_SAMPLING_SET | SpanId.FLAG_SAMPLED);
+        assertEquals(expected.toString(), parsed.toString());
+        assertEquals(expected.flags, parsed.flags);
+        assertEquals(expected.shared, parsed.shared);
+    }
+
+    @Test
+    public void getTraceData_b3SingleHeader() {
+        when(serverRequest.getHttpHeaderValue(BraveHttpHeaders.B3.getName()))
+            .thenReturn(TRACE_ID + "-" + SPAN_ID + "-1-" + PARENT_SPAN_ID);
+        TraceData traceData = adapter.getTraceData();
+        assertTrue(traceData.getSample());
+        SpanId spanId = traceData.getSpanId();
+        assertEquals(IdConversion.convertToLong(TRACE_ID), spanId.traceId);
+        assertEquals(IdConversion.convertToLong(SPAN_ID), spanId.spanId);
+        assertEquals(IdConversion.convertToLong(PARENT_SPAN_ID), spanId.parentId);
+    }
+
+    @Test
+    public void getTraceData_b3SingleHeader_notSampled() {
+        when(serverRequest.getHttpHeaderValue(BraveHttpHeaders.B3.getName())).thenReturn("0");
+        assertEquals(TraceData.NOT_SAMPLED, adapter.getTraceData());
+    }
+
+    @Test
+    public void getTraceData_b3SingleHeader_ruleRejectsRequest() throws Exception {
+        adapter = new HttpServerRequestAdapter(serverRequest, spanNameProvider,
+            HttpRuleSampler.builder().addRule("GET", "/health", 0.0f).build());
+        when(serverRequest.getHttpMethod()).thenReturn("GET");
+        when(serverRequest.getUri()).thenReturn(new URI("http://youruri.com/health"));
+        when(serverRequest.getHttpHeaderValue(BraveHttpHeaders.B3.getName()))
+            .thenReturn(TRACE_ID + "-" + SPAN_ID);
+        TraceData traceData = adapter.getTraceData();
+        assertFalse(traceData.getSample());
+        assertEquals(IdConversion.convertToLong(SPAN_ID), traceData.getSpanId().spanId);
+    }
+
+    @Test
+    public void getTraceData_b3SingleHeader_malformedFallsBack() {
+        when(serverRequest.getHttpHeaderValue(BraveHttpHeaders.B3.getName())).thenReturn("garbage");
+        when(serverRequest.getHttpHeaderValue(BraveHttpHeaders.Sampled.getName())).thenReturn("0");
+        assertFalse(adapter.getTraceData().getSample());
+    }
 }
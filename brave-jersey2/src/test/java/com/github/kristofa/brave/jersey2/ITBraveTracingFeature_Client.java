@@ -58,10 +58,4 @@ public class ITBraveTracingFeature_Client extends ITHttpClient<Client> {
   public void addsErrorTagOnTransportException() throws Exception {
     super.addsErrorTagOnTransportException();
   }
-
-  @Override
-  @Test(expected = AssertionError.class) // #289 attach local span to jersey threadpool
-  public void usesParentFromInvocationTime_local() throws Exception {
-    super.usesParentFromInvocationTime_local();
-  }
 }
@@ -1,5 +1,6 @@
 package com.github.kristofa.brave.okhttp;
 
+import com.github.kristofa.brave.B3SingleFormat;
 import com.github.kristofa.brave.Brave;
 import com.github.kristofa.brave.ClientTracer;
 import com.github.kristofa.brave.InheritableServerClientAndLocalSpanState;
@@ -21,6 +22,7 @@ import zipkin.Constants;
 import zipkin.TraceKeys;
 
 import static com.github.kristofa.brave.IdConversion.convertToString;
+import static com.github.kristofa.brave.http.BraveHttpHeaders.B3;
 import static com.github.kristofa.brave.http.BraveHttpHeaders.Sampled;
 import static com.github.kristofa.brave.internal.Util.checkNotNull;
 
@@ -34,7 +36,7 @@ import static com.github.kristofa.brave.internal.Util.checkNotNull;
  * request and two spans for the associated network requests.
  *
  * Trace identifiers of each network attempt are propagated to the server via headers prefixed with
- * `X-B3`. These spans are also reported out of band, with {@link zipkin.Constants#CLIENT_SEND} and
+ * `X-B3`, or the single "b3" header if {@link Builder#b3SingleHeader(boolean) enabled}. These spans are also reported out of band, with {@link zipkin.Constants#CLIENT_SEND} and
  * {@link zipkin.Constants#CLIENT_RECV} annotations, binary annotations (tags) like {@link
  * TraceKeys#HTTP_URL} and {@link zipkin.Constants#SERVER_ADDR the server's ip and port}.
  *
@@ -77,6 +79,7 @@ public final class BraveTracingInterceptor implements Interceptor {
     final Brave brave;
     String serverName = "";
     OkHttpParser parser = new OkHttpParser();
+    boolean b3SingleHeader = false;
 
     Builder(Brave brave) { // intentionally hidden
       this.brave = checkNotNull(brave, "brave");
@@ -101,6 +104,15 @@ public final class BraveTracingInterceptor implements Interceptor {
       return this;
     }
 
+    /**
+     * When true, trace identifiers are propagated in the single "b3" header, instead of one header
+     * per field. Only enable this when all servers called accept it. Default false.
+     */
+    public Builder b3SingleHeader(boolean b3SingleHeader) {
+      this.b3SingleHeader = b3SingleHeader;
+      return this;
+    }
+
     public BraveTracingInterceptor build() {
       return new BraveTracingInterceptor(this);
     }
@@ -110,12 +122,14 @@ public final class BraveTracingInterceptor implements Interceptor {
   final ClientTracer clientTracer;
   final OkHttpParser parser;
   final String serverName;
+  final boolean b3SingleHeader;
 
   BraveTracingInterceptor(Builder builder) {
     localTracer = builder.brave.localTracer();
     clientTracer = builder.brave.clientTracer();
     parser = builder.parser;
     serverName = builder.serverName;
+    b3SingleHeader = builder.b3SingleHeader;
   }
 
   @Override
@@ -134,17 +148,25 @@ public final class BraveTracingInterceptor implements Interceptor {
     if (spanId == null) { // trace was unsampled
       return applicationRequest
           ? chain.proceed(request)
-          : chain.proceed(request.newBuilder().header(Sampled.getName(), "0").build());
+          : chain.proceed(request.newBuilder()
+              .header(b3SingleHeader ? B3.getName() : Sampled.getName(), "0").build());
     } else if (applicationRequest) {
       return traceApplicationRequest(chain, request);
     } else {
-      Request tracedRequest = addTraceHeaders(request, spanId).build();
+      Request tracedRequest = addTraceHeaders(request, spanId, b3SingleHeader).build();
       return traceNetworkRequest(chain, tracedRequest);
     }
   }
 
   static Request.Builder addTraceHeaders(Request request, SpanId spanId) {
+    return addTraceHeaders(request, spanId, false);
+  }
+
+  static Request.Builder addTraceHeaders(Request request, SpanId spanId, boolean b3SingleHeader) {
     Request.Builder tracedRequest = request.newBuilder();
+    if (b3SingleHeader) {
+      return tracedRequest.header(B3.getName(), B3SingleFormat.writeB3SingleFormat(spanId));
+    }
     tracedRequest.header(BraveHttpHeaders.TraceId.getName(), spanId.traceIdString());
     tracedRequest.header(BraveHttpHeaders.SpanId.getName(), convertToString(spanId.spanId));
     if (spanId.nullableParentId() != null) {
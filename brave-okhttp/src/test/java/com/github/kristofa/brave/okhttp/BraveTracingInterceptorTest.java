@@ -201,6 +201,20 @@ public class BraveTracingInterceptorTest {
         .isEqualTo("00000000000000010000000000000002");
   }
 
+  @Test
+  public void addTraceHeaders_b3SingleHeader() {
+    com.github.kristofa.brave.SpanId id = com.github.kristofa.brave.SpanId.builder()
+        .traceIdHigh(1).traceId(2).spanId(3).parentId(2L).build();
+
+    Request original = new Request.Builder().url("http://localhost").build();
+    Request traced = addTraceHeaders(original, id, true).build();
+
+    assertThat(traced.headers().names())
+        .containsExactly("b3");
+    assertThat(traced.header("b3"))
+        .isEqualTo("00000000000000010000000000000002-0000000000000003-1-0000000000000002");
+  }
+
   BraveTracingInterceptor.Builder interceptorBuilder(Sampler sampler) {
     com.twitter.zipkin.gen.Endpoint localEndpoint = com.twitter.zipkin.gen.Endpoint.builder()
         .ipv4(local.ipv4)
@@ -0,0 +1,53 @@
+package com.github.kristofa.brave.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes gzip streams, reusing a {@link Deflater} and output buffer across calls. Unlike
+ * {@link java.util.zip.GZIPOutputStream}, this doesn't allocate native memory per request body.
+ *
+ * <p>Not thread-safe: pool instances instead of sharing them.
+ */
+final class GzipWriter {
+  static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+  final Deflater deflater;
+  final CRC32 crc = new CRC32();
+  final byte[] buffer = new byte[8192];
+
+  GzipWriter(int level) {
+    this.deflater = new Deflater(level, true /* gzip has its own header and trailer */);
+  }
+
+  /** Writes a complete gzip stream of the input to the output, which is left open. */
+  void write(byte[] input, int length, OutputStream out) throws IOException {
+    out.write(HEADER);
+    crc.reset();
+    crc.update(input, 0, length);
+    deflater.reset();
+    deflater.setInput(input, 0, length);
+    deflater.finish();
+    while (!deflater.finished()) {
+      int count = deflater.deflate(buffer, 0, buffer.length);
+      out.write(buffer, 0, count);
+    }
+    writeIntLe(buffer, 0, (int) crc.getValue());
+    writeIntLe(buffer, 4, length);
+    out.write(buffer, 0, 8);
+  }
+
+  /** Releases native memory held by the deflater. */
+  void close() {
+    deflater.end();
+  }
+
+  static void writeIntLe(byte[] b, int offset, int v) {
+    b[offset] = (byte) (v & 0xff);
+    b[offset + 1] = (byte) ((v >>> 8) & 0xff);
+    b[offset + 2] = (byte) ((v >>> 16) & 0xff);
+    b[offset + 3] = (byte) ((v >>> 24) & 0xff);
+  }
+}
@@ -2,15 +2,29 @@ package com.github.kristofa.brave.http;
 
 import com.github.kristofa.brave.AbstractSpanCollector;
 import com.github.kristofa.brave.EmptySpanCollectorMetricsHandler;
+import com.github.kristofa.brave.SenderMetricsHandler;
 import com.github.kristofa.brave.SpanCollectorMetricsHandler;
+import com.github.kristofa.brave.internal.DirectSpanCodec;
+import com.github.kristofa.brave.internal.DirectSpanCodec.Buffer;
+import com.github.kristofa.brave.internal.Nullable;
 import com.google.auto.value.AutoValue;
-import com.twitter.zipkin.gen.SpanCodec;
+import com.twitter.zipkin.gen.Span;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
-import java.util.zip.GZIPOutputStream;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.zip.Deflater;
 
 /**
  * SpanCollector which submits spans to Zipkin, using its {@code POST /spans} endpoint.
@@ -20,7 +34,6 @@ import java.util.zip.GZIPOutputStream;
  */
 @Deprecated
 public final class HttpSpanCollector extends AbstractSpanCollector {
-
   @AutoValue
   public static abstract class Config {
     public static Builder builder() {
@@ -28,7 +41,13 @@ public final class HttpSpanCollector extends AbstractSpanCollector {
           .connectTimeout(10 * 1000)
           .readTimeout(60 * 1000)
           .compressionEnabled(false)
-          .flushInterval(1);
+          .compressionLevel(Deflater.DEFAULT_COMPRESSION)
+          .streamingEnabled(false)
+          .flushInterval(1)
+          .maxInFlight(0)
+          .pendingQueue(PendingQueue.LINKED)
+          .queuedMaxBytes(DEFAULT_QUEUED_MAX_BYTES)
+          .spillMaxBytes(DEFAULT_SPILL_MAX_BYTES);
     }
 
     abstract int connectTimeout();
@@ -37,8 +56,22 @@ public final class HttpSpanCollector extends AbstractSpanCollector {
 
     abstract int flushInterval();
 
+    abstract int maxInFlight();
+
+    abstract PendingQueue pendingQueue();
+
+    abstract int queuedMaxBytes();
+
+    @Nullable abstract File spillDirectory();
+
+    abstract int spillMaxBytes();
+
     abstract boolean compressionEnabled();
 
+    abstract int compressionLevel();
+
+    abstract boolean streamingEnabled();
+
     @AutoValue.Builder
     public interface Builder {
       /** Default 10 * 1000 milliseconds. 0 implies no timeout. */
@@ -50,6 +83,16 @@ public final class HttpSpanCollector extends AbstractSpanCollector {
       /** Default 1 second. 0 implies spans are {@link #flush() flushed} externally. */
       Builder flushInterval(int flushInterval);
 
+      /**
+       * Default 0, which sends spans on the flushing thread. When positive, up to this many POSTs
+       * are sent concurrently from a separate pool, so that one slow response doesn't stall
+       * flushing. When all are in flight, flushing waits for one to complete.
+       *
+       * <p>Connections are kept alive and reused by {@link HttpURLConnection}. If this is more than
+       * 5, raise the "http.maxConnections" system property to match.
+       */
+      Builder maxInFlight(int maxInFlight);
+
       /**
        * Default false. true implies that spans will be gzipped before transport.
        *
@@ -57,12 +100,59 @@ public final class HttpSpanCollector extends AbstractSpanCollector {
        */
       Builder compressionEnabled(boolean compressSpans);
 
+      /**
+       * Default {@link Deflater#DEFAULT_COMPRESSION}. The gzip level from 0 (none) to 9 (best),
+       * used when {@link #compressionEnabled(boolean) compression is enabled}. Other values fail
+       * {@link HttpSpanCollector#create(String, Config, SpanCollectorMetricsHandler) create}.
+       */
+      Builder compressionLevel(int compressionLevel);
+
+      /**
+       * Default false. true implies compressed spans are streamed to the server with chunked
+       * transfer encoding, instead of buffering the compressed body to learn its length.
+       */
+      Builder streamingEnabled(boolean streamingEnabled);
+
+      /**
+       * Default {@link PendingQueue#LINKED}. {@link PendingQueue#RING_BUFFER} avoids locking and
+       * allocation when many threads collect spans. {@link PendingQueue#BYTE_BOUNDED} bounds memory
+       * when span size varies.
+       */
+      Builder pendingQueue(PendingQueue pendingQueue);
+
+      /**
+       * Default 1% of the maximum heap. Maximum estimated bytes of spans pending flush, when {@link
+       * #pendingQueue(PendingQueue) the pending queue} is {@link PendingQueue#BYTE_BOUNDED}.
+       */
+      Builder queuedMaxBytes(int queuedMaxBytes);
+
+      /**
+       * When set, spans that fail to send, or don't fit in the pending queue, are spilled to
+       * memory-mapped files in this directory, and replayed once sending succeeds again. Spans
+       * pending on close are replayed by the next collector using the same directory.
+       */
+      Builder spillDirectory(@Nullable File spillDirectory);
+
+      /**
+       * Default 16 MiB. Upper bound of disk used in the {@link #spillDirectory(File) spill
+       * directory}.
+       */
+      Builder spillMaxBytes(int spillMaxBytes);
+
       Config build();
     }
   }
 
   private final String url;
   private final Config config;
+  private final SpanCollectorMetricsHandler metrics;
+  @Nullable // when sending on the flushing thread
+  private final ExecutorService sender;
+  @Nullable
+  private final Semaphore inFlight;
+  /** Holds at most one writer per thread sending concurrently */
+  private final Queue<GzipWriter> gzipWriters = new ConcurrentLinkedQueue<GzipWriter>();
+  private volatile boolean closed;
 
   /**
    * Create a new instance with default configuration.
@@ -83,45 +173,164 @@ public final class HttpSpanCollector extends AbstractSpanCollector {
    */
   public static HttpSpanCollector create(String baseUrl, Config config,
       SpanCollectorMetricsHandler metrics) {
+    int level = config.compressionLevel();
+    if (level != Deflater.DEFAULT_COMPRESSION
+        && (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)) {
+      throw new IllegalArgumentException("compressionLevel should be between 0 and 9: " + level);
+    }
     return new HttpSpanCollector(baseUrl, config, metrics);
   }
 
   // Visible for testing. Ex when tests need to explicitly control flushing, set interval to 0.
   HttpSpanCollector(String baseUrl, Config config, SpanCollectorMetricsHandler metrics) {
-    super(SpanCodec.JSON, metrics,  config.flushInterval());
+    super(DirectSpanCodec.JSON, metrics, config.flushInterval(), config.pendingQueue(),
+        config.queuedMaxBytes(), config.spillDirectory(), config.spillMaxBytes());
     this.url = baseUrl + (baseUrl.endsWith("/") ? "" : "/") + "api/v1/spans";
     this.config = config;
+    this.metrics = metrics;
+    if (config.maxInFlight() > 0) {
+      this.sender = Executors.newFixedThreadPool(config.maxInFlight(),
+          r -> new Thread(r, "HttpSpanCollector-sender"));
+      this.inFlight = new Semaphore(config.maxInFlight());
+    } else {
+      this.sender = null;
+      this.inFlight = null;
+    }
+  }
+
+  @Override
+  protected void reportSpans(List<Span> drained) throws IOException {
+    if (sender == null) {
+      send(drained);
+    } else {
+      sendAsync(drained);
+    }
+  }
+
+  void sendAsync(final List<Span> spans) throws InterruptedIOException {
+    try {
+      inFlight.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    }
+    try {
+      sender.execute(() -> {
+        try {
+          send(spans);
+        } catch (IOException | RuntimeException e) {
+          reportFailed(spans);
+        } finally {
+          inFlight.release();
+        }
+      });
+    } catch (RejectedExecutionException e) { // closed
+      inFlight.release();
+      throw e;
+    }
+  }
+
+  /** Encodes spans into a buffer owned by the current thread, and posts them without a copy. */
+  void send(List<Span> spans) throws IOException {
+    Buffer json = DirectSpanCodec.acquireBuffer();
+    DirectSpanCodec.JSON.writeSpans(spans, json);
+    try {
+      long start = System.nanoTime();
+      post(json.array(), json.size());
+      if (metrics instanceof SenderMetricsHandler) {
+        ((SenderMetricsHandler) metrics).recordSendLatency(spans.size(), System.nanoTime() - start);
+      }
+    } finally {
+      DirectSpanCodec.releaseBuffer(json);
+    }
   }
 
   @Override
   protected void sendSpans(byte[] json) throws IOException {
+    post(json, json.length);
+  }
+
+  void post(byte[] json, int length) throws IOException {
     // intentionally not closing the connection, so as to use keep-alives
     HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
     connection.setConnectTimeout(config.connectTimeout());
     connection.setReadTimeout(config.readTimeout());
     connection.setRequestMethod("POST");
     connection.addRequestProperty("Content-Type", "application/json");
+    connection.setDoOutput(true);
     if (config.compressionEnabled()) {
       connection.addRequestProperty("Content-Encoding", "gzip");
-      ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
-      try (GZIPOutputStream compressor = new GZIPOutputStream(gzipped)) {
-        compressor.write(json);
+      GzipWriter gzip = acquireGzipWriter();
+      try {
+        if (config.streamingEnabled()) {
+          connection.setChunkedStreamingMode(0);
+          try (OutputStream out = connection.getOutputStream()) {
+            gzip.write(json, length, out);
+          }
+        } else {
+          ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+          gzip.write(json, length, gzipped);
+          connection.setFixedLengthStreamingMode(gzipped.size());
+          try (OutputStream out = connection.getOutputStream()) {
+            gzipped.writeTo(out);
+          }
+        }
+      } finally {
+        releaseGzipWriter(gzip);
+      }
+    } else {
+      connection.setFixedLengthStreamingMode(length);
+      try (OutputStream out = connection.getOutputStream()) {
+        out.write(json, 0, length);
       }
-      json = gzipped.toByteArray();
     }
-    connection.setDoOutput(true);
-    connection.setFixedLengthStreamingMode(json.length);
-    connection.getOutputStream().write(json);
 
+    // fully read the response, so that the connection can be reused
     try (InputStream in = connection.getInputStream()) {
-      while (in.read() != -1) ; // skip
+      skip(in);
     } catch (IOException e) {
       try (InputStream err = connection.getErrorStream()) {
         if (err != null) { // possible, if the connection was dropped
-          while (err.read() != -1) ; // skip
+          skip(err);
         }
       }
       throw e;
     }
   }
+
+  GzipWriter acquireGzipWriter() {
+    GzipWriter result = gzipWriters.poll();
+    return result != null ? result : new GzipWriter(config.compressionLevel());
+  }
+
+  void releaseGzipWriter(GzipWriter gzip) {
+    if (closed) {
+      gzip.close();
+      return;
+    }
+    gzipWriters.offer(gzip);
+    if (closed) closeGzipWriters(); // close() may have drained the pool before the offer
+  }
+
+  void closeGzipWriters() {
+    for (GzipWriter gzip; (gzip = gzipWriters.poll()) != null; ) {
+      gzip.close();
+    }
+  }
+
+  /**
+   * Requests a cease of delivery. POSTs already in flight complete in the background.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    super.close();
+    if (sender != null) sender.shutdown();
+    closeGzipWriters();
+  }
+
+  static void skip(InputStream in) throws IOException {
+    byte[] buffer = new byte[512];
+    while (in.read(buffer) != -1) ; // skip
+  }
 }
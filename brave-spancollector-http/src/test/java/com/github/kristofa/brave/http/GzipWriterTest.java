@@ -0,0 +1,83 @@
+package com.github.kristofa.brave.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GzipWriterTest {
+  GzipWriter gzip = new GzipWriter(Deflater.DEFAULT_COMPRESSION);
+
+  @After
+  public void close() {
+    gzip.close();
+  }
+
+  @Test
+  public void readableByGzipInputStream() throws IOException {
+    byte[] json = "[{\"traceId\":\"0000000000000001\"}]".getBytes("UTF-8");
+
+    assertThat(gunzip(gzip(json, json.length))).isEqualTo(json);
+  }
+
+  @Test
+  public void onlyWritesLength() throws IOException {
+    byte[] json = "[]garbage".getBytes("UTF-8");
+
+    assertThat(gunzip(gzip(json, 2))).isEqualTo("[]".getBytes("UTF-8"));
+  }
+
+  @Test
+  public void reusable_largerThanBuffer() throws IOException {
+    byte[] random = new byte[3 * gzip.buffer.length];
+    new Random(1L).nextBytes(random); // incompressible
+    byte[] empty = new byte[0];
+
+    for (int i = 0; i < 3; i++) {
+      assertThat(gunzip(gzip(random, random.length))).isEqualTo(random);
+      assertThat(gunzip(gzip(empty, 0))).isEqualTo(empty);
+    }
+  }
+
+  @Test
+  public void compressionLevel() throws IOException {
+    byte[] json = new byte[4096];
+    Arrays.fill(json, (byte) 'a');
+    GzipWriter none = new GzipWriter(Deflater.NO_COMPRESSION);
+    try {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      none.write(json, json.length, out);
+      byte[] stored = out.toByteArray();
+
+      assertThat(stored.length).isGreaterThan(json.length);
+      assertThat(gzip(json, json.length).length).isLessThan(json.length / 10);
+      assertThat(gunzip(stored)).isEqualTo(json);
+    } finally {
+      none.close();
+    }
+  }
+
+  byte[] gzip(byte[] input, int length) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    gzip.write(input, length, out);
+    return out.toByteArray();
+  }
+
+  static byte[] gunzip(byte[] gzipped) throws IOException {
+    ByteArrayOutputStream result = new ByteArrayOutputStream();
+    try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+      byte[] buffer = new byte[1024];
+      for (int read; (read = in.read(buffer)) != -1; ) {
+        result.write(buffer, 0, read);
+      }
+    }
+    return result.toByteArray();
+  }
+}
@@ -1,22 +1,32 @@
 package com.github.kristofa.brave.http;
 
-import com.github.kristofa.brave.SpanCollectorMetricsHandler;
+import com.github.kristofa.brave.SenderMetricsHandler;
 import com.github.kristofa.brave.SpanId;
 import com.github.kristofa.brave.internal.InternalSpan;
 import com.twitter.zipkin.gen.Annotation;
 import com.twitter.zipkin.gen.Span;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.GzipSource;
+import okio.Okio;
 import org.junit.After;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import zipkin.Codec;
 import zipkin.junit.HttpFailure;
 import zipkin.junit.ZipkinRule;
 
 import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
 
 public class HttpSpanCollectorTest {
   static {
@@ -26,6 +36,9 @@ public class HttpSpanCollectorTest {
   @Rule
   public final ZipkinRule zipkinRule = new ZipkinRule();
 
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
   TestMetricsHandler metrics = new TestMetricsHandler();
   // set flush interval to 0 so that tests can drive flushing explicitly
   HttpSpanCollector.Config config = HttpSpanCollector.Config.builder().flushInterval(0).build();
@@ -79,6 +92,78 @@ public class HttpSpanCollectorTest {
     );
   }
 
+  @Test
+  public void recordsSendLatency() throws Exception {
+    collector.collect(span(1L));
+    collector.collect(span(2L));
+
+    collector.flush(); // manually flush the spans
+
+    assertThat(metrics.sentSpans.get()).isEqualTo(2);
+    assertThat(metrics.sendLatencyNanos.get()).isPositive();
+  }
+
+  @Test
+  public void maxInFlight_postsSpansFromSenderThread() throws Exception {
+    collector = new HttpSpanCollector(zipkinRule.httpUrl(),
+        HttpSpanCollector.Config.builder().flushInterval(0).maxInFlight(2).build(), metrics);
+
+    collector.collect(span(1L));
+    collector.flush();
+    collector.collect(span(2L));
+    collector.flush();
+
+    awaitSentSpans(2);
+    assertThat(zipkinRule.httpRequestCount()).isEqualTo(2);
+    assertThat(zipkinRule.getTraces()).containsExactly(
+        asList(zipkinSpan(1L)),
+        asList(zipkinSpan(2L))
+    );
+  }
+
+  @Test
+  public void maxInFlight_slowResponseDoesntBlockFlushing() throws Exception {
+    MockWebServer zipkin = new MockWebServer();
+    try {
+      zipkin.start(0);
+      zipkin.enqueue(new MockResponse().setBodyDelay(1, TimeUnit.SECONDS));
+      zipkin.enqueue(new MockResponse());
+
+      collector = new HttpSpanCollector(zipkin.url("/").toString(),
+          HttpSpanCollector.Config.builder().flushInterval(0).maxInFlight(2).build(), metrics);
+
+      long start = System.nanoTime();
+      collector.collect(span(1L));
+      collector.flush();
+      collector.collect(span(2L));
+      collector.flush();
+      assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(1));
+
+      assertThat(zipkin.takeRequest(1, TimeUnit.SECONDS)).isNotNull();
+      assertThat(zipkin.takeRequest(1, TimeUnit.SECONDS)).isNotNull();
+    } finally {
+      zipkin.shutdown();
+    }
+  }
+
+  @Test
+  public void maxInFlight_incrementsDroppedSpansWhenServerErrors() throws Exception {
+    zipkinRule.enqueueFailure(HttpFailure.sendErrorResponse(500, "Server Error!"));
+    collector = new HttpSpanCollector(zipkinRule.httpUrl(),
+        HttpSpanCollector.Config.builder().flushInterval(0).maxInFlight(1).build(), metrics);
+
+    collector.collect(span(1L));
+    collector.collect(span(2L));
+
+    collector.flush(); // manually flush the spans
+
+    long deadline = System.currentTimeMillis() + 5000;
+    while (metrics.droppedSpans.get() < 2 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(metrics.droppedSpans.get()).isEqualTo(2);
+  }
+
   @Test
   public void postsCompressedSpans() throws Exception {
     char[] annotation2K = new char[2048];
@@ -107,6 +192,62 @@ public class HttpSpanCollectorTest {
     }
   }
 
+  @Test
+  public void postsCompressedSpans_streaming() throws Exception {
+    MockWebServer zipkin = new MockWebServer();
+    try {
+      zipkin.start(0);
+      zipkin.enqueue(new MockResponse());
+      zipkin.enqueue(new MockResponse());
+
+      HttpSpanCollector.Config config = HttpSpanCollector.Config.builder()
+          .flushInterval(0).compressionEnabled(true).streamingEnabled(true).build();
+
+      collector = new HttpSpanCollector(zipkin.url("/").toString(), config, metrics);
+
+      // send twice to ensure the gzip writer is reused cleanly
+      for (long id = 1L; id <= 2L; id++) {
+        collector.collect(span(id));
+        collector.flush(); // manually flush the span
+
+        RecordedRequest request = zipkin.takeRequest();
+        assertThat(request.getHeader("Transfer-Encoding")).isEqualTo("chunked");
+        assertThat(request.getHeader("Content-Encoding")).isEqualTo("gzip");
+        List<zipkin.Span> spans = Codec.JSON.readSpans(
+            Okio.buffer(new GzipSource(request.getBody())).readByteArray());
+        assertThat(spans).containsExactly(zipkinSpan(id));
+      }
+    } finally {
+      zipkin.shutdown();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void compressionLevel_outOfRange() {
+    HttpSpanCollector.create("http://localhost:9411",
+        HttpSpanCollector.Config.builder().compressionLevel(10).build(), metrics);
+  }
+
+  @Test
+  public void compressionLevel_default() {
+    assertThat(HttpSpanCollector.Config.builder().build().compressionLevel())
+        .isEqualTo(Deflater.DEFAULT_COMPRESSION);
+  }
+
+  @Test
+  public void gzipWriterReleasedAfterClose_isEnded() {
+    GzipWriter gzip = collector.acquireGzipWriter();
+    collector.close();
+    collector.releaseGzipWriter(gzip);
+
+    assertThat(collector.acquireGzipWriter()).isNotSameAs(gzip);
+    try {
+      gzip.deflater.getTotalIn();
+      failBecauseExceptionWasNotThrown(NullPointerException.class);
+    } catch (NullPointerException expected) { // the deflater was ended
+    }
+  }
+
   @Test
   public void incrementsDroppedSpansWhenServerErrors() throws Exception {
     zipkinRule.enqueueFailure(HttpFailure.sendErrorResponse(500, "Server Error!"));
@@ -131,10 +272,41 @@ public class HttpSpanCollectorTest {
     assertThat(metrics.droppedSpans.get()).isEqualTo(2);
   }
 
-  static class TestMetricsHandler implements SpanCollectorMetricsHandler {
+  @Test
+  public void spillsWhenServerErrors_replaysOnNextFlush() throws Exception {
+    collector = new HttpSpanCollector(zipkinRule.httpUrl(),
+        HttpSpanCollector.Config.builder().flushInterval(0).spillDirectory(folder.getRoot()).build(),
+        metrics);
+    zipkinRule.enqueueFailure(HttpFailure.sendErrorResponse(500, "Server Error!"));
+
+    collector.collect(span(1L));
+    collector.collect(span(2L));
+    collector.flush(); // fails, so spills
+
+    assertThat(metrics.droppedSpans.get()).isZero();
+    assertThat(zipkinRule.getTraces()).isEmpty();
+
+    collector.flush(); // nothing pending, so replays the spill
+    assertThat(zipkinRule.getTraces()).containsExactly(
+        asList(zipkinSpan(1L)),
+        asList(zipkinSpan(2L))
+    );
+  }
+
+  void awaitSentSpans(int count) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (metrics.sentSpans.get() < count && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(metrics.sentSpans.get()).isEqualTo(count);
+  }
+
+  static class TestMetricsHandler implements SenderMetricsHandler {
 
     final AtomicInteger acceptedSpans = new AtomicInteger();
     final AtomicInteger droppedSpans = new AtomicInteger();
+    final AtomicInteger sentSpans = new AtomicInteger();
+    final AtomicLong sendLatencyNanos = new AtomicLong();
 
     @Override
     public void incrementAcceptedSpans(int quantity) {
@@ -145,6 +317,12 @@ public class HttpSpanCollectorTest {
     public void incrementDroppedSpans(int quantity) {
       droppedSpans.addAndGet(quantity);
     }
+
+    @Override
+    public void recordSendLatency(int quantity, long latencyNanos) {
+      sentSpans.addAndGet(quantity);
+      sendLatencyNanos.addAndGet(latencyNanos);
+    }
   }
 
   static Span span(long traceId) {
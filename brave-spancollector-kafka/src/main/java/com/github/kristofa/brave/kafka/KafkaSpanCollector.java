@@ -3,9 +3,15 @@ package com.github.kristofa.brave.kafka;
 import com.github.kristofa.brave.AbstractSpanCollector;
 import com.github.kristofa.brave.EmptySpanCollectorMetricsHandler;
 import com.github.kristofa.brave.SpanCollectorMetricsHandler;
+import com.github.kristofa.brave.internal.DirectSpanCodec;
+import com.github.kristofa.brave.internal.Nullable;
 import com.google.auto.value.AutoValue;
-import com.twitter.zipkin.gen.SpanCodec;
+import com.twitter.zipkin.gen.Span;
+import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Properties;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.Producer;
@@ -27,7 +33,11 @@ public final class KafkaSpanCollector extends AbstractSpanCollector {
     public static Builder builder() {
       return new AutoValue_KafkaSpanCollector_Config.Builder()
           .topic("zipkin")
-          .flushInterval(1);
+          .flushInterval(1)
+          .keyByTraceId(false)
+          .pendingQueue(PendingQueue.LINKED)
+          .queuedMaxBytes(DEFAULT_QUEUED_MAX_BYTES)
+          .spillMaxBytes(DEFAULT_SPILL_MAX_BYTES);
     }
 
     public static Builder builder(String bootstrapServers) {
@@ -42,8 +52,22 @@ public final class KafkaSpanCollector extends AbstractSpanCollector {
 
     abstract int flushInterval();
 
+    abstract PendingQueue pendingQueue();
+
+    abstract int queuedMaxBytes();
+
+    @Nullable abstract File spillDirectory();
+
+    abstract int spillMaxBytes();
+
     abstract String topic();
 
+    abstract boolean keyByTraceId();
+
+    @Nullable abstract String compressionType();
+
+    @Nullable abstract Integer lingerMs();
+
     @AutoValue.Builder
     public interface Builder {
       /**
@@ -61,14 +85,80 @@ public final class KafkaSpanCollector extends AbstractSpanCollector {
       /** Sets kafka-topic for zipkin to report to. Default topic zipkin. **/
       Builder topic(String topic);
 
+      /**
+       * Default false. true implies spans are grouped by trace within each flush, and each group is
+       * sent as a message keyed by its lower-hex trace ID. As Kafka partitions by key, all spans of a
+       * trace land on the same partition, and consumers can aggregate traces without a shuffle.
+       */
+      Builder keyByTraceId(boolean keyByTraceId);
+
+      /**
+       * When set, overrides the producer's "compression.type", such as "gzip" or "snappy". Messages
+       * in the same batch are compressed together, so this works best with {@link #lingerMs(Integer)}.
+       */
+      Builder compressionType(@Nullable String compressionType);
+
+      /**
+       * When set, overrides the producer's "linger.ms", which is how long to wait for more messages
+       * before sending a batch to the broker.
+       */
+      Builder lingerMs(@Nullable Integer lingerMs);
+
+      /**
+       * Default {@link PendingQueue#LINKED}. {@link PendingQueue#RING_BUFFER} avoids locking and
+       * allocation when many threads collect spans. {@link PendingQueue#BYTE_BOUNDED} bounds memory
+       * when span size varies.
+       */
+      Builder pendingQueue(PendingQueue pendingQueue);
+
+      /**
+       * Default 1% of the maximum heap. Maximum estimated bytes of spans pending flush, when {@link
+       * #pendingQueue(PendingQueue) the pending queue} is {@link PendingQueue#BYTE_BOUNDED}.
+       */
+      Builder queuedMaxBytes(int queuedMaxBytes);
+
+      /**
+       * When set, spans that fail to send, or don't fit in the pending queue, are spilled to
+       * memory-mapped files in this directory, and replayed once sending succeeds again. Spans
+       * pending on close are replayed by the next collector using the same directory.
+       *
+       * <p>Note: only failures raised by the producer when sending, such as a metadata timeout,
+       * are spilled. Errors acknowledging a message are not visible to this collector.
+       */
+      Builder spillDirectory(@Nullable File spillDirectory);
+
+      /**
+       * Default 16 MiB. Upper bound of disk used in the {@link #spillDirectory(File) spill
+       * directory}.
+       */
+      Builder spillMaxBytes(int spillMaxBytes);
+
       Config build();
     }
   }
 
+  static final byte[] HEX_DIGITS =
+      {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+  /** Orders spans by trace ID, keeping the order of spans in the same trace. */
+  static final Comparator<Span> TRACE_ID_ORDER = new Comparator<Span>() {
+    @Override public int compare(Span left, Span right) {
+      int result = compare(left.getTrace_id_high(), right.getTrace_id_high());
+      if (result != 0) return result;
+      return compare(left.getTrace_id(), right.getTrace_id());
+    }
+
+    int compare(long x, long y) {
+      return (x < y) ? -1 : ((x == y) ? 0 : 1);
+    }
+  };
+
   private final Producer<byte[], byte[]> producer;
 
   private final String topic;
 
+  private final boolean keyByTraceId;
+
   /**
    * Create a new instance with default configuration.
    *
@@ -92,9 +182,69 @@ public final class KafkaSpanCollector extends AbstractSpanCollector {
 
   // Visible for testing. Ex when tests need to explicitly control flushing, set interval to 0.
   KafkaSpanCollector(Config config, SpanCollectorMetricsHandler metrics) {
-    super(SpanCodec.THRIFT, metrics, config.flushInterval());
-    this.producer = new KafkaProducer<>(config.kafkaProperties());
+    this(config, metrics, new KafkaProducer<>(producerProperties(config)));
+  }
+
+  KafkaSpanCollector(Config config, SpanCollectorMetricsHandler metrics,
+      Producer<byte[], byte[]> producer) {
+    super(DirectSpanCodec.THRIFT, metrics, config.flushInterval(), config.pendingQueue(),
+        config.queuedMaxBytes(), config.spillDirectory(), config.spillMaxBytes());
+    this.producer = producer;
     this.topic = config.topic();
+    this.keyByTraceId = config.keyByTraceId();
+  }
+
+  static Properties producerProperties(Config config) {
+    Properties result = new Properties();
+    result.putAll(config.kafkaProperties());
+    if (config.compressionType() != null) {
+      result.put("compression.type", config.compressionType());
+    }
+    if (config.lingerMs() != null) {
+      result.put("linger.ms", config.lingerMs().toString());
+    }
+    return result;
+  }
+
+  @Override
+  protected void reportSpans(List<Span> drained) throws IOException {
+    if (!keyByTraceId) {
+      super.reportSpans(drained);
+      return;
+    }
+    Collections.sort(drained, TRACE_ID_ORDER);
+    for (int i = 0, length = drained.size(); i < length; ) {
+      Span first = drained.get(i);
+      int end = i + 1;
+      while (end < length && TRACE_ID_ORDER.compare(first, drained.get(end)) == 0) end++;
+      try {
+        byte[] thrift = DirectSpanCodec.THRIFT.writeSpans(drained.subList(i, end));
+        producer.send(new ProducerRecord<byte[], byte[]>(this.topic, traceIdKey(first), thrift));
+      } catch (RuntimeException e) {
+        drained.subList(0, i).clear(); // traces already sent aren't spilled or dropped
+        throw e;
+      }
+      i = end;
+    }
+  }
+
+  /** Returns the lower-hex trace ID, which is 32 characters when the trace ID is 128-bit. */
+  static byte[] traceIdKey(Span span) {
+    long traceIdHigh = span.getTrace_id_high();
+    byte[] result = new byte[traceIdHigh != 0 ? 32 : 16];
+    int pos = 0;
+    if (traceIdHigh != 0) {
+      writeHexLong(result, pos, traceIdHigh);
+      pos += 16;
+    }
+    writeHexLong(result, pos, span.getTrace_id());
+    return result;
+  }
+
+  static void writeHexLong(byte[] data, int pos, long v) {
+    for (int shift = 60; shift >= 0; shift -= 4) {
+      data[pos++] = HEX_DIGITS[(int) ((v >>> shift) & 0xf)];
+    }
   }
 
   @Override
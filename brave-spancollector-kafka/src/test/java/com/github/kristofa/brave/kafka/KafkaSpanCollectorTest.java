@@ -15,10 +15,14 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 import kafka.serializer.DefaultDecoder;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
 import org.junit.After;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 import zipkin.Codec;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -32,6 +36,8 @@ public class KafkaSpanCollectorTest {
   public KafkaJunitRule kafka = new KafkaJunitRule();
   @Rule
   public ExpectedException thrown = ExpectedException.none();
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
 
   TestMetricsHander metrics = new TestMetricsHander();
   // set flush interval to 0 so that tests can drive flushing explicitly
@@ -88,6 +94,90 @@ public class KafkaSpanCollectorTest {
     );
   }
 
+  @Test
+  public void keyByTraceId_sendsMessagePerTrace() throws Exception {
+    collector.close();
+    collector = new KafkaSpanCollector(Config.builder("localhost:" + kafka.kafkaBrokerPort())
+        .flushInterval(0).keyByTraceId(true).build(), metrics);
+
+    Span child = InternalSpan.instance.toSpan(
+        SpanId.builder().traceId(1L).parentId(1L).spanId(3L).build());
+    collector.collect(span(1L));
+    collector.collect(span(2L));
+    collector.collect(child);
+
+    collector.flush(); // manually flush the spans
+
+    List<byte[]> messages = kafka.readMessages("zipkin", 2,
+        new DefaultDecoder(kafka.consumerConfig().props()));
+    assertThat(messages).extracting(m -> Codec.THRIFT.readSpans(m).size())
+        .containsOnly(1, 2);
+    for (byte[] message : messages) {
+      List<zipkin.Span> trace = Codec.THRIFT.readSpans(message);
+      assertThat(trace).extracting(span -> span.traceId).containsOnly(trace.get(0).traceId);
+    }
+  }
+
+  @Test
+  public void keyByTraceId_spillsOnlyTracesNotSent() throws Exception {
+    collector.close();
+    boolean[] fail = {true};
+    MockProducer producer = new MockProducer(true) {
+      @Override public synchronized Future<RecordMetadata> send(
+          ProducerRecord<byte[], byte[]> record) {
+        if (fail[0] && !history().isEmpty()) throw new IllegalStateException("buffer exhausted");
+        return super.send(record);
+      }
+    };
+    collector = new KafkaSpanCollector(Config.builder("localhost:" + kafka.kafkaBrokerPort())
+        .flushInterval(0).keyByTraceId(true).spillDirectory(folder.getRoot()).build(), metrics,
+        producer);
+
+    collector.collect(span(1L));
+    collector.collect(span(2L));
+    collector.collect(span(3L));
+    collector.flush(); // the second send fails
+    assertThat(producer.history()).hasSize(1);
+
+    fail[0] = false;
+    collector.flush(); // replays what wasn't sent
+
+    assertThat(producer.history())
+        .extracting(record -> Codec.THRIFT.readSpans(record.value()).get(0).traceId)
+        .containsExactly(1L, 2L, 3L);
+    assertThat(metrics.droppedSpans.get()).isZero();
+  }
+
+  @Test
+  public void traceIdKey() throws Exception {
+    assertThat(new String(KafkaSpanCollector.traceIdKey(span(1L)), "UTF-8"))
+        .isEqualTo("0000000000000001");
+
+    Span span128 = InternalSpan.instance.toSpan(
+        SpanId.builder().traceIdHigh(2L).traceId(1L).spanId(1L).build());
+    assertThat(new String(KafkaSpanCollector.traceIdKey(span128), "UTF-8"))
+        .isEqualTo("00000000000000020000000000000001");
+  }
+
+  @Test
+  public void producerProperties_overridesCompressionAndLinger() {
+    Config config = Config.builder("localhost:" + kafka.kafkaBrokerPort())
+        .compressionType("gzip").lingerMs(5).build();
+
+    assertThat(KafkaSpanCollector.producerProperties(config))
+        .containsEntry("compression.type", "gzip")
+        .containsEntry("linger.ms", "5")
+        .containsEntry("bootstrap.servers", "localhost:" + kafka.kafkaBrokerPort());
+    assertThat(config.kafkaProperties())
+        .doesNotContainKey("compression.type");
+  }
+
+  @Test
+  public void producerProperties_unsetLeavesKafkaProperties() {
+    assertThat(KafkaSpanCollector.producerProperties(config))
+        .isEqualTo(config.kafkaProperties());
+  }
+
   @Test
   public void submitMultipleSpansInParallel() throws Exception {
     Callable<Void> spanProducer1 = () -> {
@@ -0,0 +1,143 @@
+package com.github.kristofa.brave.local;
+
+import com.github.kristofa.brave.EmptySpanCollectorMetricsHandler;
+import com.github.kristofa.brave.SpanCollectorMetricsHandler;
+import com.google.auto.value.AutoValue;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import zipkin.Span;
+import zipkin.reporter.Reporter;
+import zipkin.storage.AsyncSpanConsumer;
+import zipkin.storage.Callback;
+import zipkin.storage.StorageComponent;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Reporter which submits spans directly to a Zipkin {@link StorageComponent}, in batches.
+ *
+ * <p>Unlike {@link LocalSpanCollector}, this accepts the {@link zipkin.Span spans} recorded when
+ * {@link com.github.kristofa.brave.Brave.Builder#reporter(Reporter) Brave is configured with a
+ * reporter}, and hands them to storage as-is. There's no conversion to or from Brave's thrift
+ * model.
+ *
+ * @since 3.18
+ */
+public final class LocalReporter implements Reporter<Span>, Flushable, Closeable {
+
+  @AutoValue
+  public static abstract class Config {
+    public static Builder builder() {
+      return new AutoValue_LocalReporter_Config.Builder()
+          .flushInterval(1)
+          .queuedMaxSpans(1000);
+    }
+
+    abstract int flushInterval();
+
+    abstract int queuedMaxSpans();
+
+    @AutoValue.Builder
+    public interface Builder {
+      /** Default 1 second. 0 implies spans are {@link #flush() flushed} externally. */
+      Builder flushInterval(int flushInterval);
+
+      /** Default 1000. Spans reported when this many are pending flush are dropped. */
+      Builder queuedMaxSpans(int queuedMaxSpans);
+
+      Config build();
+    }
+  }
+
+  private final StorageComponent storageComponent;
+  private final SpanCollectorMetricsHandler metrics;
+  private final BlockingQueue<Span> pending;
+  private final ScheduledExecutorService flusher;
+
+  /**
+   * Create a new instance with default configuration.
+   *
+   * @param storageComponent spans will be written asynchronously to this
+   * @param metrics Gets notified when spans are accepted or dropped. If you are not interested in
+   *                these events you can use {@linkplain EmptySpanCollectorMetricsHandler}
+   */
+  public static LocalReporter create(StorageComponent storageComponent,
+      SpanCollectorMetricsHandler metrics) {
+    return new LocalReporter(storageComponent, Config.builder().build(), metrics);
+  }
+
+  /**
+   * @param storageComponent spans will be written asynchronously to this
+   * @param config includes flush interval and queue size
+   * @param metrics Gets notified when spans are accepted or dropped. If you are not interested in
+   *                these events you can use {@linkplain EmptySpanCollectorMetricsHandler}
+   */
+  public static LocalReporter create(StorageComponent storageComponent, Config config,
+      SpanCollectorMetricsHandler metrics) {
+    return new LocalReporter(storageComponent, config, metrics);
+  }
+
+  // Visible for testing. Ex when tests need to explicitly control flushing, set interval to 0.
+  LocalReporter(StorageComponent storageComponent, Config config,
+      SpanCollectorMetricsHandler metrics) {
+    this.storageComponent = storageComponent;
+    this.metrics = metrics;
+    this.pending = new LinkedBlockingQueue<Span>(config.queuedMaxSpans());
+    if (config.flushInterval() > 0) {
+      this.flusher = Executors.newSingleThreadScheduledExecutor(
+          r -> new Thread(r, LocalReporter.class.getSimpleName()));
+      this.flusher.scheduleWithFixedDelay(this::flush, 0, config.flushInterval(), SECONDS);
+    } else {
+      this.flusher = null;
+    }
+  }
+
+  /** Queues the span for storage, or drops it if the queue is full. */
+  @Override public void report(Span span) {
+    metrics.incrementAcceptedSpans(1);
+    if (!pending.offer(span)) {
+      metrics.incrementDroppedSpans(1);
+    }
+  }
+
+  /** Calling this will hand any pending spans to storage on the current thread. */
+  @Override public void flush() {
+    int size = pending.size();
+    if (size == 0) return;
+    // The consumer may hold the list until storage completes, so it isn't reused between flushes.
+    final List<Span> drained = new ArrayList<Span>(size);
+    pending.drainTo(drained);
+    if (drained.isEmpty()) return;
+
+    try {
+      // This dereferences a lazy, which might throw an exception if the storage system is down.
+      AsyncSpanConsumer asyncSpanConsumer = storageComponent.asyncSpanConsumer();
+      asyncSpanConsumer.accept(drained, new Callback<Void>() {
+        @Override public void onSuccess(Void ignored) {
+        }
+
+        @Override public void onError(Throwable throwable) {
+          metrics.incrementDroppedSpans(drained.size());
+        }
+      });
+    } catch (RuntimeException e) {
+      metrics.incrementDroppedSpans(drained.size());
+    }
+  }
+
+  /**
+   * Requests a cease of delivery. There will be at most one in-flight flush after this call.
+   */
+  @Override public void close() {
+    if (flusher != null) flusher.shutdown();
+    // throw any outstanding spans on the floor
+    int dropped = pending.drainTo(new ArrayList<Span>(pending.size()));
+    metrics.incrementDroppedSpans(dropped);
+  }
+}
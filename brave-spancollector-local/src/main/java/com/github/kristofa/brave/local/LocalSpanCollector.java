@@ -27,16 +27,35 @@ public final class LocalSpanCollector extends FlushingSpanCollector {
   public static abstract class Config {
     public static Builder builder() {
       return new AutoValue_LocalSpanCollector_Config.Builder()
-          .flushInterval(1);
+          .flushInterval(1)
+          .pendingQueue(PendingQueue.LINKED)
+          .queuedMaxBytes(DEFAULT_QUEUED_MAX_BYTES);
     }
 
     abstract int flushInterval();
 
+    abstract PendingQueue pendingQueue();
+
+    abstract int queuedMaxBytes();
+
     @AutoValue.Builder
     public interface Builder {
       /** Default 1 second. 0 implies spans are {@link #flush() flushed} externally. */
       Builder flushInterval(int flushInterval);
 
+      /**
+       * Default {@link PendingQueue#LINKED}. {@link PendingQueue#RING_BUFFER} avoids locking and
+       * allocation when many threads collect spans. {@link PendingQueue#BYTE_BOUNDED} bounds memory
+       * when span size varies.
+       */
+      Builder pendingQueue(PendingQueue pendingQueue);
+
+      /**
+       * Default 1% of the maximum heap. Maximum estimated bytes of spans pending flush, when {@link
+       * #pendingQueue(PendingQueue) the pending queue} is {@link PendingQueue#BYTE_BOUNDED}.
+       */
+      Builder queuedMaxBytes(int queuedMaxBytes);
+
       Config build();
     }
   }
@@ -70,7 +89,8 @@ public final class LocalSpanCollector extends FlushingSpanCollector {
   // Visible for testing. Ex when tests need to explicitly control flushing, set interval to 0.
   LocalSpanCollector(StorageComponent storageComponent, Config config,
       SpanCollectorMetricsHandler metrics) {
-    super(metrics, config.flushInterval());
+    super(metrics, config.flushInterval(), config.pendingQueue(),
+        config.queuedMaxBytes());
     this.storageComponent = storageComponent;
     this.metrics = metrics;
   }
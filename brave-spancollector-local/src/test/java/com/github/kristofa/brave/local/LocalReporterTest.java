@@ -0,0 +1,145 @@
+package com.github.kristofa.brave.local;
+
+import com.github.kristofa.brave.Brave;
+import com.github.kristofa.brave.LocalTracer;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import zipkin.Span;
+import zipkin.storage.AsyncSpanConsumer;
+import zipkin.storage.AsyncSpanStore;
+import zipkin.storage.InMemoryStorage;
+import zipkin.storage.SpanStore;
+import zipkin.storage.StorageComponent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LocalReporterTest {
+
+  public final InMemoryStorage storage = new InMemoryStorage();
+
+  LocalSpanCollectorTest.TestMetricsHander metrics =
+      new LocalSpanCollectorTest.TestMetricsHander();
+  // set flush interval to 0 so that tests can drive flushing explicitly
+  LocalReporter.Config config = LocalReporter.Config.builder().flushInterval(0).build();
+
+  @Test
+  public void reportDoesntDoIO() throws Exception {
+    LocalReporter reporter = newLocalReporter((spans, callback) -> {
+      throw new AssertionError("spans should only be stored on flush!");
+    });
+
+    reporter.report(span(1L));
+
+    assertThat(metrics.acceptedSpans.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void dropsWhenQueueIsFull() throws Exception {
+    config = LocalReporter.Config.builder().flushInterval(0).queuedMaxSpans(2).build();
+    LocalReporter reporter = newLocalReporter((spans, callback) -> {
+    });
+
+    for (int i = 0; i < 3; i++)
+      reporter.report(span(1L));
+
+    assertThat(metrics.acceptedSpans.get()).isEqualTo(3);
+    assertThat(metrics.droppedSpans.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void handsSameSpanInstancesToStorage_inOneBatch() throws Exception {
+    List<List<Span>> batches = new ArrayList<>();
+    LocalReporter reporter = newLocalReporter((spans, callback) -> batches.add(spans));
+
+    Span one = span(1L), two = span(2L);
+    reporter.report(one);
+    reporter.report(two);
+
+    reporter.flush(); // manually flush the spans
+
+    assertThat(batches).hasSize(1);
+    assertThat(batches.get(0)).containsExactly(one, two);
+    assertThat(batches.get(0).get(0)).isSameAs(one);
+  }
+
+  @Test
+  public void incrementsDroppedSpans_exceptionOnCallingThread() throws Exception {
+    LocalReporter reporter = newLocalReporter((spans, callback) -> {
+      throw new RuntimeException("couldn't store");
+    });
+
+    reporter.report(span(1L));
+    reporter.report(span(2L));
+
+    reporter.flush(); // manually flush the spans
+
+    assertThat(metrics.droppedSpans.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void incrementsDroppedSpans_exceptionOnCallbackThread() throws Exception {
+    LocalReporter reporter = newLocalReporter((spans, callback) ->
+        callback.onError(new RuntimeException("couldn't store")));
+
+    reporter.report(span(1L));
+    reporter.report(span(2L));
+
+    reporter.flush(); // manually flush the spans
+
+    assertThat(metrics.droppedSpans.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void closeDropsPendingSpans() throws Exception {
+    LocalReporter reporter = newLocalReporter((spans, callback) -> {
+    });
+
+    reporter.report(span(1L));
+    reporter.close();
+
+    assertThat(metrics.droppedSpans.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void storesSpansRecordedByBrave() throws Exception {
+    LocalReporter reporter = new LocalReporter(storage, config, metrics);
+    Brave brave = new Brave.Builder("local").reporter(reporter).build();
+
+    LocalTracer localTracer = brave.localTracer();
+    localTracer.startNewSpan("component", "operation");
+    localTracer.finishSpan();
+
+    reporter.flush(); // manually flush the spans
+
+    assertThat(storage.spanStore().getRawTraces()).hasSize(1);
+  }
+
+  static Span span(long traceId) {
+    return Span.builder().traceId(traceId).id(traceId).name("").build();
+  }
+
+  LocalReporter newLocalReporter(AsyncSpanConsumer consumer) {
+    return new LocalReporter(new StorageComponent() {
+      @Override public SpanStore spanStore() {
+        throw new AssertionError();
+      }
+
+      @Override public AsyncSpanStore asyncSpanStore() {
+        throw new AssertionError();
+      }
+
+      @Override public AsyncSpanConsumer asyncSpanConsumer() {
+        return consumer;
+      }
+
+      @Override public CheckResult check() {
+        return CheckResult.OK;
+      }
+
+      @Override public void close() {
+        throw new AssertionError();
+      }
+    }, config, metrics);
+  }
+}
@@ -1,8 +1,10 @@
 package com.github.kristofa.brave.local;
 
+import com.github.kristofa.brave.FlushingSpanCollector.PendingQueue;
 import com.github.kristofa.brave.SpanCollectorMetricsHandler;
 import com.github.kristofa.brave.SpanId;
 import com.github.kristofa.brave.internal.InternalSpan;
+import com.twitter.zipkin.gen.BinaryAnnotation;
 import com.twitter.zipkin.gen.Span;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Test;
@@ -61,6 +63,25 @@ public class LocalSpanCollectorTest {
     assertThat(metrics.droppedSpans.get()).isEqualTo(1);
   }
 
+  @Test
+  public void byteBounded_dropsLargeSpansButNotSmallOnes() throws Exception {
+    config = LocalSpanCollector.Config.builder().flushInterval(0)
+        .pendingQueue(PendingQueue.BYTE_BOUNDED)
+        .queuedMaxBytes(1024).build();
+    LocalSpanCollector collector = newLocalSpanCollector((spans, callback) -> {
+    });
+
+    Span large = span(1L);
+    String sql = new String(new char[1024]);
+    large.addToBinary_annotations(BinaryAnnotation.create("sql.query", sql, null));
+    collector.collect(large);
+    for (int i = 0; i < 10; i++)
+      collector.collect(span(2L));
+
+    assertThat(metrics.acceptedSpans.get()).isEqualTo(11);
+    assertThat(metrics.droppedSpans.get()).isEqualTo(1);
+  }
+
   @Test
   public void bundlesSpansIntoOneMessage() throws Exception {
     AtomicInteger spanCount = new AtomicInteger();
@@ -106,7 +127,7 @@ public class LocalSpanCollectorTest {
     assertThat(metrics.droppedSpans.get()).isEqualTo(2);
   }
 
-  class TestMetricsHander implements SpanCollectorMetricsHandler {
+  static class TestMetricsHander implements SpanCollectorMetricsHandler {
 
     final AtomicInteger acceptedSpans = new AtomicInteger();
     final AtomicInteger droppedSpans = new AtomicInteger();
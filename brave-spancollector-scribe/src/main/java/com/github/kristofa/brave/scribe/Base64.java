@@ -18,16 +18,35 @@ final class Base64 {
   };
 
   static String encode(byte[] in) {
-    int length = (in.length + 2) * 4 / 3;
-    byte[] out = new byte[length];
-    int index = 0, end = in.length - in.length % 3;
+    byte[] out = new byte[encodedLength(in.length)];
+    int length = encode(in, in.length, out);
+    try {
+      return new String(out, 0, length, "US-ASCII");
+    } catch (UnsupportedEncodingException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  /** Returns the count of ASCII bytes needed to encode the input length, including padding. */
+  static int encodedLength(int inLength) {
+    return (inLength + 2) / 3 * 4;
+  }
+
+  /**
+   * Encodes the first inLength bytes of the input into the output, which must have room for
+   * {@link #encodedLength(int)} bytes.
+   *
+   * @return the count of bytes written
+   */
+  static int encode(byte[] in, int inLength, byte[] out) {
+    int index = 0, end = inLength - inLength % 3;
     for (int i = 0; i < end; i += 3) {
       out[index++] = MAP[(in[i] & 0xff) >> 2];
       out[index++] = MAP[((in[i] & 0x03) << 4) | ((in[i + 1] & 0xff) >> 4)];
       out[index++] = MAP[((in[i + 1] & 0x0f) << 2) | ((in[i + 2] & 0xff) >> 6)];
       out[index++] = MAP[(in[i + 2] & 0x3f)];
     }
-    switch (in.length % 3) {
+    switch (inLength % 3) {
       case 1:
         out[index++] = MAP[(in[end] & 0xff) >> 2];
         out[index++] = MAP[(in[end] & 0x03) << 4];
@@ -41,10 +60,6 @@ final class Base64 {
         out[index++] = '=';
         break;
     }
-    try {
-      return new String(out, 0, index, "US-ASCII");
-    } catch (UnsupportedEncodingException e) {
-      throw new AssertionError(e);
-    }
+    return index;
   }
 }
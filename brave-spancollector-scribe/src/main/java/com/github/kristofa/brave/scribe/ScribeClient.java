@@ -0,0 +1,111 @@
+package com.github.kristofa.brave.scribe;
+
+import java.util.List;
+
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.protocol.TField;
+import org.apache.thrift.protocol.TList;
+import org.apache.thrift.protocol.TMessage;
+import org.apache.thrift.protocol.TMessageType;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.protocol.TStruct;
+import org.apache.thrift.protocol.TType;
+import org.apache.thrift.transport.TTransport;
+
+import com.github.kristofa.brave.internal.DirectSpanCodec;
+import com.github.kristofa.brave.internal.DirectSpanCodec.Buffer;
+import com.twitter.zipkin.gen.ResultCode;
+import com.twitter.zipkin.gen.Span;
+import com.twitter.zipkin.gen.scribe.Client;
+
+/**
+ * Scribe client which logs spans without creating a {@link com.twitter.zipkin.gen.LogEntry} for each.
+ * <p/>
+ * Each span is thrift encoded into a buffer reused across calls, then base64 encoded into another reused buffer
+ * which is written to the transport as the log entry message. The bytes on the wire are the same as
+ * {@link Client#Log(List)} would write for entries in the "zipkin" category.
+ * <p/>
+ * Only works with {@link TBinaryProtocol}, as strings are written in its encoding. Not thread-safe.
+ *
+ * @see ScribeClientProvider
+ */
+class ScribeClient extends Client {
+
+    /** Buffers larger than this are not retained between spans. */
+    static final int MAX_RETAINED_BUFFER = 64 * 1024;
+
+    private static final TStruct LOG_ARGS = new TStruct("Log_args");
+    private static final TField MESSAGES_FIELD = new TField("messages", TType.LIST, (short) 1);
+    private static final TStruct LOG_ENTRY = new TStruct("LogEntry");
+    private static final TField CATEGORY_FIELD = new TField("category", TType.STRING, (short) 1);
+    private static final TField MESSAGE_FIELD = new TField("message", TType.STRING, (short) 2);
+    private static final byte[] CATEGORY = {'z', 'i', 'p', 'k', 'i', 'n'};
+
+    private Buffer thrift = new Buffer(1024);
+    private byte[] base64 = new byte[Base64.encodedLength(1024)];
+
+    ScribeClient(final TBinaryProtocol protocol) {
+        super(protocol);
+    }
+
+    /**
+     * Logs the spans in the "zipkin" category.
+     *
+     * @param spans Spans to log.
+     * @return Result code from the scribe server.
+     */
+    ResultCode log(final List<Span> spans) throws TException {
+        send(spans);
+        return recv_Log();
+    }
+
+    void send(final List<Span> spans) throws TException {
+        final TProtocol oprot = getOutputProtocol();
+        oprot.writeMessageBegin(new TMessage("Log", TMessageType.CALL, ++seqid_));
+        oprot.writeStructBegin(LOG_ARGS);
+        oprot.writeFieldBegin(MESSAGES_FIELD);
+        oprot.writeListBegin(new TList(TType.STRUCT, spans.size()));
+        for (int i = 0, length = spans.size(); i < length; i++) {
+            writeLogEntry(oprot, spans.get(i));
+        }
+        oprot.writeListEnd();
+        oprot.writeFieldEnd();
+        oprot.writeFieldStop();
+        oprot.writeStructEnd();
+        oprot.writeMessageEnd();
+        oprot.getTransport().flush();
+    }
+
+    private void writeLogEntry(final TProtocol oprot, final Span span) throws TException {
+        thrift.clear();
+        DirectSpanCodec.THRIFT.writeSpan(span, thrift);
+        final int encodedLength = Base64.encodedLength(thrift.size());
+        if (base64.length < encodedLength) {
+            base64 = new byte[encodedLength];
+        }
+        final int messageLength = Base64.encode(thrift.array(), thrift.size(), base64);
+
+        oprot.writeStructBegin(LOG_ENTRY);
+        oprot.writeFieldBegin(CATEGORY_FIELD);
+        writeAscii(oprot, CATEGORY, CATEGORY.length);
+        oprot.writeFieldEnd();
+        oprot.writeFieldBegin(MESSAGE_FIELD);
+        writeAscii(oprot, base64, messageLength);
+        oprot.writeFieldEnd();
+        oprot.writeFieldStop();
+        oprot.writeStructEnd();
+
+        if (thrift.array().length > MAX_RETAINED_BUFFER) {
+            thrift = new Buffer(1024);
+            base64 = new byte[Base64.encodedLength(1024)];
+        }
+    }
+
+    /** Same as {@link TBinaryProtocol#writeString(String)}, except without encoding a string. */
+    private static void writeAscii(final TProtocol oprot, final byte[] ascii, final int length) throws TException {
+        oprot.writeI32(length);
+        final TTransport transport = oprot.getTransport();
+        transport.write(ascii, 0, length);
+    }
+}
@@ -5,14 +5,11 @@ import java.util.logging.Logger;
 
 import org.apache.thrift.TException;
 import org.apache.thrift.protocol.TBinaryProtocol;
-import org.apache.thrift.protocol.TProtocol;
 import org.apache.thrift.transport.TFramedTransport;
 import org.apache.thrift.transport.TSocket;
 import org.apache.thrift.transport.TTransport;
 import org.apache.thrift.transport.TTransportException;
 
-import com.twitter.zipkin.gen.scribe.Client;
-
 import static com.github.kristofa.brave.internal.Util.checkNotBlank;
 
 /**
@@ -20,7 +17,7 @@ import static com.github.kristofa.brave.internal.Util.checkNotBlank;
  * 
  * @author kristof
  */
-class ScribeClientProvider implements ThriftClientProvider<Client> {
+class ScribeClientProvider implements ThriftClientProvider<ScribeClient> {
 
     private final static Logger LOGGER = Logger.getLogger(ScribeClientProvider.class.getName());
 
@@ -28,7 +25,7 @@ class ScribeClientProvider implements ThriftClientProvider<Client> {
     private final int port;
     private final int timeout;
     private TTransport transport;
-    private Client client;
+    private ScribeClient client;
 
     /**
      * Create a new instance.
@@ -51,8 +48,7 @@ class ScribeClientProvider implements ThriftClientProvider<Client> {
         final TSocket socket = new TSocket(host, port);
         socket.setTimeout(timeout);
         transport = new TFramedTransport(socket);
-        final TProtocol protocol = new TBinaryProtocol(transport);
-        client = new Client(protocol);
+        client = new ScribeClient(new TBinaryProtocol(transport));
         transport.open();
     }
 
@@ -60,7 +56,7 @@ class ScribeClientProvider implements ThriftClientProvider<Client> {
      * {@inheritDoc}
      */
     @Override
-    public Client getClient() {
+    public ScribeClient getClient() {
         return client;
     }
 
@@ -68,7 +64,7 @@ class ScribeClientProvider implements ThriftClientProvider<Client> {
      * {@inheritDoc}
      */
     @Override
-    public Client exception(final TException exception) {
+    public ScribeClient exception(final TException exception) {
         if (exception instanceof TTransportException) {
             LOGGER.log(Level.FINE, "TransportException detected, closing current connection and opening new one", exception);
             // Close existing transport.
@@ -31,6 +31,10 @@ import static com.github.kristofa.brave.internal.Util.checkNotNull;
  * This SpanCollector is implemented so it puts spans on a queue which are processed by a separate thread. In this way we are
  * submitting spans asynchronously and we should have minimal overhead on application performance.
  * </p>
+ * <p>
+ * Each processing thread has its own queue, so that producers don't all contend on one lock. A producer thread offers
+ * to the same queue each time, and only tries the others when that is full.
+ * </p>
  *
  * @author kristof
  *
@@ -43,7 +47,7 @@ public class ScribeSpanCollector implements SpanCollector, Closeable {
     private static final String UTF_8 = "UTF-8";
     private static final Logger LOGGER = Logger.getLogger(ScribeSpanCollector.class.getName());
 
-    private final BlockingQueue<Span> spanQueue;
+    private final List<BlockingQueue<Span>> spanQueues = new ArrayList<>();
     private final ExecutorService executorService;
     private final List<SpanProcessingThread> spanProcessingThreads = new ArrayList<>();
     private final List<ScribeClientProvider> clientProviders = new ArrayList<>();
@@ -75,16 +79,19 @@ public class ScribeSpanCollector implements SpanCollector, Closeable {
         checkNotNull(params, "Null params");
 
         metricsHandler = params.getMetricsHandler();
-        spanQueue = new ArrayBlockingQueue<Span>(params.getQueueSize());
         executorService = Executors.newFixedThreadPool(params.getNrOfThreads());
+        // round up, so that each queue holds at least one span
+        final int queueSize = (params.getQueueSize() + params.getNrOfThreads() - 1) / params.getNrOfThreads();
 
         for (int i = 1; i <= params.getNrOfThreads(); i++) {
+            final BlockingQueue<Span> spanQueue = new ArrayBlockingQueue<Span>(queueSize);
 
             // Creating a client provider for every spanProcessingThread.
             ScribeClientProvider clientProvider = createZipkinCollectorClientProvider(host,
                     port, params);
             final SpanProcessingThread spanProcessingThread = new SpanProcessingThread(spanQueue, clientProvider,
-                    params.getBatchSize(), metricsHandler);
+                    params.getBatchSize(), params.getMaxLingerMillis(), metricsHandler);
+            spanQueues.add(spanQueue);
             spanProcessingThreads.add(spanProcessingThread);
             clientProviders.add(clientProvider);
             futures.add(executorService.submit(spanProcessingThread));
@@ -122,7 +129,7 @@ public class ScribeSpanCollector implements SpanCollector, Closeable {
             }
         }
 
-        final boolean offer = spanQueue.offer(span);
+        final boolean offer = offer(span);
         if (!offer) {
             LOGGER.warning("Queue rejected Span, span not submitted: "+ span);
             metricsHandler.incrementDroppedSpans(1);
@@ -134,6 +141,18 @@ public class ScribeSpanCollector implements SpanCollector, Closeable {
         }
     }
 
+    /**
+     * Offers the span to the queue of the current thread, falling back to the other queues when that is full.
+     */
+    private boolean offer(final Span span) {
+        final int nrOfQueues = spanQueues.size();
+        final int home = (int) (Thread.currentThread().getId() % nrOfQueues);
+        for (int i = 0; i < nrOfQueues; i++) {
+            if (spanQueues.get((home + i) % nrOfQueues).offer(span)) return true;
+        }
+        return false;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -164,7 +183,9 @@ public class ScribeSpanCollector implements SpanCollector, Closeable {
             clientProvider.close();
         }
         executorService.shutdown();
-        metricsHandler.incrementDroppedSpans(spanQueue.size());
+        for (final BlockingQueue<Span> spanQueue : spanQueues) {
+            metricsHandler.incrementDroppedSpans(spanQueue.size());
+        }
         LOGGER.info("ScribeSpanCollector closed.");
     }
 
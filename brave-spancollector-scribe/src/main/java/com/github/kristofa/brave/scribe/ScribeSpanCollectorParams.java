@@ -13,6 +13,7 @@ import static com.github.kristofa.brave.internal.Util.checkNotNull;
  * <li>queue size: Size of the queue that is used as buffer between producers of spans and the thread(s) that submit the
  * spans to collector.</li>
  * <li>batch size: The maximum number of spans that is submitted at once to collector of spans.</li>
+ * <li>max linger: Time in milliseconds a span waits for its batch to fill up before being submitted anyway.</li>
  * <li>number of threads: The number of parallel threads for submitting spans to collector.</li>
  * <li>socket time out: Time in milliseconds after which our socket connections will time out. When it times out an exception
  * will be thrown.</li>
@@ -29,11 +30,13 @@ public class ScribeSpanCollectorParams {
     public int DEFAULT_BATCH_SIZE = 10;
     public int DEFAULT_NR_OF_THREADS = 1;
     public int DEFAULT_SOCKET_TIMEOUT = 5000;
+    public int DEFAULT_MAX_LINGER_MILLIS = 1000;
 
     private int queueSize;
     private int batchSize;
     private int nrOfThreads;
     private int socketTimeout;
+    private int maxLingerMillis;
     private boolean failOnSetup = true;
     private SpanCollectorMetricsHandler metricsHandler = new EmptySpanCollectorMetricsHandler();
 
@@ -45,6 +48,7 @@ public class ScribeSpanCollectorParams {
         batchSize = DEFAULT_BATCH_SIZE;
         nrOfThreads = DEFAULT_NR_OF_THREADS;
         socketTimeout = DEFAULT_SOCKET_TIMEOUT;
+        maxLingerMillis = DEFAULT_MAX_LINGER_MILLIS;
     }
 
     /**
@@ -58,7 +62,7 @@ public class ScribeSpanCollectorParams {
 
     /**
      * Sets the size of the queue that is used as buffer between producers of spans and the thread(s) that submit the spans
-     * to collector.
+     * to collector. This is split evenly across the threads, as each has its own queue.
      * 
      * @param queueSize Queue size.
      */
@@ -86,6 +90,26 @@ public class ScribeSpanCollectorParams {
         this.batchSize = batchSize;
     }
 
+    /**
+     * Gets the max linger.
+     *
+     * @return Max linger in milliseconds.
+     */
+    public int getMaxLingerMillis() {
+        return maxLingerMillis;
+    }
+
+    /**
+     * Sets the max linger. This is how long a span waits for its batch to fill up before the batch is submitted anyway.
+     * Lower values reduce latency, while higher values send larger batches when spans are infrequent.
+     *
+     * @param maxLingerMillis Max linger in milliseconds. Zero submits whatever is queued without waiting.
+     */
+    public void setMaxLingerMillis(final int maxLingerMillis) {
+        if (maxLingerMillis < 0) throw new IllegalArgumentException("maxLingerMillis must not be negative");
+        this.maxLingerMillis = maxLingerMillis;
+    }
+
     /**
      * Gets the number of threads.
      * 
@@ -1,6 +1,5 @@
 package com.github.kristofa.brave.scribe;
 
-import com.twitter.zipkin.gen.SpanCodec;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
@@ -11,23 +10,20 @@ import java.util.logging.Logger;
 
 import com.github.kristofa.brave.SpanCollectorMetricsHandler;
 import org.apache.thrift.TException;
-import org.apache.thrift.protocol.TBinaryProtocol;
-import org.apache.thrift.protocol.TProtocolFactory;
 
-import com.twitter.zipkin.gen.LogEntry;
 import com.twitter.zipkin.gen.Span;
-import com.twitter.zipkin.gen.scribe.Client;
 
 import static com.github.kristofa.brave.internal.Util.checkNotNull;
 import static java.lang.String.format;
 
 /**
  * Thread implementation that is responsible for submitting spans to a Scribe compatible destination. The thread takes
- * spans from a queue. The spans are produced by {@link ScribeSpanCollector} put on a queue and consumed and processed by
- * this thread.
+ * spans from its own queue. The spans are produced by {@link ScribeSpanCollector} put on a queue and consumed and
+ * processed by this thread.
  * <p/>
- * We will try to buffer spans and send them in batches to minimize communication overhead. However if the batch size is not
- * reached within 2 polls (max 10 seconds) the available spans will be sent over anyway.
+ * We will try to buffer spans and send them in batches to minimize communication overhead. Spans are drained from the
+ * queue in bulk. However if the batch size is not reached within the max linger after the first span of a batch, the
+ * available spans will be sent over anyway. On stop, spans still queued are sent before the thread ends.
  * 
  * @see ScribeSpanCollector
  * @author kristof
@@ -35,16 +31,17 @@ import static java.lang.String.format;
 class SpanProcessingThread implements Callable<Integer> {
 
     private static final Logger LOGGER = Logger.getLogger(SpanProcessingThread.class.getName());
-    private static final int MAX_SUBSEQUENT_EMPTY_BATCHES = 2;
+    /** How long to wait for a span when idle, before checking if we were stopped. */
+    private static final long IDLE_POLL_MILLIS = 1000;
 
     private final BlockingQueue<Span> queue;
     private final ScribeClientProvider clientProvider;
-    private final TProtocolFactory protocolFactory;
     private final SpanCollectorMetricsHandler metricsHandler;
     private volatile boolean stop = false;
     private int processedSpans = 0;
-    private final List<LogEntry> logEntries;
+    private final List<Span> batch;
     private final int maxBatchSize;
+    private final long maxLingerNanos;
 
     /**
      * Creates a new instance.
@@ -52,17 +49,19 @@ class SpanProcessingThread implements Callable<Integer> {
      * @param queue BlockingQueue that will provide spans.
      * @param clientProvider {@link ThriftClientProvider} that provides client used to submit spans to zipkin span collector.
      * @param maxBatchSize Max batch size. Indicates how many spans we submit to collector in 1 go.
+     * @param maxLingerMillis Max time a span waits for its batch to fill up.
      * @param metricsHandler Handler to be notified of span logging events.
      */
     public SpanProcessingThread(final BlockingQueue<Span> queue, final ScribeClientProvider clientProvider,
-        final int maxBatchSize, SpanCollectorMetricsHandler metricsHandler) {
+        final int maxBatchSize, final int maxLingerMillis, SpanCollectorMetricsHandler metricsHandler) {
         if (maxBatchSize <= 0) throw new IllegalArgumentException("maxBatchSize must be positive");
+        if (maxLingerMillis < 0) throw new IllegalArgumentException("maxLingerMillis must not be negative");
         this.queue = checkNotNull(queue, "Null queue");
         this.clientProvider = checkNotNull(clientProvider, "Null clientProvider");
         this.metricsHandler = checkNotNull(metricsHandler, "Null metricsHandler");
-        protocolFactory = new TBinaryProtocol.Factory();
         this.maxBatchSize = maxBatchSize;
-        logEntries = new ArrayList<LogEntry>(maxBatchSize);
+        this.maxLingerNanos = TimeUnit.MILLISECONDS.toNanos(maxLingerMillis);
+        batch = new ArrayList<Span>(maxBatchSize);
     }
 
     /**
@@ -78,67 +77,87 @@ class SpanProcessingThread implements Callable<Integer> {
     @Override
     public Integer call() {
 
-        int subsequentEmptyBatches = 0;
+        long lingerDeadline = 0;
         do {
 
             try {
-                final Span span = queue.poll(5, TimeUnit.SECONDS);
-                if (span == null) {
-                    subsequentEmptyBatches++;
-
-                } else {
-                    logEntries.add(create(span));
+                if (batch.isEmpty()) {
+                    final Span span = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (span == null) continue;
+                    batch.add(span);
+                    lingerDeadline = System.nanoTime() + maxLingerNanos;
                 }
 
-                if ((subsequentEmptyBatches >= MAX_SUBSEQUENT_EMPTY_BATCHES && !logEntries.isEmpty())
-                    || logEntries.size() >= maxBatchSize || (!logEntries.isEmpty() && stop)) {
-                    log(logEntries);
-                    logEntries.clear();
-                    subsequentEmptyBatches = 0;
+                drain(maxBatchSize - batch.size());
+                final long lingerNanos = lingerDeadline - System.nanoTime();
+                if (batch.size() < maxBatchSize && lingerNanos > 0 && !stop) {
+                    final Span span = queue.poll(lingerNanos, TimeUnit.NANOSECONDS);
+                    if (span != null) batch.add(span);
+                } else {
+                    flush();
                 }
             } catch (final Exception e) {
                 LOGGER.log(Level.WARNING, "Unexpected exception flushing spans", e);
             }
 
         } while (stop == false);
+
+        // Submit spans queued before we were stopped, but not those queued after.
+        try {
+            int remaining = queue.size();
+            do {
+                final int count = Math.min(remaining, maxBatchSize - batch.size());
+                drain(count);
+                remaining -= count;
+                if (!batch.isEmpty()) flush();
+            } while (remaining > 0);
+        } catch (final Exception e) {
+            LOGGER.log(Level.WARNING, "Unexpected exception flushing spans", e);
+        }
         return processedSpans;
     }
 
-    private void log(final List<LogEntry> logEntries) {
+    /** Moves up to max spans from the queue into the batch, without blocking. */
+    private void drain(final int max) {
+        if (max <= 0) return;
+        queue.drainTo(batch, max);
+    }
+
+    private void flush() {
+        log(batch);
+        batch.clear();
+    }
+
+    private void log(final List<Span> spans) {
         final long start = System.currentTimeMillis();
-        final boolean success = log(clientProvider.getClient(), logEntries);
-        processedSpans += logEntries.size();
+        final boolean success = log(clientProvider.getClient(), spans);
+        processedSpans += spans.size();
         if (success && LOGGER.isLoggable(Level.FINE)) {
             final long end = System.currentTimeMillis();
-            LOGGER.fine("Submitting " + logEntries.size() + " spans to service took " + (end - start) + "ms.");
+            LOGGER.fine("Submitting " + spans.size() + " spans to service took " + (end - start) + "ms.");
         }
     }
 
-    private boolean log(final Client client, final List<LogEntry> logEntries) {
+    private boolean log(final ScribeClient client, final List<Span> spans) {
         try {
-            client.Log(logEntries);
+            client.log(spans);
             return true;
         } catch (final TException e) {
             LOGGER.fine(format("Exception when trying to log Span.  Will retry: %s", e.getMessage()));
-            final Client newClient = clientProvider.exception(e);
+            final ScribeClient newClient = clientProvider.exception(e);
             if (newClient != null) {
                 LOGGER.fine("Got new client with new connection. Logging with new client.");
                 try {
-                    newClient.Log(logEntries);
+                    newClient.log(spans);
                     return true;
                 } catch (final TException e2) {
-                    LOGGER.log(Level.WARNING, "Logging spans failed. " + logEntries.size() + " spans are lost!", e2);
+                    LOGGER.log(Level.WARNING, "Logging spans failed. " + spans.size() + " spans are lost!", e2);
                 }
             } else {
-                LOGGER.warning("Logging spans failed (couldn't establish connection). " + logEntries.size() + " spans are lost!");
+                LOGGER.warning("Logging spans failed (couldn't establish connection). " + spans.size() + " spans are lost!");
             }
         }
-        metricsHandler.incrementDroppedSpans(logEntries.size());
+        metricsHandler.incrementDroppedSpans(spans.size());
         return false;
     }
-
-    private LogEntry create(final Span span) throws TException {
-        final String spanAsString = Base64.encode(SpanCodec.THRIFT.writeSpan(span));
-        return new LogEntry("zipkin", spanAsString);
-    }
 }
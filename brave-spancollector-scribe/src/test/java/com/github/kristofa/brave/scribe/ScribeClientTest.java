@@ -0,0 +1,86 @@
+package com.github.kristofa.brave.scribe;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import com.github.kristofa.brave.SpanId;
+import com.github.kristofa.brave.internal.InternalSpan;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.transport.TMemoryBuffer;
+import org.junit.Test;
+
+import com.twitter.zipkin.gen.BinaryAnnotation;
+import com.twitter.zipkin.gen.LogEntry;
+import com.twitter.zipkin.gen.Span;
+import com.twitter.zipkin.gen.SpanCodec;
+import com.twitter.zipkin.gen.scribe.Client;
+
+public class ScribeClientTest {
+    static {
+        InternalSpan.initializeInstanceForTests();
+    }
+
+    @Test
+    public void writesSameBytesAsGeneratedClient() throws Exception {
+        final List<Span> spans = Arrays.asList(span(1, 10), span(2, 200), span(3, 5000));
+
+        assertArrayEquals(generatedClientBytes(spans), scribeClientBytes(spans));
+    }
+
+    @Test
+    public void writesSameBytesAsGeneratedClient_afterBuffersGrowAndShrink() throws Exception {
+        final List<Span> spans = Arrays.asList(span(1, 10), span(2, ScribeClient.MAX_RETAINED_BUFFER), span(3, 10));
+
+        assertArrayEquals(generatedClientBytes(spans), scribeClientBytes(spans));
+    }
+
+    @Test
+    public void writesSameBytesAsGeneratedClient_empty() throws Exception {
+        final List<Span> spans = new ArrayList<>();
+
+        assertArrayEquals(generatedClientBytes(spans), scribeClientBytes(spans));
+    }
+
+    @Test
+    public void base64_allPaddingLengths() throws Exception {
+        for (int length = 0; length < 8; length++) {
+            final byte[] in = new byte[length];
+            for (int i = 0; i < length; i++) in[i] = (byte) (i * 97);
+            final byte[] out = new byte[Base64.encodedLength(length)];
+
+            final int written = Base64.encode(in, length, out);
+            assertEquals(out.length, written);
+            assertEquals(java.util.Base64.getEncoder().encodeToString(in), new String(out, "US-ASCII"));
+            assertEquals(java.util.Base64.getEncoder().encodeToString(in), Base64.encode(in));
+        }
+    }
+
+    static byte[] generatedClientBytes(final List<Span> spans) throws Exception {
+        final List<LogEntry> entries = new ArrayList<>();
+        for (final Span span : spans) {
+            entries.add(new LogEntry("zipkin", Base64.encode(SpanCodec.THRIFT.writeSpan(span))));
+        }
+        final TMemoryBuffer transport = new TMemoryBuffer(1024);
+        new Client(new TBinaryProtocol(transport)).send_Log(entries);
+        return Arrays.copyOf(transport.getArray(), transport.length());
+    }
+
+    static byte[] scribeClientBytes(final List<Span> spans) throws Exception {
+        final TMemoryBuffer transport = new TMemoryBuffer(1024);
+        new ScribeClient(new TBinaryProtocol(transport)).send(spans);
+        return Arrays.copyOf(transport.getArray(), transport.length());
+    }
+
+    static Span span(final long id, final int valueLength) {
+        final Span span = InternalSpan.instance.toSpan(SpanId.builder().traceId(id).spanId(id).build());
+        final char[] value = new char[valueLength];
+        Arrays.fill(value, 'a');
+        span.setName("get");
+        span.addToBinary_annotations(BinaryAnnotation.create("key", new String(value), null));
+        return span;
+    }
+}
@@ -1,10 +1,15 @@
 package com.github.kristofa.brave.scribe;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import com.github.kristofa.brave.SpanId;
 import com.github.kristofa.brave.internal.InternalSpan;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.thrift.transport.TTransportException;
 import org.junit.AfterClass;
@@ -89,4 +94,55 @@ public class ScribeSpanCollectorTest {
 
     }
 
+    @Test
+    public void testMaxLingerSubmitsPartialBatch() throws InterruptedException {
+        final ScribeSpanCollectorParams params = new ScribeSpanCollectorParams();
+        params.setBatchSize(100);
+        params.setMaxLingerMillis(50);
+
+        final ScribeSpanCollector scribeSpanCollector = new ScribeSpanCollector("localhost", PORT, params);
+        try {
+            scribeSpanCollector.collect(span);
+
+            final List<Span> received = new ArrayList<>();
+            final long deadline = System.currentTimeMillis() + 900; // less than the idle poll
+            while (received.isEmpty() && System.currentTimeMillis() < deadline) {
+                received.addAll(scribeServer.getReceivedSpans()); // drains
+                Thread.sleep(10);
+            }
+            assertEquals("Expect partial batch to be sent before close", 1, received.size());
+        } finally {
+            scribeSpanCollector.close();
+        }
+    }
+
+    @Test
+    public void testCollectFromManyThreadsWithShardedQueues() throws Exception {
+        final ScribeSpanCollectorParams params = new ScribeSpanCollectorParams();
+        params.setNrOfThreads(4);
+        params.setQueueSize(1000);
+        params.setBatchSize(10);
+
+        final ScribeSpanCollector scribeSpanCollector = new ScribeSpanCollector("localhost", PORT, params);
+        final ExecutorService producers = Executors.newFixedThreadPool(8);
+        try {
+            for (int i = 0; i < 8; i++) {
+                producers.execute(() -> {
+                    for (int j = 0; j < 100; j++) {
+                        scribeSpanCollector.collect(span);
+                    }
+                });
+            }
+            producers.shutdown();
+            assertTrue(producers.awaitTermination(5, TimeUnit.SECONDS));
+        } finally {
+            scribeSpanCollector.close();
+        }
+        assertEquals(800, scribeServer.getReceivedSpans().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeMaxLinger() {
+        new ScribeSpanCollectorParams().setMaxLingerMillis(-1);
+    }
 }
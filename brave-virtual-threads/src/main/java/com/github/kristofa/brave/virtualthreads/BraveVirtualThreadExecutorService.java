@@ -0,0 +1,80 @@
+package com.github.kristofa.brave.virtualthreads;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+
+/**
+ * {@link ExecutorService} for executors which start a thread per task, such as {@link
+ * Executors#newVirtualThreadPerTaskExecutor()}. Each task runs with the spans that were current when it was submitted.
+ *
+ * <p>Unlike {@link com.github.kristofa.brave.BraveExecutorService}, a task captures one reference to the submitting
+ * thread's spans, and {@link ScopedValueServerClientAndLocalSpanState#wrap(Runnable) binds} it while it runs. Nothing is
+ * copied into the new thread, and nothing is restored afterwards, as the binding ends with the task.
+ *
+ * <p>Experimental: requires Java 21 with {@code --enable-preview}, like {@link ScopedValueServerClientAndLocalSpanState}.
+ *
+ * @since 3.18
+ */
+public final class BraveVirtualThreadExecutorService extends AbstractExecutorService {
+
+  /** Runs each task in a new virtual thread. */
+  public static BraveVirtualThreadExecutorService create(
+      ScopedValueServerClientAndLocalSpanState state) {
+    return wrap(Executors.newVirtualThreadPerTaskExecutor(), state);
+  }
+
+  /** Runs each task with the delegate, which should start a thread per task. */
+  public static BraveVirtualThreadExecutorService wrap(ExecutorService delegate,
+      ScopedValueServerClientAndLocalSpanState state) {
+    return new BraveVirtualThreadExecutorService(checkNotNull(delegate, "delegate"),
+        checkNotNull(state, "state"));
+  }
+
+  final ExecutorService delegate;
+  final ScopedValueServerClientAndLocalSpanState state;
+
+  BraveVirtualThreadExecutorService(ExecutorService delegate,
+      ScopedValueServerClientAndLocalSpanState state) {
+    this.delegate = delegate;
+    this.state = state;
+  }
+
+  @Override public void execute(Runnable task) {
+    delegate.execute(state.wrap(task));
+  }
+
+  @Override public void shutdown() {
+    delegate.shutdown();
+  }
+
+  @Override public List<Runnable> shutdownNow() {
+    return delegate.shutdownNow();
+  }
+
+  @Override public boolean isShutdown() {
+    return delegate.isShutdown();
+  }
+
+  @Override public boolean isTerminated() {
+    return delegate.isTerminated();
+  }
+
+  @Override public boolean awaitTermination(long timeout, TimeUnit unit)
+      throws InterruptedException {
+    return delegate.awaitTermination(timeout, unit);
+  }
+
+  /** Closes the delegate, which waits for submitted tasks to complete. */
+  @Override public void close() {
+    delegate.close();
+  }
+
+  @Override public String toString() {
+    return "BraveVirtualThreadExecutorService{delegate=" + delegate + "}";
+  }
+}
@@ -0,0 +1,145 @@
+package com.github.kristofa.brave.virtualthreads;
+
+import com.github.kristofa.brave.NestedLocalSpanState;
+import com.github.kristofa.brave.ServerClientAndLocalSpanState;
+import com.github.kristofa.brave.ServerSpan;
+import com.github.kristofa.brave.internal.SpanScope;
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.util.concurrent.Callable;
+
+import static com.github.kristofa.brave.internal.Util.checkNotBlank;
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+
+/**
+ * {@link ServerClientAndLocalSpanState} which binds spans to the code that runs with them using a {@link ScopedValue},
+ * instead of copying them into every new thread like {@link
+ * com.github.kristofa.brave.InheritableServerClientAndLocalSpanState}. It supports nested local spans.
+ *
+ * <p>{@link #wrap(Runnable)} captures a reference to the current spans, and the wrapped task binds it on whichever
+ * thread runs it. {@link BraveVirtualThreadExecutorService} wraps every task this way. Subtasks forked in a {@link
+ * java.util.concurrent.StructuredTaskScope} inherit the binding, so they see the spans of the thread which forked them.
+ * Nothing is copied when a thread starts, so millions of virtual threads cost no more than their tasks' own spans.
+ *
+ * <p>Spans are held in immutable scopes, so a thread never changes the spans another thread sees. A thread running a
+ * wrapped task changes its spans in place. Other threads, such as forked subtasks which weren't wrapped, keep their
+ * changes in a thread local, which is removed once they are back to no spans.
+ *
+ * <p>Experimental: {@link ScopedValue} is a preview API in Java 21, so this requires Java 21 with {@code
+ * --enable-preview}, and won't load on later releases.
+ *
+ * @since 3.18
+ */
+public final class ScopedValueServerClientAndLocalSpanState
+    implements ServerClientAndLocalSpanState, NestedLocalSpanState {
+
+  final ScopedValue<Binding> binding = ScopedValue.newInstance();
+  /** Spans of a thread which doesn't own the binding it sees */
+  final ThreadLocal<Binding> unbound = new ThreadLocal<>();
+  final Endpoint endpoint;
+
+  /**
+   * @param endpoint Endpoint of the local service being traced.
+   */
+  public ScopedValueServerClientAndLocalSpanState(Endpoint endpoint) {
+    checkNotNull(endpoint, "Endpoint must be specified.");
+    checkNotBlank(endpoint.service_name, "Service name must be specified.");
+    this.endpoint = endpoint;
+  }
+
+  /** Returns a task which runs with the spans that are current now, on whichever thread runs it. */
+  public Runnable wrap(Runnable task) {
+    checkNotNull(task, "task");
+    SpanScope scope = currentScope();
+    return () -> ScopedValue.where(binding, new Binding(Thread.currentThread(), scope)).run(task);
+  }
+
+  /** Returns a task which calls this one with the spans that are current now, on whichever thread calls it. */
+  public <V> Callable<V> wrap(Callable<V> task) {
+    checkNotNull(task, "task");
+    SpanScope scope = currentScope();
+    return () -> ScopedValue.where(binding, new Binding(Thread.currentThread(), scope)).call(task);
+  }
+
+  /** Never returns null: {@code setCurrentServerSpan(null)} coerces to {@link ServerSpan#EMPTY} */
+  @Override public ServerSpan getCurrentServerSpan() {
+    return currentScope().serverSpan();
+  }
+
+  @Override public void setCurrentServerSpan(ServerSpan span) {
+    setScope(currentScope().withServerSpan(span));
+  }
+
+  @Override public Endpoint endpoint() {
+    return endpoint;
+  }
+
+  @Override public Span getCurrentClientSpan() {
+    return currentScope().clientSpan();
+  }
+
+  @Override public void setCurrentClientSpan(Span span) {
+    setScope(currentScope().withClientSpan(span));
+  }
+
+  @Override public Boolean sample() {
+    return getCurrentServerSpan().getSample();
+  }
+
+  @Override public Span getCurrentLocalSpan() {
+    return currentScope().localSpan();
+  }
+
+  /**
+   * Sets the specified local span as the active span at the top of the stack, or if the specified span is null, the top
+   * of the stack is popped.
+   *
+   * @param span Local span.
+   */
+  @Override public void setCurrentLocalSpan(Span span) {
+    SpanScope scope = currentScope();
+    SpanScope next = scope.withLocalSpan(span);
+    if (next != scope) setScope(next);
+  }
+
+  SpanScope currentScope() {
+    Binding bound = binding.orElse(null);
+    if (bound != null && bound.owner == Thread.currentThread()) return bound.scope;
+    Binding own = unbound.get();
+    if (own != null) return own.scope;
+    return bound != null ? bound.scope : SpanScope.EMPTY; // the scope of the thread which forked this one
+  }
+
+  void setScope(SpanScope scope) {
+    Thread thread = Thread.currentThread();
+    Binding bound = binding.orElse(null);
+    if (bound != null && bound.owner == thread) {
+      bound.scope = scope;
+      return;
+    }
+    Binding own = unbound.get();
+    if (own != null && bound == null && scope.isEmpty()) {
+      unbound.remove();
+    } else if (own != null) {
+      own.scope = scope;
+    } else {
+      unbound.set(new Binding(thread, scope));
+    }
+  }
+
+  @Override public String toString() {
+    return "ScopedValueServerClientAndLocalSpanState{endpoint=" + endpoint + ", currentScope="
+        + currentScope() + "}";
+  }
+
+  /** Spans a thread is running with. Only the owner changes them, though threads it forks read them. */
+  static final class Binding {
+    final Thread owner;
+    volatile SpanScope scope;
+
+    Binding(Thread owner, SpanScope scope) {
+      this.owner = owner;
+      this.scope = scope;
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package com.github.kristofa.brave.virtualthreads;
+
+import com.github.kristofa.brave.Brave;
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import zipkin.reporter.Reporter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BraveVirtualThreadExecutorServiceTest {
+  ScopedValueServerClientAndLocalSpanState state =
+      new ScopedValueServerClientAndLocalSpanState(Endpoint.create("service", 127 << 24 | 1));
+  Brave brave = new Brave.Builder(state).reporter(Reporter.NOOP).build();
+  BraveVirtualThreadExecutorService executor = BraveVirtualThreadExecutorService.create(state);
+  Span span;
+
+  @Before public void startSpan() {
+    brave.localTracer().startNewSpan("component", "operation");
+    span = state.getCurrentLocalSpan();
+  }
+
+  @After public void close() {
+    executor.close();
+  }
+
+  @Test public void tasks_seeSubmittingSpan() throws Exception {
+    List<Future<Span>> futures = new ArrayList<>();
+    for (int i = 0; i < 10000; i++) {
+      futures.add(executor.submit(state::getCurrentLocalSpan));
+    }
+
+    for (Future<Span> future : futures) {
+      assertThat(future.get()).isSameAs(span);
+    }
+  }
+
+  @Test public void tasks_seeSpanCurrentWhenSubmitted() throws Exception {
+    Future<Span> first = executor.submit(state::getCurrentLocalSpan);
+    brave.localTracer().startNewSpan("component", "child");
+    Future<Span> second = executor.submit(state::getCurrentLocalSpan);
+
+    assertThat(first.get()).isSameAs(span);
+    assertThat(second.get()).isSameAs(state.getCurrentLocalSpan()).isNotSameAs(span);
+  }
+
+  @Test public void localSpansStartedInTasks_areChildrenOfSubmittingSpan() throws Exception {
+    List<zipkin.Span> spans = new ArrayList<>();
+    Brave brave = new Brave.Builder(state).reporter(s -> {
+      synchronized (spans) {
+        spans.add(s);
+      }
+    }).build();
+
+    executor.submit(() -> {
+      brave.localTracer().startNewSpan("component", "task");
+      brave.localTracer().finishSpan();
+    }).get();
+
+    assertThat(spans).hasSize(1);
+    assertThat(spans.get(0).parentId).isEqualTo(span.getId());
+  }
+}
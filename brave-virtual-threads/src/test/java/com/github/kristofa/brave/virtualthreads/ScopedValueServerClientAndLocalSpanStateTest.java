@@ -0,0 +1,119 @@
+package com.github.kristofa.brave.virtualthreads;
+
+import com.github.kristofa.brave.Brave;
+import com.github.kristofa.brave.ServerSpan;
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.concurrent.StructuredTaskScope.Subtask;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class ScopedValueServerClientAndLocalSpanStateTest {
+  static final Endpoint ENDPOINT = Endpoint.create("service", 127 << 24 | 1);
+
+  ScopedValueServerClientAndLocalSpanState state =
+      new ScopedValueServerClientAndLocalSpanState(ENDPOINT);
+  ServerSpan mockServerSpan = mock(ServerSpan.class);
+  Span mockSpan = mock(Span.class);
+  Span mockSpan2 = mock(Span.class);
+
+  @Test(expected = IllegalArgumentException.class)
+  public void serviceNameRequired() {
+    new ScopedValueServerClientAndLocalSpanState(Endpoint.create("", 127 << 24 | 1));
+  }
+
+  @Test public void setCurrentServerSpanNullRevertsToEmpty() {
+    state.setCurrentServerSpan(mockServerSpan);
+    state.setCurrentServerSpan(null);
+
+    assertThat(state.getCurrentServerSpan()).isEqualTo(ServerSpan.EMPTY);
+  }
+
+  @Test public void localSpansNest() {
+    state.setCurrentLocalSpan(mockSpan);
+    state.setCurrentLocalSpan(mockSpan2);
+    assertThat(state.getCurrentLocalSpan()).isSameAs(mockSpan2);
+
+    state.setCurrentLocalSpan(null);
+    assertThat(state.getCurrentLocalSpan()).isSameAs(mockSpan);
+    state.setCurrentLocalSpan(null);
+    assertThat(state.getCurrentLocalSpan()).isNull();
+  }
+
+  /** A thread which runs no wrapped task keeps its spans in a thread local, until it has none. */
+  @Test public void unboundThread_removesThreadLocalWhenEmpty() {
+    state.setCurrentServerSpan(mockServerSpan);
+    state.setCurrentLocalSpan(mockSpan);
+    assertThat(state.unbound.get()).isNotNull();
+
+    state.setCurrentLocalSpan(null);
+    state.setCurrentServerSpan(null);
+    assertThat(state.unbound.get()).isNull();
+  }
+
+  @Test public void wrappedTask_runsWithSpansOfWrappingThread() throws Exception {
+    state.setCurrentLocalSpan(mockSpan);
+    Runnable task = state.wrap(() -> {
+      assertThat(state.getCurrentLocalSpan()).isSameAs(mockSpan);
+      state.setCurrentLocalSpan(mockSpan2); // doesn't reach the wrapping thread
+      assertThat(state.getCurrentLocalSpan()).isSameAs(mockSpan2);
+    });
+    state.setCurrentLocalSpan(null); // the wrapping thread moves on
+
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    AtomicReference<Span> after = new AtomicReference<>();
+    Thread thread = Thread.ofVirtual().start(() -> {
+      try {
+        task.run();
+        after.set(state.getCurrentLocalSpan());
+      } catch (Throwable t) {
+        failure.set(t);
+      }
+    });
+    thread.join();
+
+    assertThat(failure.get()).isNull();
+    assertThat(after.get()).isNull(); // the binding ended with the task
+    assertThat(state.getCurrentLocalSpan()).isNull();
+    assertThat(state.unbound.get()).isNull(); // the wrapped task didn't use a thread local
+  }
+
+  @Test public void forkedSubtasks_seeSpansOfForkingThread() throws Exception {
+    state.wrap(() -> {
+      state.setCurrentLocalSpan(mockSpan);
+      try (StructuredTaskScope.ShutdownOnFailure scope = new StructuredTaskScope.ShutdownOnFailure()) {
+        Subtask<Span> seen = scope.fork(state::getCurrentLocalSpan);
+        Subtask<Span> changed = scope.fork(() -> {
+          state.setCurrentLocalSpan(mockSpan2);
+          return state.getCurrentLocalSpan();
+        });
+        scope.join().throwIfFailed();
+
+        assertThat(seen.get()).isSameAs(mockSpan);
+        assertThat(changed.get()).isSameAs(mockSpan2);
+      }
+      // the subtask's change didn't reach the forking thread
+      assertThat(state.getCurrentLocalSpan()).isSameAs(mockSpan);
+      return null;
+    }).call();
+  }
+
+  @Test public void brave_nestsLocalSpans() {
+    List<zipkin.Span> spans = new CopyOnWriteArrayList<>();
+    Brave brave = new Brave.Builder(state).reporter(spans::add).build();
+
+    brave.localTracer().startNewSpan("component", "parent");
+    brave.localTracer().startNewSpan("component", "child");
+    brave.localTracer().finishSpan();
+    brave.localTracer().finishSpan();
+
+    assertThat(spans).hasSize(2);
+    assertThat(spans.get(0).parentId).isEqualTo(spans.get(1).id);
+  }
+}
@@ -0,0 +1,103 @@
+package com.github.kristofa.brave.virtualthreads;
+
+import com.github.kristofa.brave.Brave;
+import com.github.kristofa.brave.InheritableServerClientAndLocalSpanState;
+import com.github.kristofa.brave.ScopedServerClientAndLocalSpanState;
+import com.github.kristofa.brave.ServerClientAndLocalSpanState;
+import com.twitter.zipkin.gen.Endpoint;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import zipkin.reporter.Reporter;
+
+/**
+ * Starts a million virtual threads, each reading the local span of the thread that started it, while that thread is
+ * inside nested local spans. Scores are per virtual thread. Run with {@code -prof gc} to compare memory allocated per
+ * thread.
+ *
+ * <p>Each state is measured in its own fork, so threads only inherit the thread locals of the state measured. Run
+ * {@link #main(String[])} from the test classpath, with Java 21 and {@code --enable-preview}.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class VirtualThreadBenchmarks {
+  static final int THREADS = 1_000_000;
+  static final Endpoint ENDPOINT = Endpoint.create("app", 172 << 24 | 17 << 16 | 3, 8080);
+
+  /**
+   * inheritable copies the stack of local spans into each thread, scoped inherits a reference to the current scope, and
+   * scopedValue inherits nothing: each task binds a reference to the current scope.
+   */
+  @Param({"inheritable", "scoped", "scopedValue"})
+  String state;
+
+  ServerClientAndLocalSpanState spanState;
+
+  @Setup public void startSpans() {
+    switch (state) {
+      case "inheritable":
+        spanState = new InheritableServerClientAndLocalSpanState(ENDPOINT);
+        break;
+      case "scoped":
+        spanState = new ScopedServerClientAndLocalSpanState(ENDPOINT);
+        break;
+      case "scopedValue":
+        spanState = new ScopedValueServerClientAndLocalSpanState(ENDPOINT);
+        break;
+      default:
+        throw new AssertionError(state);
+    }
+    Brave brave = new Brave.Builder(spanState).reporter(Reporter.NOOP).build();
+    brave.serverTracer().setStateCurrentTrace(1L, 2L, null, "get");
+    for (int i = 0; i < 3; i++) {
+      brave.localTracer().startNewSpan("component", "operation" + i);
+    }
+  }
+
+  @Benchmark @OperationsPerInvocation(THREADS) public void startVirtualThreads() {
+    try (ExecutorService executor = newExecutor()) {
+      for (int i = 0; i < THREADS; i++) {
+        executor.execute(spanState::getCurrentLocalSpan);
+      }
+    } // waits for all threads to complete
+  }
+
+  ExecutorService newExecutor() {
+    ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    if (spanState instanceof ScopedValueServerClientAndLocalSpanState) {
+      return BraveVirtualThreadExecutorService.wrap(executor,
+          (ScopedValueServerClientAndLocalSpanState) spanState);
+    }
+    return executor; // the state is inherited
+  }
+
+  // Convenience main entry-point
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(".*" + VirtualThreadBenchmarks.class.getSimpleName() + ".*")
+        .addProfiler("gc")
+        .build();
+
+    new Runner(opt).run();
+  }
+}
@@ -4,6 +4,7 @@ import com.github.kristofa.brave.Brave;
 import com.github.kristofa.brave.ServerRequestInterceptor;
 import com.github.kristofa.brave.ServerResponseInterceptor;
 import com.github.kristofa.brave.http.DefaultSpanNameProvider;
+import com.github.kristofa.brave.http.HttpRuleSampler;
 import com.github.kristofa.brave.http.HttpServerRequestAdapter;
 import com.github.kristofa.brave.http.HttpServerResponseAdapter;
 import com.github.kristofa.brave.http.SpanNameProvider;
@@ -42,6 +43,7 @@ public class BraveServletFilter implements Filter {
     public static final class Builder {
         final Brave brave;
         SpanNameProvider spanNameProvider = new DefaultSpanNameProvider();
+        HttpRuleSampler sampler;
 
         Builder(Brave brave) { // intentionally hidden
             this.brave = checkNotNull(brave, "brave");
@@ -52,6 +54,15 @@ public class BraveServletFilter implements Filter {
             return this;
         }
 
+        /**
+         * Rules consulted before tracing a request the caller didn't make a sampling decision for.
+         * Defaults to none, which defers to Brave's sampler.
+         */
+        public Builder sampler(HttpRuleSampler sampler) {
+            this.sampler = checkNotNull(sampler, "sampler");
+            return this;
+        }
+
         public BraveServletFilter build() {
             return new BraveServletFilter(this);
         }
@@ -60,6 +71,8 @@ public class BraveServletFilter implements Filter {
     private final ServerRequestInterceptor requestInterceptor;
     private final ServerResponseInterceptor responseInterceptor;
     private final SpanNameProvider spanNameProvider;
+    @Nullable
+    private final HttpRuleSampler sampler;
     @Nullable // while deprecated constructor is in use
     private final MaybeAddClientAddressFromRequest maybeAddClientAddressFromRequest;
 
@@ -69,6 +82,7 @@ public class BraveServletFilter implements Filter {
         this.requestInterceptor = b.brave.serverRequestInterceptor();
         this.responseInterceptor = b.brave.serverResponseInterceptor();
         this.spanNameProvider = b.spanNameProvider;
+        this.sampler = b.sampler;
         this.maybeAddClientAddressFromRequest = MaybeAddClientAddressFromRequest.create(b.brave);
     }
 
@@ -80,6 +94,7 @@ public class BraveServletFilter implements Filter {
         this.requestInterceptor = requestInterceptor;
         this.responseInterceptor = responseInterceptor;
         this.spanNameProvider = spanNameProvider;
+        this.sampler = null;
         this.maybeAddClientAddressFromRequest = null;
     }
 
@@ -102,7 +117,7 @@ public class BraveServletFilter implements Filter {
 
             HttpServletRequest httpRequest = (HttpServletRequest) request;
             final StatusExposingServletResponse statusExposingServletResponse = new StatusExposingServletResponse((HttpServletResponse) response);
-            requestInterceptor.handle(new HttpServerRequestAdapter(new ServletHttpServerRequest(httpRequest), spanNameProvider));
+            requestInterceptor.handle(new HttpServerRequestAdapter(new ServletHttpServerRequest(httpRequest), spanNameProvider, sampler));
 
             if (maybeAddClientAddressFromRequest != null) {
                 maybeAddClientAddressFromRequest.accept(httpRequest);